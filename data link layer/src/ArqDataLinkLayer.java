@@ -0,0 +1,953 @@
+// =============================================================================
+// IMPORTS
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * A data link layer that delivers reliably over a lossy medium by automatic
+ * repeat request (ARQ).  Data is divided into frames, each numbered with a
+ * one-byte sequence number and protected by a CRC-32C, and a frame whose CRC
+ * does not match is discarded.  The receiver answers data frames with
+ * acknowledgement (ACK) and negative acknowledgement (NAK) frames, sent back
+ * through its own physical layer, and the sender retransmits any frame that
+ * is not acknowledged before its timer expires.  Up to a window of frames may
+ * be outstanding at once, so that the link is not idle for a round trip
+ * after each frame.  How the window is retransmitted and how out-of-order
+ * frames are treated is left to subclasses.
+ *
+ * Every frame is start tag, then the stuffed type, sequence number, payload,
+ * and CRC, then stop tag.  An ACK carries the sequence number of the frame
+ * that it acknowledges, and as its payload the sequence number that the
+ * receiver expects next, which acknowledges every frame before it.  A NAK
+ * carries the sequence number of a frame that the receiver is missing, and
+ * as its payload that of the later frame whose arrival revealed the gap.
+ * The receiver NAKs every frame that arrives beyond a gap, and the sender
+ * acts only on a NAK revealed by a frame sent after the missing frame was
+ * last sent, so that a retransmission that is lost again is soon NAKed
+ * again, while the NAKs prompted by frames already in flight are ignored.
+ *
+ * The timer is adaptive: each acknowledgement that slides the window past a
+ * frame sent only once is a sample of the round-trip time, and the timeout
+ * is the smoothed round trip plus four times its mean deviation, as in TCP,
+ * but at least a quarter of the round trip more, kept between a floor and
+ * the configured timeout.  The floor is the medium's, unless the configured
+ * timeout is shorter: on the wall clock, 20 ms, to stay above the pauses that
+ * thread scheduling and garbage collection put into a round trip, which would
+ * otherwise expire timers on a lossless link, and in simulated time, none.
+ * The default configured timeout is ten times the wall-clock floor, so that
+ * a fast link soon settles well below it.  Timers and round trips are measured on the medium's clock,
+ * so that on a medium in simulated time they are simulated too, and a run
+ * is repeatable.
+ *
+ * <code>send()</code> blocks until all of its frames are acknowledged, and
+ * the sender's state is guarded by this object's monitor, which is never held
+ * while transmitting, because the acknowledgements may arrive, on the same or
+ * another thread, before the transmission returns.  The receiving side is
+ * not locked, so deliveries into one layer must not overlap.  That holds for
+ * traffic in one direction on any medium, and for traffic in both directions
+ * on <code>PipelinedMedium</code>, which delivers to each client on its own
+ * thread; a medium that delivers on the sending thread would instead run both
+ * directions' deliveries into each layer at once.  The link is point to
+ * point: on a medium shared by more hosts, every other host would take the
+ * frames as its own.
+ *
+ * @file   ArqDataLinkLayer.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public abstract class ArqDataLinkLayer extends DataLinkLayer {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a layer.
+     *
+     * @param windowSize    The most frames that may be outstanding at once.
+     * @param frameSize     The most data bytes carried by each frame.
+     * @param timeoutMillis The longest time to await an acknowledgement
+     *                      before retransmitting, and the timeout used
+     *                      before any round trip has been measured.
+     * @param maxWindowSize The largest window that the subclass's use of
+     *                      sequence numbers allows.
+     * @throws RuntimeException if any size or the timeout is out of range.
+     */
+    protected ArqDataLinkLayer (int  windowSize,
+				int  frameSize,
+				long timeoutMillis,
+				int  maxWindowSize) {
+
+	if (windowSize <= 0 || windowSize > maxWindowSize) {
+	    throw new RuntimeException("Window size must be between 1 and " +
+				       maxWindowSize);
+	}
+	if (frameSize <= 0) {
+	    throw new RuntimeException("Frame size must be positive");
+	}
+	if (timeoutMillis <= 0) {
+	    throw new RuntimeException("Timeout must be positive");
+	}
+	this.windowSize      = windowSize;
+	this.frameSize       = frameSize;
+	this.maxTimeout      = timeoutMillis * NANOS_PER_MILLI;
+	this.timeout         = maxTimeout;
+	this.sentAt          = new long[windowSize];
+	this.transmissions   = new int[windowSize];
+	this.sendOrder       = new long[windowSize];
+	this.acked           = new boolean[windowSize];
+	this.sendLock        = new Object();
+	this.sendChecksum    = new CRC32C();
+	this.receiveChecksum = new CRC32C();
+	this.dataBuffer      = ByteBuffer.allocate(maxFrameLength(frameSize));
+	this.controlBuffer   = ByteBuffer.allocate(maxFrameLength(1));
+	this.controlPayload  = new byte[1];
+	this.decoder         = new StuffedFrameDecoder(startTag,
+						       stopTag,
+						       escapeTag,
+						       HEADER_SIZE + frameSize + CRC_SIZE);
+
+    } // ArqDataLinkLayer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send part of a sequence of bytes reliably, returning once every frame
+     * has been acknowledged.  Concurrent calls are sent one after another.
+     *
+     * @param data   The array holding the bytes to send.
+     * @param offset The index of the first byte to send.
+     * @param length The number of bytes to send.
+     * @throws RuntimeException if a frame goes unacknowledged through too
+     *                          many attempts, or if the thread is interrupted.
+     */
+    public void send (byte[] data, int offset, int length) {
+
+	payloadBytesSent.add(length);
+	synchronized (sendLock) {
+
+	    synchronized (this) {
+		source       = data;
+		sourceOffset = offset;
+		sourceLength = length;
+		frameCount   = Math.max(1, (length + frameSize - 1) / frameSize);
+		base         = 0;
+		sent         = 0;
+		baseAttempts = 0;
+		Arrays.fill(acked, false);
+		startSending();
+	    }
+
+	    try {
+		for (int frame = nextFrame(); frame >= 0; frame = nextFrame()) {
+		    transmitData(frame);
+		}
+	    } finally {
+		synchronized (this) {
+		    firstSequence += frameCount;
+		    source         = null;
+		    frameCount     = 0;
+		    base           = 0;
+		    sent           = 0;
+		}
+	    }
+
+	}
+
+    } // send ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** @return the number of data frames transmitted, including repeats. */
+    public synchronized long getFramesSent () {
+
+	return dataTransmissions;
+
+    } // getFramesSent ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** @return the number of repeated transmissions of data frames. */
+    public synchronized long getRetransmissions () {
+
+	return retransmissions;
+
+    } // getRetransmissions ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the current timeout, in nanoseconds on the medium's clock: the
+     *         configured one until a round trip has been measured, and the
+     *         adaptive one after.
+     */
+    public synchronized long getTimeout () {
+
+	return timeout;
+
+    } // getTimeout ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** @return the number of received frames discarded as damaged. */
+    public long getDamagedFrames () {
+
+	return damagedFrames;
+
+    } // getDamagedFrames ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Embed a raw sequence of bytes into a lone data frame, numbered zero.
+     * Unused by <code>send()</code>, which numbers its own frames.
+     *
+     * @param  data The raw sequence of bytes to be framed.
+     * @return A complete frame.
+     */
+    protected byte[] createFrame (byte[] data) {
+
+	ByteBuffer framedData = ByteBuffer.allocate(maxFrameLength(data.length));
+	frame(DATA, 0, data, 0, data.length, sendChecksum, framedData);
+	return Arrays.copyOf(framedData.array(), framedData.position());
+
+    } // createFrame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Examine the received, buffered data for complete, intact frames.  ACK
+     * and NAK frames update the sender's window; data frames are handed to
+     * the subclass, which decides what to deliver.
+     *
+     * @return If the buffer completes a data frame that makes data
+     * deliverable, that data; <code>null</code> otherwise.
+     */
+    protected byte[] processFrame () {
+
+	while (!byteBuffer.isEmpty()) {
+
+	    int result = decoder.consume(byteBuffer.remove());
+	    if (result != StuffedFrameDecoder.FRAME_COMPLETE) {
+		if (result == StuffedFrameDecoder.BYTE_DISCARDED) {
+		    discard(1);
+		} else if (result == StuffedFrameDecoder.FRAME_RESTARTED) {
+		    damagedFrames += 1;
+		    dropFrame(truncatedFrames);
+		} else if (result == StuffedFrameDecoder.FRAME_OVERSIZED) {
+		    damagedFrames += 1;
+		    dropFrame(oversizeFrames);
+		}
+		continue;
+	    }
+
+	    // Check the frame's CRC.
+	    byte[] frame         = decoder.data();
+	    int    payloadLength = decoder.length() - HEADER_SIZE - CRC_SIZE;
+	    if (payloadLength < 0) {
+		damagedFrames += 1;
+		dropFrame(malformedFrames);
+		continue;
+	    }
+	    long received = 0;
+	    for (int i = decoder.length() - CRC_SIZE; i < decoder.length(); i += 1) {
+		received = (received << 8) | (frame[i] & 0xff);
+	    }
+	    receiveChecksum.reset();
+	    receiveChecksum.update(frame, 0, HEADER_SIZE + payloadLength);
+	    if (receiveChecksum.getValue() != received) {
+		damagedFrames += 1;
+		dropFrame(checksumMismatches);
+		continue;
+	    }
+
+	    int type     = frame[0];
+	    int sequence = frame[1] & 0xff;
+	    if (type == DATA) {
+		byte[] deliverable = accept(sequence,
+					    frame,
+					    HEADER_SIZE,
+					    payloadLength);
+		if (deliverable != null) {
+		    return deliverable;
+		}
+	    } else if (type == ACK && payloadLength == 1) {
+		synchronized (this) {
+		    if (source != null) {
+			acknowledged(sequence, frame[HEADER_SIZE] & 0xff);
+			notifyAll();
+		    }
+		}
+	    } else if (type == NAK && payloadLength == 1) {
+		synchronized (this) {
+		    if (source != null) {
+			negativelyAcknowledged(sequence, frame[HEADER_SIZE] & 0xff);
+			notifyAll();
+		    }
+		}
+	    } else {
+		damagedFrames += 1;
+		dropFrame(malformedFrames);
+	    }
+
+	}
+
+	return null;
+
+    } // processFrame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Prepare for a new call to <code>send()</code>.  Called with the monitor
+     * held, after the window has been reset.
+     */
+    abstract protected void startSending ();
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Choose the next frame to transmit, if any: a frame whose timer has
+     * expired, or a new frame if the window has room.  Called with the
+     * monitor held.
+     *
+     * @param  now The current time, on the medium's clock.
+     * @return the index of the frame to transmit, or <code>-1</code> to wait
+     *         for an acknowledgement or a timer.
+     */
+    abstract protected int selectFrame (long now);
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Handle an ACK.  Called with the monitor held, while sending.
+     *
+     * @param sequence The sequence number of the frame acknowledged.
+     * @param expected The sequence number that the receiver expects next.
+     */
+    abstract protected void acknowledged (int sequence, int expected);
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Handle a NAK.  Called with the monitor held, while sending.
+     *
+     * @param sequence The sequence number of the frame that is missing.
+     * @param revealer The sequence number of the frame whose arrival revealed
+     *                 the gap.
+     */
+    abstract protected void negativelyAcknowledged (int sequence, int revealer);
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Handle an intact data frame, sending any ACK or NAK for it.  Called on
+     * the receiving thread.
+     *
+     * @param  sequence The frame's sequence number.
+     * @param  frame    The array holding the frame's payload, which is reused
+     *                  once this method returns.
+     * @param  offset   The index of the first byte of the payload.
+     * @param  length   The number of bytes of payload.
+     * @return the data that may now be delivered in order, or
+     *         <code>null</code> if none.
+     */
+    abstract protected byte[] accept (int    sequence,
+				      byte[] frame,
+				      int    offset,
+				      int    length);
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the number of data frames accepted in order so far, which is
+     *         the number of the next one expected.  Called on the receiving
+     *         thread.
+     */
+    abstract protected long framesAccepted ();
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Tell the medium the number of each frame in the data being delivered.
+     * Frames are numbered by their place in order, as the sender numbers
+     * them, so a run of frames delivered at once is reported frame by frame,
+     * and a frame repeated or dropped along the way does not shift the
+     * numbers.
+     *
+     * @param medium The medium to tell.
+     */
+    protected void reportDelivered (Medium medium) {
+
+	long accepted = framesAccepted();
+	for (; framesReported < accepted; framesReported += 1) {
+	    medium.frameDelivered(physicalLayer, framesReported);
+	}
+
+    } // reportDelivered ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send an ACK or a NAK.  Called on the receiving thread.
+     *
+     * @param type     <code>ACK</code> or <code>NAK</code>.
+     * @param sequence The sequence number of the frame acknowledged, or of
+     *                 the frame missing.
+     * @param other    For an ACK, the sequence number expected next; for a
+     *                 NAK, that of the frame that revealed the gap.
+     */
+    protected final void sendControl (int type, int sequence, int other) {
+
+	controlPayload[0] = (byte)other;
+	controlBuffer.clear();
+	frame(type,
+	      sequence,
+	      controlPayload,
+	      0,
+	      controlPayload.length,
+	      receiveChecksum,
+	      controlBuffer);
+	transmit(controlBuffer.array(), controlBuffer.position());
+
+    } // sendControl ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  frame The index of a frame of the current send.
+     * @return its sequence number.
+     */
+    protected final int sequenceOf (int frame) {
+
+	return (int)((firstSequence + frame) & SEQUENCE_MASK);
+
+    } // sequenceOf ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the outstanding frame with a given sequence number.  Called with
+     * the monitor held.
+     *
+     * @param  sequence A sequence number.
+     * @return the index of the frame that has been sent but is not yet
+     *         cumulatively acknowledged, or <code>-1</code> if none.
+     */
+    protected final int frameOf (int sequence) {
+
+	int distance = (sequence - sequenceOf(base)) & SEQUENCE_MASK;
+	return distance < sent - base ? base + distance : -1;
+
+    } // frameOf ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Apply a cumulative acknowledgement, sliding the window past every frame
+     * before the one that the receiver expects next.  Called with the monitor
+     * held.
+     *
+     * @param expected The sequence number that the receiver expects next.
+     */
+    protected final void acknowledgeThrough (int expected) {
+
+	int distance = (expected - sequenceOf(base)) & SEQUENCE_MASK;
+	if (distance == 0 || distance > sent - base) {
+	    return;
+	}
+	sampleRoundTrip(base + distance - 1);
+	slideTo(base + distance);
+
+    } // acknowledgeThrough ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record that one outstanding frame has been acknowledged, sliding the
+     * window if it is the oldest, which alone gives a round-trip sample.
+     * Called with the monitor held.
+     *
+     * @param frame The index of the frame.
+     */
+    protected final void acknowledgeFrame (int frame) {
+
+	int slot = frame % windowSize;
+	if (!acked[slot]) {
+	    acked[slot] = true;
+	    if (frame == base) {
+		sampleRoundTrip(frame);
+	    }
+	}
+	int newBase = base;
+	while (newBase < sent && acked[newBase % windowSize]) {
+	    newBase += 1;
+	}
+	slideTo(newBase);
+
+    } // acknowledgeFrame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  frame The index of an outstanding frame.
+     * @return whether the frame has been individually acknowledged.
+     */
+    protected final boolean isAcknowledged (int frame) {
+
+	return acked[frame % windowSize];
+
+    } // isAcknowledged ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  frame The index of an outstanding frame.
+     * @param  other The index of another outstanding frame.
+     * @return whether the frame was last transmitted after the other was.
+     */
+    protected final boolean sentAfter (int frame, int other) {
+
+	return sendOrder[frame % windowSize] > sendOrder[other % windowSize];
+
+    } // sentAfter ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  frame The index of an outstanding frame.
+     * @param  now   The current time, on the medium's clock.
+     * @return whether the frame's timer has expired.
+     */
+    protected final boolean isExpired (int frame, long now) {
+
+	return now - (sentAt[frame % windowSize] + timeout) >= 0;
+
+    } // isExpired ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Expire an outstanding frame's timer, so that it is retransmitted at
+     * once.  Called with the monitor held.
+     *
+     * @param frame The index of the frame.
+     */
+    protected final void expire (int frame) {
+
+	// Count an extra transmission, so that an acknowledgement arriving
+	// before the retransmission gives no round-trip sample.
+	sentAt[frame % windowSize] = physicalLayer.getMedium().now() - timeout;
+	transmissions[frame % windowSize] += 1;
+
+    } // expire ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Wait until some frame should be transmitted.
+     *
+     * @return the index of the frame to transmit, or <code>-1</code> once
+     *         every frame has been acknowledged.
+     * @throws RuntimeException if the oldest frame has been sent too many
+     *                          times, or if the thread is interrupted.
+     */
+    private synchronized int nextFrame () {
+
+	Medium medium = physicalLayer.getMedium();
+	while (base < frameCount) {
+
+	    long now   = medium.now();
+	    int  frame = selectFrame(now);
+	    if (frame >= 0) {
+
+		int slot = frame % windowSize;
+		if (frame < sent) {
+		    retransmissions     += 1;
+		    transmissions[slot] += 1;
+		} else {
+		    sent                = frame + 1;
+		    transmissions[slot] = 1;
+		    frameSent(Math.min(frameSize,
+				       sourceLength - frame * frameSize));
+		}
+		if (frame == base && ++baseAttempts > MAX_ATTEMPTS) {
+		    throw new RuntimeException("No acknowledgement after " +
+					       MAX_ATTEMPTS + " attempts");
+		}
+		sentAt[slot]       = now;
+		dataTransmissions += 1;
+		sendOrder[slot]    = dataTransmissions;
+		return frame;
+
+	    }
+
+	    // A medium that runs in simulated time delivers only when
+	    // asked, so let it carry the outstanding frames and their
+	    // acknowledgements along before sleeping.
+	    if (medium.advance()) {
+		continue;
+	    }
+
+	    // Find when the earliest timer expires.  With nothing in
+	    // flight, a medium in simulated time can move straight there;
+	    // otherwise, sleep until then, or until an acknowledgement
+	    // arrives.
+	    long wake = now + timeout;
+	    for (int f = base; f < sent; f += 1) {
+		if (!acked[f % windowSize] && sentAt[f % windowSize] + timeout - wake < 0) {
+		    wake = sentAt[f % windowSize] + timeout;
+		}
+	    }
+	    if (medium.advanceTo(wake)) {
+		continue;
+	    }
+	    long delay = Math.max(wake - now, 1);
+	    try {
+		wait(delay / NANOS_PER_MILLI, (int)(delay % NANOS_PER_MILLI));
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+		throw new RuntimeException("Interrupted awaiting acknowledgement");
+	    }
+
+	}
+
+	return -1;
+
+    } // nextFrame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Frame and transmit one data frame of the current send.
+     *
+     * @param frame The index of the frame.
+     */
+    private void transmitData (int frame) {
+
+	int start  = sourceOffset + frame * frameSize;
+	int length = Math.min(frameSize, sourceOffset + sourceLength - start);
+	dataBuffer.clear();
+	frame(DATA,
+	      sequenceOf(frame),
+	      source,
+	      start,
+	      length,
+	      sendChecksum,
+	      dataBuffer);
+	transmit(dataBuffer.array(), dataBuffer.position());
+
+    } // transmitData ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Slide the window forward, so that the given frame is the oldest
+     * outstanding.
+     *
+     * @param newBase The index of the new oldest outstanding frame.
+     */
+    private void slideTo (int newBase) {
+
+	if (newBase == base) {
+	    return;
+	}
+	for (int f = base; f < newBase; f += 1) {
+	    acked[f % windowSize] = false;
+	}
+	base         = newBase;
+	baseAttempts = 0;
+
+    } // slideTo ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Update the timeout from the round trip of a newly acknowledged frame.
+     * A frame sent more than once gives no sample, since the acknowledgement
+     * cannot be matched to one transmission (Karn's algorithm).
+     *
+     * @param frame The index of the frame.
+     */
+    private void sampleRoundTrip (int frame) {
+
+	int slot = frame % windowSize;
+	if (transmissions[slot] != 1) {
+	    return;
+	}
+	Medium medium = physicalLayer.getMedium();
+	long   sample = medium.now() - sentAt[slot];
+	if (smoothedRoundTrip == 0) {
+	    smoothedRoundTrip = sample;
+	    roundTripDeviation = sample / 2;
+	} else {
+	    roundTripDeviation = (3 * roundTripDeviation +
+				  Math.abs(smoothedRoundTrip - sample)) / 4;
+	    smoothedRoundTrip  = (7 * smoothedRoundTrip + sample) / 8;
+	}
+	// A round trip that never varies, as in simulated time, still needs
+	// some margin, or an acknowledgement would tie with its timer.
+	long margin = Math.max(4 * roundTripDeviation, smoothedRoundTrip / 4);
+	timeout = Math.max(Math.min(medium.minimumTimeout(), maxTimeout),
+			   Math.min(maxTimeout,
+				    smoothedRoundTrip + margin));
+
+    } // sampleRoundTrip ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write a complete frame, counting the escape tags it needs.
+     *
+     * @param type     The frame's type.
+     * @param sequence The frame's sequence number.
+     * @param src      The array holding the payload.
+     * @param offset   The index of the first byte of the payload.
+     * @param length   The number of bytes of payload.
+     * @param checksum The checksum with which to compute the CRC.
+     * @param dst      The buffer into which to write the frame.
+     */
+    private void frame (int        type,
+			int        sequence,
+			byte[]     src,
+			int        offset,
+			int        length,
+			Checksum   checksum,
+			ByteBuffer dst) {
+
+	checksum.reset();
+	checksum.update(type);
+	checksum.update(sequence);
+	checksum.update(src, offset, length);
+	long crc = checksum.getValue();
+
+	dst.put(startTag);
+	int bodyStart = dst.position();
+	putStuffed((byte)type, dst);
+	putStuffed((byte)sequence, dst);
+	for (int i = offset; i < offset + length; i += 1) {
+	    putStuffed(src[i], dst);
+	}
+	for (int shift = 8 * (CRC_SIZE - 1); shift >= 0; shift -= 8) {
+	    putStuffed((byte)(crc >>> shift), dst);
+	}
+	escapeBytesSent.add(dst.position() - bodyStart -
+			    (HEADER_SIZE + length + CRC_SIZE));
+	dst.put(stopTag);
+
+    } // frame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write a byte of the frame body, preceded by an escape tag if it is
+     * itself a tag.
+     *
+     * @param value The byte to write.
+     * @param dst   The buffer into which to write it.
+     */
+    private void putStuffed (byte value, ByteBuffer dst) {
+
+	if ((value == startTag) || (value == stopTag) || (value == escapeTag)) {
+	    dst.put(escapeTag);
+	}
+	dst.put(value);
+
+    } // putStuffed ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  payloadLength The number of bytes of payload.
+     * @return the most bytes that a frame with that payload may need, with
+     *         every byte of its body escaped.
+     */
+    private static int maxFrameLength (int payloadLength) {
+
+	return 2 * (HEADER_SIZE + payloadLength + CRC_SIZE) + 2;
+
+    } // maxFrameLength ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The most frames that may be outstanding at once. */
+    protected final int windowSize;
+
+    /** The most data bytes carried by each frame. */
+    protected final int frameSize;
+
+    /** The number of frames in the current send; zero when idle. */
+    protected int       frameCount;
+
+    /** The index of the oldest frame not yet cumulatively acknowledged. */
+    protected int       base;
+
+    /** The number of frames transmitted at least once. */
+    protected int       sent;
+
+    // The data of the current send.
+    private byte[]      source;
+    private int         sourceOffset;
+    private int         sourceLength;
+
+    /** The sequence number, unmasked, of the current send's first frame. */
+    private long        firstSequence;
+
+    /** The number of times the oldest outstanding frame has been sent. */
+    private int         baseAttempts;
+
+    // For each slot of the window: when its frame was last sent, how many
+    // times it has been sent, the count of frames sent by then, and whether
+    // it has been acknowledged.
+    private final long[]    sentAt;
+    private final int[]     transmissions;
+    private final long[]    sendOrder;
+    private final boolean[] acked;
+
+    // The round-trip estimate and the resulting timeout, in nanoseconds.
+    private long        smoothedRoundTrip;
+    private long        roundTripDeviation;
+    private long        timeout;
+    private final long  maxTimeout;
+
+    /** The number of frames accepted whose delivery the medium was told of. */
+    private long        framesReported;
+
+    // The tallies reported to the client.
+    private long          dataTransmissions;
+    private long          retransmissions;
+    private volatile long damagedFrames;
+
+    /** The lock that makes concurrent sends take turns. */
+    private final Object              sendLock;
+
+    // The checksums used on the sending and the receiving threads.
+    private final Checksum            sendChecksum;
+    private final Checksum            receiveChecksum;
+
+    // The buffers in which data frames, and ACKs and NAKs, are built.
+    private final ByteBuffer          dataBuffer;
+    private final ByteBuffer          controlBuffer;
+
+    /** The payload of an ACK or a NAK. */
+    private final byte[]              controlPayload;
+
+    /** The decoder that extracts frames from the received bytes. */
+    private final StuffedFrameDecoder decoder;
+
+    // The frame types.
+    protected static final int DATA = 0;
+    protected static final int ACK  = 1;
+    protected static final int NAK  = 2;
+
+    /** The number of distinct sequence numbers. */
+    protected static final int SEQUENCE_SPACE = 256;
+
+    /** The mask that reduces a count to a sequence number. */
+    private static final int   SEQUENCE_MASK  = SEQUENCE_SPACE - 1;
+
+    /** The bytes before the payload: type and sequence number. */
+    private static final int   HEADER_SIZE    = 2;
+
+    /** The bytes of CRC after the payload. */
+    private static final int   CRC_SIZE       = 4;
+
+    private static final long  NANOS_PER_MILLI = 1_000_000;
+
+    /** The most times the oldest frame is sent before the link is declared dead. */
+    private static final int   MAX_ATTEMPTS   = 256;
+
+    // The start tag, stop tag, and the escape tag.
+    private static final byte startTag  = (byte)'{';
+    private static final byte stopTag   = (byte)'}';
+    private static final byte escapeTag = (byte)'\\';
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class ArqDataLinkLayer
+// =============================================================================
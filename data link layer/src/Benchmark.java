@@ -0,0 +1,579 @@
+// =============================================================================
+// IMPORTS
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * An entry point that measures how fast each part of the stack runs, so that
+ * a change that slows one down is caught.  It times framing and de-framing
+ * for each data link layer, the effect of frame size, whole transfers from
+ * one host to another over a medium, and the fan-out of bits to a medium's
+ * receivers.  Each is run over random data, data made only of the framing
+ * tags, and plain text, at several sizes.
+ *
+ * Each case is warmed up, and then run repeatedly for a fixed time.  Its
+ * throughput is reported in megabytes (10^6) of payload per second, and the
+ * memory it allocated in bytes per payload byte.  Allocation is that of the
+ * measuring thread, so it is only complete for media that deliver on the
+ * sender's thread, as all of those measured here do.
+ *
+ * @file   Benchmark.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class Benchmark {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The entry point.  Interpret the command-line arguments, aborting if they
+     * are invalid, and then run every case whose name contains the filter.
+     *
+     * @param args The command-line arguments.
+     */
+    public static void main (String[] args) {
+
+	// Check the number of arguments passed.
+	if (args.length > 2) {
+
+	    System.err.println("Usage: java Benchmark "               +
+			       "[<milliseconds per measurement> "     +
+			       "[<case name filter>]]");
+	    System.exit(1);
+
+	}
+
+	// Assign names to the arguments.
+	if (args.length > 0) {
+	    measureNanos = Long.parseLong(args[0]) * 1000000L;
+	}
+	if (args.length > 1) {
+	    filter = args[1];
+	}
+	if (measureNanos <= 0) {
+	    throw new RuntimeException("Measurement time must be positive");
+	}
+
+	System.out.printf("%-10s %-12s %-7s %8s %6s %10s %10s\n",
+			  "case", "layer", "payload", "size", "frame",
+			  "MB/s", "B/byte");
+	framing();
+	frameSizes();
+	endToEnd();
+	fanOut();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Measure framing and then de-framing for every framing layer, over each
+     * kind and size of payload, at each layer's default frame size.
+     */
+    private static void framing () {
+
+	for (String type : FRAMING_LAYERS) {
+	    for (String kind : PAYLOAD_KINDS) {
+		for (int size : PAYLOAD_SIZES) {
+		    frameAndDeframe(type, 0, kind, payload(kind, size));
+		}
+	    }
+	}
+
+    } // framing ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Measure framing and de-framing of random data for the layers whose
+     * frame size can be chosen, across a range of frame sizes.
+     */
+    private static void frameSizes () {
+
+	byte[] data = payload("random", FRAME_SIZE_PAYLOAD);
+	for (String type : SIZED_LAYERS) {
+	    for (int frameSize : FRAME_SIZES) {
+		frameAndDeframe(type, frameSize, "random", data);
+	    }
+	}
+
+    } // frameSizes ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Measure a layer framing a payload into a reused buffer, and then a
+     * second layer of the same kind recovering the payload from those frames.
+     *
+     * @param type      The type of data link layer.
+     * @param frameSize The frame size for the layer, or <code>0</code> for its
+     *                  default.
+     * @param kind      The kind of payload.
+     * @param data      The payload.
+     */
+    private static void frameAndDeframe (String type,
+					 int    frameSize,
+					 String kind,
+					 byte[] data) {
+
+	// Frame into a buffer big enough for the worst case, reused by every
+	// run.
+	final DataLinkLayer sender = newLayer(type, frameSize);
+	final ByteBuffer    frames =
+	    ByteBuffer.allocate(sender.frameLength(data, 0, data.length));
+	measure("frame", type, kind, data.length, frameSize, new Case() {
+		void run () {
+		    frames.clear();
+		    sender.createFrame(data, 0, data.length, frames);
+		}
+	    });
+
+	// Feed those frames to a receiving host a block at a time, as a
+	// medium would, and check that all of the payload comes out.
+	frames.clear();
+	sender.createFrame(data, 0, data.length, frames);
+	final byte[]        framed   = frames.array();
+	final int           length   = frames.position();
+	final Host          receiver = new Host(new PerfectMedium(),
+						newLayer(type, frameSize));
+	final PhysicalLayer wire     = receiver.getPhysicalLayer();
+	final byte[]        scratch  = new byte[DataLinkLayer.BLOCK_SIZE];
+	measure("deframe", type, kind, data.length, frameSize, new Case() {
+		void run () {
+		    for (int i = 0; i < length; i += DataLinkLayer.BLOCK_SIZE) {
+			int blockLength = Math.min(DataLinkLayer.BLOCK_SIZE,
+						   length - i);
+			wire.receive(framed,
+				     i * DataLinkLayer.BITS_PER_BYTE,
+				     blockLength * DataLinkLayer.BITS_PER_BYTE);
+		    }
+		    expect(drain(receiver, scratch), data.length, type);
+		}
+	    });
+
+    } // frameAndDeframe ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Measure whole transfers from one host to another, over a perfect and a
+     * noisy medium.  Over the noisy one, damaged frames may be lost, so only
+     * the perfect one is checked.
+     */
+    private static void endToEnd () {
+
+	for (String mediumType : END_TO_END_MEDIA) {
+	    for (String type : FRAMING_LAYERS) {
+		for (String kind : END_TO_END_KINDS) {
+
+		    final byte[] data     = payload(kind, END_TO_END_PAYLOAD);
+		    final Medium medium   = Medium.create(mediumType);
+		    final Host   sender   = new Host(medium, type);
+		    final Host   receiver = new Host(medium, type);
+		    final byte[] scratch  = new byte[DataLinkLayer.BLOCK_SIZE];
+		    final boolean perfect = (medium instanceof PerfectMedium);
+		    measure(mediumType, type, kind, data.length, 0, new Case() {
+			    void run () {
+				sender.send(data);
+				medium.drain();
+				long received = drain(receiver, scratch);
+				if (perfect) {
+				    expect(received, data.length, type);
+				}
+			    }
+			});
+		    medium.close();
+
+		}
+	    }
+	}
+
+    } // endToEnd ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Measure a perfect medium handing bits to a growing number of receivers
+     * that discard them, both one bit at a time and a block at a time, so
+     * that the cost of the medium itself is seen apart from any framing.
+     */
+    private static void fanOut () {
+
+	final byte[] data = payload("random", FAN_OUT_PAYLOAD);
+	final int    bits = data.length * DataLinkLayer.BITS_PER_BYTE;
+	for (int receivers : FAN_OUT_RECEIVERS) {
+
+	    Medium              medium = new PerfectMedium();
+	    final PhysicalLayer sender = PhysicalLayer.create(medium);
+	    for (int i = 0; i < receivers; i += 1) {
+		PhysicalLayer.create(medium).register(new SinkDataLinkLayer());
+	    }
+	    String layer = receivers + " sinks";
+
+	    measure("fanout-bit", layer, "random", data.length, 0, new Case() {
+		    void run () {
+			for (int i = 0; i < bits; i += 1) {
+			    sender.send((data[i >>> 3] & (0x80 >>> (i & 7))) != 0);
+			}
+		    }
+		});
+	    measure("fanout-blk", layer, "random", data.length, 0, new Case() {
+		    void run () {
+			for (int i = 0; i < bits; i += BLOCK_BITS) {
+			    sender.send(data, i, Math.min(BLOCK_BITS, bits - i));
+			}
+		    }
+		});
+
+	}
+
+    } // fanOut ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Warm up one case, then run it repeatedly for the measurement time, and
+     * report its throughput and allocation.  Cases whose description does not
+     * contain the filter are skipped.
+     *
+     * @param name      The name of the case.
+     * @param layer     The layer being measured.
+     * @param kind      The kind of payload.
+     * @param size      The number of payload bytes handled by each run.
+     * @param frameSize The frame size, or <code>0</code> for the default.
+     * @param operation The work of one run.
+     */
+    private static void measure (String name,
+				 String layer,
+				 String kind,
+				 int    size,
+				 int    frameSize,
+				 Case   operation) {
+
+	String frame = (frameSize == 0 ? "-" : Integer.toString(frameSize));
+	String row   = String.format("%-10s %-12s %-7s %8d %6s",
+				     name, layer, kind, size, frame);
+	if (filter != null && !row.contains(filter)) {
+	    return;
+	}
+
+	// Give the compiler a chance to settle on this case's code.
+	run(operation, measureNanos);
+
+	// Run for the measurement time, noting what the thread allocated.
+	long allocatedBefore = allocatedBytes();
+	long start           = System.nanoTime();
+	long runs            = run(operation, measureNanos);
+	long elapsed         = System.nanoTime() - start;
+	long allocated       = allocatedBytes() - allocatedBefore;
+
+	double bytes      = (double)runs * size;
+	double throughput = bytes / 1e6 / (elapsed / 1e9);
+	String perByte    = (allocatedBefore < 0 ? "-" :
+			     String.format("%.3f", allocated / bytes));
+	System.out.printf("%s %10.1f %10s\n", row, throughput, perByte);
+
+    } // measure ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Run a case over and over until the given time has passed, at least once.
+     *
+     * @param  operation The case to run.
+     * @param  nanos     The time for which to run it.
+     * @return the number of times it ran.
+     */
+    private static long run (Case operation, long nanos) {
+
+	long start = System.nanoTime();
+	long runs  = 0;
+	do {
+	    operation.run();
+	    runs += 1;
+	} while (System.nanoTime() - start < nanos);
+	return runs;
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the bytes allocated so far by the current thread, or
+     *         <code>-1</code> if the runtime cannot say.
+     */
+    private static long allocatedBytes () {
+
+	if (threads == null) {
+	    return -1;
+	}
+	return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+
+    } // allocatedBytes ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a data link layer of the given type, not yet connected.
+     *
+     * @param  type      The type of data link layer.
+     * @param  frameSize The frame size, or <code>0</code> for the default.
+     * @return the new layer.
+     * @throws RuntimeException if the type is unknown, or if a frame size is
+     *                          given for a type that does not take one.
+     */
+    private static DataLinkLayer newLayer (String type, int frameSize) {
+
+	if (frameSize == 0) {
+	    return ComponentRegistry.getDefault().newLayer(type);
+	}
+	return ComponentRegistry.getDefault().newLayer(type + ":frameSize=" +
+						       frameSize);
+
+    } // newLayer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Make a payload of the given kind and size.  The same kind and size
+     * always gives the same payload.
+     *
+     * @param  kind The kind: <code>random</code>, <code>tags</code> (only the
+     *              bytes that the tag-based layers must escape), or
+     *              <code>text</code>.
+     * @param  size The number of bytes.
+     * @return the payload.
+     */
+    private static byte[] payload (String kind, int size) {
+
+	byte[] data = new byte[size];
+	switch (kind) {
+	case "random":
+	    new Random(size).nextBytes(data);
+	    break;
+	case "tags":
+	    for (int i = 0; i < size; i += 1) {
+		data[i] = TAGS[i % TAGS.length];
+	    }
+	    break;
+	case "text":
+	    byte[] text = TEXT.getBytes(StandardCharsets.US_ASCII);
+	    for (int i = 0; i < size; i += 1) {
+		data[i] = text[i % text.length];
+	    }
+	    break;
+	default:
+	    throw new RuntimeException("Unknown payload kind " + kind);
+	}
+	return data;
+
+    } // payload ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Retrieve and discard everything a host has buffered.
+     *
+     * @param  host    The host to drain.
+     * @param  scratch An array into which to retrieve.
+     * @return the number of bytes drained.
+     */
+    private static long drain (Host host, byte[] scratch) {
+
+	long total = 0;
+	int  count;
+	while ((count = host.retrieve(scratch, 0, scratch.length)) > 0) {
+	    total += count;
+	}
+	return total;
+
+    } // drain ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Check that a run delivered the whole payload, so that a broken layer is
+     * not reported as a fast one.
+     *
+     * @param  received The number of bytes delivered.
+     * @param  expected The number of bytes sent.
+     * @param  type     The type of data link layer.
+     * @throws RuntimeException if they differ.
+     */
+    private static void expect (long received, int expected, String type) {
+
+	if (received != expected) {
+	    throw new RuntimeException(type + "DataLinkLayer delivered " +
+				       received + " of " + expected +
+				       " bytes");
+	}
+
+    } // expect ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INNER CLASSES
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The work of one run of a case.
+     */
+    private static abstract class Case {
+
+	abstract void run ();
+
+    } // class Case
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * A data link layer that counts and discards every bit it is handed, so
+     * that a medium can be measured on its own.
+     */
+    private static class SinkDataLinkLayer extends DataLinkLayer {
+
+	protected byte[] createFrame (byte[] data) {
+	    return data;
+	}
+
+	protected byte[] processFrame () {
+	    return null;
+	}
+
+	public void receive (byte[] data, int bitOffset, int bitLength) {
+	    bits += bitLength;
+	}
+
+	/** The number of bits received, kept so they cannot be optimized away. */
+	private long bits;
+
+    } // class SinkDataLinkLayer
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The time for which each case is warmed up, and then measured. */
+    private static long   measureNanos = 200L * 1000000L;
+
+    /** Only cases whose description contains this are run, if it is set. */
+    private static String filter;
+
+    /** The source of per-thread allocation counts, if the runtime has one. */
+    private static final com.sun.management.ThreadMXBean threads;
+
+    static {
+	java.lang.management.ThreadMXBean bean =
+	    ManagementFactory.getThreadMXBean();
+	if (bean instanceof com.sun.management.ThreadMXBean &&
+	    ((com.sun.management.ThreadMXBean)bean)
+		.isThreadAllocatedMemorySupported()) {
+	    threads = (com.sun.management.ThreadMXBean)bean;
+	    threads.setThreadAllocatedMemoryEnabled(true);
+	} else {
+	    threads = null;
+	}
+    }
+
+    /** The layers that frame without retransmitting. */
+    private static final String[] FRAMING_LAYERS = {
+	"Dumb", "Parity", "Crc", "Cobs", "Hdlc", "ReedSolomon"
+    };
+
+    /** The layers whose frame size can be chosen. */
+    private static final String[] SIZED_LAYERS = { "Parity", "Crc", "Hdlc" };
+
+    /** The kinds of payload framed. */
+    private static final String[] PAYLOAD_KINDS = { "random", "tags", "text" };
+
+    /** The sizes of payload framed. */
+    private static final int[] PAYLOAD_SIZES = { 1024, 65536, 1048576 };
+
+    /** The frame sizes tried on the layers that can choose. */
+    private static final int[] FRAME_SIZES = { 8, 64, 512, 4096 };
+
+    /** The payload size used when varying the frame size. */
+    private static final int FRAME_SIZE_PAYLOAD = 65536;
+
+    /** The media over which whole transfers are made. */
+    private static final String[] END_TO_END_MEDIA = { "Perfect", "LowNoise" };
+
+    /** The kinds of payload sent in whole transfers. */
+    private static final String[] END_TO_END_KINDS = { "random", "text" };
+
+    /** The payload size sent in whole transfers. */
+    private static final int END_TO_END_PAYLOAD = 65536;
+
+    /** The numbers of receivers to which bits are fanned out. */
+    private static final int[] FAN_OUT_RECEIVERS = { 1, 3, 7 };
+
+    /** The payload size fanned out. */
+    private static final int FAN_OUT_PAYLOAD = 65536;
+
+    /** The bits sent at a time when fanning out blocks. */
+    private static final int BLOCK_BITS =
+	DataLinkLayer.BLOCK_SIZE * DataLinkLayer.BITS_PER_BYTE;
+
+    /** The bytes the tag-based layers must escape. */
+    private static final byte[] TAGS = { (byte)'{', (byte)'}', (byte)'\\' };
+
+    /** A passage repeated to make a text payload. */
+    private static final String TEXT =
+	"A data link layer frames the bytes handed to it by its host, so " +
+	"that the receiving layer can find where each frame begins and " +
+	"ends, and perhaps whether it was damaged on the way.\n";
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class Benchmark
+// =============================================================================
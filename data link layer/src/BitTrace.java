@@ -0,0 +1,495 @@
+// =============================================================================
+// IMPORTS
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * A recording of the exact bits a medium delivered to one physical layer,
+ * noise and all, so that a receiver can later be fed them again with no
+ * sender or medium involved.
+ *
+ * The file holds a header, of a tag and the number of bits recorded, and
+ * then the bits, packed eight to a byte, most significant first; the last
+ * byte is padded with zeros.  It is written through a memory-mapped window
+ * that slides along the file as it grows, so recording costs a copy into
+ * the page cache and no system call per block, and read back through
+ * read-only mappings of the whole file.
+ *
+ * A trace is written by the thread delivering to its physical layer, one
+ * block at a time, and is not thread-safe.  Until it is closed, the header
+ * does not hold the number of bits, and the file may run past their end.
+ *
+ * @file   BitTrace.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class BitTrace implements AutoCloseable {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a file, replacing any already there, to which to record bits.
+     *
+     * @param  path The pathname of the file.
+     * @throws RuntimeException if the file cannot be created.
+     */
+    public BitTrace (String path) {
+
+	this.path = path;
+	try {
+	    channel = FileChannel.open(new File(path).toPath(),
+				       StandardOpenOption.CREATE,
+				       StandardOpenOption.TRUNCATE_EXISTING,
+				       StandardOpenOption.READ,
+				       StandardOpenOption.WRITE);
+	} catch (IOException e) {
+	    throw new RuntimeException("Unable to create bit trace " + path);
+	}
+	windowStart = HEADER_SIZE;
+	window      = mapWindow(windowStart);
+
+    } // BitTrace ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record one bit.
+     *
+     * @param bit The bit's value.
+     */
+    public void record (boolean bit) {
+
+	bits += 1;
+	push(bit ? 1 : 0);
+
+    } // record ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record a block of bits, taken from each byte most significant first.
+     *
+     * @param data      The bytes holding the bits.
+     * @param bitOffset The index of the first bit to record.
+     * @param bitLength The number of bits to record.
+     */
+    public void record (byte[] data, int bitOffset, int bitLength) {
+
+	bits += bitLength;
+	int at    = bitOffset;
+	int end   = bitOffset + bitLength;
+	int shift = at & (DataLinkLayer.BITS_PER_BYTE - 1);
+
+	// If both the block and the file are at a byte boundary, as they are
+	// for media that deliver whole bytes, copy whole bytes straight in.
+	if (shift == 0 && pendingBits == 0) {
+	    int count = bitLength / DataLinkLayer.BITS_PER_BYTE;
+	    put(data, at / DataLinkLayer.BITS_PER_BYTE, count);
+	    at += count * DataLinkLayer.BITS_PER_BYTE;
+	}
+
+	// Otherwise, gather eight bits at a time from wherever they fall, and
+	// add them behind the bits already pending.
+	while (end - at >= DataLinkLayer.BITS_PER_BYTE) {
+	    int i    = at / DataLinkLayer.BITS_PER_BYTE;
+	    int next = data[i] & 0xff;
+	    if (shift != 0) {
+		int following = data[i + 1] & 0xff;
+		int rest      = DataLinkLayer.BITS_PER_BYTE - shift;
+		next = ((next << shift) | (following >>> rest)) & 0xff;
+	    }
+	    pending = (pending << DataLinkLayer.BITS_PER_BYTE) | next;
+	    put((byte)(pending >>> pendingBits));
+	    pending &= (1 << pendingBits) - 1;
+	    at      += DataLinkLayer.BITS_PER_BYTE;
+	}
+
+	// Add the last few a bit at a time.
+	for (; at < end; at += 1) {
+	    int within = at & (DataLinkLayer.BITS_PER_BYTE - 1);
+	    int value  = data[at / DataLinkLayer.BITS_PER_BYTE];
+	    push((value >>> (DataLinkLayer.BITS_PER_BYTE - 1 - within)) & 1);
+	}
+
+    } // record ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the number of bits recorded so far.
+     */
+    public long getBits () {
+
+	return bits;
+
+    } // getBits ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the pathname of the file.
+     */
+    public String getPath () {
+
+	return path;
+
+    } // getPath ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Finish the file: write out any last, partly filled byte, record the
+     * number of bits in the header, and cut the file off after the last
+     * byte.  Nothing may be recorded afterwards.
+     *
+     * @throws RuntimeException if the file cannot be finished.
+     */
+    public void close () {
+
+	if (!channel.isOpen()) {
+	    return;
+	}
+	if (pendingBits > 0) {
+	    put((byte)(pending << (DataLinkLayer.BITS_PER_BYTE - pendingBits)));
+	    pending     = 0;
+	    pendingBits = 0;
+	}
+	long length = windowStart + window.position();
+	window      = null;
+
+	try {
+	    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+	    header.putLong(MAGIC).putLong(bits).flip();
+	    channel.write(header, 0);
+	    channel.truncate(length);
+	    channel.close();
+	} catch (IOException e) {
+	    throw new RuntimeException("Unable to finish bit trace " + path);
+	}
+
+    } // close ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Map a finished trace, read-only, to be read back.
+     *
+     * @param  path The pathname of the trace.
+     * @return the trace's contents.
+     * @throws RuntimeException if the file is not a readable, finished trace.
+     */
+    public static Reader open (String path) {
+
+	File file = new File(path);
+	if (!file.canRead()) {
+	    throw new RuntimeException(path + " is not a readable file");
+	}
+
+	try (FileChannel channel = FileChannel.open(file.toPath(),
+						    StandardOpenOption.READ)) {
+
+	    // Check the header, and that the file holds every bit it claims.
+	    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+	    while (header.hasRemaining() && channel.read(header) >= 0) {
+	    }
+	    header.flip();
+	    if (header.remaining() < HEADER_SIZE || header.getLong() != MAGIC) {
+		throw new RuntimeException(path + " is not a bit trace");
+	    }
+	    long bits   = header.getLong();
+	    long length = ((bits + DataLinkLayer.BITS_PER_BYTE - 1) /
+			   DataLinkLayer.BITS_PER_BYTE);
+	    if (bits < 0 || channel.size() < HEADER_SIZE + length) {
+		throw new RuntimeException(path + " is a truncated bit trace");
+	    }
+
+	    // Map the bits a region at a time.  The mappings remain valid
+	    // after the channel is closed.
+	    int                count   =
+		(int)((length + REGION_SIZE - 1) / REGION_SIZE);
+	    MappedByteBuffer[] regions = new MappedByteBuffer[count];
+	    for (int i = 0; i < regions.length; i += 1) {
+		long start = (long)i * REGION_SIZE;
+		regions[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+					 HEADER_SIZE + start,
+					 Math.min(REGION_SIZE, length - start));
+	    }
+	    return new Reader(regions, bits);
+
+	} catch (IOException e) {
+	    throw new RuntimeException("Unexpected failure in mapping " + path);
+	}
+
+    } // open ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Add one bit behind those pending, writing them out once they fill a
+     * byte.
+     *
+     * @param bit The bit, <code>0</code> or <code>1</code>.
+     */
+    private void push (int bit) {
+
+	pending      = (pending << 1) | bit;
+	pendingBits += 1;
+	if (pendingBits == DataLinkLayer.BITS_PER_BYTE) {
+	    put((byte)pending);
+	    pending     = 0;
+	    pendingBits = 0;
+	}
+
+    } // push ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write one byte at the end of the file.
+     *
+     * @param value The byte.
+     */
+    private void put (byte value) {
+
+	if (!window.hasRemaining()) {
+	    slide();
+	}
+	window.put(value);
+
+    } // put ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write bytes at the end of the file.
+     *
+     * @param data   The array holding the bytes.
+     * @param offset The index in the array of the first of them.
+     * @param length The number of bytes.
+     */
+    private void put (byte[] data, int offset, int length) {
+
+	while (length > 0) {
+	    if (!window.hasRemaining()) {
+		slide();
+	    }
+	    int count = Math.min(length, window.remaining());
+	    window.put(data, offset, count);
+	    offset += count;
+	    length -= count;
+	}
+
+    } // put ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Move the window on to the part of the file just past its end, which
+     * grows the file to hold it.
+     */
+    private void slide () {
+
+	windowStart += window.capacity();
+	window       = mapWindow(windowStart);
+
+    } // slide ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  start The offset in the file at which the window begins.
+     * @return a writable mapping of the window.
+     */
+    private MappedByteBuffer mapWindow (long start) {
+
+	try {
+	    return channel.map(FileChannel.MapMode.READ_WRITE,
+			       start,
+			       WINDOW_SIZE);
+	} catch (IOException e) {
+	    throw new RuntimeException("Unable to extend bit trace " + path);
+	}
+
+    } // mapWindow ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INNER CLASSES
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The bits of a finished trace, mapped read-only.  A reader holds no
+     * position of its own, so it may be shared by threads.
+     */
+    public static class Reader {
+
+	// =====================================================================
+	/**
+	 * @param regions The regions holding the packed bits, in order.
+	 * @param bits    The number of bits.
+	 */
+	private Reader (MappedByteBuffer[] regions, long bits) {
+
+	    this.regions = regions;
+	    this.bits    = bits;
+
+	} // Reader ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	/**
+	 * @return the number of bits in the trace.
+	 */
+	public long getBits () {
+
+	    return bits;
+
+	} // getBits ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	/**
+	 * Copy packed bits out of the trace.
+	 *
+	 * @param  from   The index of the first byte to copy, counting from
+	 *                the byte holding the first bit.
+	 * @param  dst    The array into which to copy.
+	 * @param  offset The index in the array at which to begin.
+	 * @param  length The most bytes to copy.
+	 * @return the number of bytes copied, fewer than asked only at the end
+	 *         of the trace.
+	 */
+	public int read (long from, byte[] dst, int offset, int length) {
+
+	    int copied = 0;
+	    while (copied < length) {
+		int region = (int)(from / REGION_SIZE);
+		int within = (int)(from % REGION_SIZE);
+		if (region >= regions.length ||
+		    within >= regions[region].capacity()) {
+		    break;
+		}
+		int count  = Math.min(length - copied,
+				      regions[region].capacity() - within);
+		regions[region].get(within, dst, offset + copied, count);
+		copied += count;
+		from   += count;
+	    }
+	    return copied;
+
+	} // read ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	// DATA MEMBERS
+
+	/** The regions holding the packed bits, in order. */
+	private final MappedByteBuffer[] regions;
+
+	/** The number of bits. */
+	private final long               bits;
+	// =====================================================================
+
+    } // class Reader
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The pathname of the file. */
+    private final String      path;
+
+    /** The open file. */
+    private final FileChannel channel;
+
+    /** The writable mapping of the part of the file being filled. */
+    private MappedByteBuffer  window;
+
+    /** The offset in the file at which the window begins. */
+    private long              windowStart;
+
+    /** The bits, fewer than a byte's worth, not yet written. */
+    private int               pending;
+
+    /** The number of bits pending. */
+    private int               pendingBits;
+
+    /** The number of bits recorded. */
+    private long              bits;
+
+    /** The tag with which every trace begins: "DLLBITS1" in ASCII. */
+    private static final long MAGIC       = 0x444c4c4249545331L;
+
+    /** The bytes of the header: the tag and then the number of bits. */
+    private static final int  HEADER_SIZE = 16;
+
+    /** The bytes of the file mapped for writing at a time. */
+    private static final int  WINDOW_SIZE = 16 * 1024 * 1024;
+
+    /** The most bytes of a trace mapped as one region for reading. */
+    private static final long REGION_SIZE = 1L << 30;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class BitTrace
+// =============================================================================
@@ -0,0 +1,326 @@
+// =============================================================================
+// IMPORTS
+
+import java.nio.ByteBuffer;
+import java.util.NoSuchElementException;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * A growable first-in, first-out queue of bytes, held in a primitive circular
+ * array.  Bytes may be examined in place by their index from the head of the
+ * queue, without removing them.
+ *
+ * @file   ByteRingBuffer.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class ByteRingBuffer {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create an empty buffer with a default initial capacity.
+     */
+    public ByteRingBuffer () {
+
+	this(DEFAULT_CAPACITY);
+
+    } // ByteRingBuffer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create an empty buffer.
+     *
+     * @param initialCapacity The number of bytes the buffer can hold before it
+     *                        must grow.  Rounded up to a power of two.
+     */
+    public ByteRingBuffer (int initialCapacity) {
+
+	int capacity = Integer.highestOneBit(Math.max(initialCapacity, 1));
+	if (capacity < initialCapacity) {
+	    capacity <<= 1;
+	}
+	buffer = new byte[capacity];
+	mask   = capacity - 1;
+
+    } // ByteRingBuffer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the number of bytes held in the buffer.
+     */
+    public int size () {
+
+	return size;
+
+    } // size ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return whether the buffer holds no bytes.
+     */
+    public boolean isEmpty () {
+
+	return size == 0;
+
+    } // isEmpty ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Append a byte to the tail of the buffer, growing it if needed.
+     *
+     * @param value The byte to append.
+     */
+    public void add (byte value) {
+
+	if (size == buffer.length) {
+	    grow(size + 1);
+	}
+	buffer[(head + size) & mask] = value;
+	size += 1;
+
+    } // add ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Append a sequence of bytes to the tail of the buffer, growing it if
+     * needed.
+     *
+     * @param src    The array holding the bytes to append.
+     * @param offset The index of the first byte to append.
+     * @param length The number of bytes to append.
+     */
+    public void add (byte[] src, int offset, int length) {
+
+	if (length > buffer.length - size) {
+	    grow(size + length);
+	}
+
+	// Copy up to the end of the array, and then wrap around to its start.
+	int tail     = (head + size) & mask;
+	int tailPart = Math.min(length, buffer.length - tail);
+	System.arraycopy(src, offset,            buffer, tail, tailPart);
+	System.arraycopy(src, offset + tailPart, buffer, 0,    length - tailPart);
+	size += length;
+
+    } // add ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Examine a byte without removing it.
+     *
+     * @param  index The position of the byte, counting from the head at 0.
+     * @return the byte at the given position.
+     * @throws IndexOutOfBoundsException if there is no such byte.
+     */
+    public byte get (int index) {
+
+	if (index < 0 || index >= size) {
+	    throw new IndexOutOfBoundsException("Index " + index +
+						" with size " + size);
+	}
+	return buffer[(head + index) & mask];
+
+    } // get ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Remove and return the byte at the head of the buffer.
+     *
+     * @return the removed byte.
+     * @throws NoSuchElementException if the buffer is empty.
+     */
+    public byte remove () {
+
+	if (size == 0) {
+	    throw new NoSuchElementException("Empty buffer");
+	}
+	byte value = buffer[head];
+	head  = (head + 1) & mask;
+	size -= 1;
+	return value;
+
+    } // remove ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Remove bytes from the head of the buffer, copying them into an array.
+     *
+     * @param  dst    The array into which to copy the bytes.
+     * @param  offset The index in the array of the first byte copied.
+     * @param  length The most bytes to remove.
+     * @return the number of bytes removed, which is fewer than requested only
+     *         if the buffer holds fewer.
+     */
+    public int remove (byte[] dst, int offset, int length) {
+
+	int count    = Math.min(length, size);
+	int headPart = Math.min(count, buffer.length - head);
+	System.arraycopy(buffer, head, dst, offset,            headPart);
+	System.arraycopy(buffer, 0,    dst, offset + headPart, count - headPart);
+	head  = (head + count) & mask;
+	size -= count;
+	return count;
+
+    } // remove ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Remove bytes from the head of the buffer, putting them into a byte
+     * buffer at its position.
+     *
+     * @param  dst The buffer into which to put the bytes.
+     * @return the number of bytes removed, which is the lesser of the bytes
+     *         held and the room remaining in the destination.
+     */
+    public int remove (ByteBuffer dst) {
+
+	int count    = Math.min(dst.remaining(), size);
+	int headPart = Math.min(count, buffer.length - head);
+	dst.put(buffer, head, headPart);
+	dst.put(buffer, 0,    count - headPart);
+	head  = (head + count) & mask;
+	size -= count;
+	return count;
+
+    } // remove ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Remove bytes from the head of the buffer without examining them.
+     *
+     * @param count The number of bytes to remove.
+     * @throws IndexOutOfBoundsException if the buffer holds fewer bytes.
+     */
+    public void discard (int count) {
+
+	if (count < 0 || count > size) {
+	    throw new IndexOutOfBoundsException("Discarding " + count +
+						" with size " + size);
+	}
+	head  = (head + count) & mask;
+	size -= count;
+
+    } // discard ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Remove every byte from the buffer.
+     */
+    public void clear () {
+
+	head = 0;
+	size = 0;
+
+    } // clear ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Move the contents into a larger array, unwrapping them so that the head
+     * is at index 0.
+     *
+     * @param minCapacity The number of bytes the new array must hold.
+     */
+    private void grow (int minCapacity) {
+
+	int capacity = buffer.length;
+	while (capacity < minCapacity) {
+	    if (capacity >= MAX_CAPACITY) {
+		throw new RuntimeException("Buffer too large");
+	    }
+	    capacity <<= 1;
+	}
+
+	byte[] larger   = new byte[capacity];
+	int    headPart = Math.min(size, buffer.length - head);
+	System.arraycopy(buffer, head, larger, 0,        headPart);
+	System.arraycopy(buffer, 0,    larger, headPart, size - headPart);
+	buffer = larger;
+	mask   = capacity - 1;
+	head   = 0;
+
+    } // grow ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The circular array holding the bytes. */
+    private byte[] buffer;
+
+    /** One less than the array's length, which is always a power of two. */
+    private int    mask;
+
+    /** The index of the byte at the head of the buffer. */
+    private int    head;
+
+    /** The number of bytes held. */
+    private int    size;
+
+    /** The capacity of a buffer created without one being given. */
+    private static final int DEFAULT_CAPACITY = 64;
+
+    /** The largest power of two that an array may hold. */
+    private static final int MAX_CAPACITY     = 1 << 30;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class ByteRingBuffer
+// =============================================================================
@@ -0,0 +1,253 @@
+// =============================================================================
+// IMPORTS
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * A data link layer that frames data with Consistent Overhead Byte Stuffing
+ * (COBS), and that performs no error management.  Each frame ends with a
+ * single delimiter, the zero byte, which never appears elsewhere in a frame.
+ * To keep it out of the data, the data is divided into blocks at each zero,
+ * and at most every 254 non-zero bytes, and each block is preceded by a code
+ * byte giving the distance to the next: a zero is implied at the end of each
+ * block shorter than the longest, except the last.  The overhead is thus at
+ * most one byte per 254 bytes of data, plus the delimiter, whatever the data
+ * holds, where byte stuffing doubles a frame made entirely of tags.
+ *
+ * Encoding and decoding are each one pass over the bytes, and the decoder
+ * keeps its place between received bytes, so that no frame is scanned twice.
+ *
+ * @file   CobsDataLinkLayer.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class CobsDataLinkLayer extends DataLinkLayer {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Embed a raw sequence of bytes into a framed sequence.
+     *
+     * @param  data The raw sequence of bytes to be framed.
+     * @return A complete frame.
+     */
+    protected byte[] createFrame (byte[] data) {
+
+	ByteBuffer framedData = ByteBuffer.allocate(frameLength(data, 0, data.length));
+	createFrame(data, 0, data.length, framedData);
+	return Arrays.copyOf(framedData.array(), framedData.position());
+
+    } // createFrame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Encode part of a raw sequence of bytes into a frame, writing straight
+     * into the destination's array.  Each block's code byte is written once
+     * the block's length is known, into the place left for it.
+     *
+     * @param  src    The array holding the raw bytes to be framed.
+     * @param  offset The index of the first byte to be framed.
+     * @param  length The number of bytes to be framed.
+     * @param  dst    The buffer into which to write the complete frame.
+     * @throws BufferOverflowException if the destination does not have room
+     *                                 for the longest possible frame.
+     */
+    protected void createFrame (byte[]     src,
+				int        offset,
+				int        length,
+				ByteBuffer dst) {
+
+	if (!dst.hasArray()) {
+	    dst.put(createFrame(Arrays.copyOfRange(src, offset, offset + length)));
+	    return;
+	}
+	if (dst.remaining() < frameLength(src, offset, length)) {
+	    throw new BufferOverflowException();
+	}
+
+	byte[] out       = dst.array();
+	int    position  = dst.arrayOffset() + dst.position();
+	int    codeIndex = position++;
+	int    code      = 1;
+	int    end       = offset + length;
+	for (int i = offset; i < end; i += 1) {
+
+	    byte current = src[i];
+	    if (current == DELIMITER) {
+		// The zero ends the block, and is implied by its code.
+		out[codeIndex] = (byte)code;
+		codeIndex      = position++;
+		code           = 1;
+	    } else {
+		out[position++] = current;
+		code           += 1;
+		if (code == MAX_CODE) {
+		    // A full block, which implies no zero.
+		    out[codeIndex] = (byte)code;
+		    codeIndex      = position++;
+		    code           = 1;
+		}
+	    }
+
+	}
+	out[codeIndex]  = (byte)code;
+	out[position++] = DELIMITER;
+	dst.position(position - dst.arrayOffset());
+	frameSent(length);
+
+    } // createFrame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Determine the most bytes that the frame for the given raw bytes may
+     * need: the data, a code byte for the first block and for every 254
+     * bytes, and the delimiter.
+     *
+     * @param  src    The array holding the raw bytes to be framed.
+     * @param  offset The index of the first byte to be framed.
+     * @param  length The number of bytes to be framed.
+     * @return the most bytes the frame may need.
+     */
+    protected int frameLength (byte[] src, int offset, int length) {
+
+	return length + length / (MAX_CODE - 1) + 2;
+
+    } // frameLength ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Decode the received, buffered data, one byte at a time.  A delimiter
+     * ends the frame, which is delivered, straight from the decoding buffer,
+     * if it ended between blocks, and dropped if it cut a block short.  Any
+     * other byte is either the code byte of the next block or a byte of data.
+     *
+     * @return <code>null</code>, since any completed frame has been
+     *         delivered.
+     */
+    protected byte[] processFrame () {
+
+	while (!byteBuffer.isEmpty()) {
+
+	    byte current = byteBuffer.remove();
+
+	    if (current == DELIMITER) {
+		boolean started  = inFrame;
+		boolean complete = started && blockRemaining == 0;
+		int     length   = decodedLength;
+		inFrame          = false;
+		blockRemaining   = 0;
+		zeroPending      = false;
+		decodedLength    = 0;
+		if (complete) {
+		    deliver(decoded, 0, length);
+		    return null;
+		}
+		if (started) {
+		    dropFrame(truncatedFrames);
+		}
+		continue;
+	    }
+
+	    if (blockRemaining == 0) {
+		// A code byte, which first confirms the zero implied by the
+		// previous block.
+		if (zeroPending) {
+		    append(DELIMITER);
+		}
+		inFrame        = true;
+		blockRemaining = (current & 0xff) - 1;
+		zeroPending    = (current & 0xff) != MAX_CODE;
+	    } else {
+		append(current);
+		blockRemaining -= 1;
+	    }
+
+	}
+
+	return null;
+
+    } // processFrame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Add a byte to the data decoded so far, growing the array if needed.
+     *
+     * @param value The byte to add.
+     */
+    private void append (byte value) {
+
+	if (decodedLength == decoded.length) {
+	    decoded = Arrays.copyOf(decoded, 2 * decoded.length);
+	}
+	decoded[decodedLength++] = value;
+
+    } // append ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The data decoded from the current frame. */
+    private byte[]  decoded = new byte[INITIAL_CAPACITY];
+
+    /** The number of bytes decoded from the current frame. */
+    private int     decodedLength;
+
+    /** The number of data bytes left in the current block. */
+    private int     blockRemaining;
+
+    /** Whether the last block implies a zero, if another block follows. */
+    private boolean zeroPending;
+
+    /** Whether any of the current frame has been received. */
+    private boolean inFrame;
+
+    /** The byte that ends each frame, and that nothing else may be. */
+    private static final byte DELIMITER        = 0;
+
+    /** The code of a full block: 254 data bytes and no implied zero. */
+    private static final int  MAX_CODE         = 0xff;
+
+    /** The initial size of the array for decoded data. */
+    private static final int  INITIAL_CAPACITY = 256;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class CobsDataLinkLayer
+// =============================================================================
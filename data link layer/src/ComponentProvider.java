@@ -0,0 +1,31 @@
+// =============================================================================
+/**
+ * A source of data link layers and media beyond those built in.  Providers
+ * are found with <code>java.util.ServiceLoader</code>, from files named
+ * <code>META-INF/services/ComponentProvider</code> on the class path, each
+ * listing provider classes by name, one per line.  Each is asked once, when
+ * the default registry is first used, to add its factories.
+ *
+ * @file   ComponentProvider.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public interface ComponentProvider {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Add this provider's factories to a registry.
+     *
+     * @param registry The registry to which to add them.
+     */
+    void registerWith (ComponentRegistry registry);
+    // =========================================================================
+
+
+
+// =============================================================================
+} // interface ComponentProvider
+// =============================================================================
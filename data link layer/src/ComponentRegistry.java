@@ -0,0 +1,774 @@
+// =============================================================================
+// IMPORTS
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * The factories that build data link layers and media by name, with
+ * optional parameters.  A component is named by a specification of the form
+ * <pre>
+ *   name[:parameter=value[,parameter=value...]]
+ * </pre>
+ * for example <code>Parity:frameSize=64</code> or
+ * <code>LowNoise:ber=1e-6,seed=7</code>.  Parameters left out take the
+ * component's defaults.
+ *
+ * The built-in components are registered directly, and others are added by
+ * any <code>ComponentProvider</code> on the class path.  A layer or medium
+ * class that is neither, but follows the naming convention
+ * (<i>name</i><code>DataLinkLayer</code> or <i>name</i><code>Medium</code>),
+ * is looked up by reflection the first time it is named, and its no-argument
+ * constructor kept as a method handle thereafter.  Each specification is
+ * parsed once, so that building thousands of hosts from the same one costs
+ * little more than their constructors.
+ *
+ * @file   ComponentRegistry.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public final class ComponentRegistry {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the registry holding the built-in components and those of
+     *         every provider found.
+     */
+    public static ComponentRegistry getDefault () {
+
+	return Default.REGISTRY;
+
+    } // getDefault ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a registry holding only the built-in components.
+     */
+    public ComponentRegistry () {
+
+	this.layers     = new ConcurrentHashMap<String, Entry<DataLinkLayer>>();
+	this.media      = new ConcurrentHashMap<String, Entry<Medium>>();
+	this.specLayers =
+	    new ConcurrentHashMap<String, Configured<DataLinkLayer>>();
+	this.specMedia  = new ConcurrentHashMap<String, Configured<Medium>>();
+	registerBuiltIns();
+
+    } // ComponentRegistry ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Add, or replace, a data link layer.
+     *
+     * @param name       The name by which to create it.
+     * @param factory    What creates it.
+     * @param parameters The names of the parameters it accepts.
+     */
+    public void addLayer (String                          name,
+			  Factory<? extends DataLinkLayer> factory,
+			  String...                       parameters) {
+
+	layers.put(name, new Entry<DataLinkLayer>(factory, parameters));
+	specLayers.clear();
+
+    } // addLayer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Add, or replace, a medium.
+     *
+     * @param name       The name by which to create it.
+     * @param factory    What creates it.
+     * @param parameters The names of the parameters it accepts.
+     */
+    public void addMedium (String                   name,
+			   Factory<? extends Medium> factory,
+			   String...                parameters) {
+
+	media.put(name, new Entry<Medium>(factory, parameters));
+	specMedia.clear();
+
+    } // addMedium ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a data link layer, not yet connected to any other.
+     *
+     * @param  spec The specification of the layer.
+     * @return the new layer.
+     * @throws RuntimeException if the specification names no known layer, or
+     *                          gives it a parameter it does not accept or a
+     *                          value it cannot use.
+     */
+    public DataLinkLayer newLayer (String spec) {
+
+	Configured<DataLinkLayer> configured = specLayers.get(spec);
+	if (configured == null) {
+	    configured = configure(spec, layers, DataLinkLayer.class);
+	    specLayers.put(spec, configured);
+	}
+	return configured.create();
+
+    } // newLayer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a medium.
+     *
+     * @param  spec The specification of the medium.
+     * @return the new medium.
+     * @throws RuntimeException if the specification names no known medium, or
+     *                          gives it a parameter it does not accept or a
+     *                          value it cannot use.
+     */
+    public Medium newMedium (String spec) {
+
+	Configured<Medium> configured = specMedia.get(spec);
+	if (configured == null) {
+	    configured = configure(spec, media, Medium.class);
+	    specMedia.put(spec, configured);
+	}
+	return configured.create();
+
+    } // newMedium ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the names of the data link layers registered, in order.
+     */
+    public Set<String> layerNames () {
+
+	return Collections.unmodifiableSet(new TreeSet<String>(layers.keySet()));
+
+    } // layerNames ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the names of the media registered, in order.
+     */
+    public Set<String> mediumNames () {
+
+	return Collections.unmodifiableSet(new TreeSet<String>(media.keySet()));
+
+    } // mediumNames ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Add the components that come with the simulator, each with the
+     * parameters its constructors take.
+     */
+    private void registerBuiltIns () {
+
+	addLayer("Dumb", p -> new DumbDataLinkLayer());
+	addLayer("Parity",
+		 p -> p.has("minFrameSize") || p.has("maxFrameSize")
+		      ? new ParityDataLinkLayer(
+			    p.getInt("minFrameSize",
+				     ParityDataLinkLayer.defaultFrameSize),
+			    p.getInt("maxFrameSize",
+				     ParityDataLinkLayer.defaultMaxFrameSize))
+		      : new ParityDataLinkLayer(
+			    p.getInt("frameSize",
+				     ParityDataLinkLayer.defaultFrameSize)),
+		 "frameSize", "minFrameSize", "maxFrameSize");
+	addLayer("Crc",
+		 p -> new CrcDataLinkLayer(
+			  p.getInt("frameSize",
+				   CrcDataLinkLayer.DEFAULT_FRAME_SIZE),
+			  p.getEnum("algorithm",
+				    CrcDataLinkLayer.Algorithm.CRC32C)),
+		 "frameSize", "algorithm");
+	addLayer("Cobs", p -> new CobsDataLinkLayer());
+	addLayer("Hdlc",
+		 p -> new HdlcDataLinkLayer(
+			  p.getInt("frameSize",
+				   HdlcDataLinkLayer.DEFAULT_FRAME_SIZE)),
+		 "frameSize");
+	addLayer("ReedSolomon",
+		 p -> new ReedSolomonDataLinkLayer(
+			  p.getInt("n", ReedSolomonDataLinkLayer.DEFAULT_N),
+			  p.getInt("k", ReedSolomonDataLinkLayer.DEFAULT_K)),
+		 "n", "k");
+	addLayer("GoBackN",
+		 p -> new GoBackNDataLinkLayer(
+			  p.getInt("windowSize",
+				   GoBackNDataLinkLayer.DEFAULT_WINDOW_SIZE),
+			  p.getInt("frameSize",
+				   GoBackNDataLinkLayer.DEFAULT_FRAME_SIZE),
+			  p.getLong("timeoutMillis",
+				    GoBackNDataLinkLayer.DEFAULT_TIMEOUT_MILLIS)),
+		 "windowSize", "frameSize", "timeoutMillis");
+	addLayer("SelectiveRepeat",
+		 p -> new SelectiveRepeatDataLinkLayer(
+			  p.getInt("windowSize",
+				   SelectiveRepeatDataLinkLayer.DEFAULT_WINDOW_SIZE),
+			  p.getInt("frameSize",
+				   SelectiveRepeatDataLinkLayer.DEFAULT_FRAME_SIZE),
+			  p.getLong("timeoutMillis",
+				    SelectiveRepeatDataLinkLayer.DEFAULT_TIMEOUT_MILLIS)),
+		 "windowSize", "frameSize", "timeoutMillis");
+
+	addMedium("Perfect", p -> new PerfectMedium());
+	addMedium("LowNoise",
+		  p -> new LowNoiseMedium(noiseModel(p)),
+		  "model", "ber", "seed", "goodToBad", "badToGood",
+		  "goodBer", "badBer", "period", "positions");
+	addMedium("Pipelined",
+		  p -> new PipelinedMedium(
+			   p.getInt("laneCapacity",
+				    PipelinedMedium.DEFAULT_LANE_CAPACITY)),
+		  "laneCapacity");
+	addMedium("Csma",
+		  p -> new CsmaMedium(
+			   p.getDouble("bitRate", CsmaMedium.DEFAULT_BIT_RATE),
+			   p.getLong("slotNanos", CsmaMedium.DEFAULT_SLOT_NANOS),
+			   p.getInt("backoffLimit",
+				    CsmaMedium.DEFAULT_BACKOFF_LIMIT),
+			   p.getLong("seed", CsmaMedium.DEFAULT_SEED)),
+		  "bitRate", "slotNanos", "backoffLimit", "seed");
+	addMedium("Timed",
+		  p -> new TimedMedium(
+			   p.getDouble("bitRate", TimedMedium.DEFAULT_BIT_RATE),
+			   p.getLong("delayNanos",
+				     TimedMedium.DEFAULT_DELAY_NANOS)),
+		  "bitRate", "delayNanos");
+
+    } // registerBuiltIns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Build the noise model of a noisy medium from its parameters:
+     * <code>model=iid</code> (the default) with <code>ber</code>;
+     * <code>model=gilbertElliott</code> with <code>goodToBad</code>,
+     * <code>badToGood</code>, <code>goodBer</code> and <code>badBer</code>;
+     * or <code>model=fixedPattern</code> with <code>period</code> and
+     * <code>positions</code>, separated by slashes, as in
+     * <code>positions=3/70/71</code>.  Random models also take a
+     * <code>seed</code>.
+     *
+     * @param  p The medium's parameters.
+     * @return the noise model.
+     * @throws RuntimeException if the model is unknown, or a parameter is
+     *                          unusable.
+     */
+    private static NoiseModel noiseModel (Parameters p) {
+
+	String model = p.getString("model");
+	long   seed  = p.getLong("seed", LowNoiseMedium.DEFAULT_SEED);
+	if (model == null || model.equalsIgnoreCase("iid")) {
+	    return new IidNoiseModel(
+		       p.getDouble("ber", LowNoiseMedium.errorProbability),
+		       seed);
+	}
+	if (model.equalsIgnoreCase("gilbertElliott")) {
+	    return new GilbertElliottNoiseModel(
+		       p.getDouble("goodToBad",
+				   GilbertElliottNoiseModel.DEFAULT_GOOD_TO_BAD),
+		       p.getDouble("badToGood",
+				   GilbertElliottNoiseModel.DEFAULT_BAD_TO_GOOD),
+		       p.getDouble("goodBer",
+				   GilbertElliottNoiseModel.DEFAULT_GOOD_ERROR_RATE),
+		       p.getDouble("badBer",
+				   GilbertElliottNoiseModel.DEFAULT_BAD_ERROR_RATE),
+		       seed);
+	}
+	if (model.equalsIgnoreCase("fixedPattern")) {
+	    String   given     = p.getString("positions");
+	    String[] fields    = (given == null || given.isEmpty()
+				  ? new String[0] : given.split("/"));
+	    long[]   positions = new long[fields.length];
+	    for (int i = 0; i < fields.length; i += 1) {
+		try {
+		    positions[i] = Long.parseLong(fields[i].trim());
+		} catch (NumberFormatException e) {
+		    throw new RuntimeException("Parameter positions must be " +
+					       "integers separated by " +
+					       "slashes, not " + given);
+		}
+	    }
+	    return new FixedPatternNoiseModel(p.getLong("period", 0),
+					      positions);
+	}
+	throw new RuntimeException("Unknown noise model " + model + "; " +
+				   "use iid, gilbertElliott or fixedPattern");
+
+    } // noiseModel ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Parse a specification, and pair the component it names with its
+     * parameters, checking that the component accepts them all.
+     *
+     * @param  spec    The specification.
+     * @param  entries The registered components of the kind named.
+     * @param  kind    The class of that kind of component.
+     * @return the component's factory and parameters.
+     * @throws RuntimeException if the specification is malformed, names no
+     *                          known component, or gives it a parameter it
+     *                          does not accept.
+     */
+    private static <T> Configured<T> configure (String                spec,
+						Map<String, Entry<T>> entries,
+						Class<T>              kind) {
+
+	int    colon = spec.indexOf(':');
+	String name  = colon < 0 ? spec : spec.substring(0, colon);
+
+	// Find the component, falling back to a class by the conventional
+	// name, which is then kept like any other.
+	Entry<T> entry = entries.get(name);
+	if (entry == null) {
+	    entry = Entry.reflect(name, kind);
+	    entries.put(name, entry);
+	}
+
+	// Split out the parameters.
+	Map<String, String> values = new HashMap<String, String>();
+	if (colon >= 0 && colon < spec.length() - 1) {
+	    for (String pair : spec.substring(colon + 1).split(",")) {
+		int equals = pair.indexOf('=');
+		if (equals <= 0) {
+		    throw new RuntimeException("Malformed parameter " + pair +
+					       " in " + spec);
+		}
+		String key = pair.substring(0, equals).trim();
+		if (!entry.parameters.contains(key)) {
+		    throw new RuntimeException(name + " has no parameter " +
+					       key + "; it takes " +
+					       entry.parameters);
+		}
+		values.put(key, pair.substring(equals + 1).trim());
+	    }
+	}
+
+	return new Configured<T>(entry, new Parameters(name, values));
+
+    } // configure ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INNER CLASSES
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Something that builds a component from its parameters.
+     */
+    public interface Factory<T> {
+
+	/**
+	 * @param  parameters The parameters given in the specification.
+	 * @return a new component.
+	 */
+	T create (Parameters parameters);
+
+    } // interface Factory
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The parameters given to a component by its specification, each read
+     * as the type the component expects, or replaced by its default if not
+     * given.
+     */
+    public static final class Parameters {
+
+	// =====================================================================
+	Parameters (String component, Map<String, String> values) {
+
+	    this.component = component;
+	    this.values    = values;
+
+	} // Parameters ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	/**
+	 * @param  name The name of the parameter.
+	 * @return whether the parameter was given.
+	 */
+	public boolean has (String name) {
+
+	    return values.containsKey(name);
+
+	} // has ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	/**
+	 * @param  name         The name of the parameter.
+	 * @param  defaultValue The value if none was given.
+	 * @return the parameter's value.
+	 * @throws RuntimeException if the value given is not an integer.
+	 */
+	public int getInt (String name, int defaultValue) {
+
+	    String value = values.get(name);
+	    if (value == null) {
+		return defaultValue;
+	    }
+	    try {
+		return Integer.parseInt(value);
+	    } catch (NumberFormatException e) {
+		throw invalid(name, value, "an integer");
+	    }
+
+	} // getInt ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	/**
+	 * @param  name         The name of the parameter.
+	 * @param  defaultValue The value if none was given.
+	 * @return the parameter's value.
+	 * @throws RuntimeException if the value given is not an integer.
+	 */
+	public long getLong (String name, long defaultValue) {
+
+	    String value = values.get(name);
+	    if (value == null) {
+		return defaultValue;
+	    }
+	    try {
+		return Long.parseLong(value);
+	    } catch (NumberFormatException e) {
+		throw invalid(name, value, "an integer");
+	    }
+
+	} // getLong ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	/**
+	 * @param  name         The name of the parameter.
+	 * @param  defaultValue The value if none was given.
+	 * @return the parameter's value.
+	 * @throws RuntimeException if the value given is not a number.
+	 */
+	public double getDouble (String name, double defaultValue) {
+
+	    String value = values.get(name);
+	    if (value == null) {
+		return defaultValue;
+	    }
+	    try {
+		return Double.parseDouble(value);
+	    } catch (NumberFormatException e) {
+		throw invalid(name, value, "a number");
+	    }
+
+	} // getDouble ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	/**
+	 * @param  name         The name of the parameter.
+	 * @param  defaultValue The value if none was given, which also gives
+	 *                      the type of the value.
+	 * @return the constant named by the parameter's value, ignoring case.
+	 * @throws RuntimeException if the value given names no such constant.
+	 */
+	public <E extends Enum<E>> E getEnum (String name, E defaultValue) {
+
+	    String value = values.get(name);
+	    if (value == null) {
+		return defaultValue;
+	    }
+	    for (E constant : defaultValue.getDeclaringClass().getEnumConstants()) {
+		if (constant.name().equalsIgnoreCase(value)) {
+		    return constant;
+		}
+	    }
+	    throw invalid(name, value, "one of " +
+			  Arrays.toString(defaultValue.getDeclaringClass()
+					  .getEnumConstants()));
+
+	} // getEnum ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	/**
+	 * @param  name The name of the parameter.
+	 * @return the parameter's value as given, or <code>null</code> if none
+	 *         was.
+	 */
+	public String getString (String name) {
+
+	    return values.get(name);
+
+	} // getString ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	/**
+	 * @return an exception reporting a parameter's unusable value.
+	 */
+	private RuntimeException invalid (String name,
+					  String value,
+					  String expected) {
+
+	    return new RuntimeException("Parameter " + name + " of " +
+					component + " must be " + expected +
+					", not " + value);
+
+	} // invalid ()
+	// =====================================================================
+
+
+
+	/** The name of the component given these parameters. */
+	private final String              component;
+
+	/** The value given for each parameter, by name. */
+	private final Map<String, String> values;
+
+    } // class Parameters
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * A registered component: its factory and the parameters it accepts.
+     */
+    private static final class Entry<T> {
+
+	// =====================================================================
+	@SuppressWarnings("unchecked")
+	Entry (Factory<? extends T> factory, String[] parameters) {
+
+	    this.factory    = (Factory<T>)factory;
+	    this.parameters = new HashSet<String>(Arrays.asList(parameters));
+
+	} // Entry ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	/**
+	 * Find a component class by its conventional name, keeping a handle
+	 * on its no-argument constructor.
+	 *
+	 * @param  name The name of the component.
+	 * @param  kind The class of its kind, whose name is the suffix of the
+	 *              component's class name.
+	 * @return the component, which takes no parameters.
+	 * @throws RuntimeException if there is no such subclass of the kind, or
+	 *                          it cannot be constructed without arguments.
+	 */
+	static <T> Entry<T> reflect (String name, Class<T> kind) {
+
+	    final String className = name + kind.getSimpleName();
+	    MethodHandle constructor;
+	    try {
+		Class<?> type = Class.forName(className);
+		if (!kind.isAssignableFrom(type)) {
+		    throw new RuntimeException(className + " is not a " +
+					       "subclass of " +
+					       kind.getSimpleName());
+		}
+		constructor = MethodHandles.publicLookup()
+		    .findConstructor(type, MethodType.methodType(void.class));
+	    } catch (ClassNotFoundException e) {
+		throw new RuntimeException("Unknown " + kind.getSimpleName() +
+					   " subclass " + className);
+	    } catch (ReflectiveOperationException e) {
+		throw new RuntimeException("Could not access the constructor " +
+					   "of " + className);
+	    }
+
+	    final MethodHandle handle = constructor;
+	    Factory<T> factory = p -> {
+		try {
+		    return kind.cast(handle.invoke());
+		} catch (RuntimeException | Error e) {
+		    throw e;
+		} catch (Throwable e) {
+		    throw new RuntimeException("Could not instantiate " +
+					       className, e);
+		}
+	    };
+	    return new Entry<T>(factory, new String[0]);
+
+	} // reflect ()
+	// =====================================================================
+
+
+
+	/** What creates the component. */
+	final Factory<T>  factory;
+
+	/** The names of the parameters it accepts. */
+	final Set<String> parameters;
+
+    } // class Entry
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * A parsed specification: a component's factory paired with the
+     * parameters given to it.
+     */
+    private static final class Configured<T> {
+
+	// =====================================================================
+	Configured (Entry<T> entry, Parameters parameters) {
+
+	    this.entry      = entry;
+	    this.parameters = parameters;
+
+	} // Configured ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	/** @return a new component, built as specified. */
+	T create () {
+
+	    return entry.factory.create(parameters);
+
+	} // create ()
+	// =====================================================================
+
+
+
+	/** The component. */
+	private final Entry<T>   entry;
+
+	/** The parameters given to it. */
+	private final Parameters parameters;
+
+    } // class Configured
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The holder of the default registry, built when first used.
+     */
+    private static final class Default {
+
+	/** The built-in components, and those of each provider found. */
+	static final ComponentRegistry REGISTRY = load();
+
+	/** @return a registry to which every provider has added. */
+	private static ComponentRegistry load () {
+
+	    ComponentRegistry registry = new ComponentRegistry();
+	    for (ComponentProvider provider :
+		     ServiceLoader.load(ComponentProvider.class)) {
+		provider.registerWith(registry);
+	    }
+	    return registry;
+
+	} // load ()
+
+    } // class Default
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The data link layers, by name. */
+    private final Map<String, Entry<DataLinkLayer>>      layers;
+
+    /** The media, by name. */
+    private final Map<String, Entry<Medium>>             media;
+
+    /** The data link layer specifications parsed so far. */
+    private final Map<String, Configured<DataLinkLayer>> specLayers;
+
+    /** The medium specifications parsed so far. */
+    private final Map<String, Configured<Medium>>        specMedia;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class ComponentRegistry
+// =============================================================================
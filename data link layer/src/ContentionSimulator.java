@@ -0,0 +1,194 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.Random;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * An entry point that puts many hosts on one shared CSMA/CD medium, each
+ * offering all of its messages at once.  Once every message has been
+ * delivered or dropped, it reports the aggregate goodput, the collision rate,
+ * and how fairly the channel was shared, so that the framing of a given data
+ * link layer can be judged under contention.
+ *
+ * The medium plays contention out in simulated time, so a run is repeatable
+ * and its figures do not depend on the machine.  Its bit rate, slot time,
+ * backoff limit and seed may be given as a medium type, such as
+ * <code>Csma:slotNanos=25600,backoffLimit=6</code>.  Since every host sends
+ * from within the simulation, data link layers that wait in
+ * <code>send()</code> for acknowledgements cannot be used.
+ *
+ * @file   ContentionSimulator.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class ContentionSimulator {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The entry point.  Interpret the command-line arguments, aborting if they
+     * are invalid.  Set up the hosts and start the simulation.
+     *
+     * @param args The command-line arguments.
+     */
+    public static void main (String[] args) {
+
+	// Check the number of arguments passed.
+	if (args.length != 4 && args.length != 5) {
+
+	    System.err.println("Usage: java ContentionSimulator "  +
+			       "<data link layer type> "           +
+			       "<number of hosts> "                +
+			       "<messages per host> "              +
+			       "<bytes per message> "              +
+			       "[<medium type>]");
+	    System.exit(1);
+
+	}
+
+	// Assign names to the arguments.
+	String dataLinkLayerType = args[0];
+	int    hostCount         = Integer.parseInt(args[1]);
+	int    messageCount      = Integer.parseInt(args[2]);
+	int    messageSize       = Integer.parseInt(args[3]);
+	String mediumType        = (args.length == 5 ? args[4] : "Csma");
+	if (hostCount < 2 || messageCount < 0 || messageSize < 0) {
+	    throw new RuntimeException("Need at least two hosts, and no " +
+				       "negative counts or sizes");
+	}
+
+	// Create the medium and the hosts on it.
+	Medium created = Medium.create(mediumType);
+	if (!(created instanceof CsmaMedium)) {
+	    throw new RuntimeException("Not a CSMA medium: " + mediumType);
+	}
+	CsmaMedium medium = (CsmaMedium)created;
+	Host[]     hosts  = new Host[hostCount];
+	for (int i = 0; i < hostCount; i += 1) {
+	    hosts[i] = new Host(medium, dataLinkLayerType);
+	    if (hosts[i].getDataLinkLayer() instanceof ArqDataLinkLayer) {
+		throw new RuntimeException("Cannot simulate contention with " +
+					   "the ARQ layer " + dataLinkLayerType);
+	    }
+	}
+
+	// Perform the simulation!
+	simulate(medium, hosts, messageCount, messageSize);
+	medium.close();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Have every host offer its messages at the start of simulated time, run
+     * the medium until all have been delivered or dropped, and then report
+     * on how the medium was shared.
+     *
+     * @param medium       The medium shared by the hosts.
+     * @param hosts        The hosts.
+     * @param messageCount The number of messages each host sends.
+     * @param messageSize  The number of bytes in each message.
+     */
+    private static void simulate (CsmaMedium medium,
+				  Host[]     hosts,
+				  int        messageCount,
+				  int        messageSize) {
+
+	// Every host counts what it receives rather than buffering it, and
+	// queues random messages at time zero.
+	long[] received = new long[hosts.length];
+	for (int i = 0; i < hosts.length; i += 1) {
+
+	    final int  index = i;
+	    final Host host  = hosts[i];
+	    host.setFrameListener(data -> received[index] += data.remaining());
+	    medium.at(0, new Runnable() {
+		    public void run () {
+			Random random  = new Random(index);
+			byte[] message = new byte[messageSize];
+			for (int m = 0; m < messageCount; m += 1) {
+			    random.nextBytes(message);
+			    host.send(message);
+			}
+		    }
+		});
+
+	}
+	long start = System.nanoTime();
+	medium.drain();
+	long elapsed = System.nanoTime() - start;
+
+	// Collect the tallies.
+	long   totalReceived = 0;
+	long   attempts      = 0;
+	long   collisions    = 0;
+	long   successes     = 0;
+	long   drops         = 0;
+	long   bitsSent      = 0;
+	double sumShare      = 0;
+	double sumShareSq    = 0;
+	long   minBits       = Long.MAX_VALUE;
+	long   maxBits       = 0;
+	for (int i = 0; i < hosts.length; i += 1) {
+
+	    totalReceived += received[i];
+
+	    int port    = hosts[i].getPhysicalLayer().getPort();
+	    long bits   = medium.getBitsSent(port);
+	    attempts   += medium.getAttempts(port);
+	    collisions += medium.getCollisions(port);
+	    successes  += medium.getSuccesses(port);
+	    drops      += medium.getDrops(port);
+	    bitsSent   += bits;
+	    sumShare   += bits;
+	    sumShareSq += (double)bits * bits;
+	    minBits     = Math.min(minBits, bits);
+	    maxBits     = Math.max(maxBits, bits);
+
+	}
+
+	// Each delivered byte reaches every host but its sender, so count
+	// it once.  Fairness is Jain's index over the bits each host got
+	// onto the medium: 1 when all are equal, 1/n when one host has all.
+	double seconds   = medium.now() / 1e9;
+	long   goodput   = totalReceived / (hosts.length - 1);
+	long   offered   = (long)hosts.length * messageCount * messageSize;
+	double fairness  = (sumShareSq == 0 ? 1.0 :
+			    (sumShare * sumShare) / (hosts.length * sumShareSq));
+	System.out.printf("Hosts:                  %d\n", hosts.length);
+	System.out.printf("Simulated time:         %.6f s\n", seconds);
+	System.out.printf("Wall time:              %.3f s\n", elapsed / 1e9);
+	System.out.printf("Payload offered:        %d bytes\n", offered);
+	System.out.printf("Payload delivered:      %d bytes\n", goodput);
+	System.out.printf("Aggregate goodput:      %.3f Mb/s\n",
+			  seconds == 0 ? 0.0 : goodput * 8 / seconds / 1e6);
+	System.out.printf("Framing overhead:       %.3f wire bytes per payload byte\n",
+			  goodput == 0 ? 0.0 : bitsSent / 8.0 / goodput);
+	System.out.printf("Transmission attempts:  %d\n", attempts);
+	System.out.printf("Collisions:             %d (%.2f%% of attempts)\n",
+			  collisions,
+			  attempts == 0 ? 0.0 : 100.0 * collisions / attempts);
+	System.out.printf("Blocks delivered:       %d\n", successes);
+	System.out.printf("Blocks dropped:         %d\n", drops);
+	System.out.printf("Fairness (Jain):        %.4f (min %d, max %d bits per host)\n",
+			  fairness,
+			  minBits,
+			  maxBits);
+
+    } // simulate ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class ContentionSimulator
+// =============================================================================
@@ -0,0 +1,167 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.zip.Checksum;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * The CRC-16/CCITT-FALSE checksum: polynomial 0x1021, initial value 0xFFFF,
+ * most significant bit first, with no final XOR.  Bytes are processed eight at
+ * a time by table lookup (slicing-by-8): eight tables give the contribution of
+ * a byte followed by zero through seven further bytes, so that eight lookups,
+ * each independent of the others, advance the checksum by eight bytes.
+ *
+ * @file   Crc16.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class Crc16 implements Checksum {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a checksum at its initial value.
+     */
+    public Crc16 () {
+
+	reset();
+
+    } // Crc16 ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public void update (int b) {
+
+	crc = ((crc << 8) ^ TABLES[0][((crc >>> 8) ^ b) & 0xff]) & 0xffff;
+
+    } // update ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public void update (byte[] data, int offset, int length) {
+
+	int   c   = crc;
+	int   i   = offset;
+	int   end = offset + length;
+	int[] t0  = TABLES[0];
+
+	// Eight bytes at a time; the checksum so far folds into the first two.
+	int[] t1 = TABLES[1], t2 = TABLES[2], t3 = TABLES[3];
+	int[] t4 = TABLES[4], t5 = TABLES[5], t6 = TABLES[6], t7 = TABLES[7];
+	for (; end - i >= 8; i += 8) {
+	    c = t7[((c >>> 8) ^ data[i]) & 0xff]     ^
+		t6[(c ^ data[i + 1]) & 0xff]         ^
+		t5[data[i + 2] & 0xff]               ^
+		t4[data[i + 3] & 0xff]               ^
+		t3[data[i + 4] & 0xff]               ^
+		t2[data[i + 5] & 0xff]               ^
+		t1[data[i + 6] & 0xff]               ^
+		t0[data[i + 7] & 0xff];
+	}
+
+	// Then any remaining bytes one at a time.
+	for (; i < end; i += 1) {
+	    c = ((c << 8) ^ t0[((c >>> 8) ^ data[i]) & 0xff]) & 0xffff;
+	}
+
+	crc = c;
+
+    } // update ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long getValue () {
+
+	return crc;
+
+    } // getValue ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public void reset () {
+
+	crc = INITIAL_VALUE;
+
+    } // reset ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Build the lookup tables.  Table 0 holds the checksum of each single byte
+     * from a zero register; table k holds that of each byte followed by k zero
+     * bytes.
+     *
+     * @return the eight tables.
+     */
+    private static int[][] buildTables () {
+
+	int[][] tables = new int[8][256];
+	for (int b = 0; b < 256; b += 1) {
+	    int c = b << 8;
+	    for (int bit = 0; bit < 8; bit += 1) {
+		c = ((c & 0x8000) != 0) ? (c << 1) ^ POLYNOMIAL : c << 1;
+	    }
+	    tables[0][b] = c & 0xffff;
+	}
+	for (int k = 1; k < 8; k += 1) {
+	    for (int b = 0; b < 256; b += 1) {
+		int previous = tables[k - 1][b];
+		tables[k][b] = ((previous << 8) ^
+				tables[0][(previous >>> 8) & 0xff]) & 0xffff;
+	    }
+	}
+	return tables;
+
+    } // buildTables ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The generator polynomial, without its leading term. */
+    private static final int     POLYNOMIAL    = 0x1021;
+
+    /** The value of the register before any bytes are processed. */
+    private static final int     INITIAL_VALUE = 0xffff;
+
+    /** The slicing-by-8 lookup tables. */
+    private static final int[][] TABLES        = buildTables();
+
+    /** The current value of the checksum. */
+    private int                  crc;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class Crc16
+// =============================================================================
@@ -0,0 +1,357 @@
+// =============================================================================
+// IMPORTS
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * A data link layer that uses start/stop tags and byte packing to frame the
+ * data, dividing it into frames of a configurable size, and that protects
+ * each frame with a cyclic redundancy check.  Unlike a parity bit, a CRC
+ * detects every burst of errors shorter than its width and nearly every
+ * other pattern, so frames can be made much larger without letting damage
+ * through.  A frame whose CRC does not match is discarded.
+ *
+ * @file   CrcDataLinkLayer.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class CrcDataLinkLayer extends DataLinkLayer {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a layer with the default frame size, protected by CRC-32C.
+     */
+    public CrcDataLinkLayer () {
+
+	this(DEFAULT_FRAME_SIZE, Algorithm.CRC32C);
+
+    } // CrcDataLinkLayer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a layer.
+     *
+     * @param frameSize The most data bytes carried by each frame.
+     * @param algorithm The CRC with which to protect each frame.
+     * @throws RuntimeException if the frame size is not positive.
+     */
+    public CrcDataLinkLayer (int frameSize, Algorithm algorithm) {
+
+	if (frameSize <= 0) {
+	    throw new RuntimeException("Frame size must be positive");
+	}
+	this.frameSize       = frameSize;
+	this.algorithm       = algorithm;
+	this.sendChecksum    = algorithm.newChecksum();
+	this.receiveChecksum = algorithm.newChecksum();
+	this.decoder         = new StuffedFrameDecoder(startTag,
+						       stopTag,
+						       escapeTag,
+						       frameSize + algorithm.width());
+
+    } // CrcDataLinkLayer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Embed a raw sequence of bytes into a framed sequence.
+     *
+     * @param  data The raw sequence of bytes to be framed.
+     * @return A complete frame.
+     */
+    protected byte[] createFrame (byte[] data) {
+
+	ByteBuffer framedData = ByteBuffer.allocate(frameLength(data, 0, data.length));
+	createFrame(data, 0, data.length, framedData);
+	return Arrays.copyOf(framedData.array(), framedData.position());
+
+    } // createFrame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Embed part of a raw sequence of bytes into a sequence of frames, each
+     * holding at most a frame's worth of data followed by its CRC, most
+     * significant byte first.  Any tag within the data or the CRC is preceded
+     * by an escape tag.
+     *
+     * @param src    The array holding the raw bytes to be framed.
+     * @param offset The index of the first byte to be framed.
+     * @param length The number of bytes to be framed.
+     * @param dst    The buffer into which to write the frames.
+     */
+    protected void createFrame (byte[]     src,
+				int        offset,
+				int        length,
+				ByteBuffer dst) {
+
+	int end = offset + length;
+	int i   = offset;
+	do {
+
+	    // Compute the CRC of this frame's data with the intrinsic loop of
+	    // the checksum, before stuffing.
+	    int frameEnd = Math.min(i + frameSize, end);
+	    sendChecksum.reset();
+	    sendChecksum.update(src, i, frameEnd - i);
+	    long crc = sendChecksum.getValue();
+
+	    dst.put(startTag);
+	    int bodyStart  = dst.position();
+	    int bodyLength = frameEnd - i + algorithm.width();
+	    for (; i < frameEnd; i += 1) {
+		putStuffed(src[i], dst);
+	    }
+	    for (int shift = 8 * (algorithm.width() - 1); shift >= 0; shift -= 8) {
+		putStuffed((byte)(crc >>> shift), dst);
+	    }
+	    escapeBytesSent.add(dst.position() - bodyStart - bodyLength);
+	    dst.put(stopTag);
+	    frameSent(bodyLength - algorithm.width());
+
+	} while (i < end);
+
+    } // createFrame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Determine the most bytes that the frames for the given raw bytes may
+     * need: the data, an escape tag for each data byte that is itself a tag,
+     * and for each frame, start and stop tags and a CRC in which every byte
+     * might need escaping.
+     *
+     * @param  src    The array holding the raw bytes to be framed.
+     * @param  offset The index of the first byte to be framed.
+     * @param  length The number of bytes to be framed.
+     * @return the most bytes the frames may need.
+     */
+    protected int frameLength (byte[] src, int offset, int length) {
+
+	int frames       = Math.max(1, (length + frameSize - 1) / frameSize);
+	int framedLength = length + frames * (2 + 2 * algorithm.width());
+	int end          = offset + length;
+	for (int i = offset; i < end; i += 1) {
+	    if (isTag(src[i])) {
+		framedLength += 1;
+	    }
+	}
+
+	return framedLength;
+
+    } // frameLength ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Determine whether the received, buffered data completes a frame with a
+     * matching CRC.  If so, deliver its original data straight from the
+     * decoder.  Frames that are too short to hold a CRC, or whose CRC does
+     * not match, are discarded.
+     *
+     * @return <code>null</code>, since any intact frame has been delivered.
+     */
+    protected byte[] processFrame () {
+
+	while (!byteBuffer.isEmpty()) {
+
+	    int result = decoder.consume(byteBuffer.remove());
+	    if (result != StuffedFrameDecoder.FRAME_COMPLETE) {
+		if (result == StuffedFrameDecoder.BYTE_DISCARDED) {
+		    discard(1);
+		} else if (result == StuffedFrameDecoder.FRAME_RESTARTED) {
+		    dropFrame(truncatedFrames);
+		} else if (result == StuffedFrameDecoder.FRAME_OVERSIZED) {
+		    dropFrame(oversizeFrames);
+		}
+		continue;
+	    }
+
+	    // Split the frame into its data and its CRC.
+	    byte[] frame      = decoder.data();
+	    int    dataLength = decoder.length() - algorithm.width();
+	    if (dataLength < 0) {
+		dropFrame(malformedFrames);
+		continue;
+	    }
+	    long received = 0;
+	    for (int i = dataLength; i < decoder.length(); i += 1) {
+		received = (received << 8) | (frame[i] & 0xff);
+	    }
+
+	    // Keep the data only if the CRC matches.
+	    receiveChecksum.reset();
+	    receiveChecksum.update(frame, 0, dataLength);
+	    if (receiveChecksum.getValue() == received) {
+		deliver(frame, 0, dataLength);
+		return null;
+	    }
+	    dropFrame(checksumMismatches);
+
+	}
+
+	return null;
+
+    } // processFrame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write a byte of the frame body, preceded by an escape tag if it is
+     * itself a tag.
+     *
+     * @param value The byte to write.
+     * @param dst   The buffer into which to write it.
+     */
+    private void putStuffed (byte value, ByteBuffer dst) {
+
+	if (isTag(value)) {
+	    dst.put(escapeTag);
+	}
+	dst.put(value);
+
+    } // putStuffed ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  value A byte.
+     * @return whether the byte is one of the tags.
+     */
+    private boolean isTag (byte value) {
+
+	return (value == startTag) || (value == stopTag) || (value == escapeTag);
+
+    } // isTag ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INNER CLASSES
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The available CRCs.  CRC-32 and CRC-32C use the JDK's implementations,
+     * which the JIT replaces with hardware instructions where available.
+     * CRC-16 uses a slicing-by-8 table implementation.
+     */
+    public enum Algorithm {
+
+	/** CRC-16/CCITT-FALSE. */
+	CRC16(2),
+
+	/** CRC-32 (ISO-HDLC), as used by Ethernet. */
+	CRC32(4),
+
+	/** CRC-32C (Castagnoli). */
+	CRC32C(4);
+
+	Algorithm (int width) {
+
+	    this.width = width;
+
+	}
+
+	/** @return the number of bytes in the CRC. */
+	public int width () {
+
+	    return width;
+
+	}
+
+	/** @return a new checksum computing this CRC. */
+	public Checksum newChecksum () {
+
+	    switch (this) {
+	    case CRC16:
+		return new Crc16();
+	    case CRC32:
+		return new CRC32();
+	    default:
+		return new CRC32C();
+	    }
+
+	}
+
+	/** The number of bytes in the CRC. */
+	private final int width;
+
+    } // enum Algorithm
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The most data bytes carried by each frame. */
+    private final int                 frameSize;
+
+    /** The CRC protecting each frame. */
+    private final Algorithm           algorithm;
+
+    /** The checksum used in framing outgoing data. */
+    private final Checksum            sendChecksum;
+
+    /** The checksum used in checking incoming frames, perhaps on another thread. */
+    private final Checksum            receiveChecksum;
+
+    /** The decoder that extracts frames from the received bytes. */
+    private final StuffedFrameDecoder decoder;
+
+    /** The frame size used when none is given. */
+    static final int DEFAULT_FRAME_SIZE = 1024;
+
+    // The start tag, stop tag, and the escape tag.
+    private static final byte startTag  = (byte)'{';
+    private static final byte stopTag   = (byte)'}';
+    private static final byte escapeTag = (byte)'\\';
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class CrcDataLinkLayer
+// =============================================================================
@@ -0,0 +1,750 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * A shared medium on which clients contend to send, using carrier sense
+ * multiple access with collision detection (CSMA/CD), as classic Ethernet
+ * does.  Contention is played out in simulated time, by an
+ * <code>EventScheduler</code>, so that the collisions it reports come from
+ * the protocol and the load offered, never from how threads happen to be
+ * scheduled, and a run with the same seed is repeatable.
+ *
+ * Each client is a station with a queue of blocks, each block of bits one
+ * transmission.  The clients share one bus, every pair of stations half a
+ * slot time apart, so that a transmission is heard everywhere within one
+ * slot of starting.  A station with a block to send listens, and while it
+ * hears the carrier of another, defers until the channel goes quiet
+ * (1-persistent).  A station that starts before another's carrier has
+ * reached it collides with it: each detects the collision when the other's
+ * signal arrives, sends a short jam, and backs off for a random number of
+ * slot times, chosen from a range that doubles with each successive
+ * collision of the block, up to a limit (truncated binary exponential
+ * backoff).  A block that collides too many times is dropped.  A block that
+ * is sent whole is delivered to every other client when its last bit
+ * arrives, and its station waits out an interframe gap before its next.
+ *
+ * Blocks compete only with those ready at the same simulated time.  A
+ * block handed over outside of an event is sent at once, running simulated
+ * time forward until everything in flight has been delivered, so senders on
+ * different threads merely take turns.  To offer load from many hosts at
+ * once, schedule their sends with <code>at()</code> and then call
+ * <code>drain()</code>, as <code>ContentionSimulator</code> does.  A client
+ * may reply from within the delivery of a block, as an ARQ layer does with
+ * its acknowledgements; the reply is queued at its station like any other
+ * block.
+ *
+ * A frame longer than one block may be interleaved with other senders'
+ * blocks, so contending stacks should send frames of at most
+ * <code>DataLinkLayer.BLOCK_SIZE</code> bytes.
+ *
+ * @file   CsmaMedium.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class CsmaMedium extends Medium {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a medium with the default bit rate, slot time, backoff limit and
+     * seed.
+     */
+    public CsmaMedium () {
+
+	this(DEFAULT_BIT_RATE,
+	     DEFAULT_SLOT_NANOS,
+	     DEFAULT_BACKOFF_LIMIT,
+	     DEFAULT_SEED);
+
+    } // CsmaMedium ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a medium.
+     *
+     * @param bitRate      The bits each station sends per second.
+     * @param slotNanos    The unit of backoff time, in nanoseconds, which is
+     *                     also the longest round trip between two stations.
+     * @param backoffLimit The most times the backoff range may double.
+     * @param seed         The seed of the backoff choices.
+     * @throws RuntimeException if any parameter is out of range.
+     */
+    public CsmaMedium (double bitRate,
+		       long   slotNanos,
+		       int    backoffLimit,
+		       long   seed) {
+
+	if (!(bitRate > 0) || slotNanos <= 0) {
+	    throw new RuntimeException("Invalid bit rate " + bitRate +
+				       " or slot time " + slotNanos);
+	}
+	if (backoffLimit < 0 || backoffLimit > MAX_BACKOFF_LIMIT) {
+	    throw new RuntimeException("Backoff limit must be between 0 and " +
+				       MAX_BACKOFF_LIMIT);
+	}
+	this.nanosPerBit  = NANOS_PER_SECOND / bitRate;
+	this.slotNanos    = slotNanos;
+	this.delayNanos   = slotNanos / 2;
+	this.backoffLimit = backoffLimit;
+	this.random       = new SplittableRandom(seed);
+	this.scheduler    = new EventScheduler();
+	this.lock         = new ReentrantLock();
+	this.active       = new ArrayList<Transmission>();
+	this.stations     = new Station[0];
+
+    } // CsmaMedium ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send a bit from one client to the other clients, as a block of one.
+     *
+     * @param sender The client physical layer sending the bit.
+     * @param bit The value to be sent, where <code>false</code> sends a
+     *            <code>0</code> bit, and <code>true</code> sends a
+     *            <code>1</code> bit.
+     * @throws RuntimeException if the sender is not registered with this
+     *                          medium.
+     */
+    public void transmit (PhysicalLayer sender, boolean bit) {
+
+	transmitBlock(sender, bit ? ONE_BIT : ZERO_BIT, 0, 1);
+
+    } // transmit ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Queue a block of bits at the sender's station, to contend for the
+     * channel at the current simulated time.  Within an event, the block
+     * waits its turn; otherwise, simulated time is run forward until every
+     * block in flight, this one included, has been delivered or dropped.
+     * The block is copied, since it may be sent after this returns.
+     *
+     * @param sender    The client physical layer sending the bits.
+     * @param data      The bytes holding the bits to be sent.
+     * @param bitOffset The index of the first bit to be sent.
+     * @param bitLength The number of bits to be sent.
+     * @throws RuntimeException if the sender is not registered with this
+     *                          medium.
+     */
+    public void transmitBlock (PhysicalLayer sender,
+			       byte[]        data,
+			       int           bitOffset,
+			       int           bitLength) {
+
+	// Only registered clients may send.
+	int    senderPort = portOf(sender);
+	int    firstByte  = bitOffset >>> 3;
+	byte[] copy       = Arrays.copyOfRange(data,
+					       firstByte,
+					       (bitOffset + bitLength + 7) >>> 3);
+
+	lock.lock();
+	try {
+	    Station station = stationFor(senderPort);
+	    station.queue.add(new Block(copy, bitOffset & 7, bitLength));
+	    if (!station.contending) {
+		station.contending = true;
+		scheduler.schedule(scheduler.now(), station.attempt);
+	    }
+	    scheduler.runAll();
+	} finally {
+	    lock.unlock();
+	}
+
+    } // transmitBlock ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Run a task at a given simulated time, as an event, such as a host
+     * offering a message.  It runs once simulated time reaches it, as during
+     * <code>drain()</code>.
+     *
+     * @param time The simulated time at which to run it, in nanoseconds.
+     * @param task The task.
+     * @throws RuntimeException if the time has already passed.
+     */
+    public void at (long time, Runnable task) {
+
+	lock.lock();
+	try {
+	    scheduler.schedule(time, t -> task.run());
+	} finally {
+	    lock.unlock();
+	}
+
+    } // at ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Run simulated time forward until every block has been delivered or
+     * dropped, and every task scheduled with <code>at()</code> has run.
+     */
+    public void drain () {
+
+	lock.lock();
+	try {
+	    scheduler.runAll();
+	} finally {
+	    lock.unlock();
+	}
+
+    } // drain ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Run simulated time forward to the next event.  Does nothing from within
+     * an event, or if another thread is running events, since that one may be
+     * waiting on the caller.
+     *
+     * @return whether any event ran.
+     */
+    public boolean advance () {
+
+	if (lock.isHeldByCurrentThread() || !lock.tryLock()) {
+	    return false;
+	}
+	try {
+	    return scheduler.runNext();
+	} finally {
+	    lock.unlock();
+	}
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Run simulated time forward to a given time, running every event due by
+     * then.  Does nothing if another thread is running events, as with
+     * <code>advance()</code>.
+     *
+     * @param  time The simulated time to move to.
+     * @return whether the clock was moved.
+     */
+    public boolean advanceTo (long time) {
+
+	if (lock.isHeldByCurrentThread() || !lock.tryLock()) {
+	    return false;
+	}
+	try {
+	    scheduler.runUntil(time);
+	    return true;
+	} finally {
+	    lock.unlock();
+	}
+
+    } // advanceTo ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the simulated time, in nanoseconds, since the medium was
+     *         created.
+     */
+    public long now () {
+
+	return scheduler.now();
+
+    } // now ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return no floor at all, since simulated time has no scheduling pauses.
+     */
+    public long minimumTimeout () {
+
+	return 0;
+
+    } // minimumTimeout ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  port The port id of a client.
+     * @return the number of transmissions the client has attempted.
+     */
+    public long getAttempts (int port) {
+
+	return stationFor(port).attempts.sum();
+
+    } // getAttempts ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  port The port id of a client.
+     * @return the number of the client's attempts that ended in a collision.
+     */
+    public long getCollisions (int port) {
+
+	return stationFor(port).collisions.sum();
+
+    } // getCollisions ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  port The port id of a client.
+     * @return the number of the client's blocks that were delivered.
+     */
+    public long getSuccesses (int port) {
+
+	return stationFor(port).successes.sum();
+
+    } // getSuccesses ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  port The port id of a client.
+     * @return the number of the client's blocks that were dropped after too
+     *         many collisions.
+     */
+    public long getDrops (int port) {
+
+	return stationFor(port).drops.sum();
+
+    } // getDrops ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  port The port id of a client.
+     * @return the number of bits the client has delivered.
+     */
+    public long getBitsSent (int port) {
+
+	return stationFor(port).bitsSent.sum();
+
+    } // getBitsSent ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Have a station with a block to send listen to the channel, and either
+     * defer or start transmitting.  Called as an event.
+     *
+     * @param station The station.
+     * @param time    The simulated time, which is now.
+     */
+    private void attempt (Station station, long time) {
+
+	// Carrier sense: a transmission is heard from half a slot after it
+	// starts until half a slot after it stops.  If one is heard, wait
+	// for the channel to go quiet.
+	long startedSince = time - delayNanos;
+	long quiet        = time;
+	for (int i = active.size() - 1; i >= 0; i -= 1) {
+	    Transmission other = active.get(i);
+	    if (other.stop + delayNanos <= time) {
+		active.remove(i);
+	    } else if (other.start <= startedSince) {
+		quiet = Math.max(quiet, other.stop + delayNanos);
+	    }
+	}
+	if (quiet > time) {
+	    scheduler.schedule(quiet, station.attempt);
+	    return;
+	}
+
+	// Start transmitting.  Any transmission still in the channel started
+	// less than half a slot ago and has not yet been heard, so it
+	// collides with this one.  Each side detects the collision when the
+	// other's signal arrives, and stops after a jam.
+	Block        block        = station.queue.peek();
+	Transmission transmission =
+	    new Transmission(station,
+			     time,
+			     time + Math.round(block.bitLength * nanosPerBit));
+	station.attempts.increment();
+	attempts.increment();
+	long jam = Math.round(JAM_BITS * nanosPerBit);
+	for (Transmission other : active) {
+	    if (other.station == station) {
+		continue;
+	    }
+	    transmission.collided = true;
+	    transmission.stop     = Math.min(transmission.stop,
+					     other.start + delayNanos + jam);
+	    if (!other.collided || time + delayNanos + jam < other.stop) {
+		other.collided = true;
+		other.stop     = Math.min(other.stop, time + delayNanos + jam);
+		scheduler.schedule(other.stop, other.finish);
+	    }
+	}
+	active.add(transmission);
+	scheduler.schedule(transmission.stop, transmission.finish);
+
+    } // attempt ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * End a transmission, delivering its block if it did not collide, and
+     * otherwise backing off or dropping it; then set the station on its next
+     * block.  Called as an event, at least once at the transmission's stop
+     * time, and perhaps earlier, before a collision shortened it.
+     *
+     * @param transmission The transmission.
+     * @param time         The simulated time, which is now.
+     */
+    private void finish (Transmission transmission, long time) {
+
+	if (time != transmission.stop || transmission.finished) {
+	    return;
+	}
+	transmission.finished = true;
+	Station station = transmission.station;
+	Block   block   = station.queue.peek();
+
+	if (transmission.collided) {
+	    station.collisions.increment();
+	    collisions.increment();
+	    station.backoffs += 1;
+	    if (station.backoffs < MAX_ATTEMPTS) {
+		int  exponent = Math.min(station.backoffs, backoffLimit);
+		long slots    = random.nextLong(1L << exponent);
+		scheduler.schedule(time + slots * slotNanos, station.attempt);
+		return;
+	    }
+	    station.drops.increment();
+	    drops.increment();
+	} else {
+	    station.successes.increment();
+	    station.bitsSent.add(block.bitLength);
+	    successes.increment();
+	    scheduler.schedule(time + delayNanos,
+			       new Delivery(station.port, block));
+	}
+
+	// Move on to the station's next block, if any, after the gap.
+	station.queue.remove();
+	station.backoffs = 0;
+	if (station.queue.isEmpty()) {
+	    station.contending = false;
+	} else {
+	    scheduler.schedule(time + Math.round(GAP_BITS * nanosPerBit),
+			       station.attempt);
+	}
+
+    } // finish ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Return the station of a port, first creating stations for any port
+     * that has registered since the last call.
+     *
+     * @param  port The port id of a client.
+     * @return the station of that client.
+     */
+    private Station stationFor (int port) {
+
+	Station[] current = stations;
+	if (port < current.length) {
+	    return current[port];
+	}
+
+	synchronized (this) {
+	    current = stations;
+	    if (port >= current.length) {
+		Station[] grown = Arrays.copyOf(current, port + 1);
+		for (int i = current.length; i < grown.length; i += 1) {
+		    grown[i] = new Station(i);
+		}
+		stations = current = grown;
+	    }
+	}
+	return current[port];
+
+    } // stationFor ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INNER CLASSES
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** A copied run of bits, awaiting its turn on the channel. */
+    private static final class Block {
+
+	Block (byte[] data, int bitOffset, int bitLength) {
+
+	    this.data      = data;
+	    this.bitOffset = bitOffset;
+	    this.bitLength = bitLength;
+
+	}
+
+	final byte[] data;
+	final int    bitOffset;
+	final int    bitLength;
+
+    } // class Block
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * One client's place on the bus: its queue of blocks, the state of its
+     * contention for the channel, and its tallies.  The tallies are adders
+     * so that they may be read from any thread.
+     */
+    private final class Station {
+
+	Station (int port) {
+
+	    this.port    = port;
+	    this.queue   = new ArrayDeque<Block>();
+	    this.attempt = time -> CsmaMedium.this.attempt(this, time);
+
+	}
+
+	/** The port id of the client. */
+	final int                        port;
+
+	/** The blocks waiting to be sent, the one being sent first. */
+	final ArrayDeque<Block>          queue;
+
+	/** The event of this station listening and perhaps transmitting. */
+	final EventScheduler.Event       attempt;
+
+	/** Whether the station has a block in contention. */
+	boolean                          contending;
+
+	/** The collisions of the block being sent. */
+	int                              backoffs;
+
+	final LongAdder attempts   = new LongAdder();
+	final LongAdder collisions = new LongAdder();
+	final LongAdder successes  = new LongAdder();
+	final LongAdder drops      = new LongAdder();
+	final LongAdder bitsSent   = new LongAdder();
+
+    } // class Station
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** One attempt of a station to send its first block. */
+    private final class Transmission {
+
+	Transmission (Station station, long start, long stop) {
+
+	    this.station = station;
+	    this.start   = start;
+	    this.stop    = stop;
+	    this.finish  = time -> CsmaMedium.this.finish(this, time);
+
+	}
+
+	/** The station sending. */
+	final Station              station;
+
+	/** When the first bit was sent. */
+	final long                 start;
+
+	/** When the last bit is, or was, sent, earlier after a collision. */
+	long                       stop;
+
+	/** Whether another transmission has collided with this one. */
+	boolean                    collided;
+
+	/** Whether the transmission has ended. */
+	boolean                    finished;
+
+	/** The event of the transmission ending. */
+	final EventScheduler.Event finish;
+
+    } // class Transmission
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** The arrival of a block's last bit at every other station. */
+    private final class Delivery implements EventScheduler.Event {
+
+	Delivery (int senderPort, Block block) {
+
+	    this.senderPort = senderPort;
+	    this.block      = block;
+
+	}
+
+	/** Hand the block to each client that is not the sender. */
+	public void fire (long time) {
+
+	    PhysicalLayer[] receivers = ports();
+	    for (int port = 0; port < receivers.length; port += 1) {
+		if (port != senderPort) {
+		    receivers[port].receive(block.data,
+					    block.bitOffset,
+					    block.bitLength);
+		}
+	    }
+
+	}
+
+	private final int   senderPort;
+	private final Block block;
+
+    } // class Delivery
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The nanoseconds each bit takes to send. */
+    private final double           nanosPerBit;
+
+    /** The unit of backoff time. */
+    private final long             slotNanos;
+
+    /** The nanoseconds a signal takes to reach the other stations. */
+    private final long             delayNanos;
+
+    /** The most times the backoff range may double. */
+    private final int              backoffLimit;
+
+    /** The source of backoff choices. */
+    private final SplittableRandom random;
+
+    /** The clock and the events pending. */
+    private final EventScheduler   scheduler;
+
+    /** The lock held while running events, and so over all that follows. */
+    private final ReentrantLock    lock;
+
+    /** The transmissions whose signals may still be in the channel. */
+    private final ArrayList<Transmission> active;
+
+    /** The stations, indexed by port id. */
+    private volatile Station[]     stations;
+
+    /** The transmissions attempted by all clients. */
+    private final LongAdder attempts =
+	metrics.counter("Attempts", "Transmissions attempted");
+
+    /** The attempts that ended in a collision. */
+    private final LongAdder collisions =
+	metrics.counter("Collisions", "Attempts that ended in a collision");
+
+    /** The blocks delivered. */
+    private final LongAdder successes =
+	metrics.counter("Successes", "Blocks delivered");
+
+    /** The blocks dropped after too many collisions. */
+    private final LongAdder drops =
+	metrics.counter("Drops", "Blocks dropped after too many collisions");
+
+    /** The bit rate used when none is given: 10 Mb/s. */
+    static final double DEFAULT_BIT_RATE      = 10e6;
+
+    /** The slot time used when none is given: 512 bit times at 10 Mb/s. */
+    static final long   DEFAULT_SLOT_NANOS    = 51_200;
+
+    /** The backoff limit used when none is given. */
+    static final int    DEFAULT_BACKOFF_LIMIT = 10;
+
+    /** The seed used when none is given. */
+    static final long   DEFAULT_SEED          = 1;
+
+    /** The largest backoff limit, beyond which the range would overflow. */
+    private static final int    MAX_BACKOFF_LIMIT = 62;
+
+    /** The most attempts at a block before it is dropped. */
+    private static final int    MAX_ATTEMPTS      = 16;
+
+    /** The bits of jam sent on detecting a collision. */
+    private static final int    JAM_BITS          = 32;
+
+    /** The bits of silence between a station's blocks. */
+    private static final int    GAP_BITS          = 96;
+
+    private static final double NANOS_PER_SECOND  = 1e9;
+
+    // The single bits sent by transmit(), which are copied before use.
+    private static final byte[] ZERO_BIT = { 0 };
+    private static final byte[] ONE_BIT  = { (byte)0x80 };
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class CsmaMedium
+// =============================================================================
@@ -1,10 +1,9 @@
 // =============================================================================
 // IMPORTS
 
-import java.util.LinkedList;
-import java.util.Queue;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
 // =============================================================================
 
 
@@ -35,7 +34,10 @@ public abstract class DataLinkLayer {
     /**
      * Create the requested data link layer type and return it.
      *
-     * @param  type          The subclass of which to create an instance.
+     * @param  type          The subclass of which to create an instance, by
+     *                       name, optionally with parameters, as in
+     *                       <code>Parity:frameSize=64</code>; see
+     *                       <code>ComponentRegistry</code>.
      * @param  physicalLayer The physical layer by which to communicate.
      * @param  host          The host for which this layer is communicating.
      * @return The newly created data link layer.
@@ -51,50 +53,48 @@ public abstract class DataLinkLayer {
 	    throw new RuntimeException("Null physical layer");
 	}
 	
-	// Look up the class by name.
-	String   className          = type + "DataLinkLayer";
-	Class<?> dataLinkLayerClass = null;
-	try {
-	    dataLinkLayerClass = Class.forName(className);
-	} catch (ClassNotFoundException e) {
-	    throw new RuntimeException("Unknown data link layer subclass " +
-				       className);
-	}
+	// Build the layer from the registry, which caches how to build each
+	// type.
+	DataLinkLayer dataLinkLayer =
+	    ComponentRegistry.getDefault().newLayer(type);
+
+	attach(dataLinkLayer, physicalLayer, host);
+	return dataLinkLayer;
+
+    } // create ()
+    // =========================================================================
 
-	// Make one of these objects, and then see if it really is a
-	// DataLinkLayer subclass.
-	Object o = null;
-	try {
-	    o = dataLinkLayerClass.getDeclaredConstructor().newInstance();
-	} catch (NoSuchMethodException e) {
-	    throw new RuntimeException("Could not call constructor for " + className);  
-	} catch (InstantiationException e) {
-	    throw new RuntimeException("Could not instantiate " + className);
-	} catch (IllegalAccessException e) {
-	    throw new RuntimeException("Could not access " + className);
-	} catch (InvocationTargetException e) {
-	    throw new RuntimeException("Could not invoke target on " + className);
-	}
-	DataLinkLayer dataLinkLayer = null;
-	try {
-	    dataLinkLayer = (DataLinkLayer)o;
-	} catch (ClassCastException e) {
-	    throw new RuntimeException(className +
-				       " is not a subclass of DataLinkLayer");
-	}
 
 
+    // =========================================================================
+    /**
+     * Connect an already constructed data link layer between a physical layer
+     * and a host, as <code>create()</code> does for the layers it makes.
+     * This allows a layer to be built with other than its default parameters.
+     *
+     * @param  dataLinkLayer The data link layer to connect.
+     * @param  physicalLayer The physical layer beneath it.
+     * @param  host          The host for which it is communicating.
+     * @throws RuntimeException if the physical layer doesn't exist, or if
+     *                          either side already has a client.
+     */
+    public static void attach (DataLinkLayer dataLinkLayer,
+			       PhysicalLayer physicalLayer,
+			       Host          host) {
+
+	if (physicalLayer == null) {
+	    throw new RuntimeException("Null physical layer");
+	}
+
 	// Register this new data link layer with the physical layer.
 	dataLinkLayer.physicalLayer = physicalLayer;
 	physicalLayer.register(dataLinkLayer);
 	dataLinkLayer.register(host);
 	
 	// Create incoming buffer space.
-	dataLinkLayer.bitBuffer  = new LinkedList<Boolean>();
-	dataLinkLayer.byteBuffer = new LinkedList<Byte>();
-	return dataLinkLayer;
+	dataLinkLayer.byteBuffer = new ByteRingBuffer();
 
-    } // create ()
+    } // attach ()
     // =========================================================================
 
 
@@ -126,11 +126,46 @@ public abstract class DataLinkLayer {
      */
     public void send (byte[] data) {
 
-	// Call on the underlying physical layer to send the data.
-	byte[] framedData = createFrame(data);
-	for (int i = 0; i < framedData.length; i += 1) {
-	    transmit(framedData[i]);
+	send(data, 0, data.length);
+
+    }
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send part of a sequence of bytes through the physical layer, without
+     * first copying it out.  Expected to be called by the client.
+     *
+     * @param data   The array holding the bytes to send.
+     * @param offset The index of the first byte to send.
+     * @param length The number of bytes to send.
+     */
+    public void send (byte[] data, int offset, int length) {
+
+	payloadBytesSent.add(length);
+
+	// If the subclass can say how long the frame will be, then build it
+	// in the reusable frame buffer.  Otherwise, fall back on having it
+	// allocate the frame.
+	int framedLength = frameLength(data, offset, length);
+	if (framedLength < 0) {
+	    byte[] raw = data;
+	    if (offset != 0 || length != data.length) {
+		raw = Arrays.copyOfRange(data, offset, offset + length);
+	    }
+	    byte[] framedData = createFrame(raw);
+	    transmit(framedData, framedData.length);
+	    return;
+	}
+
+	if (frameBuffer == null || frameBuffer.capacity() < framedLength) {
+	    frameBuffer = ByteBuffer.allocate(framedLength);
 	}
+	frameBuffer.clear();
+	createFrame(data, offset, length, frameBuffer);
+	transmit(frameBuffer.array(), frameBuffer.position());
 
     }
     // =========================================================================
@@ -149,6 +184,77 @@ public abstract class DataLinkLayer {
 
 
 
+    // =========================================================================
+    /**
+     * Embed part of a raw sequence of bytes into a framed sequence, writing it
+     * at the destination buffer's position.  By default, the bytes are copied
+     * out and framed by <code>createFrame(byte[])</code>; subclasses should
+     * instead write the frame directly.
+     *
+     * @param  src    The array holding the raw bytes to be framed.
+     * @param  offset The index of the first byte to be framed.
+     * @param  length The number of bytes to be framed.
+     * @param  dst    The buffer into which to write the complete frame.
+     * @throws java.nio.BufferOverflowException if the destination does not
+     *                                          have room for the frame.
+     */
+    protected void createFrame (byte[]     src,
+				int        offset,
+				int        length,
+				ByteBuffer dst) {
+
+	dst.put(createFrame(Arrays.copyOfRange(src, offset, offset + length)));
+
+    } // createFrame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Determine the length of the frame that <code>createFrame()</code> would
+     * produce for the given raw bytes.  The length should be exact where that
+     * is cheap to find, but may be an upper bound.
+     *
+     * @param  src    The array holding the raw bytes to be framed.
+     * @param  offset The index of the first byte to be framed.
+     * @param  length The number of bytes to be framed.
+     * @return the most bytes in the complete frame, or <code>-1</code> if no
+     *         bound can be found without creating the frame.
+     */
+    protected int frameLength (byte[] src, int offset, int length) {
+
+	return -1;
+
+    } // frameLength ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Transmit a framed sequence of bytes, handing it to the physical layer a
+     * block at a time.  Also available to subclasses that build and send
+     * their own frames.
+     *
+     * @param framedData The array holding the framed bytes.
+     * @param length     The number of framed bytes, starting at index 0.
+     */
+    protected void transmit (byte[] framedData, int length) {
+
+	wireBytesSent.add(length);
+	for (int i = 0; i < length; i += BLOCK_SIZE) {
+	    int blockLength = Math.min(BLOCK_SIZE, length - i);
+	    physicalLayer.send(framedData,
+			       i * BITS_PER_BYTE,
+			       blockLength * BITS_PER_BYTE);
+	}
+
+    }
+    // =========================================================================
+
+
+
     // =========================================================================
     /**
      * Transmit a byte as bits.  Expected to be called by a subclass
@@ -158,11 +264,6 @@ public abstract class DataLinkLayer {
      */
     protected void transmit (byte data) {
 
-	if (debug) {
-	    System.out.printf("DataLinkLayer.transmit(): Sending byte = %c\n",
-			      data);
-	}
-
 	// Transmit one bit at a time, most to least significant.
 	for (int i = BITS_PER_BYTE - 1; i >= 0; i -= 1) {
 
@@ -182,51 +283,281 @@ public abstract class DataLinkLayer {
     // =========================================================================
     /**
      * Deliver a bit into this layer.  Expected to be called by the physical
-     * layer.  Accumulate bits into a buffer, and with each full byte received,
-     * accumulate those bits into a byte buffer.  Each byte added to the buffer
-     * is examined to determine whether a whole frame has been received, and if
-     * so, then processed.
+     * layer.  The bit is passed on as a block of one, so that every received
+     * bit takes the same path whichever way it arrives; to change how bits
+     * are received, override <code>receive(byte[], int, int)</code>.
      *
      * @param bit The value to receive, where <code>false</code> indicates a
      *            <code>0</code>, and <code>true</code> indicates a
      *            <code>1</code>.
      */
-    public void receive (boolean bit) {
+    public final void receive (boolean bit) {
+
+	oneBit[0] = (byte)(bit ? 0x80 : 0);
+	receive(oneBit, 0, 1);
+
+    } // receive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Deliver a block of bits into this layer.  Expected to be called by the
+     * physical layer, and by <code>receive(boolean)</code> for single bits.
+     * Accumulate bits into a buffer, and with each full byte received,
+     * accumulate those bits into a byte buffer.  Each byte added to the buffer
+     * is examined to determine whether a whole frame has been received, and if
+     * so, then processed.  Bits are taken from each byte most significant
+     * first, and are assembled into bytes as many at a time as possible.  A
+     * subclass that receives bits in its own way overrides this method.
+     *
+     * @param data      The bytes holding the bits received.
+     * @param bitOffset The index of the first bit received.
+     * @param bitLength The number of bits received.
+     */
+    public void receive (byte[] data, int bitOffset, int bitLength) {
+
+	int i   = bitOffset;
+	int end = bitOffset + bitLength;
+
+	// Complete one byte at a time, pulling in all of the bits missing
+	// from the partial byte at once.  They may straddle two bytes of the
+	// block.
+	while (end - i >= BITS_PER_BYTE - bitCount) {
+	    int needed = BITS_PER_BYTE - bitCount;
+	    int shift  = i & 7;
+	    int window = (data[i >>> 3] & 0xff) << BITS_PER_BYTE;
+	    if (shift + needed > BITS_PER_BYTE) {
+		window |= data[(i >>> 3) + 1] & 0xff;
+	    }
+	    int bits = (window >>> (2 * BITS_PER_BYTE - shift - needed)) &
+		       ((1 << needed) - 1);
+	    byte newByte = (byte)((bitRegister << needed) | bits);
+	    bitRegister  = 0;
+	    bitCount     = 0;
+	    i           += needed;
+	    receive(newByte);
+	}
+
+	// Hold on to any trailing bits as a partial byte.
+	for (; i < end; i += 1) {
+	    bitRegister = (bitRegister << 1) |
+			  ((data[i >>> 3] >>> (7 - (i & 7))) & 1);
+	    bitCount   += 1;
+	}
+
+    } // receive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Accept a newly assembled byte.  Add it to the byte buffer, and then
+     * examine the buffer to determine whether a whole frame has been
+     * received.  If so, deliver its contents to the client.
+     *
+     * @param newByte The byte just assembled from received bits.
+     */
+    private void receive (byte newByte) {
+
+	byteBuffer.add(newByte);
+
+	// Attempt to process the buffered bytes as a frame.  If a complete
+	// frame is found and its contents extraction, deliver those
+	// contents to the client.
+	byte[] originalData = processFrame();
+	if (originalData != null) {
+	    deliver(originalData);
+	}
+
+    } // receive ()
+    // =========================================================================
 
-	// Add the new bit to the buffer.
-	bitBuffer.add(bit);
 
-	// If this bit completes a byte, then add it to the byte buffer.
-	if (bitBuffer.size() >= BITS_PER_BYTE) {
 
-	    // Build up the byte from the bits...
-	    byte newByte = 0;
-	    for (int i = 0; i < BITS_PER_BYTE; i += 1) {
-		bit = bitBuffer.remove();
-		newByte = (byte)((newByte << 1) | (bit ? 1 : 0));
+    // =========================================================================
+    /**
+     * Hand the data from a whole, correct frame to the client, counting it
+     * as delivered.  Subclasses that find frames outside of
+     * <code>processFrame()</code> deliver them through here too.
+     *
+     * @param data The data extracted from the frame.
+     */
+    protected void deliver (byte[] data) {
+
+	deliver(data, 0, data.length);
+
+    } // deliver ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Hand the data from a whole, correct frame to the client, straight from
+     * the array into which it was decoded.  The client does not keep the
+     * array, so it may be reused once this returns.
+     *
+     * @param data   The array holding the data extracted from the frame.
+     * @param offset The index in the array of the first byte of data.
+     * @param length The number of bytes of data.
+     */
+    protected void deliver (byte[] data, int offset, int length) {
+
+	framesDelivered.increment();
+	bytesDelivered.add(length);
+	if (discardRun != 0) {
+	    resynchronized();
+	}
+	if (physicalLayer != null) {
+	    reportDelivered(physicalLayer.getMedium());
+	}
+	framesReceived += 1;
+
+	if (LinkEvents.recording()) {
+	    LinkEvents.FrameDelivered event = new LinkEvents.FrameDelivered();
+	    if (event.isEnabled()) {
+		event.layer      = getClass().getSimpleName();
+		event.dataLength = length;
+		event.commit();
 	    }
+	}
+
+	client.receive(data, offset, length);
+
+    } // deliver ()
+    // =========================================================================
+
+
 
-	    // ...and add it to the byte buffer.
-	    byteBuffer.add(newByte);
-	    if (debug) {
-		System.out.printf("DataLinkLayer.receive(): Got new byte = %c\n",
-				  newByte);
+    // =========================================================================
+    /**
+     * Count a frame built and about to be sent, and tell the medium.
+     *
+     * @param dataLength The number of data bytes the frame carries.
+     */
+    protected void frameSent (int dataLength) {
+
+	framesSent.increment();
+	if (physicalLayer != null) {
+	    physicalLayer.getMedium().frameSent(physicalLayer, framesBuilt);
+	}
+	framesBuilt += 1;
+
+	if (LinkEvents.recording()) {
+	    LinkEvents.FrameSent event = new LinkEvents.FrameSent();
+	    if (event.isEnabled()) {
+		event.layer      = getClass().getSimpleName();
+		event.dataLength = dataLength;
+		event.commit();
 	    }
+	}
+
+    } // frameSent ()
+    // =========================================================================
 
-	    // Attempt to process the buffered bytes as a frame.  If a complete
-	    // frame is found and its contents extraction, deliver those
-	    // contents to the client.
-	    byte[] originalData = processFrame();
-	    if (originalData != null) {
-		if (debug) {
-		    System.out.println("DataLinkLayer.receive(): Got a whole frame!");
-		}
-		client.receive(originalData);
+
+
+    // =========================================================================
+    /**
+     * Tell the medium the number of the frame whose data is being delivered.
+     * By default, each frame received, whether delivered or dropped, takes
+     * the next number, which matches the sender's numbering so long as the
+     * medium loses no frame whole.  A layer that knows better, such as one
+     * that numbers its frames on the wire, overrides this.
+     *
+     * @param medium The medium to tell.
+     */
+    protected void reportDelivered (Medium medium) {
+
+	medium.frameDelivered(physicalLayer, framesReceived);
+
+    } // reportDelivered ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count bytes thrown away outside of any frame.  The run of them is
+     * reported as a single resynchronization when the next frame is found,
+     * whether it is delivered or dropped.
+     *
+     * @param bytes The number of bytes thrown away.
+     */
+    protected void discard (int bytes) {
+
+	bytesDiscarded.add(bytes);
+	discardRun += bytes;
+
+    } // discard ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count a frame that was received but thrown away, along with the reason.
+     *
+     * @param reason The counter of frames dropped for this reason, such as
+     *               <code>checksumMismatches</code>.
+     */
+    protected void dropFrame (LongAdder reason) {
+
+	framesDropped.increment();
+	reason.increment();
+	framesReceived += 1;
+	if (discardRun != 0) {
+	    resynchronized();
+	}
+
+	if (LinkEvents.recording()) {
+	    LinkEvents.FrameDropped event = new LinkEvents.FrameDropped();
+	    if (event.isEnabled()) {
+		event.layer  = getClass().getSimpleName();
+		event.reason = metrics.nameOf(reason);
+		event.commit();
 	    }
+	}
+
+    } // dropFrame ()
+    // =========================================================================
+
+
 
+    // =========================================================================
+    /**
+     * Report the run of bytes thrown away before the frame just found, and
+     * begin a new run.
+     */
+    private void resynchronized () {
+
+	if (LinkEvents.recording()) {
+	    LinkEvents.Resync event = new LinkEvents.Resync();
+	    if (event.isEnabled()) {
+		event.layer          = getClass().getSimpleName();
+		event.bytesDiscarded = discardRun;
+		event.commit();
+	    }
 	}
+	discardRun = 0;
 
-    } // receive ()
+    } // resynchronized ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the counters kept by this layer.
+     */
+    public Metrics getMetrics () {
+
+	return metrics;
+
+    } // getMetrics ()
     // =========================================================================
 
 
@@ -235,7 +566,11 @@ public abstract class DataLinkLayer {
     /**
      * Determine whether the byte buffer contains a complete frame.  If so,
      * extract its contents, removing all metadata and (if applicable) checking
-     * its correctness, then returning (if possible) the contained data.
+     * its correctness, then returning (if possible) the contained data.  A
+     * subclass that decodes into a buffer of its own may instead deliver the
+     * data straight from that buffer, through
+     * <code>deliver(byte[], int, int)</code>, and return <code>null</code>,
+     * sparing a copy.
      *
      * @return if possible, the extracted data from the frame; <code>null</code>
      *         otherwise.
@@ -254,17 +589,98 @@ public abstract class DataLinkLayer {
     /** The host that is using this layer. */
     protected Host           client;
 
-    /** The buffer of bits recently received, building up the current byte. */
-    protected Queue<Boolean> bitBuffer;
+    /** The bits recently received, shifted in to build up the current byte. */
+    protected int            bitRegister;
+
+    /** The number of bits held in <code>bitRegister</code>. */
+    protected int            bitCount;
+
+    /** The array through which a single received bit is passed on. */
+    private final byte[]     oneBit = new byte[1];
 
     /** The buffer of bytes recently received, building up the current frame. */
-    protected Queue<Byte>    byteBuffer;
+    protected ByteRingBuffer byteBuffer;
+
+    /** The buffer reused to build each outgoing frame. */
+    private ByteBuffer       frameBuffer;
+
+    /** The bytes thrown away since the last frame was found. */
+    private long             discardRun;
+
+    /** The frames built so far, which numbers the next one. */
+    private long             framesBuilt;
+
+    /** The frames received so far, delivered or dropped. */
+    private long             framesReceived;
+
+    /** The counters kept by this layer, declared before the counters. */
+    protected final Metrics   metrics = new Metrics("DataLinkLayer");
+
+    /** The frames built and sent, not counting retransmissions. */
+    protected final LongAdder framesSent =
+	metrics.counter("FramesSent", "Frames built and sent");
+
+    /** The bytes handed down by the client to be sent. */
+    protected final LongAdder payloadBytesSent =
+	metrics.counter("PayloadBytesSent", "Bytes handed down to be sent");
+
+    /** The framed bytes handed to the physical layer. */
+    protected final LongAdder wireBytesSent =
+	metrics.counter("WireBytesSent",
+			"Framed bytes handed to the physical layer");
+
+    /** The escape bytes added ahead of data that looked like metadata. */
+    protected final LongAdder escapeBytesSent =
+	metrics.counter("EscapeBytesSent",
+			"Escape bytes added ahead of data that looked " +
+			"like metadata");
+
+    /** The frames whose data was handed to the client. */
+    protected final LongAdder framesDelivered =
+	metrics.counter("FramesDelivered",
+			"Frames whose data was handed to the client");
+
+    /** The bytes handed to the client. */
+    protected final LongAdder bytesDelivered =
+	metrics.counter("BytesDelivered", "Bytes handed to the client");
+
+    /** The received frames thrown away, for any reason. */
+    protected final LongAdder framesDropped =
+	metrics.counter("FramesDropped",
+			"Received frames thrown away, for any reason");
+
+    /** The frames dropped because their check did not match their data. */
+    protected final LongAdder checksumMismatches =
+	metrics.counter("ChecksumMismatches",
+			"Frames dropped because their parity or CRC did " +
+			"not match");
+
+    /** The frames dropped for growing past the largest frame size. */
+    protected final LongAdder oversizeFrames =
+	metrics.counter("OversizeFrames",
+			"Frames dropped for growing past the largest size");
+
+    /** The frames dropped because another began before they ended. */
+    protected final LongAdder truncatedFrames =
+	metrics.counter("TruncatedFrames",
+			"Frames dropped because another began before " +
+			"they ended");
+
+    /** The frames dropped for being too short or otherwise ill-formed. */
+    protected final LongAdder malformedFrames =
+	metrics.counter("MalformedFrames",
+			"Frames dropped for being too short or ill-formed");
+
+    /** The bytes thrown away outside of any frame while resynchronizing. */
+    protected final LongAdder bytesDiscarded =
+	metrics.counter("BytesDiscarded",
+			"Bytes thrown away outside of any frame");
 
     /** The number of bits in a byte. */
     public static final int     BITS_PER_BYTE = 8;
 
-    /** Whether to emit debugging information. */
-    public static final boolean debug         = false;
+    /** The largest number of bytes handed to the physical layer at once. */
+    public static final int     BLOCK_SIZE    = 4096;
     // =========================================================================
 
 
@@ -1,9 +1,7 @@
 // =============================================================================
 // IMPORTS
 
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.nio.ByteBuffer;
 // =============================================================================
 
 
@@ -30,151 +28,133 @@ public class DumbDataLinkLayer extends DataLinkLayer {
      */
     protected byte[] createFrame (byte[] data) {
 
-	Queue<Byte> framingData = new LinkedList<Byte>();
-	
+	byte[] framedData = new byte[frameLength(data, 0, data.length)];
+	createFrame(data, 0, data.length, ByteBuffer.wrap(framedData));
+	return framedData;
+
+    } // createFrame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Embed part of a raw sequence of bytes into a framed sequence, writing
+     * each tag and data byte directly into the destination.
+     *
+     * @param src    The array holding the raw bytes to be framed.
+     * @param offset The index of the first byte to be framed.
+     * @param length The number of bytes to be framed.
+     * @param dst    The buffer into which to write the complete frame.
+     */
+    protected void createFrame (byte[]     src,
+				int        offset,
+				int        length,
+				ByteBuffer dst) {
+
 	// Begin with the start tag.
-	framingData.add(startTag);
+	dst.put(startTag);
 
 	// Add each byte of original data.
-	for (int i = 0; i < data.length; i += 1) {
+	int end     = offset + length;
+	int escapes = 0;
+	for (int i = offset; i < end; i += 1) {
 
 	    // If the current data byte is itself a metadata tag, then precede
 	    // it with an escape tag.
-	    byte currentByte = data[i];
+	    byte currentByte = src[i];
 	    if ((currentByte == startTag) ||
 		(currentByte == stopTag) ||
 		(currentByte == escapeTag)) {
 
-		framingData.add(escapeTag);
+		dst.put(escapeTag);
+		escapes += 1;
 
 	    }
 
 	    // Add the data byte itself.
-	    framingData.add(currentByte);
+	    dst.put(currentByte);
 
 	}
 
 	// End with a stop tag.
-	framingData.add(stopTag);
-
-	// Convert to the desired byte array.
-	byte[] framedData = new byte[framingData.size()];
-	Iterator<Byte>  i = framingData.iterator();
-	int             j = 0;
-	while (i.hasNext()) {
-	    framedData[j++] = i.next();
-	}
+	dst.put(stopTag);
+	frameSent(length);
+	escapeBytesSent.add(escapes);
 
-	return framedData;
-	
     } // createFrame ()
     // =========================================================================
 
 
-    
+
     // =========================================================================
     /**
-     * Determine whether the received, buffered data constitutes a complete
-     * frame.  If so, then remove the framing metadata and return the original
-     * data.  Note that any data preceding an escaped start tag is assumed to be
-     * part of a damaged frame, and is thus discarded.
+     * Determine the exact length of the frame for the given raw bytes: the
+     * data, an escape tag for each data byte that is itself a tag, and the
+     * start and stop tags.
      *
-     * @return If the buffer contains a complete frame, the extracted, original
-     * data; <code>null</code> otherwise.
+     * @param  src    The array holding the raw bytes to be framed.
+     * @param  offset The index of the first byte to be framed.
+     * @param  length The number of bytes to be framed.
+     * @return the number of bytes in the complete frame.
      */
-    protected byte[] processFrame () {
+    protected int frameLength (byte[] src, int offset, int length) {
 
-	// Search for a start tag.  Discard anything prior to it.
-	boolean        startTagFound = false;
-	Iterator<Byte>             i = byteBuffer.iterator();
-	while (!startTagFound && i.hasNext()) {
-	    byte current = i.next();
-	    if (current != startTag) {
-		i.remove();
-	    } else {
-		startTagFound = true;
+	int framedLength = length + 2;
+	int end          = offset + length;
+	for (int i = offset; i < end; i += 1) {
+	    byte currentByte = src[i];
+	    if ((currentByte == startTag) ||
+		(currentByte == stopTag) ||
+		(currentByte == escapeTag)) {
+		framedLength += 1;
 	    }
 	}
 
-	// If there is no start tag, then there is no frame.
-	if (!startTagFound) {
-	    return null;
-	}
-	
-	// Try to extract data while waiting for an unescaped stop tag.
-	Queue<Byte> extractedBytes = new LinkedList<Byte>();
-	boolean       stopTagFound = false;
-	while (!stopTagFound && i.hasNext()) {
-
-	    // Grab the next byte.  If it is...
-	    //   (a) An escape tag: Skip over it and grab what follows as
-	    //                      literal data.
-	    //   (b) A stop tag:    Remove all processed bytes from the buffer and
-	    //                      end extraction.
-	    //   (c) A start tag:   All that precedes is damaged, so remove it
-	    //                      from the buffer and restart extraction.
-	    //   (d) Otherwise:     Take it as literal data.
-	    byte current = i.next();
-	    if (current == escapeTag) {
-		if (i.hasNext()) {
-		    current = i.next();
-		    extractedBytes.add(current);
-		} else {
-		    // An escape was the last byte available, so this is not a
-		    // complete frame.
-		    return null;
-		}
-	    } else if (current == stopTag) {
-		cleanBufferUpTo(i);
-		stopTagFound = true;
-	    } else if (current == startTag) {
-		cleanBufferUpTo(i);
-		extractedBytes = new LinkedList<Byte>();
-	    } else {
-		extractedBytes.add(current);
-	    }
-
-	}
+	return framedLength;
 
-	// If there is no stop tag, then the frame is incomplete.
-	if (!stopTagFound) {
-	    return null;
-	}
+    } // frameLength ()
+    // =========================================================================
 
-	// Convert to the desired byte array.
-	if (debug) {
-	    System.out.println("DumbDataLinkLayer.processFrame(): Got whole frame!");
-	}
-	byte[] extractedData = new byte[extractedBytes.size()];
-	int                j = 0;
-	i = extractedBytes.iterator();
-	while (i.hasNext()) {
-	    extractedData[j] = i.next();
-	    if (debug) {
-		System.out.printf("DumbDataLinkLayer.processFrame():\tbyte[%d] = %c\n",
-				  j,
-				  extractedData[j]);
-	    }
-	    j += 1;
-	}
 
-	return extractedData;
+    
+    // =========================================================================
+    /**
+     * Determine whether the received, buffered data completes a frame.  Each
+     * buffered byte is handed once to the frame decoder, which keeps any
+     * partial frame between calls.  If a frame is completed, deliver its
+     * original data straight from the decoder.  Note that any data preceding
+     * an escaped start tag is assumed to be part of a damaged frame, and is
+     * thus discarded.
+     *
+     * @return <code>null</code>, since any completed frame has been
+     * delivered.
+     */
+    protected byte[] processFrame () {
 
-    } // processFrame ()
-    // ===============================================================
+	// Feed each new byte to the decoder, stopping at the end of a frame.
+	while (!byteBuffer.isEmpty()) {
 
+	    int result = decoder.consume(byteBuffer.remove());
+	    if (result == StuffedFrameDecoder.BYTE_DISCARDED) {
+		discard(1);
+	    } else if (result == StuffedFrameDecoder.FRAME_RESTARTED) {
+		dropFrame(truncatedFrames);
+	    } else if (result == StuffedFrameDecoder.FRAME_COMPLETE) {
 
+		// Hand over the data where the decoder left it.
+		byte[] extractedData = decoder.data();
+		deliver(extractedData, 0, decoder.length());
+		return null;
 
-    // ===============================================================
-    private void cleanBufferUpTo (Iterator<Byte> end) {
+	    }
 
-	Iterator<Byte> i = byteBuffer.iterator();
-	while (i.hasNext() && i != end) {
-	    i.next();
-	    i.remove();
 	}
 
-    }
+	// The frame, if any, is incomplete.
+	return null;
+
+    } // processFrame ()
     // ===============================================================
 
 
@@ -190,6 +170,10 @@ public class DumbDataLinkLayer extends DataLinkLayer {
     private final byte startTag  = (byte)'{';
     private final byte stopTag   = (byte)'}';
     private final byte escapeTag = (byte)'\\';
+
+    // The decoder that extracts frames from the received bytes.
+    private final StuffedFrameDecoder decoder =
+	new StuffedFrameDecoder(startTag, stopTag, escapeTag, 0);
     // ===============================================================
 
 
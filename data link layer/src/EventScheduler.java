@@ -0,0 +1,372 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * A discrete-event scheduler: a clock of simulated time, in nanoseconds, and
+ * the events due at later times.  Running an event moves the clock to the
+ * event's time, and the event may schedule others.  Events due at the same
+ * time run in the order they were scheduled, so a run is reproducible.
+ *
+ * The pending events are kept in a binary heap spread over parallel
+ * arrays, one of times, one of sequence numbers and one of the events
+ * themselves, so that scheduling an event allocates nothing beyond the
+ * event and an occasional doubling of the arrays.
+ *
+ * A scheduler is not thread-safe; its owner serializes access to it, but
+ * for reading the clock, which may be done from any thread.  An
+ * event that asks to run events is ignored, rather than run nested inside
+ * the one already running.
+ *
+ * @file   EventScheduler.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class EventScheduler {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a scheduler with its clock at zero and no events.
+     */
+    public EventScheduler () {
+
+	times     = new long[INITIAL_CAPACITY];
+	sequences = new long[INITIAL_CAPACITY];
+	events    = new Event[INITIAL_CAPACITY];
+
+    } // EventScheduler ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the current simulated time, in nanoseconds.
+     */
+    public long now () {
+
+	return now;
+
+    } // now ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the number of events waiting to run.
+     */
+    public int pending () {
+
+	return size;
+
+    } // pending ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the number of events run so far.
+     */
+    public long eventsRun () {
+
+	return eventsRun;
+
+    } // eventsRun ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Schedule an event.
+     *
+     * @param  time  The simulated time at which it is due.
+     * @param  event The event.
+     * @throws RuntimeException if the time has already passed.
+     */
+    public void schedule (long time, Event event) {
+
+	if (time < now) {
+	    throw new RuntimeException("Event scheduled at " + time +
+				       ", before the current time " + now);
+	}
+	if (size == times.length) {
+	    times     = Arrays.copyOf(times,     2 * size);
+	    sequences = Arrays.copyOf(sequences, 2 * size);
+	    events    = Arrays.copyOf(events,    2 * size);
+	}
+
+	// Add the event at the bottom of the heap, and move it up past any
+	// parent due after it.
+	long sequence = nextSequence++;
+	int  i        = size++;
+	while (i > 0) {
+	    int parent = (i - 1) >>> 1;
+	    if (!before(time, sequence, parent)) {
+		break;
+	    }
+	    place(i, times[parent], sequences[parent], events[parent]);
+	    i = parent;
+	}
+	place(i, time, sequence, event);
+
+    } // schedule ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Run every event due at the earliest time of any pending event,
+     * including any they schedule for that same time.
+     *
+     * @return whether any event ran, which it cannot if none is pending, or
+     *         if an event is already running.
+     */
+    public boolean runNext () {
+
+	if (size == 0 || running) {
+	    return false;
+	}
+	long time = times[0];
+	running = true;
+	try {
+	    while (size > 0 && times[0] == time) {
+		runFirst();
+	    }
+	} finally {
+	    running = false;
+	}
+	return true;
+
+    } // runNext ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Run, in order, every event due at or before a given time, and then move
+     * the clock to that time, if it is later.  Does nothing if an event is
+     * already running.
+     *
+     * @param time The simulated time up to which to run.
+     */
+    public void runUntil (long time) {
+
+	if (running) {
+	    return;
+	}
+	running = true;
+	try {
+	    while (size > 0 && times[0] <= time) {
+		runFirst();
+	    }
+	} finally {
+	    running = false;
+	}
+	if (time > now) {
+	    now = time;
+	}
+
+    } // runUntil ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Run events until none are pending.  Does nothing if an event is already
+     * running.
+     */
+    public void runAll () {
+
+	if (running) {
+	    return;
+	}
+	running = true;
+	try {
+	    while (size > 0) {
+		runFirst();
+	    }
+	} finally {
+	    running = false;
+	}
+
+    } // runAll ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Remove the earliest event from the heap, move the clock to its time,
+     * and run it.
+     */
+    private void runFirst () {
+
+	long  time  = times[0];
+	Event event = events[0];
+
+	// Move the last event to the top, and then down past any child due
+	// before it.
+	size -= 1;
+	long lastTime     = times[size];
+	long lastSequence = sequences[size];
+	Event last        = events[size];
+	events[size] = null;
+	int i = 0;
+	while (true) {
+	    int child = 2 * i + 1;
+	    if (child >= size) {
+		break;
+	    }
+	    if (child + 1 < size &&
+		before(times[child + 1], sequences[child + 1], child)) {
+		child += 1;
+	    }
+	    if (!before(times[child], sequences[child], lastTime, lastSequence)) {
+		break;
+	    }
+	    place(i, times[child], sequences[child], events[child]);
+	    i = child;
+	}
+	if (size > 0) {
+	    place(i, lastTime, lastSequence, last);
+	}
+
+	now        = time;
+	eventsRun += 1;
+	event.fire(time);
+
+    } // runFirst ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return whether an event due at the given time, with the given sequence
+     *         number, comes before the one in the given slot of the heap.
+     */
+    private boolean before (long time, long sequence, int slot) {
+
+	return before(time, sequence, times[slot], sequences[slot]);
+
+    } // before ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return whether the first of two events, each given by its time and
+     *         sequence number, comes before the second.
+     */
+    private static boolean before (long time,
+				   long sequence,
+				   long otherTime,
+				   long otherSequence) {
+
+	return time < otherTime || (time == otherTime && sequence < otherSequence);
+
+    } // before ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Put an event in a slot of the heap. */
+    private void place (int slot, long time, long sequence, Event event) {
+
+	times[slot]     = time;
+	sequences[slot] = sequence;
+	events[slot]    = event;
+
+    } // place ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INNER CLASSES
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Something that happens at a simulated time.
+     */
+    public interface Event {
+
+	/**
+	 * Make the event happen.
+	 *
+	 * @param time The simulated time at which it happens, which is now.
+	 */
+	void fire (long time);
+
+    } // interface Event
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The time each pending event is due, in heap order. */
+    private long[]  times;
+
+    /** The order in which each pending event was scheduled, in heap order. */
+    private long[]  sequences;
+
+    /** The pending events, in heap order. */
+    private Event[] events;
+
+    /** The number of pending events. */
+    private int     size;
+
+    /** The sequence number of the next event scheduled. */
+    private long    nextSequence;
+
+    /** The current simulated time, in nanoseconds. */
+    private volatile long now;
+
+    /** The number of events run so far. */
+    private long    eventsRun;
+
+    /** Whether an event is running. */
+    private boolean running;
+
+    /** The number of events the arrays hold before they must grow. */
+    private static final int INITIAL_CAPACITY = 256;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class EventScheduler
+// =============================================================================
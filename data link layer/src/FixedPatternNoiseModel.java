@@ -0,0 +1,174 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * A noise model that flips bits at fixed positions in the stream, optionally
+ * repeating the pattern with a fixed period.  It is deterministic, and so is
+ * useful for reproducing a particular damaging pattern exactly.
+ *
+ * @file   FixedPatternNoiseModel.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class FixedPatternNoiseModel implements NoiseModel {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a model.
+     *
+     * @param period    The length of the repeating pattern in bits, or
+     *                  <code>0</code> for a pattern that happens only once.
+     * @param positions The positions of the bits to flip, counted from the
+     *                  start of the stream (or of each period).
+     * @throws RuntimeException if a position is negative, or does not fall
+     *                          within the period.
+     */
+    public FixedPatternNoiseModel (long period, long... positions) {
+
+	if (period < 0) {
+	    throw new RuntimeException("Negative period " + period);
+	}
+	long[] sorted = positions.clone();
+	Arrays.sort(sorted);
+	for (int i = 0; i < sorted.length; i += 1) {
+	    if (sorted[i] < 0 || (period > 0 && sorted[i] >= period)) {
+		throw new RuntimeException("Position " + sorted[i] +
+					   " outside of the pattern");
+	    }
+	    if (i > 0 && sorted[i] == sorted[i - 1]) {
+		throw new RuntimeException("Repeated position " + sorted[i]);
+	    }
+	}
+
+	this.period    = period;
+	this.positions = sorted;
+	this.next      = 0;
+	this.cycle     = 0;
+	this.position  = 0;
+
+    } // FixedPatternNoiseModel ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long cleanBitsAhead () {
+
+	long error = nextError();
+	return error == Long.MAX_VALUE ? Long.MAX_VALUE : error - position;
+
+    } // cleanBitsAhead ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public void advance (long bitLength) {
+
+	position += bitLength;
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int corrupt (byte[] data, int bitOffset, int bitLength) {
+
+	int  flips = 0;
+	long end   = position + bitLength;
+	for (long error = nextError(); error < end; error = nextError()) {
+	    NoiseModel.flip(data, bitOffset + (error - position));
+	    flips += 1;
+	    next  += 1;
+	}
+	position = end;
+
+	return flips;
+
+    } // corrupt ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public NoiseModel fork (long stream) {
+
+	return new FixedPatternNoiseModel(period, positions);
+
+    } // fork ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the position in the stream of the next bit to flip, or
+     *         <code>Long.MAX_VALUE</code> if there are no more.
+     */
+    private long nextError () {
+
+	if (positions.length == 0) {
+	    return Long.MAX_VALUE;
+	}
+
+	// Move on to the next period once this one's positions are used up.
+	if (next == positions.length) {
+	    if (period == 0) {
+		return Long.MAX_VALUE;
+	    }
+	    next   = 0;
+	    cycle += 1;
+	}
+	return cycle * period + positions[next];
+
+    } // nextError ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The length of the repeating pattern, or 0 if it does not repeat. */
+    private final long   period;
+
+    /** The positions of the bits to flip within the pattern, in order. */
+    private final long[] positions;
+
+    /** The index in <code>positions</code> of the next bit to flip. */
+    private int          next;
+
+    /** The number of complete periods passed. */
+    private long         cycle;
+
+    /** The number of bits of the stream passed. */
+    private long         position;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class FixedPatternNoiseModel
+// =============================================================================
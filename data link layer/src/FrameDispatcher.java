@@ -0,0 +1,289 @@
+// =============================================================================
+// IMPORTS
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.LockSupport;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * A listener that hands frames to another on a thread of its own, so that a
+ * slow consumer does not hold up the thread delivering frames until it has
+ * fallen a given number of frames behind.  Past that, the delivering thread
+ * waits for room, which pushes back through the data link layer to the
+ * medium.
+ *
+ * Each frame's data must outlive the delivering callback, so it is copied
+ * once into the queue; the wrapped listener is handed a read-only view of
+ * that copy.  Frames are expected to be delivered by one thread at a time,
+ * as they are to any one host.
+ *
+ * A thread with nothing to do parks until another wakes it, so an idle
+ * dispatcher costs no processor time.  <code>close()</code> hands over the
+ * frames still queued and then stops the thread.
+ *
+ * @file   FrameDispatcher.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class FrameDispatcher implements FrameListener, Runnable,
+					AutoCloseable {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a dispatcher, and start its thread.
+     *
+     * @param listener The listener to which to hand frames.
+     * @param capacity The most frames that may wait before the delivering
+     *                 thread must.
+     */
+    public FrameDispatcher (FrameListener listener, int capacity) {
+
+	if (capacity < 1) {
+	    throw new RuntimeException("Invalid dispatcher capacity " +
+				       capacity);
+	}
+	this.listener = listener;
+	this.queue    = new SpscQueue<byte[]>(capacity);
+	this.thread   = new Thread(this, "FrameDispatcher");
+	thread.setDaemon(true);
+	thread.start();
+
+    } // FrameDispatcher ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Copy a frame's data into the queue, waiting for room if it is full.
+     *
+     * @param data The frame's data, from its position to its limit.
+     * @throws RuntimeException if the wrapped listener has failed, or if the
+     *                          dispatcher has been closed.
+     */
+    public void frameReceived (ByteBuffer data) {
+
+	if (closed) {
+	    throw new RuntimeException("Frame dispatcher closed");
+	}
+	checkFailure();
+	byte[] copy = new byte[data.remaining()];
+	data.get(copy);
+
+	// Spin briefly on a full queue, and then park until the thread has
+	// handed a frame over, saying so before looking again, so that the
+	// wakeup cannot be missed.
+	int spins = 0;
+	while (!queue.offer(copy)) {
+	    checkFailure();
+	    if (spins < SPIN_LIMIT) {
+		spins += 1;
+		Thread.onSpinWait();
+		continue;
+	    }
+	    producer = Thread.currentThread();
+	    if (!queue.offer(copy)) {
+		checkFailure();
+		LockSupport.park(this);
+		producer = null;
+		continue;
+	    }
+	    producer = null;
+	    break;
+	}
+	produced += 1;
+
+	// The queued frame must be visible before the thread's idleness is
+	// read, or the thread could park on a frame it did not see.
+	VarHandle.fullFence();
+	if (idle) {
+	    LockSupport.unpark(thread);
+	}
+
+    } // frameReceived ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Wait until every frame queued so far has been handed over.
+     *
+     * @throws RuntimeException if the wrapped listener has failed.
+     */
+    public void awaitEmpty () {
+
+	drainer = Thread.currentThread();
+	while (dispatched < produced && failure == null) {
+	    LockSupport.park(this);
+	}
+	drainer = null;
+	checkFailure();
+
+    } // awaitEmpty ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Hand over the frames still queued, and then stop the thread, waiting
+     * for it to finish.  Frames may not be delivered after this is called.
+     * Closing more than once does nothing more.
+     *
+     * @throws RuntimeException if the calling thread is interrupted while
+     *                          waiting.
+     */
+    public void close () {
+
+	closed = true;
+	LockSupport.unpark(thread);
+	try {
+	    thread.join();
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new RuntimeException("Interrupted closing frame dispatcher");
+	}
+
+    } // close ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Hand frames over as they arrive, parking when there are none, until
+     * closed with none left.
+     */
+    public void run () {
+
+	while (true) {
+
+	    byte[] data = queue.poll();
+	    if (data == null) {
+		if (closed && queue.isEmpty()) {
+		    return;
+		}
+		idle = true;
+		if (queue.isEmpty() && !closed) {
+		    LockSupport.park(this);
+		}
+		idle = false;
+		continue;
+	    }
+
+	    // Keep draining even after a failure, so that no delivering
+	    // thread is left waiting on a full queue.
+	    if (failure == null) {
+		try {
+		    listener.frameReceived(ByteBuffer.wrap(data)
+					   .asReadOnlyBuffer());
+		} catch (RuntimeException e) {
+		    failure = e;
+		}
+	    }
+	    dispatched += 1;
+	    wake(producer);
+	    wake(drainer);
+
+	}
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Pass along, to the calling thread, the failure of the wrapped listener.
+     *
+     * @throws RuntimeException if the listener has failed.
+     */
+    private void checkFailure () {
+
+	if (failure != null) {
+	    throw new RuntimeException("Frame listener failed", failure);
+	}
+
+    } // checkFailure ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Wake a thread waiting on the dispatcher, if there is one.
+     *
+     * @param waiter The waiting thread, or <code>null</code>.
+     */
+    private void wake (Thread waiter) {
+
+	if (waiter != null) {
+	    LockSupport.unpark(waiter);
+	}
+
+    } // wake ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The listener to which frames are handed. */
+    private final FrameListener     listener;
+
+    /** The copies of the frames awaiting the listener. */
+    private final SpscQueue<byte[]> queue;
+
+    /** The thread handing frames to the listener. */
+    private final Thread            thread;
+
+    /** The number of frames queued; written only by the delivering thread. */
+    private volatile long           produced;
+
+    /** The number of frames handed over; written only by the thread. */
+    private volatile long           dispatched;
+
+    /** Whether the thread has found the queue empty. */
+    private volatile boolean        idle;
+
+    /** Whether the dispatcher has been closed. */
+    private volatile boolean        closed;
+
+    // The delivering thread waiting for room, and the thread waiting for
+    // the queue to empty, if any.
+    private volatile Thread         producer;
+    private volatile Thread         drainer;
+
+    /** The first failure of the listener, if any. */
+    private volatile RuntimeException failure;
+
+    /** The number of times to spin on a full queue before parking. */
+    private static final int  SPIN_LIMIT = 100;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class FrameDispatcher
+// =============================================================================
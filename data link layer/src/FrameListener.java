@@ -0,0 +1,45 @@
+// =============================================================================
+// IMPORTS
+
+import java.nio.ByteBuffer;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * A consumer of received data that is handed each frame's data as it is
+ * delivered, rather than polling a host for it.  The data is a read-only view
+ * of the data link layer's own buffer, so nothing is copied on the way up;
+ * the view is valid only until the callback returns, and a listener that
+ * needs the data later must copy it out.
+ *
+ * A listener is called on whatever thread delivers the frame, which for a
+ * pipelined medium is not the sender's.  A listener that may fall behind can
+ * be wrapped in a <code>FrameDispatcher</code>, which hands frames over on a
+ * thread of its own and holds the delivering thread back when too many wait.
+ *
+ * @file   FrameListener.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public interface FrameListener {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Consume the data of one frame.
+     *
+     * @param data A read-only view of the data, from its position to its
+     *             limit, valid only until this method returns.
+     */
+    void frameReceived (ByteBuffer data);
+    // =========================================================================
+
+
+
+// =============================================================================
+} // interface FrameListener
+// =============================================================================
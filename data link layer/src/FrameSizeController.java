@@ -0,0 +1,210 @@
+// =============================================================================
+/**
+ * Chooses a frame size from the fate of recent frames, by additive increase
+ * and multiplicative decrease (AIMD), as TCP chooses its congestion window.
+ * Each frame delivered intact grows the size by a fixed step, and each frame
+ * dropped halves it, so that the size climbs steadily while the link is
+ * clean and falls back quickly once the drop rate rises, settling where
+ * growth and drops balance.  The size is kept between a minimum and a
+ * maximum.
+ *
+ * The sending layer reads the size for each frame it builds, and reports
+ * the fate of its frames as the receiving end tells it, over the link, in a
+ * batch at a time.
+ *
+ * @file   FrameSizeController.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class FrameSizeController {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a controller that grows the size by one byte per intact frame.
+     *
+     * @param minFrameSize The smallest frame size, in data bytes.
+     * @param maxFrameSize The largest frame size, in data bytes.
+     * @throws RuntimeException if the sizes are not positive and ordered.
+     */
+    public FrameSizeController (int minFrameSize, int maxFrameSize) {
+
+	this(minFrameSize, maxFrameSize, minFrameSize, DEFAULT_INCREMENT);
+
+    } // FrameSizeController ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a controller.
+     *
+     * @param minFrameSize     The smallest frame size, in data bytes.
+     * @param maxFrameSize     The largest frame size, in data bytes.
+     * @param initialFrameSize The frame size to begin with.
+     * @param increment        The number of bytes by which each intact frame
+     *                         grows the size.
+     * @throws RuntimeException if the sizes are not positive and ordered, or
+     *                          if the increment is not positive.
+     */
+    public FrameSizeController (int minFrameSize,
+				int maxFrameSize,
+				int initialFrameSize,
+				int increment) {
+
+	if (minFrameSize <= 0 ||
+	    minFrameSize > initialFrameSize ||
+	    initialFrameSize > maxFrameSize) {
+	    throw new RuntimeException("Frame sizes must be positive, with " +
+				       "min <= initial <= max");
+	}
+	if (increment <= 0) {
+	    throw new RuntimeException("Increment must be positive");
+	}
+	this.minFrameSize = minFrameSize;
+	this.maxFrameSize = maxFrameSize;
+	this.increment    = increment;
+	this.frameSize    = initialFrameSize;
+
+    } // FrameSizeController ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** @return the size for the next frame, in data bytes. */
+    public synchronized int frameSize () {
+
+	return frameSize;
+
+    } // frameSize ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** @return the smallest frame size, in data bytes. */
+    public int minFrameSize () {
+
+	return minFrameSize;
+
+    } // minFrameSize ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** @return the largest frame size, in data bytes. */
+    public int maxFrameSize () {
+
+	return maxFrameSize;
+
+    } // maxFrameSize ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Report a frame delivered intact, growing the size. */
+    public synchronized void frameDelivered () {
+
+	frameSize  = Math.min(maxFrameSize, frameSize + increment);
+	delivered += 1;
+
+    } // frameDelivered ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Report a frame dropped as damaged, halving the size. */
+    public synchronized void frameDropped () {
+
+	frameSize  = Math.max(minFrameSize, frameSize / 2);
+	dropped   += 1;
+
+    } // frameDropped ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Report the fate of a batch of frames, as the receiver tallied them
+     * since its last report.  Since the order of deliveries and drops within
+     * the batch is unknown, the size grows for each delivery first, and then
+     * halves for each drop, erring towards the smaller size.
+     *
+     * @param delivered The number of frames delivered intact.
+     * @param dropped   The number of frames dropped as damaged.
+     */
+    public synchronized void report (long delivered, long dropped) {
+
+	frameSize = (int)Math.min(maxFrameSize,
+				  frameSize + delivered * increment);
+	for (long i = 0; i < dropped && frameSize > minFrameSize; i += 1) {
+	    frameSize = Math.max(minFrameSize, frameSize / 2);
+	}
+	this.delivered += delivered;
+	this.dropped   += dropped;
+
+    } // report ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** @return the number of frames reported delivered. */
+    public synchronized long getDelivered () {
+
+	return delivered;
+
+    } // getDelivered ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** @return the number of frames reported dropped. */
+    public synchronized long getDropped () {
+
+	return dropped;
+
+    } // getDropped ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    // The bounds on the frame size, and its step of growth.
+    private final int minFrameSize;
+    private final int maxFrameSize;
+    private final int increment;
+
+    /** The size for the next frame. */
+    private int       frameSize;
+
+    // The tallies of reported frames.
+    private long      delivered;
+    private long      dropped;
+
+    /** The step of growth used when none is given. */
+    private static final int DEFAULT_INCREMENT = 1;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class FrameSizeController
+// =============================================================================
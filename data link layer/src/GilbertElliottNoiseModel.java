@@ -0,0 +1,252 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.Random;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * A noise model that produces bursts of errors, after Gilbert and Elliott.
+ * The channel alternates between a good state and a bad state, each with its
+ * own bit error rate; after each bit, it moves to the other state with a
+ * fixed probability.  The length of each stay, and the gaps between errors
+ * within it, are both drawn from geometric distributions, so that clean
+ * stretches are skipped rather than examined bit by bit.
+ *
+ * @file   GilbertElliottNoiseModel.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class GilbertElliottNoiseModel implements NoiseModel {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a model, starting in the good state.
+     *
+     * @param goodToBad     The probability, after each bit in the good state,
+     *                      of moving to the bad state.
+     * @param badToGood     The probability, after each bit in the bad state,
+     *                      of moving to the good state.
+     * @param goodErrorRate The bit error rate in the good state.
+     * @param badErrorRate  The bit error rate in the bad state.
+     * @param seed          The seed of the pseudo-random error stream.
+     * @throws RuntimeException if any rate is not a probability, or if either
+     *                          state could never be left.
+     */
+    public GilbertElliottNoiseModel (double goodToBad,
+				     double badToGood,
+				     double goodErrorRate,
+				     double badErrorRate,
+				     long   seed) {
+
+	checkProbability(goodToBad);
+	checkProbability(badToGood);
+	checkProbability(goodErrorRate);
+	checkProbability(badErrorRate);
+	if (goodToBad == 0.0 && badToGood == 0.0) {
+	    throw new RuntimeException("Neither state may be left");
+	}
+
+	this.goodToBad     = goodToBad;
+	this.badToGood     = badToGood;
+	this.goodErrorRate = goodErrorRate;
+	this.badErrorRate  = badErrorRate;
+	this.seed          = seed;
+	this.random        = new Random(seed);
+	this.logStayGood   = Math.log1p(-goodToBad);
+	this.logStayBad    = Math.log1p(-badToGood);
+	this.logCleanGood  = Math.log1p(-goodErrorRate);
+	this.logCleanBad   = Math.log1p(-badErrorRate);
+	enterState(false);
+
+    } // GilbertElliottNoiseModel ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long cleanBitsAhead () {
+
+	// Beyond the current stay, nothing is known yet.
+	return Math.min(gap, stayRemaining);
+
+    } // cleanBitsAhead ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public void advance (long bitLength) {
+
+	if (gap != Long.MAX_VALUE) {
+	    gap -= bitLength;
+	}
+	if (stayRemaining != Long.MAX_VALUE) {
+	    stayRemaining -= bitLength;
+	}
+	if (stayRemaining == 0) {
+	    enterState(!bad);
+	}
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int corrupt (byte[] data, int bitOffset, int bitLength) {
+
+	int  flips    = 0;
+	long position = 0;
+	while (position < bitLength) {
+
+	    // Work through the part of the block within the current stay.
+	    long segment = Math.min(stayRemaining, bitLength - position);
+	    long end     = position + segment;
+	    while (gap < end - position) {
+		position += gap;
+		NoiseModel.flip(data, bitOffset + position);
+		flips         += 1;
+		position      += 1;
+		stayRemaining -= stayRemaining == Long.MAX_VALUE ? 0 : gap + 1;
+		gap            = NoiseModel.geometricGap(random, logCleanRate());
+	    }
+	    advance(end - position);
+	    position = end;
+
+	}
+
+	return flips;
+
+    } // corrupt ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public NoiseModel fork (long stream) {
+
+	return new GilbertElliottNoiseModel(goodToBad,
+					    badToGood,
+					    goodErrorRate,
+					    badErrorRate,
+					    NoiseModel.forkSeed(seed, stream));
+
+    } // fork ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Enter a state, drawing the length of the stay and the gap to the first
+     * error within it.  Both are memoryless, so nothing carries over from the
+     * previous stay.
+     *
+     * @param bad Whether the state entered is the bad one.
+     */
+    private void enterState (boolean bad) {
+
+	this.bad      = bad;
+	stayRemaining = 1 + NoiseModel.geometricGap(random,
+						    bad ? logStayBad : logStayGood);
+	if (stayRemaining <= 0) {
+	    stayRemaining = Long.MAX_VALUE;
+	}
+	gap           = NoiseModel.geometricGap(random, logCleanRate());
+
+    } // enterState ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** @return the log of the probability of a clean bit in this state. */
+    private double logCleanRate () {
+
+	return bad ? logCleanBad : logCleanGood;
+
+    } // logCleanRate ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  probability A value to check.
+     * @throws RuntimeException if the value is not a probability.
+     */
+    private static void checkProbability (double probability) {
+
+	if (!(probability >= 0.0 && probability <= 1.0)) {
+	    throw new RuntimeException(probability + " is not a probability");
+	}
+
+    } // checkProbability ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    // The probabilities of changing state after each bit.
+    private final double goodToBad;
+    private final double badToGood;
+
+    // The bit error rates in each state.
+    private final double goodErrorRate;
+    private final double badErrorRate;
+
+    /** The seed of this model's error stream. */
+    private final long   seed;
+
+    /** The source of the error stream. */
+    private final Random random;
+
+    // The natural logarithms of the probabilities of staying in each state,
+    // and of a bit being clean in each state.
+    private final double logStayGood;
+    private final double logStayBad;
+    private final double logCleanGood;
+    private final double logCleanBad;
+
+    /** Whether the channel is in the bad state. */
+    private boolean      bad;
+
+    /** The number of bits remaining in the current stay. */
+    private long         stayRemaining;
+
+    /** The number of clean bits remaining before the next error. */
+    private long         gap;
+
+    // The parameters used when none are given: bursts averaging 100 bits,
+    // one bit in 10,000 spent bursting, and half of a burst's bits flipped.
+    static final double DEFAULT_GOOD_TO_BAD     = 1e-6;
+    static final double DEFAULT_BAD_TO_GOOD     = 0.01;
+    static final double DEFAULT_GOOD_ERROR_RATE = 0.0;
+    static final double DEFAULT_BAD_ERROR_RATE  = 0.5;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class GilbertElliottNoiseModel
+// =============================================================================
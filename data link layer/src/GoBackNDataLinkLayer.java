@@ -0,0 +1,208 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * A sliding-window ARQ layer using Go-Back-N.  The receiver accepts frames
+ * only in order, discarding any that arrive after a gap; it answers each
+ * in-order frame with an ACK, and each frame after a gap with a NAK for the
+ * missing one.  When the sender's oldest outstanding frame times out or
+ * is NAKed, it goes back and retransmits the whole window from that frame.
+ * The receiver thus needs no buffering, at the cost of resending frames that
+ * arrived intact.
+ *
+ * @file   GoBackNDataLinkLayer.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class GoBackNDataLinkLayer extends ArqDataLinkLayer {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a layer with the default window, frame size, and timeout.
+     */
+    public GoBackNDataLinkLayer () {
+
+	this(DEFAULT_WINDOW_SIZE, DEFAULT_FRAME_SIZE, DEFAULT_TIMEOUT_MILLIS);
+
+    } // GoBackNDataLinkLayer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a layer.
+     *
+     * @param windowSize    The most frames that may be outstanding at once,
+     *                      less than the number of sequence numbers.
+     * @param frameSize     The most data bytes carried by each frame.
+     * @param timeoutMillis The longest time to await an acknowledgement.
+     * @throws RuntimeException if any size or the timeout is out of range.
+     */
+    public GoBackNDataLinkLayer (int windowSize, int frameSize, long timeoutMillis) {
+
+	super(windowSize, frameSize, timeoutMillis, SEQUENCE_SPACE - 1);
+
+    } // GoBackNDataLinkLayer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Begin sending from the first frame. */
+    protected void startSending () {
+
+	next = 0;
+
+    } // startSending ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Go back to the oldest outstanding frame if its timer has expired, and
+     * otherwise send the next frame, if the window has room for it.
+     *
+     * @param  now The current time, on the medium's clock.
+     * @return the index of the frame to transmit, or <code>-1</code> to wait.
+     */
+    protected int selectFrame (long now) {
+
+	if (base < sent && next > base && isExpired(base, now)) {
+	    next = base;
+	}
+	next = Math.max(next, base);
+	if (next < Math.min(base + windowSize, frameCount)) {
+	    return next++;
+	}
+	return -1;
+
+    } // selectFrame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Slide the window up to the frame that the receiver expects next.
+     *
+     * @param sequence The sequence number of the frame acknowledged.
+     * @param expected The sequence number that the receiver expects next.
+     */
+    protected void acknowledged (int sequence, int expected) {
+
+	acknowledgeThrough(expected);
+
+    } // acknowledged ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Go back at once if the receiver is missing the oldest outstanding
+     * frame, as revealed by a frame sent after it was.
+     *
+     * @param sequence The sequence number of the missing frame.
+     * @param revealer The sequence number of the frame that revealed the gap.
+     */
+    protected void negativelyAcknowledged (int sequence, int revealer) {
+
+	int later = frameOf(revealer);
+	if (frameOf(sequence) == base && later > base && sentAfter(later, base)) {
+	    next = base;
+	}
+
+    } // negativelyAcknowledged ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Deliver a frame if it is the next expected; otherwise, discard it.  An
+     * old frame is re-ACKed, in case its ACK was lost, and a frame after a
+     * gap is NAKed.
+     *
+     * @param  sequence The frame's sequence number.
+     * @param  frame    The array holding the frame's payload.
+     * @param  offset   The index of the first byte of the payload.
+     * @param  length   The number of bytes of payload.
+     * @return the payload if the frame was the next expected;
+     *         <code>null</code> otherwise.
+     */
+    protected byte[] accept (int sequence, byte[] frame, int offset, int length) {
+
+	int distance = (sequence - expected) & (SEQUENCE_SPACE - 1);
+	if (distance == 0) {
+	    expectedCount += 1;
+	    expected       = (int)(expectedCount & (SEQUENCE_SPACE - 1));
+	    sendControl(ACK, sequence, expected);
+	    return Arrays.copyOfRange(frame, offset, offset + length);
+	}
+
+	if (distance < SEQUENCE_SPACE - windowSize) {
+	    // A frame beyond a gap.
+	    sendControl(NAK, expected, sequence);
+	} else {
+	    // A frame already delivered.
+	    sendControl(ACK, sequence, expected);
+	}
+	return null;
+
+    } // accept ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** @return the number of frames delivered. */
+    protected long framesAccepted () {
+
+	return expectedCount;
+
+    } // framesAccepted ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The index of the next frame to transmit, behind the sent count after
+     *  going back. */
+    private int     next;
+
+    /** The number of frames delivered. */
+    private long    expectedCount;
+
+    /** The sequence number that the receiver expects next. */
+    private int     expected;
+
+    // The window, frame size, and timeout used when none are given.
+    static final int  DEFAULT_WINDOW_SIZE    = 32;
+    static final int  DEFAULT_FRAME_SIZE     = 32;
+    static final long DEFAULT_TIMEOUT_MILLIS = 200;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class GoBackNDataLinkLayer
+// =============================================================================
@@ -0,0 +1,621 @@
+// =============================================================================
+// IMPORTS
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * A data link layer that frames data on the bit stream itself, as HDLC does,
+ * rather than on bytes.  Frames are separated by the flag 01111110, and so
+ * that the flag never appears within a frame, the sender inserts a 0 after
+ * every run of five 1s in the frame (zero-bit insertion), and the receiver
+ * removes it.  Six 1s are thus only ever part of a flag, and seven or more
+ * abort the frame.  Each frame holds up to a frame's worth of data followed
+ * by a CRC-16 frame check sequence, and a frame whose check does not match,
+ * or that is not a whole number of bytes, is discarded.  Consecutive frames
+ * share the flag between them.
+ *
+ * Since a flag is recognized at any bit position, the receiver finds the
+ * next frame however the bits before it were damaged: unlike the byte
+ * framing layers, it overrides the bit path, and assembles no bytes until it
+ * has destuffed a frame.
+ *
+ * Both stuffing and destuffing work on 64 bits at a time.  The positions at
+ * which a run of five 1s is completed are found at once by shifting the word
+ * against itself, carrying in the run of 1s from the bits before it, and the
+ * bits up to the first such position are copied as one piece.  Only the bits
+ * just after a run of five 1s, which say whether it was stuffed or a flag,
+ * are examined one at a time.
+ *
+ * @file   HdlcDataLinkLayer.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class HdlcDataLinkLayer extends DataLinkLayer {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a layer with the default frame size.
+     */
+    public HdlcDataLinkLayer () {
+
+	this(DEFAULT_FRAME_SIZE);
+
+    } // HdlcDataLinkLayer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a layer.
+     *
+     * @param frameSize The most data bytes carried by each frame.
+     * @throws RuntimeException if the frame size is not positive.
+     */
+    public HdlcDataLinkLayer (int frameSize) {
+
+	if (frameSize <= 0) {
+	    throw new RuntimeException("Frame size must be positive");
+	}
+	this.frameSize       = frameSize;
+	this.sendChecksum    = new Crc16();
+	this.receiveChecksum = new Crc16();
+	this.sendBits        = new BitWriter();
+	this.frameBits       = new BitWriter();
+	this.maxFrameBits    = (frameSize + FCS_BYTES) * BITS_PER_BYTE + FLAG_PREFIX_BITS;
+
+    } // HdlcDataLinkLayer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Embed a raw sequence of bytes into a framed sequence.
+     *
+     * @param  data The raw sequence of bytes to be framed.
+     * @return A complete frame.
+     */
+    protected byte[] createFrame (byte[] data) {
+
+	ByteBuffer framedData = ByteBuffer.allocate(frameLength(data, 0, data.length));
+	createFrame(data, 0, data.length, framedData);
+	return Arrays.copyOf(framedData.array(), framedData.position());
+
+    } // createFrame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Embed part of a raw sequence of bytes into a sequence of frames: a flag,
+     * then for each frame its stuffed data and check sequence followed by a
+     * flag.  The bits after the last flag are padded with 0s to a whole byte,
+     * which the receiver discards as too short to be a frame.
+     *
+     * @param src    The array holding the raw bytes to be framed.
+     * @param offset The index of the first byte to be framed.
+     * @param length The number of bytes to be framed.
+     * @param dst    The buffer into which to write the frames.
+     */
+    protected void createFrame (byte[]     src,
+				int        offset,
+				int        length,
+				ByteBuffer dst) {
+
+	sendBits.reset();
+	sendBits.put(FLAG, FLAG_BITS);
+
+	int end = offset + length;
+	int i   = offset;
+	do {
+
+	    int frameEnd = Math.min(i + frameSize, end);
+	    sendChecksum.reset();
+	    sendChecksum.update(src, i, frameEnd - i);
+	    long fcs = sendChecksum.getValue();
+
+	    // The flag ends in a 0, so each frame begins with no run of 1s.
+	    sendRun = 0;
+	    for (int j = i; j < frameEnd; j += Long.BYTES) {
+		int bits = Math.min(Long.BYTES, frameEnd - j) * BITS_PER_BYTE;
+		stuff(wordAt(src, (long)j * BITS_PER_BYTE, bits), bits);
+	    }
+	    stuff(fcs << (Long.SIZE - FCS_BYTES * BITS_PER_BYTE), FCS_BYTES * BITS_PER_BYTE);
+	    sendBits.put(FLAG, FLAG_BITS);
+	    frameSent(frameEnd - i);
+	    i = frameEnd;
+
+	} while (i < end);
+
+	sendBits.finish();
+	dst.put(sendBits.bytes, 0, sendBits.byteLength());
+
+    } // createFrame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Determine the most bytes that the frames for the given raw bytes may
+     * need: the data and a check sequence for each frame, each grown by a
+     * fifth for the stuffed 0s that all-1s data would need, and a flag for
+     * each frame and one more.
+     *
+     * @param  src    The array holding the raw bytes to be framed.
+     * @param  offset The index of the first byte to be framed.
+     * @param  length The number of bytes to be framed.
+     * @return the most bytes the frames may need.
+     */
+    protected int frameLength (byte[] src, int offset, int length) {
+
+	long frames  = Math.max(1, (length + (long)frameSize - 1) / frameSize);
+	long bits    = (long)length * BITS_PER_BYTE + frames * FCS_BYTES * BITS_PER_BYTE;
+	long stuffed = bits + bits / 5 + 1;
+	long total   = stuffed + (frames + 1) * FLAG_BITS;
+	return (int)((total + BITS_PER_BYTE - 1) / BITS_PER_BYTE);
+
+    } // frameLength ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Deliver a block of bits into this layer.  Expected to be called by the
+     * physical layer.  The bits are destuffed into the current frame a word
+     * at a time, up to each run of five 1s; the bit or two after such a run
+     * is then taken alone, to remove a stuffed 0, to end the frame at a
+     * flag, or to abort it.
+     *
+     * @param data      The bytes holding the bits received.
+     * @param bitOffset The index of the first bit received.
+     * @param bitLength The number of bits received.
+     */
+    public void receive (byte[] data, int bitOffset, int bitLength) {
+
+	long i   = bitOffset;
+	long end = (long)bitOffset + bitLength;
+	while (i < end) {
+
+	    // Just after five 1s, a 0 was stuffed, and a 1 is a sixth.
+	    if (receiveRun >= STUFF_RUN) {
+		boolean one = ((data[(int)(i >>> 3)] >>> (7 - (i & 7))) & 1) != 0;
+		i += 1;
+		if (receiveRun == STUFF_RUN) {
+		    receiveRun = one ? STUFF_RUN + 1 : 0;
+		} else if (one) {
+		    // Seven 1s: an abort, or an idle line.
+		    abort();
+		} else {
+		    endFrame();
+		    receiveRun = 0;
+		}
+		continue;
+	    }
+
+	    // Copy the bits up to and including the first that completes a
+	    // run of five 1s, or all of them if there is none.
+	    int  bits     = (int)Math.min(Long.SIZE, end - i);
+	    long word     = wordAt(data, i, bits);
+	    long complete = runEnds(word, receiveRun);
+	    if (complete == 0) {
+		append(word, bits);
+		receiveRun = extendRun(word, bits, receiveRun);
+		i         += bits;
+	    } else {
+		int upTo = Long.numberOfLeadingZeros(complete) + 1;
+		append(word, upTo);
+		receiveRun = STUFF_RUN;
+		i         += upTo;
+	    }
+
+	}
+
+    } // receive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Unused, since received bits are framed as they arrive, without being
+     * assembled into bytes first.
+     *
+     * @return <code>null</code>.
+     */
+    protected byte[] processFrame () {
+
+	return null;
+
+    } // processFrame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Stuff bits into the outgoing frames: copy them up to each run of five
+     * 1s, and insert a 0 after it.
+     *
+     * @param word The bits, from the most significant.
+     * @param bits The number of bits, at most 64.
+     */
+    private void stuff (long word, int bits) {
+
+	word &= topBits(bits);
+	while (bits > 0) {
+
+	    long complete = runEnds(word, sendRun);
+	    if (complete == 0) {
+		sendBits.put(word, bits);
+		sendRun = extendRun(word, bits, sendRun);
+		return;
+	    }
+
+	    int upTo = Long.numberOfLeadingZeros(complete) + 1;
+	    sendBits.put(word, upTo);
+	    sendBits.put(0, 1);
+	    sendRun = 0;
+	    word    = (upTo == Long.SIZE) ? 0 : word << upTo;
+	    bits   -= upTo;
+
+	}
+
+    } // stuff ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Add destuffed bits to the current frame, unless hunting for a flag.  A
+     * frame that grows too long is abandoned.
+     *
+     * @param word The bits, from the most significant.
+     * @param bits The number of bits.
+     */
+    private void append (long word, int bits) {
+
+	if (!inFrame) {
+	    return;
+	}
+	frameBits.put(word, bits);
+	if (frameBits.bitLength() > maxFrameBits) {
+	    dropFrame(oversizeFrames);
+	    inFrame = false;
+	}
+
+    } // append ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * End the current frame at a flag, delivering its data if it is a whole
+     * number of bytes with a matching check sequence, and begin the next.
+     * Fewer bits than a byte between flags are not a frame, but the padding
+     * that ends each send, or nothing at all, and are ignored.
+     */
+    private void endFrame () {
+
+	// The flag's leading 0 and five 1s went into the frame.  Fewer bits
+	// than a byte are padding, or nothing at all.
+	long frameLength = frameBits.bitLength() - FLAG_PREFIX_BITS;
+	if (inFrame && frameLength >= BITS_PER_BYTE) {
+
+	    frameBits.finish();
+	    int dataLength = (int)(frameLength / BITS_PER_BYTE) - FCS_BYTES;
+	    if (frameLength % BITS_PER_BYTE != 0 || dataLength < 0) {
+		dropFrame(malformedFrames);
+	    } else {
+		byte[] frame = frameBits.bytes;
+		long   fcs   = ((frame[dataLength] & 0xff) << BITS_PER_BYTE) |
+			       (frame[dataLength + 1] & 0xff);
+		receiveChecksum.reset();
+		receiveChecksum.update(frame, 0, dataLength);
+		if (receiveChecksum.getValue() == fcs) {
+		    deliver(frame, 0, dataLength);
+		} else {
+		    dropFrame(checksumMismatches);
+		}
+	    }
+
+	}
+
+	inFrame = true;
+	frameBits.reset();
+
+    } // endFrame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Abandon the current frame on seven 1s, and hunt for the next flag.
+     */
+    private void abort () {
+
+	inFrame    = false;
+	receiveRun = STUFF_RUN + 1;
+	frameBits.reset();
+
+    } // abort ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find where runs of five 1s are completed.
+     *
+     * @param  word The bits, from the most significant, with any beyond the
+     *              last valid bit cleared.
+     * @param  run  The number of 1s that ended the bits before the word.
+     * @return a word with a bit set at each position that completes a run of
+     *         five 1s.
+     */
+    private static long runEnds (long word, int run) {
+
+	// Shifting by k brings in the bit k places earlier.  The first k bits
+	// of the word have theirs before the word, and bit i is covered by the
+	// run if it reaches back k - i bits.
+	long complete = word;
+	for (int shift = 1; shift < STUFF_RUN; shift += 1) {
+	    long carry = topBits(shift) & ~topBits(Math.max(0, shift - run));
+	    complete  &= (word >>> shift) | carry;
+	}
+	return complete;
+
+    } // runEnds ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  word The bits, from the most significant.
+     * @param  bits The number of valid bits.
+     * @param  run  The number of 1s that ended the bits before the word.
+     * @return the number of 1s that end the bits through this word.
+     */
+    private static int extendRun (long word, int bits, int run) {
+
+	int trailingOnes = Long.numberOfTrailingZeros(~(word >>> (Long.SIZE - bits)));
+	return (trailingOnes >= bits) ? run + bits : trailingOnes;
+
+    } // extendRun ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read up to 64 bits from an array, most significant first.
+     *
+     * @param  data     The array.
+     * @param  bitIndex The index of the first bit.
+     * @param  bits     The number of bits, at most 64, all within the array.
+     * @return the bits, from the most significant, with the rest cleared.
+     */
+    private static long wordAt (byte[] data, long bitIndex, int bits) {
+
+	int  byteIndex = (int)(bitIndex >>> 3);
+	int  shift     = (int)(bitIndex & 7);
+	long word;
+	if (byteIndex + Long.BYTES <= data.length) {
+	    word = (long)LONGS.get(data, byteIndex);
+	} else {
+	    word = 0;
+	    for (int k = 0; k < Long.BYTES; k += 1) {
+		int index = byteIndex + k;
+		word = (word << BITS_PER_BYTE) |
+		       (index < data.length ? data[index] & 0xff : 0);
+	    }
+	}
+	if (shift != 0) {
+	    word <<= shift;
+	    if (shift + bits > Long.SIZE) {
+		word |= (data[byteIndex + Long.BYTES] & 0xff) >>> (BITS_PER_BYTE - shift);
+	    }
+	}
+	return word & topBits(bits);
+
+    } // wordAt ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  bits A number of bits, from 0 to 64.
+     * @return a word with that many of its most significant bits set.
+     */
+    private static long topBits (int bits) {
+
+	return (bits == 0) ? 0 : -1L << (Long.SIZE - bits);
+
+    } // topBits ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INNER CLASSES
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * A growable sequence of bits, collected in a word and stored eight bytes
+     * at a time.
+     */
+    private static final class BitWriter {
+
+	/** Empty the sequence. */
+	void reset () {
+
+	    byteLength = 0;
+	    word       = 0;
+	    wordBits   = 0;
+
+	}
+
+	/**
+	 * Add bits to the end of the sequence.
+	 *
+	 * @param bits  The bits, from the most significant.
+	 * @param count The number of bits, at most 64.
+	 */
+	void put (long bits, int count) {
+
+	    bits &= topBits(count);
+	    word |= bits >>> wordBits;
+	    if (wordBits + count < Long.SIZE) {
+		wordBits += count;
+		return;
+	    }
+
+	    // The word is full, so store it and keep the bits left over.
+	    if (byteLength + Long.BYTES > bytes.length) {
+		bytes = Arrays.copyOf(bytes, 2 * bytes.length);
+	    }
+	    LONGS.set(bytes, byteLength, word);
+	    byteLength += Long.BYTES;
+	    int used    = Long.SIZE - wordBits;
+	    word        = (used == Long.SIZE) ? 0 : bits << used;
+	    wordBits    = count - used;
+
+	}
+
+	/** Store any bits still in the word, padding them to a whole byte. */
+	void finish () {
+
+	    if (byteLength + Long.BYTES > bytes.length) {
+		bytes = Arrays.copyOf(bytes, 2 * bytes.length);
+	    }
+	    LONGS.set(bytes, byteLength, word);
+	    byteLength += (wordBits + BITS_PER_BYTE - 1) / BITS_PER_BYTE;
+	    word        = 0;
+	    wordBits    = 0;
+
+	}
+
+	/** @return the number of bits in the sequence. */
+	long bitLength () {
+
+	    return (long)byteLength * BITS_PER_BYTE + wordBits;
+
+	}
+
+	/** @return the number of whole bytes stored. */
+	int byteLength () {
+
+	    return byteLength;
+
+	}
+
+	/** The stored bytes. */
+	byte[] bytes = new byte[INITIAL_CAPACITY];
+
+	/** The number of bytes stored. */
+	int    byteLength;
+
+	/** The bits not yet stored, from the most significant. */
+	long   word;
+
+	/** The number of bits in the word. */
+	int    wordBits;
+
+    } // class BitWriter
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The most data bytes carried by each frame. */
+    private final int         frameSize;
+
+    // The checksums used in framing outgoing data and checking incoming.
+    private final Crc16       sendChecksum;
+    private final Crc16       receiveChecksum;
+
+    /** The outgoing frames, as they are stuffed. */
+    private final BitWriter   sendBits;
+
+    /** The number of 1s that end the outgoing bits. */
+    private int               sendRun;
+
+    /** The destuffed bits of the current incoming frame. */
+    private final BitWriter   frameBits;
+
+    /** The most bits that an incoming frame, with its flag's start, may have. */
+    private final long        maxFrameBits;
+
+    /** The number of 1s that end the incoming bits. */
+    private int               receiveRun;
+
+    /** Whether a flag has begun a frame, rather than hunting for one. */
+    private boolean           inFrame;
+
+    /** The flag that separates frames. */
+    private static final long FLAG             = 0x7eL << (Long.SIZE - 8);
+
+    /** The number of bits in the flag. */
+    private static final int  FLAG_BITS        = 8;
+
+    /** The flag's bits that reach the frame before it is recognized: 011111. */
+    private static final int  FLAG_PREFIX_BITS = 6;
+
+    /** The run of 1s after which a 0 is stuffed. */
+    private static final int  STUFF_RUN        = 5;
+
+    /** The number of bytes in the frame check sequence. */
+    private static final int  FCS_BYTES        = 2;
+
+    /** The frame size used when none is given. */
+    static final int  DEFAULT_FRAME_SIZE = 256;
+
+    /** The initial size of each bit sequence's array. */
+    private static final int  INITIAL_CAPACITY = 1024;
+
+    /** Reads and writes eight bytes at a time, most significant first. */
+    private static final VarHandle LONGS =
+	MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class HdlcDataLinkLayer
+// =============================================================================
@@ -1,8 +1,12 @@
 // =============================================================================
 // IMPORTS
 
-import java.util.Queue;
-import java.util.LinkedList;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.atomic.LongAdder;
 // =============================================================================
 
 
@@ -35,7 +39,7 @@ public class Host {
 						  this.physicalLayer,
 						  this);
 
-	this.buffer = new LinkedList<Byte>();
+	this.buffer = new ByteRingBuffer(INITIAL_BUFFER_SIZE);
 
     } // Host ()
     // =========================================================================
@@ -44,13 +48,63 @@ public class Host {
 
     // =========================================================================
     /**
-     * Send a sequence of bytes.
+     * Create a host around an already constructed data link layer, such as
+     * one built with other than its default parameters.
+     *
+     * @param medium        The medium to which to connect the host.
+     * @param dataLinkLayer The data link layer for its network stack, not yet
+     *                      connected to any other.
+     */
+    public Host (Medium medium, DataLinkLayer dataLinkLayer) {
+
+	this.medium        = medium;
+	this.physicalLayer = PhysicalLayer.create(medium);
+	this.dataLinkLayer = dataLinkLayer;
+	DataLinkLayer.attach(dataLinkLayer, this.physicalLayer, this);
+
+	this.buffer = new ByteRingBuffer(INITIAL_BUFFER_SIZE);
+
+    } // Host ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the physical layer in this host's network stack.
+     */
+    public PhysicalLayer getPhysicalLayer () {
+
+	return physicalLayer;
+
+    } // getPhysicalLayer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the data link layer in this host's network stack.
+     */
+    public DataLinkLayer getDataLinkLayer () {
+
+	return dataLinkLayer;
+
+    } // getDataLinkLayer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send a sequence of bytes.  While coalescing, it is queued as one
+     * message.
      *
      * @param data The sequence of bytes to send.
      */
     public void send (byte[] data) {
 
-	dataLinkLayer.send(data);
+	sendChunk(data, 0, data.length);
 	
     } // send ()
     // =========================================================================
@@ -59,43 +113,556 @@ public class Host {
 
     // =========================================================================
     /**
-     * Receive bytes from the lower layer.  Buffer those until they are
-     * retrieved.
+     * Send the bytes remaining in a buffer, a chunk at a time, so that the
+     * data link layer never frames more than a chunk at once.  The buffer
+     * need not have a backing array; a memory-mapped file is read a chunk at
+     * a time as it is sent.
+     *
+     * @param  data The buffer of bytes to send, from its position to its
+     *              limit.  Its position is advanced to its limit.
+     * @return the number of bytes sent.
+     */
+    public long send (ByteBuffer data) {
+
+	long total = 0;
+	while (data.hasRemaining()) {
+
+	    int length = Math.min(data.remaining(), SEND_CHUNK_SIZE);
+	    if (data.hasArray()) {
+		sendChunk(data.array(),
+			  data.arrayOffset() + data.position(),
+			  length);
+		data.position(data.position() + length);
+	    } else {
+		data.get(chunk(), 0, length);
+		sendChunk(chunk(), 0, length);
+	    }
+	    total += length;
+
+	}
+	return total;
+
+    } // send ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send everything that can be read from a channel, a chunk at a time, so
+     * that the first frames go out before the rest is read, and so that only
+     * a chunk is held at once.  Each chunk is filled before it is sent, even
+     * if the channel returns fewer bytes from a read.
+     *
+     * @param  source The blocking channel from which to read the bytes to
+     *                send, until it reaches its end.
+     * @return the number of bytes sent.
+     * @throws RuntimeException if reading from the channel fails.
+     */
+    public long send (ReadableByteChannel source) {
+
+	ByteBuffer buffer = ByteBuffer.wrap(chunk());
+	long       total  = 0;
+	boolean    ended  = false;
+	while (!ended) {
+
+	    buffer.clear();
+	    try {
+		while (buffer.hasRemaining() && !ended) {
+		    ended = (source.read(buffer) < 0);
+		}
+	    } catch (IOException e) {
+		throw new RuntimeException("Failed to read data to send: " +
+					   e.getMessage());
+	    }
+	    if (buffer.position() > 0) {
+		sendChunk(buffer.array(), 0, buffer.position());
+		total += buffer.position();
+	    }
+
+	}
+	return total;
+
+    } // send ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send everything that can be read from a stream, a chunk at a time.
+     *
+     * @param  source The stream from which to read the bytes to send, until
+     *                it reaches its end.
+     * @return the number of bytes sent.
+     * @throws RuntimeException if reading from the stream fails.
+     */
+    public long send (InputStream source) {
+
+	return send(Channels.newChannel(source));
+
+    } // send ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Coalesce small messages, as Nagle's algorithm does: rather than
+     * framing each on its own, queue messages and send them together, so
+     * that many share one frame's tags and checks.  Each message is preceded
+     * by its length, as a varint of seven bits to a byte, low bits first, so
+     * that the receiver can tell them apart with
+     * <code>retrieveMessage()</code>.  Every send is a message while
+     * coalescing, including each chunk of a streaming send.
+     *
+     * The queued messages are sent once they fill a batch, when the next
+     * would not fit, when the oldest has waited the given time on the
+     * medium's clock, as seen at a send, or when <code>flush()</code> is
+     * called.  There is no timer, so a host that stops sending must flush.
+     * A message too large for a batch is sent on its own, straight from the
+     * caller's array.  The receiver's count of messages is only as reliable
+     * as the link: the lengths are data like any other.
+     *
+     * Any messages already queued are sent first.  Like the sends, this is
+     * expected to be called only by the sending thread.
      *
-     * @param data The data received and to be buffered.
+     * @param maxBytes      The most bytes, lengths included, to send
+     *                      together, or <code>0</code> to stop coalescing.
+     * @param maxDelayNanos The longest a message waits for others, or
+     *                      <code>Long.MAX_VALUE</code> for no limit.
+     * @throws RuntimeException if the byte limit is negative.
+     */
+    public void setCoalescing (int maxBytes, long maxDelayNanos) {
+
+	if (maxBytes < 0) {
+	    throw new RuntimeException("Negative coalescing limit " +
+				       maxBytes);
+	}
+	flush();
+	coalesceBytes = maxBytes;
+	coalesceNanos = maxDelayNanos;
+	batch         = (maxBytes > 0 ?
+			 new byte[Math.max(maxBytes, MAX_PREFIX_SIZE)] :
+			 null);
+
+    } // setCoalescing ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send any messages queued while coalescing, at once, in one batch.
+     */
+    public void flush () {
+
+	if (batchLength == 0) {
+	    return;
+	}
+	batchesSent.increment();
+	handDown(batch, 0, batchLength);
+	batchLength = 0;
+
+    } // flush ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Receive bytes from the lower layer.
+     *
+     * @param data The data received.
      */
     public void receive (byte[] data) {
 
-	// Add the bytes into the buffer.
-	for (int i = 0; i < data.length; i += 1) {
-	    buffer.add(data[i]);
+	receive(data, 0, data.length);
+
+    } // receive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Receive bytes from the lower layer, which may reuse the array once
+     * this returns.  Hand them to the frame listener, if there is one, as a
+     * read-only view of the array; otherwise, buffer them until they are
+     * retrieved.  The lower layer may run on a thread other than the one
+     * retrieving, so the buffer is only touched while holding the host.
+     *
+     * @param data   The array holding the data received.
+     * @param offset The index in the array of the first byte received.
+     * @param length The number of bytes received.
+     */
+    public void receive (byte[] data, int offset, int length) {
+
+	bytesReceived.add(length);
+
+	FrameListener listener = frameListener;
+	if (listener != null) {
+	    listener.frameReceived(ByteBuffer.wrap(data, offset, length)
+				   .asReadOnlyBuffer());
+	    return;
 	}
-	
+
+	// Add the bytes into the buffer, waking any thread waiting for
+	// them.
+	synchronized (this) {
+	    buffer.add(data, offset, length);
+	    notifyAll();
+	}
+
     } // receive ()
     // =========================================================================
 
 
 
+    // =========================================================================
+    /**
+     * Have received data handed, a frame at a time, to a listener as it
+     * arrives, rather than buffered to be retrieved.  The listener is called
+     * on the thread delivering the frame; to have it called on another, with
+     * a bounded number of frames waiting, wrap it in a
+     * <code>FrameDispatcher</code>.  Data already buffered may still be
+     * retrieved.
+     *
+     * @param listener The listener to hand frames to, or <code>null</code> to
+     *                 buffer them again.
+     */
+    public void setFrameListener (FrameListener listener) {
+
+	frameListener = listener;
+
+    } // setFrameListener ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the number of received bytes buffered and available to be
+     *         retrieved.
+     */
+    public synchronized int available () {
+
+	return buffer.size();
+
+    } // available ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Wait until received bytes are buffered, or until the given time passes,
+     * whichever is first.
+     *
+     * @param  millis The most milliseconds to wait.
+     * @return the number of received bytes buffered, which is zero if the
+     *         time passed without any arriving.
+     */
+    public synchronized int awaitAvailable (long millis) {
+
+	if (buffer.size() == 0 && millis > 0) {
+	    try {
+		wait(millis);
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+	    }
+	}
+	return buffer.size();
+
+    } // awaitAvailable ()
+    // =========================================================================
+
+
+
     // =========================================================================
     /**
      * Retrieve and return any bytes that have been received and buffered.
      *
      * @return the buffered bytes.
      */
-    public byte[] retrieve () {
+    public synchronized byte[] retrieve () {
 
 	// Remove the bytes from the buffer, adding them to a newly formed array
 	// to be returned.
 	byte[] received = new byte[buffer.size()];
-	for (int i = 0; i < received.length; i += 1) {
-	    received[i] = buffer.remove();
-	}
+	buffer.remove(received, 0, received.length);
+	bytesRetrieved.add(received.length);
 
 	return received;
-	
+
     } // retrieve ()
     // =========================================================================
-    
+
+
+
+    // =========================================================================
+    /**
+     * Retrieve received and buffered bytes into the caller's array.
+     *
+     * @param  dst    The array into which to copy the bytes.
+     * @param  offset The index in the array of the first byte retrieved.
+     * @param  length The most bytes to retrieve.
+     * @return the number of bytes retrieved, which is fewer than requested
+     *         only if fewer are buffered.
+     */
+    public synchronized int retrieve (byte[] dst, int offset, int length) {
+
+	int count = buffer.remove(dst, offset, length);
+	bytesRetrieved.add(count);
+	return count;
+
+    } // retrieve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Retrieve received and buffered bytes into the caller's buffer, starting
+     * at its position.
+     *
+     * @param  dst The buffer into which to put the bytes.
+     * @return the number of bytes retrieved, which is the lesser of the bytes
+     *         buffered and the room remaining in the destination.
+     */
+    public synchronized int retrieve (ByteBuffer dst) {
+
+	int count = buffer.remove(dst);
+	bytesRetrieved.add(count);
+	return count;
+
+    } // retrieve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Retrieve the next whole message sent by a coalescing host, removing
+     * its length along with it.  Only buffered bytes are searched, so it
+     * finds nothing while a frame listener is set.
+     *
+     * @return the message, or <code>null</code> if not all of it has been
+     *         received.
+     * @throws RuntimeException if the buffered bytes do not begin with a
+     *                          valid length.
+     */
+    public synchronized byte[] retrieveMessage () {
+
+	// Read the length, if all of it has arrived.
+	int length     = 0;
+	int prefixSize = 0;
+	int next;
+	do {
+	    if (prefixSize == buffer.size()) {
+		return null;
+	    }
+	    next = buffer.get(prefixSize) & 0xff;
+	    if (prefixSize == MAX_PREFIX_SIZE - 1 && next > 0x07) {
+		throw new RuntimeException("Malformed message length");
+	    }
+	    length     |= (next & 0x7f) << (7 * prefixSize);
+	    prefixSize += 1;
+	} while ((next & 0x80) != 0);
+
+	// Take the message, if all of it has arrived.
+	if (buffer.size() - prefixSize < length) {
+	    return null;
+	}
+	byte[] message = new byte[length];
+	buffer.discard(prefixSize);
+	buffer.remove(message, 0, length);
+	bytesRetrieved.add(prefixSize + length);
+	messagesRetrieved.increment();
+	return message;
+
+    } // retrieveMessage ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the counters kept by this host.
+     */
+    public Metrics getMetrics () {
+
+	return metrics;
+
+    } // getMetrics ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Register the counters of this host and of its data link layer as
+     * MBeans, both under the given name.
+     *
+     * @param name The name that tells this host from others.
+     */
+    public void registerMetrics (String name) {
+
+	metrics.register(name);
+	dataLinkLayer.getMetrics().register(name);
+
+    } // registerMetrics ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send one chunk of a larger sequence of bytes, or while coalescing,
+     * queue it as a message.
+     *
+     * @param data   The array holding the chunk.
+     * @param offset The index of the chunk's first byte.
+     * @param length The number of bytes in the chunk.
+     */
+    private void sendChunk (byte[] data, int offset, int length) {
+
+	if (coalesceBytes > 0) {
+	    queue(data, offset, length);
+	} else {
+	    handDown(data, offset, length);
+	}
+
+    } // sendChunk ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Hand bytes to the data link layer to be sent.
+     *
+     * @param data   The array holding the bytes.
+     * @param offset The index of the first byte.
+     * @param length The number of bytes.
+     */
+    private void handDown (byte[] data, int offset, int length) {
+
+	bytesSent.add(length);
+	dataLinkLayer.send(data, offset, length);
+
+    } // handDown ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Queue a message, preceded by its length, behind those already queued,
+     * sending the batch when it is full, when the message does not fit, or
+     * when the oldest message has waited long enough.
+     *
+     * @param data   The array holding the message.
+     * @param offset The index of the message's first byte.
+     * @param length The number of bytes in the message.
+     */
+    private void queue (byte[] data, int offset, int length) {
+
+	messagesQueued.increment();
+	int prefixSize = prefixSize(length);
+	int capacity   = batch.length;
+
+	// A message too large for any batch follows its length, queued
+	// behind the others, on its own.
+	if (prefixSize + length > capacity) {
+	    if (batchLength + prefixSize > capacity) {
+		flush();
+	    }
+	    putPrefix(length);
+	    flush();
+	    handDown(data, offset, length);
+	    return;
+	}
+
+	// Otherwise, start a new batch if it does not fit in this one.
+	if (batchLength + prefixSize + length > capacity) {
+	    flush();
+	}
+	if (batchLength == 0) {
+	    batchStarted = medium.now();
+	}
+	putPrefix(length);
+	System.arraycopy(data, offset, batch, batchLength, length);
+	batchLength += length;
+
+	if (batchLength >= coalesceBytes ||
+	    medium.now() - batchStarted >= coalesceNanos) {
+	    flush();
+	}
+
+    } // queue ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Add a message's length to the batch, as a varint.
+     *
+     * @param length The length.
+     */
+    private void putPrefix (int length) {
+
+	while (length >= 0x80) {
+	    batch[batchLength++] = (byte)(length | 0x80);
+	    length >>>= 7;
+	}
+	batch[batchLength++] = (byte)length;
+
+    } // putPrefix ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  length A message's length.
+     * @return the number of bytes in its varint.
+     */
+    private static int prefixSize (int length) {
+
+	int size = 1;
+	while ((length >>>= 7) != 0) {
+	    size += 1;
+	}
+	return size;
+
+    } // prefixSize ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the array reused to hold each chunk being sent, created when
+     *         first needed.
+     */
+    private byte[] chunk () {
+
+	if (sendChunk == null) {
+	    sendChunk = new byte[SEND_CHUNK_SIZE];
+	}
+	return sendChunk;
+
+    } // chunk ()
+    // =========================================================================
+
 
 
     // =========================================================================
@@ -111,7 +678,64 @@ public class Host {
     private DataLinkLayer dataLinkLayer;
 
     /** The buffered bytes received via the network stack. */
-    private Queue<Byte>   buffer;
+    private ByteRingBuffer buffer;
+
+    /** The counters kept by this host, declared before the counters. */
+    private final Metrics   metrics = new Metrics("Host");
+
+    /** The bytes handed to the data link layer to be sent. */
+    private final LongAdder bytesSent =
+	metrics.counter("BytesSent", "Bytes handed down to be sent");
+
+    /** The bytes received from the data link layer and buffered. */
+    private final LongAdder bytesReceived =
+	metrics.counter("BytesReceived", "Bytes received and buffered");
+
+    /** The buffered bytes retrieved. */
+    private final LongAdder bytesRetrieved =
+	metrics.counter("BytesRetrieved", "Buffered bytes retrieved");
+
+    /** The messages queued, while coalescing, with their lengths. */
+    private final LongAdder messagesQueued =
+	metrics.counter("MessagesQueued", "Messages queued to be coalesced");
+
+    /** The batches of coalesced messages sent. */
+    private final LongAdder batchesSent =
+	metrics.counter("BatchesSent", "Batches of coalesced messages sent");
+
+    /** The whole messages retrieved. */
+    private final LongAdder messagesRetrieved =
+	metrics.counter("MessagesRetrieved", "Whole messages retrieved");
+
+    /** The array reused to hold each chunk being sent. */
+    private byte[] sendChunk;
+
+    /** The listener handed received frames, if any, instead of the buffer. */
+    private volatile FrameListener frameListener;
+
+    /** The most bytes handed to the data link layer at once by a streaming send. */
+    private static final int SEND_CHUNK_SIZE = 64 * 1024;
+
+    /** The most bytes sent together while coalescing, or 0 if not. */
+    private int    coalesceBytes;
+
+    /** The longest, in nanoseconds, a message waits while coalescing. */
+    private long   coalesceNanos;
+
+    /** The queued messages, with their lengths, while coalescing. */
+    private byte[] batch;
+
+    /** The number of bytes queued in the batch. */
+    private int    batchLength;
+
+    /** When the batch's first message was queued, on the medium's clock. */
+    private long   batchStarted;
+
+    /** The most bytes in a message's length. */
+    private static final int MAX_PREFIX_SIZE = 5;
+
+    /** The number of bytes the buffer can hold before it must grow. */
+    private static final int INITIAL_BUFFER_SIZE = 4096;
 
     /** Whether to emit debugging information. */
     private static final boolean debug = false;
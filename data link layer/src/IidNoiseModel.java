@@ -0,0 +1,134 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.Random;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * A noise model in which each bit is flipped independently, with the same
+ * probability (the bit error rate).  Instead of rolling for every bit, the
+ * model draws the gap to the next error from a geometric distribution and
+ * skips straight to it, so its cost depends on the number of errors rather
+ * than the number of bits.
+ *
+ * @file   IidNoiseModel.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class IidNoiseModel implements NoiseModel {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a model.
+     *
+     * @param errorRate The probability that any one bit is flipped.
+     * @param seed      The seed of the pseudo-random error stream.
+     * @throws RuntimeException if the error rate is not a probability.
+     */
+    public IidNoiseModel (double errorRate, long seed) {
+
+	if (!(errorRate >= 0.0 && errorRate <= 1.0)) {
+	    throw new RuntimeException("Bit error rate " + errorRate +
+				       " is not a probability");
+	}
+	this.errorRate     = errorRate;
+	this.seed          = seed;
+	this.random        = new Random(seed);
+	this.logCleanRate  = Math.log1p(-errorRate);
+	this.gap           = NoiseModel.geometricGap(random, logCleanRate);
+
+    } // IidNoiseModel ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public long cleanBitsAhead () {
+
+	return gap;
+
+    } // cleanBitsAhead ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public void advance (long bitLength) {
+
+	if (gap != Long.MAX_VALUE) {
+	    gap -= bitLength;
+	}
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public int corrupt (byte[] data, int bitOffset, int bitLength) {
+
+	// Skip from one error to the next until the next lies past the block.
+	int  flips     = 0;
+	long position  = 0;
+	while (gap < bitLength - position) {
+	    position += gap;
+	    NoiseModel.flip(data, bitOffset + position);
+	    flips    += 1;
+	    position += 1;
+	    gap       = NoiseModel.geometricGap(random, logCleanRate);
+	}
+	advance(bitLength - position);
+
+	return flips;
+
+    } // corrupt ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public NoiseModel fork (long stream) {
+
+	return new IidNoiseModel(errorRate, NoiseModel.forkSeed(seed, stream));
+
+    } // fork ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The probability that any one bit is flipped. */
+    private final double errorRate;
+
+    /** The seed of this model's error stream. */
+    private final long   seed;
+
+    /** The source of the error stream. */
+    private final Random random;
+
+    /** The natural logarithm of the probability that a bit is clean. */
+    private final double logCleanRate;
+
+    /** The number of clean bits remaining before the next error. */
+    private long         gap;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class IidNoiseModel
+// =============================================================================
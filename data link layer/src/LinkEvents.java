@@ -0,0 +1,223 @@
+// =============================================================================
+// IMPORTS
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * The Java Flight Recorder events that trace frames through the stack: each
+ * frame sent, delivered or dropped, each resynchronization after bytes were
+ * thrown away, and each block into which a noisy medium flipped bits.
+ *
+ * An event is recorded only while a recording that enables it is running,
+ * for example:
+ * <pre>
+ *   java -XX:StartFlightRecording=filename=run.jfr Simulator LowNoise Parity data
+ *   jfr print --events datalinklayer.FrameDropped run.jfr
+ * </pre>
+ * Otherwise each costs a check of whether it is enabled, and until a
+ * recording has started, not even that: creating the first event loads the
+ * recorder itself, which takes a good part of a second, so every place that
+ * records one asks {@link #recording()} first.  Stack traces are not taken,
+ * since every event of a kind comes from the same place.
+ *
+ * A frame sent or delivered happens every few bytes, so those two events are
+ * off unless a settings file turns them on, given after the default one:
+ * <pre>
+ *   java -XX:StartFlightRecording=filename=run.jfr,settings=default,settings=frames.jfc ...
+ * </pre>
+ * where <code>frames.jfc</code> sets <code>enabled</code> to
+ * <code>true</code> for <code>datalinklayer.FrameSent</code> and
+ * <code>datalinklayer.FrameDelivered</code>.
+ *
+ * @file   LinkEvents.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public final class LinkEvents {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return whether the flight recorder has started, without starting it;
+     *         until it has, no event can be enabled.
+     */
+    public static boolean recording () {
+
+	return FlightRecorder.isInitialized();
+
+    } // recording ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INNER CLASSES
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** A frame built and sent by a data link layer. */
+    @Name(PREFIX + "FrameSent")
+    @Enabled(false)
+    @Label("Frame Sent")
+    @Category(CATEGORY)
+    @Description("A frame built and sent by a data link layer")
+    @StackTrace(false)
+    public static class FrameSent extends Event {
+
+	@Label("Layer")
+	public String layer;
+
+	@Label("Data Length")
+	@DataAmount
+	public int    dataLength;
+
+    } // class FrameSent
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** A whole, correct frame whose data was handed to the host. */
+    @Name(PREFIX + "FrameDelivered")
+    @Enabled(false)
+    @Label("Frame Delivered")
+    @Category(CATEGORY)
+    @Description("A received frame whose data was handed to the host")
+    @StackTrace(false)
+    public static class FrameDelivered extends Event {
+
+	@Label("Layer")
+	public String layer;
+
+	@Label("Data Length")
+	@DataAmount
+	public int    dataLength;
+
+    } // class FrameDelivered
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** A received frame thrown away. */
+    @Name(PREFIX + "FrameDropped")
+    @Label("Frame Dropped")
+    @Category(CATEGORY)
+    @Description("A received frame thrown away, and why")
+    @StackTrace(false)
+    public static class FrameDropped extends Event {
+
+	@Label("Layer")
+	public String layer;
+
+	@Label("Reason")
+	@Description("The name of the counter of frames dropped this way")
+	public String reason;
+
+    } // class FrameDropped
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** A receiver finding frames again after throwing bytes away. */
+    @Name(PREFIX + "Resync")
+    @Label("Resync")
+    @Category(CATEGORY)
+    @Description("A receiver finding a frame after throwing away bytes " +
+		 "outside of any frame")
+    @StackTrace(false)
+    public static class Resync extends Event {
+
+	@Label("Layer")
+	public String layer;
+
+	@Label("Bytes Discarded")
+	@DataAmount
+	public long   bytesDiscarded;
+
+    } // class Resync
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** A block of bits into which a medium's noise flipped some. */
+    @Name(PREFIX + "BitFlipInjected")
+    @Label("Bit Flip Injected")
+    @Category(CATEGORY)
+    @Description("A block of bits, on its way to one receiver, into which " +
+		 "noise flipped some")
+    @StackTrace(false)
+    public static class BitFlipInjected extends Event {
+
+	@Label("Medium")
+	public String medium;
+
+	@Label("Port")
+	@Description("The receiver's port id on the medium")
+	public int    port;
+
+	@Label("Block Bits")
+	public int    blockBits;
+
+	@Label("Bits Flipped")
+	public int    bitsFlipped;
+
+    } // class BitFlipInjected
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // Only a holder of the event classes.
+    private LinkEvents () {
+
+    } // LinkEvents ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The prefix of every event's name. */
+    private static final String PREFIX   = "datalinklayer.";
+
+    /** The category under which the events are shown. */
+    private static final String CATEGORY = "Data Link Layer";
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class LinkEvents
+// =============================================================================
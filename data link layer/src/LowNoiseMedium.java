@@ -1,15 +1,18 @@
 // =============================================================================
 // IMPORTS
 
-import java.util.Iterator;
-import java.util.Random;
+import java.util.Arrays;
 // =============================================================================
 
 
 
 // =============================================================================
 /**
- * A medium that occassionally flips a bit.
+ * A medium that occassionally flips a bit.  Which bits are flipped is decided
+ * by a noise model, of which each receiving client gets its own copy with an
+ * independent error stream.  Clients may send from different threads; each
+ * receiver's model is locked while it walks over a block, though not while
+ * the block is delivered.
  *
  * @file   LowNoiseMedium.java
  * @author Scott F. Kaplan (sfkaplan@cs.amherst.edu)
@@ -26,15 +29,42 @@ public class LowNoiseMedium extends Medium {
 
 
 
+    // =========================================================================
+    /**
+     * Create a medium that flips each bit independently, with the default
+     * probability and seed.
+     */
     public LowNoiseMedium () {
-	random = new Random(5);
-    }
+
+	this(new IidNoiseModel(errorProbability, DEFAULT_SEED));
+
+    } // LowNoiseMedium ()
+    // =========================================================================
+
 
 
     // =========================================================================
     /**
-     * Send a bit from one client to the other clients.  With some probability,
-     * flip a bit.
+     * Create a medium.
+     *
+     * @param noiseModel The model of the errors suffered by each receiver.
+     *                   Each receiver gets its own fork of it, numbered by
+     *                   its port id.
+     */
+    public LowNoiseMedium (NoiseModel noiseModel) {
+
+	this.noiseModel = noiseModel;
+	this.models     = new NoiseModel[0];
+
+    } // LowNoiseMedium ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send a bit from one client to the other clients.  Each receiver's noise
+     * model may flip the bit it gets.
      *
      * @param sender The client physical layer sending the bit.
      * @param bit The value to be sent, where <code>false</code> sends a
@@ -45,31 +75,118 @@ public class LowNoiseMedium extends Medium {
      */
     public void transmit (PhysicalLayer sender, boolean bit) {
 
+	transmitBlock(sender, bit ? ONE_BIT : ZERO_BIT, 0, 1);
+
+    } // transmit ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send a block of bits from one client to the other clients.  A receiver
+     * whose noise model will flip none of the block gets the block as is;
+     * any other gets its own copy, with the chosen bits flipped.
+     *
+     * @param sender    The client physical layer sending the bits.
+     * @param data      The bytes holding the bits to be sent.
+     * @param bitOffset The index of the first bit to be sent.
+     * @param bitLength The number of bits to be sent.
+     * @throws RuntimeException if the sender is not registered with this
+     *                          medium.
+     */
+    public void transmitBlock (PhysicalLayer sender,
+			       byte[]        data,
+			       int           bitOffset,
+			       int           bitLength) {
+
 	// Only registered clients may send.
-	if (!clients.contains(sender)) {
-	    throw new RuntimeException("Unregistered sender on the medium");
-	}
-	
-	// Deliver the bit to each client that is not the sender.
-	Iterator<PhysicalLayer> clientIterator = clients.iterator();
-	while (clientIterator.hasNext()) {
-	    
-	    // With low probability, flip this bit.
-	    if (random.nextFloat() < errorProbability) {
-		if (debug) {
-		    System.out.println("LowNoiseMedium.transmit(): Flipped bit!");
+	int senderPort = portOf(sender);
+
+	// Deliver the block to each client that is not the sender.
+	PhysicalLayer[] receivers = ports();
+	NoiseModel[]    current   = modelsFor(receivers);
+	for (int port = 0; port < receivers.length; port += 1) {
+
+	    if (port == senderPort) {
+		continue;
+	    }
+
+	    // Copy the block only if it will be damaged.  The model is
+	    // released before delivery, which may send a reply.
+	    NoiseModel model = current[port];
+	    byte[]     copy  = null;
+	    int        flips = 0;
+	    synchronized (model) {
+		if (model.cleanBitsAhead() >= bitLength) {
+		    model.advance(bitLength);
+		} else {
+		    int firstByte = bitOffset >>> 3;
+		    int lastByte  = (bitOffset + bitLength + 7) >>> 3;
+		    copy  = Arrays.copyOfRange(data, firstByte, lastByte);
+		    flips = model.corrupt(copy, bitOffset & 7, bitLength);
 		}
-		bit = !bit;
+	    }
+	    if (copy == null) {
+		receivers[port].receive(data, bitOffset, bitLength);
+		continue;
 	    }
 
-	    PhysicalLayer receiver = clientIterator.next();
-	    if (receiver != sender) {
-		receiver.receive(bit);
+	    bitsFlipped.add(flips);
+	    if (LinkEvents.recording()) {
+		LinkEvents.BitFlipInjected event =
+		    new LinkEvents.BitFlipInjected();
+		if (event.isEnabled()) {
+		    event.medium      = getClass().getSimpleName();
+		    event.port        = port;
+		    event.blockBits   = bitLength;
+		    event.bitsFlipped = flips;
+		    event.commit();
+		}
 	    }
+	    receivers[port].receive(copy, bitOffset & 7, bitLength);
 
 	}
 
-    } // transmit ()
+    } // transmitBlock ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Return the receivers' noise models, first forking one for each client
+     * that has registered since the last call.
+     *
+     * @param  receivers The current snapshot of registered clients.
+     * @return the noise models, indexed by port id.
+     */
+    private NoiseModel[] modelsFor (PhysicalLayer[] receivers) {
+
+	NoiseModel[] current = models;
+	if (current.length >= receivers.length) {
+	    return current;
+	}
+
+	synchronized (this) {
+	    current = models;
+	    if (current.length < receivers.length) {
+		NoiseModel[] grown = Arrays.copyOf(current, receivers.length);
+		for (int port = current.length; port < grown.length; port += 1) {
+		    grown[port] = noiseModel.fork(port);
+		}
+		models = current = grown;
+	    }
+	}
+	return current;
+
+    } // modelsFor ()
     // =========================================================================
 
 
@@ -77,10 +194,21 @@ public class LowNoiseMedium extends Medium {
     // =========================================================================
     // DATA MEMBERS
 
-    private Random random;
-    
-    // The probablity that a bit will flip.
-    private static final double errorProbability = 0.001;
+    /** The model from which each receiver's noise model is forked. */
+    private final NoiseModel noiseModel;
+
+    /** Each receiver's noise model, indexed by port id; replaced to grow. */
+    private volatile NoiseModel[] models;
+
+    // The default probablity that a bit will flip.
+    static final double errorProbability = 0.001;
+
+    // The default seed of the error streams.
+    static final long   DEFAULT_SEED     = 5;
+
+    // The single bits sent by transmit(), which receivers only read.
+    private static final byte[] ZERO_BIT = { 0 };
+    private static final byte[] ONE_BIT  = { (byte)0x80 };
     // =========================================================================
 
 
@@ -1,11 +1,13 @@
 // =============================================================================
 // IMPORTS
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Queue;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.atomic.LongAdder;
 // =============================================================================
 
 
@@ -18,7 +20,7 @@ import java.lang.reflect.InvocationTargetException;
  * @author Scott F. Kaplan (sfkaplan@cs.amherst.edu)
  * @date   September 2018, original September 2004
  */
-public abstract class Medium {
+public abstract class Medium implements AutoCloseable {
 // =============================================================================
 
 
@@ -30,41 +32,13 @@ public abstract class Medium {
 
 
     // =========================================================================
-    // Create the requested medium type and return it.
+    // Create the requested medium type and return it.  The type may carry
+    // parameters, as in "LowNoise:ber=1e-6,seed=7"; see ComponentRegistry.
     public static Medium create (String type) {
 
-	// Look up the class by name.
-	String   className   = type + "Medium";
-	Class<?> mediumClass = null;
-	try {
-	    mediumClass = Class.forName(className);
-	} catch (ClassNotFoundException e) {
-	    throw new RuntimeException("Unknown medium subclass " + className);
-	}
-
-	// Make a className object, and then see if it really is a
-	// Medium subclass.
-	Object o = null;
-	try {
-	    o = mediumClass.getDeclaredConstructor().newInstance();
-	} catch (InstantiationException e) {
-	    throw new RuntimeException("Could not instantiate " + className);
-	} catch (IllegalAccessException e) {
-	    throw new RuntimeException("Could not access " + className);
-	} catch (NoSuchMethodException e) {
-	    throw new RuntimeException("Could not call constructor on " + className);
-	} catch (InvocationTargetException e) {
-	    throw new RuntimeException("Could not invoke target on " + className);
-	}
-	Medium medium = null;
-	try {
-	    medium = (Medium)o;
-	} catch (ClassCastException e) {
-	    throw new RuntimeException(className +
-				       " is not a subclass of Medium");
-	}
-
-	return medium;
+	// Build the medium from the registry, which caches how to build
+	// each type.
+	return ComponentRegistry.getDefault().newMedium(type);
 
     } // create ()
     // =========================================================================
@@ -74,7 +48,9 @@ public abstract class Medium {
     // =========================================================================
     public Medium () {
 
-	clients = new LinkedList<PhysicalLayer>();
+	clients  = new LinkedList<PhysicalLayer>();
+	portIds  = new IdentityHashMap<PhysicalLayer, Integer>();
+	ports    = new PhysicalLayer[0];
 
     } // Medium ()
     // =========================================================================
@@ -84,22 +60,84 @@ public abstract class Medium {
     // =========================================================================
     /**
      * Register the given client as connected to the medium.  If the client is
-     * already registered, do nothing (no multiple registrations).
+     * already registered, do nothing (no multiple registrations).  Otherwise,
+     * assign it the next port id, and publish a new snapshot of the
+     * registered clients that includes it.
      *
      * @param client The physical layer of a stack to connect to this medium.
      */
-    public void register (PhysicalLayer client) {
+    public synchronized void register (PhysicalLayer client) {
 
 	// Only add this client if it is not already registered.
-	if (!clients.contains(client)) {
-	    clients.add(client);
+	if (portIds.containsKey(client)) {
+	    return;
 	}
 
+	// Copy the snapshot rather than changing it in place, so that a
+	// transmission already walking the old one is undisturbed.
+	int             port     = ports.length;
+	PhysicalLayer[] newPorts = Arrays.copyOf(ports, port + 1);
+	newPorts[port] = client;
+	portIds.put(client, port);
+	clients.add(client);
+	client.setPort(port);
+	ports = newPorts;
+
     } // register ()
     // =========================================================================
 
 
 
+    // =========================================================================
+    /**
+     * Find the port id of a sending client, verifying that it is registered.
+     * A client normally carries its own port id, so this check takes
+     * constant time.
+     *
+     * @param  sender The client physical layer that is sending.
+     * @return the sender's port id, which is its index in the snapshot
+     *         returned by <code>ports()</code>.
+     * @throws RuntimeException if the sender is not registered with this
+     *                          medium.
+     */
+    protected final int portOf (PhysicalLayer sender) {
+
+	// The common case: the sender's own port id leads to it.
+	int             port     = sender.getPort();
+	PhysicalLayer[] snapshot = ports;
+	if (port >= 0 && port < snapshot.length && snapshot[port] == sender) {
+	    return port;
+	}
+
+	// The sender may carry the port id of another medium, so look it up.
+	Integer registered;
+	synchronized (this) {
+	    registered = portIds.get(sender);
+	}
+	if (registered == null) {
+	    throw new RuntimeException("Unregistered sender on the medium");
+	}
+	return registered;
+
+    } // portOf ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return a snapshot of the registered clients, indexed by port id.  It
+     *         must not be modified.
+     */
+    protected final PhysicalLayer[] ports () {
+
+	return ports;
+
+    } // ports ()
+    // =========================================================================
+
+
+
     // =========================================================================
     // Send a bit from one physical layer to others.
     abstract public void transmit (PhysicalLayer sender, boolean bit);
@@ -107,12 +145,212 @@ public abstract class Medium {
 
 
 
+    // =========================================================================
+    /**
+     * Send a block of bits from one physical layer to others.  Bits are taken
+     * from each byte most significant first.  By default, this falls back on
+     * sending one bit at a time; subclasses may deliver the whole block at
+     * once.
+     *
+     * @param sender    The client physical layer sending the bits.
+     * @param data      The bytes holding the bits to be sent.
+     * @param bitOffset The index of the first bit to be sent.
+     * @param bitLength The number of bits to be sent.
+     * @throws RuntimeException if the sender is not registered with this
+     *                          medium.
+     */
+    public void transmitBlock (PhysicalLayer sender,
+			       byte[]        data,
+			       int           bitOffset,
+			       int           bitLength) {
+
+	int end = bitOffset + bitLength;
+	for (int i = bitOffset; i < end; i += 1) {
+	    boolean bit = (data[i >>> 3] & (0x80 >>> (i & 7))) != 0;
+	    transmit(sender, bit);
+	}
+
+    } // transmitBlock ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the counters kept by this medium.
+     */
+    public Metrics getMetrics () {
+
+	return metrics;
+
+    } // getMetrics ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Wait until every bit transmitted so far has been delivered.  A medium
+     * that delivers bits before <code>transmit()</code> returns has nothing to
+     * wait for, and so by default, this method returns immediately.
+     */
+    public void drain () {
+
+    } // drain ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Release whatever the medium holds for delivery, such as threads, once
+     * everything transmitted has been delivered.  The medium may not be sent
+     * on afterwards.  A medium that holds nothing has nothing to release, and
+     * so by default, this method returns immediately.
+     */
+    public void close () {
+
+    } // close ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Deliver the next bits held back, if this medium holds any back until
+     * asked.  A sender that is about to wait for a reply calls this first,
+     * since on such a medium the reply may otherwise never come.  A medium
+     * that delivers bits by itself has nothing to do, and so by default,
+     * this method returns immediately.
+     *
+     * @return whether any bits were delivered.
+     */
+    public boolean advance () {
+
+	return false;
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Move the clock of a medium that keeps simulated time forward to a
+     * given time, delivering everything due by then.  A sender with nothing
+     * in flight calls this, rather than sleeping, to reach its next timer,
+     * since on such a medium the time would otherwise never come.  A medium
+     * on the wall clock cannot be hurried, and so by default, this method
+     * returns immediately.
+     *
+     * @param  time The time, on this medium's clock, to move to.
+     * @return whether the clock was moved.
+     */
+    public boolean advanceTo (long time) {
+
+	return false;
+
+    } // advanceTo ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the medium's clock, in nanoseconds: simulated time on a medium
+     *         that keeps it, and otherwise the wall clock, from an arbitrary
+     *         origin, as <code>System.nanoTime()</code> gives it.
+     */
+    public long now () {
+
+	return System.nanoTime();
+
+    } // now ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the shortest retransmission timeout worth setting on this
+     *         medium, in nanoseconds on its clock.  On the wall clock, thread
+     *         scheduling and garbage collection put pauses into a round trip
+     *         that would otherwise expire timers on a lossless link; a medium
+     *         in simulated time, which has no such pauses, returns less.
+     */
+    public long minimumTimeout () {
+
+	return WALL_CLOCK_MINIMUM_TIMEOUT;
+
+    } // minimumTimeout ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Note that a client's data link layer has built a frame to send.  A
+     * medium that keeps time matches these with <code>frameDelivered()</code>
+     * to measure each frame's latency; by default, nothing is done.
+     *
+     * @param sender The client physical layer that will send the frame.
+     * @param frame  The frame's number: how many frames the sender's data
+     *               link layer built before it, not counting repeats.
+     */
+    public void frameSent (PhysicalLayer sender, long frame) {
+
+    } // frameSent ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Note that a client's data link layer has delivered a frame's data to
+     * its host.  By default, nothing is done.
+     *
+     * @param receiver The client physical layer through which the frame
+     *                 arrived.
+     * @param frame    The frame's number, as the sender numbered it.
+     */
+    public void frameDelivered (PhysicalLayer receiver, long frame) {
+
+    } // frameDelivered ()
+    // =========================================================================
+
+
+
     // =========================================================================
     // DATA MEMBERS
 
     /** The physical layer clients connected to the medium. */
     protected Collection<PhysicalLayer> clients;    
 
+    /** The port id of each client, looked up by identity. */
+    private final Map<PhysicalLayer, Integer> portIds;
+
+    /** The clients, indexed by port id; replaced whenever one registers. */
+    private volatile PhysicalLayer[] ports;
+
+    /** The counters kept by this medium, declared before the counters. */
+    protected final Metrics   metrics = new Metrics("Medium");
+
+    /** The bits sent onto the medium, counted by the sending physical layer. */
+    protected final LongAdder bitsTransmitted =
+	metrics.counter("BitsTransmitted", "Bits sent onto the medium");
+
+    /** The bits handed to receivers, counted by each receiving physical layer. */
+    protected final LongAdder bitsDelivered =
+	metrics.counter("BitsDelivered",
+			"Bits handed to receivers, once per receiver");
+
+    /** The bits flipped by noise on the way to a receiver. */
+    protected final LongAdder bitsFlipped =
+	metrics.counter("BitsFlipped", "Bits flipped by noise");
+
+    /** The shortest timeout on the wall clock: 20 ms, in nanoseconds. */
+    private static final long WALL_CLOCK_MINIMUM_TIMEOUT = 20_000_000;
+
     /** Whether to emit debugging information. */
     protected static final boolean debug = false;
     // =========================================================================
@@ -0,0 +1,359 @@
+// =============================================================================
+// IMPORTS
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * A set of named counters kept by one part of the stack, such as a data link
+ * layer, a medium, or a host.  Each counter is a <code>LongAdder</code>, so
+ * that counting from the threads of a pipelined medium and a host at once
+ * costs little; the part that owns the counters holds on to each one and
+ * counts into it directly.
+ *
+ * A set may be registered as an MBean on the platform MBean server, where
+ * each counter is a read-only attribute.  Registration is left to whoever
+ * builds the stack, since the server holds on to every MBean registered, and
+ * a simulation may build many short-lived stacks.
+ *
+ * @file   Metrics.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class Metrics implements DynamicMBean {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create an empty set of counters.
+     *
+     * @param type The kind of part that keeps them, which becomes the type of
+     *             the MBean's name.
+     */
+    public Metrics (String type) {
+
+	this.type     = type;
+	this.counters = new LinkedHashMap<String, LongAdder>();
+	this.notes    = new LinkedHashMap<String, String>();
+
+    } // Metrics ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Add a counter, starting at zero.
+     *
+     * @param  name        The name of the counter, which becomes its
+     *                     attribute name.
+     * @param  description What the counter counts.
+     * @return the counter.
+     * @throws RuntimeException if there already is a counter by that name.
+     */
+    public synchronized LongAdder counter (String name, String description) {
+
+	if (counters.containsKey(name)) {
+	    throw new RuntimeException("Duplicate counter " + name);
+	}
+	LongAdder counter = new LongAdder();
+	counters.put(name, counter);
+	notes.put(name, description);
+	info = null;
+	return counter;
+
+    } // counter ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  name The name of a counter.
+     * @return the count so far.
+     * @throws RuntimeException if there is no counter by that name.
+     */
+    public synchronized long get (String name) {
+
+	LongAdder counter = counters.get(name);
+	if (counter == null) {
+	    throw new RuntimeException("No counter " + name + " in " + type);
+	}
+	return counter.sum();
+
+    } // get ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  counter A counter.
+     * @return its name, or <code>null</code> if it is not one of these.
+     */
+    public synchronized String nameOf (LongAdder counter) {
+
+	for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+	    if (entry.getValue() == counter) {
+		return entry.getKey();
+	    }
+	}
+	return null;
+
+    } // nameOf ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Register these counters on the platform MBean server, under the name
+     * <code>datalinklayer:type=</code><i>type</i><code>,name=</code><i>name</i>.
+     * Registering again under the same name does nothing.
+     *
+     * @param  name The name that tells this part from others of its type.
+     * @return these counters.
+     * @throws RuntimeException if they are registered under another name, or
+     *                          if the name is invalid or taken.
+     */
+    public synchronized Metrics register (String name) {
+
+	ObjectName objectName;
+	try {
+	    objectName = new ObjectName(DOMAIN + ":type=" + type +
+					",name=" + ObjectName.quote(name));
+	} catch (JMException e) {
+	    throw new RuntimeException("Invalid metrics name " + name);
+	}
+	if (objectName.equals(registeredName)) {
+	    return this;
+	}
+	if (registeredName != null) {
+	    throw new RuntimeException("Metrics already registered as " +
+				       registeredName);
+	}
+
+	try {
+	    server().registerMBean(this, objectName);
+	} catch (JMException e) {
+	    throw new RuntimeException("Could not register " + objectName +
+				       ": " + e.getMessage());
+	}
+	registeredName = objectName;
+	return this;
+
+    } // register ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Remove these counters from the platform MBean server, if registered.
+     */
+    public synchronized void unregister () {
+
+	if (registeredName == null) {
+	    return;
+	}
+	try {
+	    server().unregisterMBean(registeredName);
+	} catch (JMException e) {
+	    // Someone else removed it; either way it is gone.
+	}
+	registeredName = null;
+
+    } // unregister ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Print every counter, one per line, beneath a title.
+     *
+     * @param out   Where to print.
+     * @param title What the counters belong to.
+     */
+    public synchronized void print (PrintStream out, String title) {
+
+	out.println(title + ":");
+	for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+	    out.printf("    %-24s%d\n", entry.getKey(), entry.getValue().sum());
+	}
+
+    } // print ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public synchronized Object getAttribute (String attribute)
+	throws AttributeNotFoundException {
+
+	LongAdder counter = counters.get(attribute);
+	if (counter == null) {
+	    throw new AttributeNotFoundException(attribute);
+	}
+	return Long.valueOf(counter.sum());
+
+    } // getAttribute ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public synchronized AttributeList getAttributes (String[] attributes) {
+
+	AttributeList list = new AttributeList();
+	for (String attribute : attributes) {
+	    LongAdder counter = counters.get(attribute);
+	    if (counter != null) {
+		list.add(new Attribute(attribute, Long.valueOf(counter.sum())));
+	    }
+	}
+	return list;
+
+    } // getAttributes ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // Counters are read-only.
+    public void setAttribute (Attribute attribute)
+	throws AttributeNotFoundException {
+
+	throw new AttributeNotFoundException(attribute.getName() +
+					     " is read-only");
+
+    } // setAttribute ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // Counters are read-only, so none are set.
+    public AttributeList setAttributes (AttributeList attributes) {
+
+	return new AttributeList();
+
+    } // setAttributes ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // There are no operations.
+    public Object invoke (String   actionName,
+			  Object[] params,
+			  String[] signature) throws ReflectionException {
+
+	throw new ReflectionException(new NoSuchMethodException(actionName));
+
+    } // invoke ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    public synchronized MBeanInfo getMBeanInfo () {
+
+	if (info == null) {
+	    MBeanAttributeInfo[] attributes =
+		new MBeanAttributeInfo[counters.size()];
+	    int i = 0;
+	    for (Map.Entry<String, String> note : notes.entrySet()) {
+		attributes[i++] = new MBeanAttributeInfo(note.getKey(),
+							 "long",
+							 note.getValue(),
+							 true,
+							 false,
+							 false);
+	    }
+	    info = new MBeanInfo(getClass().getName(),
+				 "Counters kept by a " + type,
+				 attributes,
+				 null,
+				 new MBeanOperationInfo[0],
+				 null);
+	}
+	return info;
+
+    } // getMBeanInfo ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the platform MBean server.
+     */
+    private static MBeanServer server () {
+
+	return ManagementFactory.getPlatformMBeanServer();
+
+    } // server ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The kind of part that keeps these counters. */
+    private final String                  type;
+
+    /** The counters, by name, in the order they were added. */
+    private final Map<String, LongAdder>  counters;
+
+    /** What each counter counts, by name. */
+    private final Map<String, String>     notes;
+
+    /** The description of the MBean, built when first asked for. */
+    private MBeanInfo                     info;
+
+    /** The name under which these counters are registered, if they are. */
+    private ObjectName                    registeredName;
+
+    /** The domain of every MBean name. */
+    private static final String DOMAIN = "datalinklayer";
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class Metrics
+// =============================================================================
@@ -0,0 +1,147 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.Random;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * A source of bit errors for a noisy medium.  A model walks along the stream
+ * of bits delivered to one receiver, deciding which to flip.  Rather than
+ * deciding bit by bit, a model may report how far ahead the stream is sure to
+ * be clean, so that a medium can hand over clean blocks without copying or
+ * examining them.
+ *
+ * @file   NoiseModel.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public interface NoiseModel {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return a lower bound on the number of bits, from the current position
+     *         in the stream, that will pass without being flipped;
+     *         <code>Long.MAX_VALUE</code> if none will ever be flipped.
+     */
+    long cleanBitsAhead ();
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Move along the stream, flipping no bits.  Expected to be called only
+     * for bits known to be clean by <code>cleanBitsAhead()</code>.
+     *
+     * @param bitLength The number of bits to pass over.
+     */
+    void advance (long bitLength);
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Move along the stream through a block of bits, flipping in place those
+     * that the model chooses.  Bits are taken from each byte most significant
+     * first.
+     *
+     * @param  data      The bytes holding the bits.
+     * @param  bitOffset The index of the first bit.
+     * @param  bitLength The number of bits.
+     * @return the number of bits flipped.
+     */
+    int corrupt (byte[] data, int bitOffset, int bitLength);
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a model with the same parameters, starting at the beginning of
+     * its own stream.  Random models derive the new stream's seed from their
+     * own and the given stream number, so that each receiver may suffer
+     * errors independently of the others, yet reproducibly.
+     *
+     * @param  stream The number distinguishing the new stream.
+     * @return the new model.
+     */
+    NoiseModel fork (long stream);
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Flip one bit in place.
+     *
+     * @param data     The bytes holding the bit.
+     * @param bitIndex The index of the bit, most significant first.
+     */
+    static void flip (byte[] data, long bitIndex) {
+
+	data[(int)(bitIndex >>> 3)] ^= (byte)(0x80 >>> (int)(bitIndex & 7));
+
+    } // flip ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Draw the number of clean bits before the next error, when each bit is
+     * flipped independently with a fixed probability: a geometric
+     * distribution, sampled by inversion from a single uniform draw.
+     *
+     * @param  random             The source of randomness.
+     * @param  logOneMinusErrorRate The natural logarithm of one less the
+     *                            probability of a flip.
+     * @return the number of clean bits before the next flipped one.
+     */
+    static long geometricGap (Random random, double logOneMinusErrorRate) {
+
+	if (logOneMinusErrorRate == 0.0) {
+	    return Long.MAX_VALUE;
+	}
+	if (logOneMinusErrorRate == Double.NEGATIVE_INFINITY) {
+	    return 0;
+	}
+	double gap = Math.floor(Math.log1p(-random.nextDouble()) /
+				logOneMinusErrorRate);
+	return gap >= Long.MAX_VALUE ? Long.MAX_VALUE : (long)gap;
+
+    } // geometricGap ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Derive a seed for a forked stream, spreading the stream number's bits
+     * across the whole seed.
+     *
+     * @param  seed   The parent's seed.
+     * @param  stream The number distinguishing the new stream.
+     * @return the seed for the new stream.
+     */
+    static long forkSeed (long seed, long stream) {
+
+	long z = seed + (stream + 1) * 0x9E3779B97F4A7C15L;
+	z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+	z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+	return z ^ (z >>> 31);
+
+    } // forkSeed ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // interface NoiseModel
+// =============================================================================
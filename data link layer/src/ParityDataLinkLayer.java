@@ -1,8 +1,6 @@
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Queue;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
 /**
  * @file ParityDataLinkLayer.java
  * @author Ahmed Aly
@@ -10,186 +8,270 @@ import java.util.logging.Logger;
  *
  * Frames the data passed into the data link layer and uses a parity check to 
  * evaluate the data's accuracy when processing it
+ *
+ * Frames hold 8 data bytes unless another size is given. In adaptive mode a
+ * FrameSizeController picks the size of each frame as it is built, from
+ * reports sent back over the link: each end counts the frames it receives
+ * intact and damaged, and sends the running totals to the other end in a
+ * report frame after every few frames delivered and after every frame
+ * dropped. Totals rather than differences are sent, so that a report lost to
+ * noise costs only time. In adaptive mode the body of every frame begins with
+ * a type byte, data or report, so both ends must use the same mode. The
+ * receiver accepts any frame up to the largest size.
 **/
 public class ParityDataLinkLayer extends DataLinkLayer {
     // The start tag, stop tag, and the escape tag.
     private static final byte startTag = (byte) '{';
     private static final byte stopTag = (byte) '}';
     private static final byte escapeTag = (byte) '\\';
-    private static final boolean logging = false;
-    @Override
-    protected byte[] createFrame(byte[] data) {
-        // TODO Auto-generated method stub
-        Queue<Byte> framingData = new LinkedList<Byte>(); // Create queue of frames
+    static final int defaultFrameSize = 8; // the most data bytes in a frame, unless told otherwise
+    static final int defaultMaxFrameSize = 64; // the most data bytes in an adaptive frame, unless told otherwise
 
-        framingData.add(startTag); // add start tag
-        int numOnesInFrame = 0; // keeps track of number of ones in the frame
+    // The type byte that begins each frame's body in adaptive mode.
+    private static final byte dataType = 0;
+    private static final byte reportType = 1;
+    private static final int reportLength = 8; // frames delivered and dropped, four bytes each
+    private static final int reportInterval = 16; // frames delivered between reports
 
-        for (int i = 0; i < data.length; i++) {
-            numOnesInFrame += Integer.bitCount(data[i] & 0xff);
+    private final int minFrameSize; // the fewest data bytes in a full frame
+    private final int maxFrameSize; // the most data bytes in any frame
+    private final FrameSizeController controller; // picks each frame's size in adaptive mode, else null
 
-            if (data[i] == startTag || data[i] == escapeTag || data[i] == stopTag) { // check if we need an escape tag
-                framingData.add(escapeTag); // add escape tag
-                numOnesInFrame -= Integer.bitCount(data[i] & 0xff); // don't include escape tag in parity.
-            }
+    // extracts frames from the received bytes, allowing for the parity byte
+    private final StuffedFrameDecoder decoder;
 
-            framingData.add(data[i]); // add data to the frame
+    // reused to build frames in adaptive mode, a block at a time
+    private ByteBuffer blockBuffer;
 
-            if ((i + 1) % 8 == 0) { // ensure every frame is only 8 bytes long
-                byte parityByte = (byte) (numOnesInFrame % 2); // find parity
-                framingData.add(parityByte); // add parity byte
-                framingData.add(stopTag); // add stop tag
-                framingData.add(startTag); // add start tag
-                numOnesInFrame = 0;
+    // In adaptive mode, on the receiving thread: the running totals of frames
+    // received from the other end, the frames delivered since the last report
+    // of them, and the buffers in which reports are built.
+    private int framesDelivered;
+    private int framesDamaged;
+    private int deliveredSinceReport;
+    private final byte[] reportPayload = new byte[reportLength];
+    private final ByteBuffer reportBuffer = ByteBuffer.allocate(2 * (reportLength + 1) + 3);
 
-            }
+    // In adaptive mode, on the receiving thread: the totals in the last report
+    // from the other end, against which the next is compared.
+    private int reportedDelivered;
+    private int reportedDamaged;
+
+    public ParityDataLinkLayer() {
+        this(defaultFrameSize);
+    }
+
+    public ParityDataLinkLayer(int frameSize) {
+        if (frameSize <= 0) {
+            throw new RuntimeException("Frame size must be positive");
         }
+        this.minFrameSize = frameSize;
+        this.maxFrameSize = frameSize;
+        this.controller = null;
+        this.decoder = new StuffedFrameDecoder(startTag, stopTag, escapeTag, frameSize + 1);
+    }
+
+    // adaptive mode, with each frame's size between the two given
+    public ParityDataLinkLayer(int minFrameSize, int maxFrameSize) {
+        this(new FrameSizeController(minFrameSize, maxFrameSize));
+    }
 
-        if (framingData.size() != 0) {
-            framingData.add((byte) (numOnesInFrame % 2)); // add parity byte
+    // adaptive mode, with this layer's own controller, fed by the other end's reports
+    public ParityDataLinkLayer(FrameSizeController controller) {
+        this.minFrameSize = controller.minFrameSize();
+        this.maxFrameSize = controller.maxFrameSize();
+        this.controller = controller;
+        // room for the type byte and the parity byte, and for a report
+        this.decoder = new StuffedFrameDecoder(startTag, stopTag, escapeTag, Math.max(maxFrameSize, reportLength) + 2);
+    }
+
+    // the controller that picks each frame's size in adaptive mode, else null
+    public FrameSizeController getController() {
+        return controller;
+    }
 
-            framingData.add(stopTag);
+    @Override
+    public void send(byte[] data, int offset, int length) {
+        if (controller == null) {
+            super.send(data, offset, length);
+            return;
         }
-        // convert framed data queue to byte array
-        byte[] framedData = new byte[framingData.size()];
-        Iterator<Byte> i = framingData.iterator();
-        int j = 0;
-        while (i.hasNext()) {
-            framedData[j++] = i.next();
+
+        payloadBytesSent.add(length);
+
+        // Build frames a block at a time, so that each block is sized by the
+        // feedback on the blocks before it, even within one large send.
+        int worstFrame = 2 * maxFrameSize + 4; // every data byte escaped
+        if (blockBuffer == null) {
+            blockBuffer = ByteBuffer.allocate(BLOCK_SIZE + worstFrame);
         }
-        return framedData;
+        int end = offset + length;
+        int i = offset;
+        blockBuffer.clear();
+        do {
+            int frameEnd = Math.min(i + controller.frameSize(), end);
+            putFrame(dataType, data, i, frameEnd, blockBuffer);
+            frameSent(frameEnd - i);
+            i = frameEnd;
+            if (blockBuffer.position() + worstFrame > blockBuffer.capacity() || i == end) {
+                transmit(blockBuffer.array(), blockBuffer.position());
+                blockBuffer.clear();
+            }
+        } while (i < end);
     }
 
     @Override
-    protected byte[] processFrame() {
+    protected byte[] createFrame(byte[] data) {
+        ByteBuffer framedData = ByteBuffer.allocate(frameLength(data, 0, data.length));
+        createFrame(data, 0, data.length, framedData);
+        return Arrays.copyOf(framedData.array(), framedData.position()); // exact unless adaptive
+    }
 
-        Logger logger = Logger.getLogger("ProcessFrame");
-        if (!logging){
-            logger.setLevel(Level.OFF);
+    @Override
+    protected void createFrame(byte[] src, int offset, int length, ByteBuffer dst) {
+        int end = offset + length;
+        int i = offset;
+        do { // always at least one frame, even with no data
+            int size = controller == null ? maxFrameSize : controller.frameSize();
+            int frameEnd = Math.min(i + size, end); // ensure every frame is only size bytes long
+            putFrame(dataType, src, i, frameEnd, dst);
+            frameSent(frameEnd - i);
+            i = frameEnd;
+        } while (i < end);
+    }
+
+    // frame the bytes from start up to end: start tag, type byte (adaptive mode only),
+    // stuffed data, parity byte, stop tag
+    private void putFrame(byte type, byte[] src, int start, int end, ByteBuffer dst) {
+        int numOnesInFrame = 0; // keeps track of number of ones in the frame
+        int numEscapes = 0; // counted here and added to the metrics once per frame
+
+        dst.put(startTag); // add start tag
+        if (controller != null) {
+            numOnesInFrame += Integer.bitCount(type & 0xff);
+            dst.put(type); // never a tag, so never escaped
         }
-        // Search for a start tag. Discard anything prior to it.
-        boolean startTagFound = false;
-        Iterator<Byte> i = byteBuffer.iterator();
-        while (!startTagFound && i.hasNext()) {
-            byte current = i.next();
-            if (current != startTag) {
-                i.remove();
-            } else {
-                startTagFound = true;
+        for (int i = start; i < end; i++) {
+            byte current = src[i];
+            numOnesInFrame += Integer.bitCount(current & 0xff);
+            if (current == startTag || current == escapeTag || current == stopTag) { // check if we need an escape tag
+                dst.put(escapeTag); // add escape tag
+                numEscapes++;
             }
+            dst.put(current); // add data to the frame
         }
+        dst.put((byte) (numOnesInFrame % 2)); // add parity byte
+        dst.put(stopTag); // add stop tag
+        escapeBytesSent.add(numEscapes);
+    }
 
-        // If there is no start tag, then there is no frame.
-        if (!startTagFound) {
-            logger.log(Level.WARNING, "NO START TAG FOUND. NO FRAME FOUND");
-            return null;
-        }
-        // Try to extract data while waiting for an unescaped stop tag.
-        Queue<Byte> extractedBytes = new LinkedList<Byte>();
-        boolean stopTagFound = false;
-        int byteCount = 0; // keeps track of the number of bytes that have been processed
-        while (!stopTagFound && i.hasNext()) {
-
-            // Grab the next byte. If it is...
-            // (a) An escape tag: Skip over it and grab what follows as
-            // literal data.
-            // (b) A stop tag: Remove all processed bytes from the buffer and
-            // end extraction.
-            // (c) A start tag: All that precedes is damaged, so remove it
-            // from the buffer and restart extraction.
-            // (d) Otherwise: Take it as literal data.
-            byte current = i.next();
-            if (current == escapeTag) {
-                if (i.hasNext()) {
-                    current = i.next(); // current = the byte after the escape tag.
-                    if (byteCount > 8) { // checks that frame is only 8 bytes long
-                        logger.log(Level.SEVERE, "FRAME GREATER THAN 8 BYTES"); // log error
-                        return null; // return null
-                    }
-                    extractedBytes.add(current); // add currentByte to extractedBytes
-                    byteCount++; // increment byte counter.
-
-                } else {
-                    // An escape was the last byte available, so this is not a
-                    // complete frame.
-                    logger.log(Level.SEVERE, "INCOMPLETE FRAME");
-                    return null;
-                }
-            } else if (current == stopTag) {
-                cleanBufferUpTo(i);
-                stopTagFound = true;
-            } else if (current == startTag) {
-                // data is messed up
-                logger.log(Level.SEVERE, "NO STOP TAG FOUND, DATA MESSED UP, DROPPING FRAME.");
-                cleanBufferUpTo(i);
-                extractedBytes = new LinkedList<Byte>();
-            } else {
-                if (byteCount > 8 && current != stopTag) { // checks that frame is only 8 bytes long
-                    logger.log(Level.SEVERE, "FRAME MORE THAN 8 BYTES"); // log error
-                    return null; // return null
-                }
-                extractedBytes.add(current); // add data to extracted bytes
-                byteCount++; // increment byte counter
+    @Override
+    protected int frameLength(byte[] src, int offset, int length) {
+        // exact for a fixed size; in adaptive mode, a bound from the smallest size
+        int numFrames = Math.max(1, (length + minFrameSize - 1) / minFrameSize);
+        int overhead = controller == null ? 3 : 4; // start tag, type byte if adaptive, parity byte and stop tag
+        int framedLength = length + overhead * numFrames;
+        for (int i = offset; i < offset + length; i++) {
+            if (src[i] == startTag || src[i] == escapeTag || src[i] == stopTag) {
+                framedLength++; // room for the escape tag
             }
-
         }
-        if (stopTagFound) {
-            byte[] extractedBytesArr = new byte[extractedBytes.size() - 1]; // create an array that's one less in length  than extracted bytes
-            Iterator<Byte> iter = extractedBytes.iterator(); // iterate through extracted bytes
-            int countNumOnesInFrame = 0;
-            for (int j = 0; j < extractedBytesArr.length; j++) { // fill array
-                extractedBytesArr[j] = iter.next();
-                countNumOnesInFrame += Integer.bitCount(extractedBytesArr[j] & 0xff);
-            }
+        return framedLength;
+    }
 
-            byte parityByte = iter.next(); // parityByte would be the only remaining byte
-            byte calculatedParityByte = (byte) (countNumOnesInFrame % 2); // the parity byte calculated from the received
-                                                                     // data
+    @Override
+    protected byte[] processFrame() {
+        // Feed each new byte to the decoder, which keeps any partial frame
+        // between calls. Stop at the end of a frame whose parity checks out.
+        while (!byteBuffer.isEmpty()) {
+            int result = decoder.consume(byteBuffer.remove());
+            if (result == StuffedFrameDecoder.BYTE_DISCARDED) {
+                discard(1); // no start tag yet, so not part of any frame
+            } else if (result == StuffedFrameDecoder.FRAME_RESTARTED) {
+                reportDropped(truncatedFrames); // a start tag before the stop tag, so the data is messed up
+            } else if (result == StuffedFrameDecoder.FRAME_OVERSIZED) {
+                reportDropped(oversizeFrames); // more than maxFrameSize bytes
+            } else if (result == StuffedFrameDecoder.FRAME_COMPLETE) {
+                int length = decoder.length();
+                if (length == 0) { // not even a parity byte
+                    reportDropped(malformedFrames);
+                    continue;
+                }
 
-            if (calculatedParityByte != parityByte) {
-                // check that parities match
-                // logger.log(Level.SEVERE, "Calculated Parity: " + (int)calculatedParityByte + " Parity in Frame: " + (int)parityByte);
-                logger.log(Level.SEVERE, "PARITIES MISMATCH");
-                return null;
-            }
-        }
-        // If there is no stop tag, then the frame is incomplete.
-        else {
-            logger.log(Level.FINE, "NO STOP TAG FOUND");
-            return null;
-        }
+                // the decoder counted the ones in every byte, so leave out the parity byte
+                byte parityByte = decoder.data()[length - 1];
+                int countNumOnesInFrame = decoder.onesCount() - Integer.bitCount(parityByte & 0xff);
+                byte calculatedParityByte = (byte) (countNumOnesInFrame % 2); // the parity byte calculated from the received
+                                                                              // data
+                if (calculatedParityByte != parityByte) {
+                    // check that parities match
+                    reportDropped(checksumMismatches);
+                    continue;
+                }
+                if (controller == null) {
+                    // Hand over the data where the decoder left it, without the parity byte.
+                    deliver(decoder.data(), 0, length - 1);
+                    return null;
+                }
 
-        // Convert to the desired byte array.
-        if (debug) {
-            System.out.println("DumbDataLinkLayer.processFrame(): Got whole frame!");
-        }
-        byte[] extractedData = new byte[extractedBytes.size()-1];
-        int j = 0;
-        i = extractedBytes.iterator();
-        while (i.hasNext() && j < extractedData.length) {
-            extractedData[j] = i.next();
-            if (debug) {
-                System.out.printf("DumbDataLinkLayer.processFrame():\tbyte[%d] = %c\n",
-                        j,
-                        extractedData[j]);
+                // In adaptive mode, the type byte says what the rest is.
+                byte type = decoder.data()[0];
+                if (type == reportType && length == reportLength + 2) {
+                    readReport(decoder.data(), 1);
+                    continue;
+                }
+                if (type != dataType || length < 2) {
+                    reportDropped(malformedFrames);
+                    continue;
+                }
+                deliver(decoder.data(), 1, length - 2);
+                framesDelivered++;
+                if (++deliveredSinceReport == reportInterval) {
+                    sendReport();
+                }
+                return null;
             }
-            j += 1;
         }
 
-        return extractedData;
+        // If there is no stop tag, then the frame is incomplete.
+        return null;
 
     } // processFrame ()
       // ===============================================================
 
-    // ===============================================================
-    private void cleanBufferUpTo(Iterator<Byte> end) {
+    // count a lost frame under its reason, and in adaptive mode, tell the other end at once
+    private void reportDropped(LongAdder reason) {
+        dropFrame(reason);
+        if (controller != null) {
+            framesDamaged++;
+            sendReport();
+        }
+    }
 
-        Iterator<Byte> i = byteBuffer.iterator();
-        while (i.hasNext() && i != end) {
-            i.next();
-            i.remove();
+    // send the other end the running totals of its frames delivered and damaged here
+    private void sendReport() {
+        deliveredSinceReport = 0;
+        for (int i = 0; i < 4; i++) {
+            reportPayload[i] = (byte) (framesDelivered >>> (24 - 8 * i));
+            reportPayload[4 + i] = (byte) (framesDamaged >>> (24 - 8 * i));
         }
+        reportBuffer.clear();
+        putFrame(reportType, reportPayload, 0, reportLength, reportBuffer);
+        transmit(reportBuffer.array(), reportBuffer.position());
+    }
 
+    // hand the controller what the other end has seen of this end's frames since its last report
+    private void readReport(byte[] report, int offset) {
+        int delivered = 0;
+        int damaged = 0;
+        for (int i = 0; i < 4; i++) {
+            delivered = (delivered << 8) | (report[offset + i] & 0xff);
+            damaged = (damaged << 8) | (report[offset + 4 + i] & 0xff);
+        }
+        // the totals wrap, so their differences are taken as unsigned
+        controller.report(Integer.toUnsignedLong(delivered - reportedDelivered),
+                          Integer.toUnsignedLong(damaged - reportedDamaged));
+        reportedDelivered = delivered;
+        reportedDamaged = damaged;
     }
-    
 }
@@ -1,12 +1,3 @@
-// =============================================================================
-// IMPORTS
-
-import java.util.Collection;
-import java.util.Iterator;
-// =============================================================================
-
-
-
 // =============================================================================
 /**
  * An ideal medium with no noise, errors, loss.
@@ -40,19 +31,14 @@ public class PerfectMedium extends Medium {
     public void transmit (PhysicalLayer sender, boolean bit) {
 
 	// Only registered clients may send.
-	if (!clients.contains(sender)) {
-	    throw new RuntimeException("Unregistered sender on the medium");
-	}
-	
+	int senderPort = portOf(sender);
+
 	// Deliver the bit to each client that is not the sender.
-	Iterator<PhysicalLayer> clientIterator = clients.iterator();
-	while (clientIterator.hasNext()) {
-	    
-	    PhysicalLayer receiver = clientIterator.next();
-	    if (receiver != sender) {
-		receiver.receive(bit);
+	PhysicalLayer[] receivers = ports();
+	for (int port = 0; port < receivers.length; port += 1) {
+	    if (port != senderPort) {
+		receivers[port].receive(bit);
 	    }
-
 	}
 
     } // transmit ()
@@ -60,6 +46,39 @@ public class PerfectMedium extends Medium {
 
 
 
+    // =========================================================================
+    /**
+     * Send a block of bits from one client to the other clients.  The block
+     * is handed to each receiver as is, without copying.
+     *
+     * @param sender    The client physical layer sending the bits.
+     * @param data      The bytes holding the bits to be sent.
+     * @param bitOffset The index of the first bit to be sent.
+     * @param bitLength The number of bits to be sent.
+     * @throws RuntimeException if the sender is not registered with this
+     *                          medium.
+     */
+    public void transmitBlock (PhysicalLayer sender,
+			       byte[]        data,
+			       int           bitOffset,
+			       int           bitLength) {
+
+	// Only registered clients may send.
+	int senderPort = portOf(sender);
+
+	// Deliver the block to each client that is not the sender.
+	PhysicalLayer[] receivers = ports();
+	for (int port = 0; port < receivers.length; port += 1) {
+	    if (port != senderPort) {
+		receivers[port].receive(data, bitOffset, bitLength);
+	    }
+	}
+
+    } // transmitBlock ()
+    // =========================================================================
+
+
+
 // =============================================================================
 } // class PerfectMedium
 // =============================================================================
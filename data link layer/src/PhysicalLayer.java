@@ -1,3 +1,11 @@
+// =============================================================================
+// IMPORTS
+
+import java.nio.ByteBuffer;
+// =============================================================================
+
+
+
 // =============================================================================
 /**
  * Transmits bits across a medium.
@@ -74,6 +82,66 @@ public class PhysicalLayer {
 
 
 
+    // =========================================================================
+    /**
+     * @return the port id assigned by the medium upon registration, or
+     *         <code>-1</code> if there is none.
+     */
+    public int getPort () {
+
+	return port;
+
+    } // getPort ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the medium to which this layer is connected.
+     */
+    public Medium getMedium () {
+
+	return medium;
+
+    } // getMedium ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record every bit the medium delivers to this layer, as delivered, in a
+     * trace, or stop recording.  Expected to be set before any bits arrive,
+     * since the medium's threads do not look for a change.
+     *
+     * @param trace The trace in which to record, or <code>null</code>.
+     */
+    public void setTrace (BitTrace trace) {
+
+	this.trace = trace;
+
+    } // setTrace ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record the port id assigned by the medium.  Expected to be called only
+     * by the medium as it registers this layer.
+     *
+     * @param port The assigned port id.
+     */
+    void setPort (int port) {
+
+	this.port = port;
+
+    } // setPort ()
+    // =========================================================================
+
+
+
     // =========================================================================
     /**
      * Send a client's bit via the medium.
@@ -82,6 +150,7 @@ public class PhysicalLayer {
      */
     public void send (boolean bit) {
 
+	medium.bitsTransmitted.increment();
 	medium.transmit(this, bit);
 
     } // send ()
@@ -89,6 +158,57 @@ public class PhysicalLayer {
 
 
 
+    // =========================================================================
+    /**
+     * Send a block of a client's bits via the medium.  Bits are taken from
+     * each byte most significant first, beginning with the given bit offset.
+     *
+     * @param data      The bytes holding the bits to send.
+     * @param bitOffset The index of the first bit to send.
+     * @param bitLength The number of bits to send.
+     */
+    public void send (byte[] data, int bitOffset, int bitLength) {
+
+	medium.bitsTransmitted.add(bitLength);
+	medium.transmitBlock(this, data, bitOffset, bitLength);
+
+    } // send ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send a block of a client's bits via the medium.  The bits are counted
+     * from the buffer's current position, which is left unchanged.
+     *
+     * @param data      The buffer holding the bits to send.
+     * @param bitOffset The index, relative to the buffer's position, of the
+     *                  first bit to send.
+     * @param bitLength The number of bits to send.
+     */
+    public void send (ByteBuffer data, int bitOffset, int bitLength) {
+
+	// Send straight out of the backing array if there is one; otherwise,
+	// copy out the bytes that hold the requested bits.
+	if (data.hasArray()) {
+	    int arrayBitOffset = ((data.arrayOffset() + data.position()) *
+				  DataLinkLayer.BITS_PER_BYTE);
+	    send(data.array(), arrayBitOffset + bitOffset, bitLength);
+	} else {
+	    int    firstByte = bitOffset / DataLinkLayer.BITS_PER_BYTE;
+	    int    lastByte  = ((bitOffset + bitLength + DataLinkLayer.BITS_PER_BYTE - 1) /
+				DataLinkLayer.BITS_PER_BYTE);
+	    byte[] copy      = new byte[lastByte - firstByte];
+	    data.duplicate().position(data.position() + firstByte).get(copy);
+	    send(copy, bitOffset % DataLinkLayer.BITS_PER_BYTE, bitLength);
+	}
+
+    } // send ()
+    // =========================================================================
+
+
+
     // =========================================================================
     /**
      * Called by the medium to deliver a bit, which is then in turn delivered to
@@ -98,6 +218,10 @@ public class PhysicalLayer {
      */
     public void receive (boolean bit) {
 
+	medium.bitsDelivered.increment();
+	if (trace != null) {
+	    trace.record(bit);
+	}
 	client.receive(bit);
 
     }
@@ -105,6 +229,29 @@ public class PhysicalLayer {
 
 
 
+    // ===============================================================
+    /**
+     * Called by the medium to deliver a block of bits, which is then in turn
+     * delivered to the client data link layer.  The block is only valid for
+     * the duration of the call.
+     *
+     * @param data      The bytes holding the bits received.
+     * @param bitOffset The index of the first bit received.
+     * @param bitLength The number of bits received.
+     */
+    public void receive (byte[] data, int bitOffset, int bitLength) {
+
+	medium.bitsDelivered.add(bitLength);
+	if (trace != null) {
+	    trace.record(data, bitOffset, bitLength);
+	}
+	client.receive(data, bitOffset, bitLength);
+
+    }
+    // ===============================================================
+
+
+
     // ===============================================================
     // DATA MEMBERS
 
@@ -113,6 +260,12 @@ public class PhysicalLayer {
 
     /** The data link layer above this physical layer. */
     private DataLinkLayer client;
+
+    /** This layer's port id on the medium. */
+    private int           port = -1;
+
+    /** The trace recording the bits delivered, if any. */
+    private BitTrace      trace;
     // ===============================================================
 
 
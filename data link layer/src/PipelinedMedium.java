@@ -0,0 +1,495 @@
+// =============================================================================
+// IMPORTS
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * An ideal medium that delivers bits asynchronously.  Each receiving client
+ * has its own lane: a bounded single-producer, single-consumer queue of bit
+ * blocks, drained by a dedicated thread that passes each block up that
+ * client's stack.  A sender therefore returns as soon as its blocks are
+ * queued, and framing on the sending side overlaps with de-framing on the
+ * receiving side.  A sender that gets a full lane's worth of blocks ahead of
+ * its receiver waits for room.
+ *
+ * Lanes are unbounded in time but not in space, so a stack that sends from
+ * within its own receive path (such as one that acknowledges frames) must not
+ * let both directions fill at once.
+ *
+ * A lane's thread parks while its queue is empty, so idle lanes cost no
+ * processor time however many clients there are, and <code>close()</code>
+ * stops every lane's thread once its queue has drained.
+ *
+ * @file   PipelinedMedium.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class PipelinedMedium extends Medium {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a medium whose lanes each hold a default number of blocks.
+     */
+    public PipelinedMedium () {
+
+	this(DEFAULT_LANE_CAPACITY);
+
+    } // PipelinedMedium ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a medium.
+     *
+     * @param laneCapacity The most blocks that may wait in each receiver's
+     *                     lane before senders must wait.
+     */
+    public PipelinedMedium (int laneCapacity) {
+
+	this.laneCapacity = laneCapacity;
+	this.lanes        = new Lane[0];
+
+    } // PipelinedMedium ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send a bit from one client to the other clients, as a block of one.
+     *
+     * @param sender The client physical layer sending the bit.
+     * @param bit The value to be sent, where <code>false</code> sends a
+     *            <code>0</code> bit, and <code>true</code> sends a
+     *            <code>1</code> bit.
+     * @throws RuntimeException if the sender is not registered with this
+     *                          medium.
+     */
+    public void transmit (PhysicalLayer sender, boolean bit) {
+
+	transmitBlock(sender, bit ? ONE_BIT : ZERO_BIT, 0, 1);
+
+    } // transmit ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Queue a block of bits for delivery to each client that is not the
+     * sender.  The bits are copied first, since the sender may reuse its
+     * array as soon as this method returns.  One copy is shared by every
+     * receiver.
+     *
+     * @param sender    The client physical layer sending the bits.
+     * @param data      The bytes holding the bits to be sent.
+     * @param bitOffset The index of the first bit to be sent.
+     * @param bitLength The number of bits to be sent.
+     * @throws RuntimeException if the sender is not registered with this
+     *                          medium, or if a receiver has failed.
+     */
+    public void transmitBlock (PhysicalLayer sender,
+			       byte[]        data,
+			       int           bitOffset,
+			       int           bitLength) {
+
+	// Only registered clients may send, and only while the medium is open.
+	int senderPort = portOf(sender);
+	checkFailure();
+	if (closed) {
+	    throw new RuntimeException("Medium closed");
+	}
+
+	// Copy only the bytes that hold the bits to be sent.
+	int   firstByte = bitOffset >>> 3;
+	int   lastByte  = (bitOffset + bitLength + 7) >>> 3;
+	Block block     = new Block(Arrays.copyOfRange(data, firstByte, lastByte),
+				    bitOffset & 7,
+				    bitLength);
+
+	// Queue the block for each client that is not the sender.
+	Lane[] current = lanesFor(ports());
+	for (int port = 0; port < current.length; port += 1) {
+	    if (port != senderPort) {
+		current[port].put(block);
+	    }
+	}
+
+    } // transmitBlock ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Wait until every block queued so far has been passed up its receiver's
+     * stack.
+     *
+     * @throws RuntimeException if a receiver has failed.
+     */
+    public void drain () {
+
+	synchronized (drainLock) {
+	    Lane[] current = lanes;
+	    for (int port = 0; port < current.length; port += 1) {
+		current[port].awaitEmpty();
+	    }
+	}
+	checkFailure();
+
+    } // drain ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Deliver every block queued so far, and then stop each lane's thread,
+     * waiting for it to finish.  Closing more than once does nothing more.
+     *
+     * @throws RuntimeException if the calling thread is interrupted while
+     *                          waiting.
+     */
+    public void close () {
+
+	Lane[] current;
+	synchronized (this) {
+	    closed  = true;
+	    current = lanes;
+	}
+	for (int port = 0; port < current.length; port += 1) {
+	    current[port].stop();
+	}
+
+    } // close ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Return the lanes, first creating one for each client that has
+     * registered since the last call.
+     *
+     * @param  receivers The current snapshot of registered clients.
+     * @return the lanes, indexed by port id.
+     */
+    private Lane[] lanesFor (PhysicalLayer[] receivers) {
+
+	Lane[] current = lanes;
+	if (current.length >= receivers.length) {
+	    return current;
+	}
+
+	synchronized (this) {
+	    current = lanes;
+	    if (current.length < receivers.length && !closed) {
+		Lane[] grown = Arrays.copyOf(current, receivers.length);
+		for (int port = current.length; port < grown.length; port += 1) {
+		    grown[port] = new Lane(receivers[port], port);
+		}
+		lanes = current = grown;
+	    }
+	}
+	return current;
+
+    } // lanesFor ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Pass along, to the calling thread, the failure of any receiver.
+     *
+     * @throws RuntimeException if a receiver has failed.
+     */
+    private void checkFailure () {
+
+	if (failure != null) {
+	    throw new RuntimeException("Receiver failed on the medium", failure);
+	}
+
+    } // checkFailure ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INNER CLASSES
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * A copied run of bits, awaiting delivery.
+     */
+    private static final class Block {
+
+	Block (byte[] data, int bitOffset, int bitLength) {
+
+	    this.data      = data;
+	    this.bitOffset = bitOffset;
+	    this.bitLength = bitLength;
+
+	}
+
+	final byte[] data;
+	final int    bitOffset;
+	final int    bitLength;
+
+    } // class Block
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The queue of blocks for one receiving client, along with the thread that
+     * drains it.
+     */
+    private final class Lane implements Runnable {
+
+	// =====================================================================
+	Lane (PhysicalLayer receiver, int port) {
+
+	    this.receiver = receiver;
+	    this.queue    = new SpscQueue<Block>(laneCapacity);
+	    this.thread   = new Thread(this, "PipelinedMedium-port-" + port);
+	    thread.setDaemon(true);
+	    thread.start();
+
+	} // Lane ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	/**
+	 * Queue a block, waiting for room if the lane is full.  Senders on
+	 * different threads take turns, so that the queue only ever sees one
+	 * producer at a time.
+	 *
+	 * @param block The block to queue.
+	 */
+	void put (Block block) {
+
+	    synchronized (this) {
+		// Spin briefly on a full lane, and then park until the lane's
+		// thread has delivered a block, saying so before looking
+		// again, so that the wakeup cannot be missed.
+		int spins = 0;
+		while (!queue.offer(block)) {
+		    checkFailure();
+		    if (spins < SPIN_LIMIT) {
+			spins += 1;
+			Thread.onSpinWait();
+			continue;
+		    }
+		    producer = Thread.currentThread();
+		    if (!queue.offer(block)) {
+			checkFailure();
+			LockSupport.park(this);
+			producer = null;
+			continue;
+		    }
+		    producer = null;
+		    break;
+		}
+		produced += 1;
+	    }
+
+	    // The queued block must be visible before the thread's idleness
+	    // is read, or the thread could park on a block it did not see.
+	    VarHandle.fullFence();
+	    if (idle) {
+		LockSupport.unpark(thread);
+	    }
+
+	} // put ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	/**
+	 * Wait until every block queued on this lane has been delivered.
+	 * Called by one thread at a time.
+	 */
+	void awaitEmpty () {
+
+	    drainer = Thread.currentThread();
+	    while (delivered < produced && failure == null) {
+		LockSupport.park(this);
+	    }
+	    drainer = null;
+
+	} // awaitEmpty ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	/** Stop the lane's thread once its queue has drained, and wait. */
+	void stop () {
+
+	    stopping = true;
+	    LockSupport.unpark(thread);
+	    try {
+		thread.join();
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+		throw new RuntimeException("Interrupted closing the medium");
+	    }
+
+	} // stop ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	/**
+	 * Deliver blocks as they arrive, parking when there are none, until
+	 * stopped with none left.
+	 */
+	public void run () {
+
+	    while (true) {
+
+		Block block = queue.poll();
+		if (block == null) {
+		    if (stopping && queue.isEmpty()) {
+			return;
+		    }
+		    idle = true;
+		    if (queue.isEmpty() && !stopping) {
+			LockSupport.park(this);
+		    }
+		    idle = false;
+		    continue;
+		}
+
+		// Keep draining even after a failure, so that no sender is
+		// left waiting on a full lane.
+		if (failure == null) {
+		    try {
+			receiver.receive(block.data,
+					 block.bitOffset,
+					 block.bitLength);
+		    } catch (RuntimeException e) {
+			failure = e;
+		    }
+		}
+		delivered += 1;
+		wake(producer);
+		wake(drainer);
+
+	    }
+
+	} // run ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	/** Wake a thread waiting on the lane, if there is one. */
+	private void wake (Thread waiter) {
+
+	    if (waiter != null) {
+		LockSupport.unpark(waiter);
+	    }
+
+	} // wake ()
+	// =====================================================================
+
+
+
+	/** The client to which this lane delivers. */
+	private final PhysicalLayer     receiver;
+
+	/** The blocks awaiting delivery. */
+	private final SpscQueue<Block>  queue;
+
+	/** The thread draining the queue. */
+	private final Thread            thread;
+
+	/** The number of blocks queued; written only while holding the lane. */
+	private volatile long           produced;
+
+	/** The number of blocks delivered; written only by the lane's thread. */
+	private volatile long           delivered;
+
+	/** Whether the lane's thread has found the queue empty. */
+	private volatile boolean        idle;
+
+	/** Whether the lane's thread is to stop once the queue is empty. */
+	private volatile boolean        stopping;
+
+	// The sender waiting for room, and the thread waiting for the queue
+	// to empty, if any.
+	private volatile Thread         producer;
+	private volatile Thread         drainer;
+
+    } // class Lane
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The most blocks that may wait in each lane. */
+    private final int              laneCapacity;
+
+    /** The lanes, indexed by the port id of the receiving client. */
+    private volatile Lane[]        lanes;
+
+    /** The first exception thrown by any receiver, if any. */
+    private volatile RuntimeException failure;
+
+    /** Whether the medium has been closed. */
+    private volatile boolean       closed;
+
+    /** The lock that makes concurrent drains take turns. */
+    private final Object           drainLock = new Object();
+
+    /** The lane capacity used when none is given. */
+    static final int  DEFAULT_LANE_CAPACITY = 1024;
+
+    /** The number of times to spin on a full lane before parking. */
+    private static final int  SPIN_LIMIT            = 100;
+
+    // The single bits sent by transmit(), which receivers only read.
+    private static final byte[] ZERO_BIT = { 0 };
+    private static final byte[] ONE_BIT  = { (byte)0x80 };
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class PipelinedMedium
+// =============================================================================
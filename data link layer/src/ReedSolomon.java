@@ -0,0 +1,458 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * A Reed-Solomon code over GF(256), correcting up to t symbol (byte) errors in
+ * each codeword of n bytes, of which k carry data and n - k = 2t are parity.
+ * Field arithmetic uses log and antilog tables, so that multiplication and
+ * division are each two lookups and an addition.  Decoding computes the
+ * syndromes, finds the error locator polynomial by Berlekamp-Massey, finds
+ * the error positions by Chien search, and finds the error values by Forney's
+ * formula, correcting the codeword in place.
+ *
+ * Codewords are systematic, with the data first and the parity after it, and
+ * may be shortened: a codeword with fewer than k data bytes is treated as if
+ * it were padded at the front with zeros.
+ *
+ * @file   ReedSolomon.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class ReedSolomon {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a code.
+     *
+     * @param n The number of bytes in a full codeword, at most 255.
+     * @param k The number of data bytes in a full codeword.
+     * @throws RuntimeException if the parameters do not describe a code, or
+     *                          if n - k is odd.
+     */
+    public ReedSolomon (int n, int k) {
+
+	if (n > FIELD_SIZE - 1 || k <= 0 || k >= n || ((n - k) & 1) != 0) {
+	    throw new RuntimeException("No RS(" + n + ", " + k + ") code; need " +
+				       "0 < k < n <= 255 with n - k even");
+	}
+	this.n           = n;
+	this.k           = k;
+	this.paritySize  = n - k;
+	this.generator   = buildGenerator(paritySize);
+	this.syndromes   = new int[paritySize];
+	this.locator     = new int[paritySize + 1];
+	this.previous    = new int[paritySize + 1];
+	this.scratch     = new int[paritySize + 1];
+	this.evaluator   = new int[paritySize];
+	this.positions   = new int[paritySize];
+
+    } // ReedSolomon ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** @return the number of bytes in a full codeword. */
+    public int n () {
+
+	return n;
+
+    } // n ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** @return the number of data bytes in a full codeword. */
+    public int k () {
+
+	return k;
+
+    } // k ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** @return the number of parity bytes in each codeword. */
+    public int paritySize () {
+
+	return paritySize;
+
+    } // paritySize ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Compute the parity bytes for a run of data: the remainder of the data
+     * polynomial, shifted up by the parity size, divided by the generator
+     * polynomial, found with a linear feedback shift register.
+     *
+     * @param data         The array holding the data.
+     * @param offset       The index of the first data byte.
+     * @param length       The number of data bytes, at most k.
+     * @param parity       The array into which to write the parity bytes.
+     * @param parityOffset The index at which to write the first parity byte.
+     */
+    public void encode (byte[] data,
+			int    offset,
+			int    length,
+			byte[] parity,
+			int    parityOffset) {
+
+	if (length > k) {
+	    throw new RuntimeException("Too much data for one codeword");
+	}
+
+	// The register holds the remainder, highest power first.
+	int[] register = scratch;
+	Arrays.fill(register, 0, paritySize, 0);
+	for (int i = offset; i < offset + length; i += 1) {
+
+	    int row = ((data[i] & 0xff) ^ register[0]) << 8;
+	    for (int j = 0; j < paritySize - 1; j += 1) {
+		register[j] = register[j + 1] ^ (MUL[row | generator[j]] & 0xff);
+	    }
+	    register[paritySize - 1] = MUL[row | generator[paritySize - 1]] & 0xff;
+
+	}
+
+	for (int j = 0; j < paritySize; j += 1) {
+	    parity[parityOffset + j] = (byte)register[j];
+	}
+
+    } // encode ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Correct a codeword in place.
+     *
+     * @param  codeword The array holding the codeword, data first.
+     * @param  offset   The index of the first byte of the codeword.
+     * @param  length   The number of bytes in the codeword, at least the
+     *                  parity size and at most n.
+     * @return the number of bytes corrected, or <code>-1</code> if there were
+     *         more errors than the code can correct.
+     */
+    public int decode (byte[] codeword, int offset, int length) {
+
+	if (length < paritySize || length > n) {
+	    throw new RuntimeException("Codeword length " + length +
+				       " out of range");
+	}
+
+	// A codeword with all-zero syndromes is intact.
+	if (!computeSyndromes(codeword, offset, length)) {
+	    return 0;
+	}
+
+	// Find the error locator, whose roots give the error positions.
+	int errors = findLocator();
+	if (2 * errors > paritySize) {
+	    return -1;
+	}
+
+	// Chien search: position p (counted from the end of the codeword) is
+	// in error when the locator has a root at alpha^-p.
+	int found = 0;
+	for (int p = 0; p < length && found <= errors; p += 1) {
+	    if (evaluate(locator, errors, (FIELD_SIZE - 1 - p) % (FIELD_SIZE - 1)) == 0) {
+		if (found == errors) {
+		    return -1;
+		}
+		positions[found++] = p;
+	    }
+	}
+	if (found != errors) {
+	    return -1;
+	}
+
+	// The error evaluator: the syndromes times the locator, dropping
+	// powers from the parity size up.
+	for (int i = 0; i < paritySize; i += 1) {
+	    int sum = 0;
+	    for (int j = 0; j <= Math.min(i, errors); j += 1) {
+		sum ^= multiply(locator[j], syndromes[i - j]);
+	    }
+	    evaluator[i] = sum;
+	}
+
+	// Forney: each error value is X * evaluator(1/X) / locator'(1/X),
+	// where X = alpha^p, and the derivative keeps only the odd terms.
+	for (int e = 0; e < errors; e += 1) {
+
+	    int p          = positions[e];
+	    int logInverse = (FIELD_SIZE - 1 - p) % (FIELD_SIZE - 1);
+	    int numerator  = evaluate(evaluator, paritySize - 1, logInverse);
+	    int derivative = 0;
+	    for (int i = 1; i <= errors; i += 2) {
+		derivative ^= multiply(locator[i], EXP[(logInverse * (i - 1)) % (FIELD_SIZE - 1)]);
+	    }
+	    if (derivative == 0) {
+		return -1;
+	    }
+	    int value = multiply(EXP[p], divide(numerator, derivative));
+	    codeword[offset + length - 1 - p] ^= (byte)value;
+
+	}
+
+	// Make sure that the correction produced a codeword after all.
+	if (computeSyndromes(codeword, offset, length)) {
+	    return -1;
+	}
+	return errors;
+
+    } // decode ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Evaluate the received polynomial at alpha^0 through alpha^(2t - 1).
+     *
+     * @param  codeword The array holding the codeword.
+     * @param  offset   The index of the first byte.
+     * @param  length   The number of bytes.
+     * @return whether any syndrome is non-zero.
+     */
+    private boolean computeSyndromes (byte[] codeword, int offset, int length) {
+
+	// Horner's rule for every syndrome at once, one byte at a time, so
+	// that the syndromes' chains of lookups are independent.
+	int[] sums = syndromes;
+	Arrays.fill(sums, 0);
+	for (int i = offset; i < offset + length; i += 1) {
+	    int current = codeword[i] & 0xff;
+	    for (int j = 0; j < paritySize; j += 1) {
+		sums[j] = (MUL[(sums[j] << 8) | EXP[j]] & 0xff) ^ current;
+	    }
+	}
+
+	int any = 0;
+	for (int j = 0; j < paritySize; j += 1) {
+	    any |= sums[j];
+	}
+	return any != 0;
+
+    } // computeSyndromes ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the error locator polynomial from the syndromes by
+     * Berlekamp-Massey, leaving it, lowest power first, in
+     * <code>locator</code>.
+     *
+     * @return the degree of the locator, which is the number of errors.
+     */
+    private int findLocator () {
+
+	Arrays.fill(locator,  0);
+	Arrays.fill(previous, 0);
+	locator[0]  = 1;
+	previous[0] = 1;
+	int degree      = 0;
+	int shift       = 1;
+	int lastDiscrepancy = 1;
+
+	for (int step = 0; step < paritySize; step += 1) {
+
+	    // How far the current locator is from generating this syndrome.
+	    int discrepancy = syndromes[step];
+	    for (int i = 1; i <= degree; i += 1) {
+		discrepancy ^= multiply(locator[i], syndromes[step - i]);
+	    }
+	    if (discrepancy == 0) {
+		shift += 1;
+		continue;
+	    }
+
+	    // Correct the locator by a scaled, shifted earlier one.
+	    int scale = divide(discrepancy, lastDiscrepancy);
+	    System.arraycopy(locator, 0, scratch, 0, locator.length);
+	    for (int i = 0; i + shift < locator.length; i += 1) {
+		locator[i + shift] ^= multiply(scale, previous[i]);
+	    }
+	    if (2 * degree <= step) {
+		degree          = step + 1 - degree;
+		System.arraycopy(scratch, 0, previous, 0, previous.length);
+		lastDiscrepancy = discrepancy;
+		shift           = 1;
+	    } else {
+		shift += 1;
+	    }
+
+	}
+
+	return degree;
+
+    } // findLocator ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Evaluate a polynomial, lowest power first, at a power of alpha.
+     *
+     * @param  poly   The coefficients.
+     * @param  degree The highest power present.
+     * @param  logX   The logarithm of the point.
+     * @return the value.
+     */
+    private static int evaluate (int[] poly, int degree, int logX) {
+
+	int sum = 0;
+	for (int i = degree; i >= 0; i -= 1) {
+	    sum = (sum == 0 ? 0 : EXP[LOG[sum] + logX]) ^ poly[i];
+	}
+	return sum;
+
+    } // evaluate ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** @return the product of two field elements. */
+    private static int multiply (int a, int b) {
+
+	return (a == 0 || b == 0) ? 0 : EXP[LOG[a] + LOG[b]];
+
+    } // multiply ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** @return the quotient of two field elements, the divisor non-zero. */
+    private static int divide (int a, int b) {
+
+	return (a == 0) ? 0 : EXP[LOG[a] + (FIELD_SIZE - 1) - LOG[b]];
+
+    } // divide ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Build the generator polynomial, the product of (x - alpha^i) for i from
+     * 0 up to the parity size.
+     *
+     * @param  paritySize The number of roots.
+     * @return its coefficients below the leading 1, highest power first.
+     */
+    private static int[] buildGenerator (int paritySize) {
+
+	// Multiply out, lowest power first.
+	int[] g = new int[paritySize + 1];
+	g[0] = 1;
+	for (int i = 0; i < paritySize; i += 1) {
+	    for (int j = i + 1; j > 0; j -= 1) {
+		g[j] = g[j - 1] ^ multiply(g[j], EXP[i]);
+	    }
+	    g[0] = multiply(g[0], EXP[i]);
+	}
+
+	// Drop the leading 1 and reverse.
+	int[] coefficients = new int[paritySize];
+	for (int j = 0; j < paritySize; j += 1) {
+	    coefficients[j] = g[paritySize - 1 - j];
+	}
+	return coefficients;
+
+    } // buildGenerator ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The number of elements in the field. */
+    private static final int   FIELD_SIZE = 256;
+
+    /** The primitive polynomial defining the field: x^8+x^4+x^3+x^2+1. */
+    private static final int   PRIMITIVE  = 0x11d;
+
+    /** Powers of alpha, doubled in length so that sums of logs need no mod. */
+    private static final int[] EXP        = new int[2 * FIELD_SIZE];
+
+    /** Logarithms base alpha of each non-zero element. */
+    private static final int[] LOG        = new int[FIELD_SIZE];
+
+    /** Every product, indexed by (a << 8) | b, for the per-byte loops. */
+    private static final byte[] MUL       = new byte[FIELD_SIZE * FIELD_SIZE];
+
+    static {
+	int x = 1;
+	for (int i = 0; i < FIELD_SIZE - 1; i += 1) {
+	    EXP[i] = x;
+	    LOG[x] = i;
+	    x    <<= 1;
+	    if ((x & FIELD_SIZE) != 0) {
+		x ^= PRIMITIVE;
+	    }
+	}
+	for (int i = FIELD_SIZE - 1; i < EXP.length; i += 1) {
+	    EXP[i] = EXP[i - (FIELD_SIZE - 1)];
+	}
+	for (int a = 1; a < FIELD_SIZE; a += 1) {
+	    for (int b = 1; b < FIELD_SIZE; b += 1) {
+		MUL[(a << 8) | b] = (byte)EXP[LOG[a] + LOG[b]];
+	    }
+	}
+    }
+
+    // The code's parameters.
+    private final int   n;
+    private final int   k;
+    private final int   paritySize;
+
+    /** The generator's coefficients below the leading 1, highest first. */
+    private final int[] generator;
+
+    // Working space for encoding and decoding, so that neither allocates.
+    private final int[] syndromes;
+    private final int[] locator;
+    private final int[] previous;
+    private final int[] scratch;
+    private final int[] evaluator;
+    private final int[] positions;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class ReedSolomon
+// =============================================================================
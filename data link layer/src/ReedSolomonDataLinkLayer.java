@@ -0,0 +1,318 @@
+// =============================================================================
+// IMPORTS
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * A data link layer that corrects errors rather than merely detecting them.
+ * The data is divided into chunks of up to k bytes, and each chunk is sent
+ * as a Reed-Solomon codeword, shortened if the chunk is short, so that up to
+ * (n - k) / 2 damaged bytes per frame are repaired at the receiver.
+ *
+ * Byte stuffing does not suit a correcting code: a single flipped bit that
+ * creates or destroys a tag changes the frame's length, which no code can
+ * repair.  Instead, each frame begins with a 32-bit sync marker, which is
+ * recognized even with two bits flipped, followed by the codeword's data
+ * length, sent three times and recovered by a bitwise majority vote, and then
+ * the codeword itself, sent raw.  Once in a frame, the receiver counts bytes
+ * rather than looking for tags, so that damage anywhere in the codeword is
+ * just a symbol error.
+ *
+ * @file   ReedSolomonDataLinkLayer.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class ReedSolomonDataLinkLayer extends DataLinkLayer {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a layer using RS(255, 223), which corrects up to 16 bytes in
+     * each frame.
+     */
+    public ReedSolomonDataLinkLayer () {
+
+	this(DEFAULT_N, DEFAULT_K);
+
+    } // ReedSolomonDataLinkLayer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a layer using RS(n, k).
+     *
+     * @param n The number of bytes in a full codeword, at most 255.
+     * @param k The most data bytes in each codeword.
+     * @throws RuntimeException if the parameters do not describe a code.
+     */
+    public ReedSolomonDataLinkLayer (int n, int k) {
+
+	this.sendCode    = new ReedSolomon(n, k);
+	this.receiveCode = new ReedSolomon(n, k);
+	this.parity      = new byte[n - k];
+	this.codeword    = new byte[n];
+	this.header      = new byte[LENGTH_COPIES];
+	this.state       = HUNTING;
+
+    } // ReedSolomonDataLinkLayer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Embed a raw sequence of bytes into a framed sequence.
+     *
+     * @param  data The raw sequence of bytes to be framed.
+     * @return A complete frame.
+     */
+    protected byte[] createFrame (byte[] data) {
+
+	byte[] framedData = new byte[frameLength(data, 0, data.length)];
+	createFrame(data, 0, data.length, ByteBuffer.wrap(framedData));
+	return framedData;
+
+    } // createFrame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Embed part of a raw sequence of bytes into a sequence of frames, each
+     * holding the sync marker, the copies of its data length, its data, and
+     * the parity bytes of its codeword.
+     *
+     * @param src    The array holding the raw bytes to be framed.
+     * @param offset The index of the first byte to be framed.
+     * @param length The number of bytes to be framed.
+     * @param dst    The buffer into which to write the frames.
+     */
+    protected void createFrame (byte[]     src,
+				int        offset,
+				int        length,
+				ByteBuffer dst) {
+
+	int end = offset + length;
+	int i   = offset;
+	do {
+
+	    int chunk = Math.min(sendCode.k(), end - i);
+	    sendCode.encode(src, i, chunk, parity, 0);
+
+	    dst.putInt(SYNC_MARKER);
+	    for (int copy = 0; copy < LENGTH_COPIES; copy += 1) {
+		dst.put((byte)chunk);
+	    }
+	    dst.put(src, i, chunk);
+	    dst.put(parity);
+	    frameSent(chunk);
+	    i += chunk;
+
+	} while (i < end);
+
+    } // createFrame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Determine the exact length of the frames for the given raw bytes: the
+     * data, and for each frame, the sync marker, the copies of the length,
+     * and the parity bytes.
+     *
+     * @param  src    The array holding the raw bytes to be framed.
+     * @param  offset The index of the first byte to be framed.
+     * @param  length The number of bytes to be framed.
+     * @return the number of bytes in the frames.
+     */
+    protected int frameLength (byte[] src, int offset, int length) {
+
+	int frames = Math.max(1, (length + sendCode.k() - 1) / sendCode.k());
+	return length + frames * (SYNC_BYTES + LENGTH_COPIES + sendCode.paritySize());
+
+    } // frameLength ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Advance through the received, buffered data, hunting for a sync
+     * marker, then collecting the length copies, then collecting the
+     * codeword.  A complete codeword is corrected; if that succeeds, its
+     * data is returned, and otherwise the frame is dropped.  Either way, the
+     * receiver returns to hunting.
+     *
+     * @return If the buffer completes a correctable frame, the extracted,
+     * original data; <code>null</code> otherwise.
+     */
+    protected byte[] processFrame () {
+
+	while (!byteBuffer.isEmpty()) {
+
+	    byte current = byteBuffer.remove();
+	    switch (state) {
+
+	    case HUNTING:
+		syncRegister = (syncRegister << 8) | (current & 0xff);
+		syncBytes   += 1;
+		if (syncBytes >= SYNC_BYTES &&
+		    Integer.bitCount(syncRegister ^ SYNC_MARKER) <= SYNC_TOLERANCE) {
+		    discard(syncBytes - SYNC_BYTES);
+		    state  = IN_HEADER;
+		    filled = 0;
+		}
+		break;
+
+	    case IN_HEADER:
+		header[filled++] = current;
+		if (filled == LENGTH_COPIES) {
+		    int chunk = ((header[0] & header[1]) |
+				 (header[0] & header[2]) |
+				 (header[1] & header[2])) & 0xff;
+		    if (chunk > receiveCode.k()) {
+			dropFrame(oversizeFrames);
+			hunt();
+		    } else {
+			state          = IN_CODEWORD;
+			filled         = 0;
+			codewordLength = chunk + receiveCode.paritySize();
+		    }
+		}
+		break;
+
+	    default:
+		codeword[filled++] = current;
+		if (filled == codewordLength) {
+		    hunt();
+		    int corrected = receiveCode.decode(codeword, 0, codewordLength);
+		    if (corrected < 0) {
+			dropFrame(uncorrectableFrames);
+		    } else {
+			bytesCorrected.add(corrected);
+			return Arrays.copyOf(codeword,
+					     codewordLength - receiveCode.paritySize());
+		    }
+		}
+		break;
+
+	    }
+
+	}
+
+	return null;
+
+    } // processFrame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Return to hunting for a sync marker, forgetting any bytes already seen.
+     */
+    private void hunt () {
+
+	state        = HUNTING;
+	syncRegister = 0;
+	syncBytes    = 0;
+
+    } // hunt ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The frames dropped for having more errors than the code corrects. */
+    private final LongAdder   uncorrectableFrames =
+	metrics.counter("UncorrectableFrames",
+			"Frames dropped for having more errors than the " +
+			"code corrects");
+
+    /** The bytes found in error and corrected. */
+    private final LongAdder   bytesCorrected =
+	metrics.counter("BytesCorrected", "Bytes found in error and corrected");
+
+    /** The code used in framing outgoing data. */
+    private final ReedSolomon sendCode;
+
+    /** The code used in correcting incoming frames, perhaps on another thread. */
+    private final ReedSolomon receiveCode;
+
+    /** The parity bytes of the codeword being framed. */
+    private final byte[]      parity;
+
+    /** The codeword being received. */
+    private final byte[]      codeword;
+
+    /** The copies of the length being received. */
+    private final byte[]      header;
+
+    /** What the receiver is looking for next. */
+    private int               state;
+
+    /** The last four bytes seen while hunting. */
+    private int               syncRegister;
+
+    /** How many bytes have been seen while hunting. */
+    private int               syncBytes;
+
+    /** How many bytes of the header or codeword have been received. */
+    private int               filled;
+
+    /** The length of the codeword being received. */
+    private int               codewordLength;
+
+    // The receiver's states.
+    private static final int HUNTING     = 0;
+    private static final int IN_HEADER   = 1;
+    private static final int IN_CODEWORD = 2;
+
+    /** The marker that begins each frame: the CCSDS attached sync marker. */
+    private static final int SYNC_MARKER    = 0x1acffc1d;
+
+    /** The number of bytes in the sync marker. */
+    private static final int SYNC_BYTES     = 4;
+
+    /** The most bits by which a received marker may differ and still match. */
+    private static final int SYNC_TOLERANCE = 2;
+
+    /** The number of copies of the length sent with each frame. */
+    private static final int LENGTH_COPIES  = 3;
+
+    // The code used when none is given.
+    static final int DEFAULT_N = 255;
+    static final int DEFAULT_K = 223;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class ReedSolomonDataLinkLayer
+// =============================================================================
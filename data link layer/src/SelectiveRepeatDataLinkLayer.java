@@ -0,0 +1,255 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * A sliding-window ARQ layer using Selective Repeat.  The receiver buffers
+ * intact frames that arrive after a gap, ACKing each individually and NAKing
+ * the first missing frame; once the gap is filled, it delivers the buffered
+ * run in order.  The sender retransmits only the frames that time out or are
+ * NAKed, so frames that arrived intact are not resent.  So that a new frame
+ * is never mistaken for an old one, the window may be at most half the
+ * number of sequence numbers.
+ *
+ * @file   SelectiveRepeatDataLinkLayer.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class SelectiveRepeatDataLinkLayer extends ArqDataLinkLayer {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a layer with the default window, frame size, and timeout.
+     */
+    public SelectiveRepeatDataLinkLayer () {
+
+	this(DEFAULT_WINDOW_SIZE, DEFAULT_FRAME_SIZE, DEFAULT_TIMEOUT_MILLIS);
+
+    } // SelectiveRepeatDataLinkLayer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a layer.
+     *
+     * @param windowSize    The most frames that may be outstanding at once, at
+     *                      most half the number of sequence numbers.
+     * @param frameSize     The most data bytes carried by each frame.
+     * @param timeoutMillis The longest time to await an acknowledgement.
+     * @throws RuntimeException if any size or the timeout is out of range.
+     */
+    public SelectiveRepeatDataLinkLayer (int  windowSize,
+					 int  frameSize,
+					 long timeoutMillis) {
+
+	super(windowSize, frameSize, timeoutMillis, SEQUENCE_SPACE / 2);
+	this.received    = new byte[windowSize][];
+	this.hasReceived = new boolean[windowSize];
+
+    } // SelectiveRepeatDataLinkLayer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Nothing to prepare: the window is all the sender's state. */
+    protected void startSending () {
+
+    } // startSending ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Retransmit the oldest unacknowledged frame whose timer has expired, and
+     * otherwise send the next new frame, if the window has room for it.
+     *
+     * @param  now The current time, on the medium's clock.
+     * @return the index of the frame to transmit, or <code>-1</code> to wait.
+     */
+    protected int selectFrame (long now) {
+
+	for (int frame = base; frame < sent; frame += 1) {
+	    if (!isAcknowledged(frame) && isExpired(frame, now)) {
+		return frame;
+	    }
+	}
+	if (sent < Math.min(base + windowSize, frameCount)) {
+	    return sent;
+	}
+	return -1;
+
+    } // selectFrame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Mark the acknowledged frame, and every frame before the one that the
+     * receiver expects next, as delivered.  Since the medium keeps frames in
+     * order, any earlier frame still unacknowledged that was last sent before
+     * the acknowledged one must have been lost, and so is retransmitted at
+     * once rather than when its timer expires.
+     *
+     * @param sequence The sequence number of the frame acknowledged.
+     * @param expected The sequence number that the receiver expects next.
+     */
+    protected void acknowledged (int sequence, int expected) {
+
+	acknowledgeThrough(expected);
+	int frame = frameOf(sequence);
+	if (frame < 0) {
+	    return;
+	}
+	acknowledgeFrame(frame);
+	for (int earlier = base; earlier < frame; earlier += 1) {
+	    if (!isAcknowledged(earlier) && sentAfter(frame, earlier)) {
+		expire(earlier);
+	    }
+	}
+
+    } // acknowledged ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Retransmit the missing frame at once, if the gap was revealed by a
+     * frame sent after it was.
+     *
+     * @param sequence The sequence number of the missing frame.
+     * @param revealer The sequence number of the frame that revealed the gap.
+     */
+    protected void negativelyAcknowledged (int sequence, int revealer) {
+
+	int frame = frameOf(sequence);
+	int later = frameOf(revealer);
+	if (frame >= 0 && later > frame && !isAcknowledged(frame) &&
+	    sentAfter(later, frame)) {
+	    expire(frame);
+	}
+
+    } // negativelyAcknowledged ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * ACK and buffer a frame within the receive window, NAKing the first
+     * missing frame if this one is beyond it, and deliver the run of frames
+     * that begins with the next expected.  A frame from before the window is
+     * re-ACKed, in case its ACK was lost.
+     *
+     * @param  sequence The frame's sequence number.
+     * @param  frame    The array holding the frame's payload.
+     * @param  offset   The index of the first byte of the payload.
+     * @param  length   The number of bytes of payload.
+     * @return the payloads of the in-order run, concatenated, or
+     *         <code>null</code> if the next expected frame is still missing.
+     */
+    protected byte[] accept (int sequence, byte[] frame, int offset, int length) {
+
+	int distance = (sequence - expected) & (SEQUENCE_SPACE - 1);
+	if (distance >= windowSize) {
+	    if (distance >= SEQUENCE_SPACE - windowSize) {
+		sendControl(ACK, sequence, expected);
+	    }
+	    return null;
+	}
+
+	// Buffer the frame, unless it is a duplicate.
+	int slot = (int)((expectedCount + distance) % windowSize);
+	if (!hasReceived[slot]) {
+	    hasReceived[slot] = true;
+	    received[slot]    = Arrays.copyOfRange(frame, offset, offset + length);
+	}
+	if (distance != 0) {
+	    sendControl(ACK, sequence, expected);
+	    sendControl(NAK, expected, sequence);
+	    return null;
+	}
+
+	// Deliver the run that this frame begins.
+	int run         = 0;
+	int totalLength = 0;
+	while (run < windowSize && hasReceived[(int)((expectedCount + run) % windowSize)]) {
+	    totalLength += received[(int)((expectedCount + run) % windowSize)].length;
+	    run         += 1;
+	}
+	byte[] deliverable = new byte[totalLength];
+	int    position    = 0;
+	for (int i = 0; i < run; i += 1) {
+	    int payloadSlot = (int)((expectedCount + i) % windowSize);
+	    System.arraycopy(received[payloadSlot], 0, deliverable, position,
+			     received[payloadSlot].length);
+	    position                 += received[payloadSlot].length;
+	    received[payloadSlot]     = null;
+	    hasReceived[payloadSlot]  = false;
+	}
+	expectedCount += run;
+	expected       = (int)(expectedCount & (SEQUENCE_SPACE - 1));
+	sendControl(ACK, sequence, expected);
+	return deliverable;
+
+    } // accept ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** @return the number of frames delivered. */
+    protected long framesAccepted () {
+
+	return expectedCount;
+
+    } // framesAccepted ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The payloads buffered by the receiver, by slot of the window. */
+    private final byte[][]  received;
+
+    /** Whether each slot of the receive window holds a payload. */
+    private final boolean[] hasReceived;
+
+    /** The number of frames delivered, which places the receive window. */
+    private long            expectedCount;
+
+    /** The sequence number that the receiver expects next. */
+    private int             expected;
+
+    // The window, frame size, and timeout used when none are given.
+    static final int  DEFAULT_WINDOW_SIZE    = 32;
+    static final int  DEFAULT_FRAME_SIZE     = 32;
+    static final long DEFAULT_TIMEOUT_MILLIS = 200;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class SelectiveRepeatDataLinkLayer
+// =============================================================================
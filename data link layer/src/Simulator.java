@@ -2,12 +2,12 @@
 // IMPORTS
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.Arrays;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicReference;
 // =============================================================================
 
 
@@ -36,12 +36,20 @@ public class Simulator {
     public static void main (String[] args) {
 
 	// Check the number of arguments passed.
-	if (args.length != 3) {
+	if (args.length < 3 || args.length > 4) {
 
+	    ComponentRegistry registry = ComponentRegistry.getDefault();
 	    System.err.println("Usage: java Simulator "  +
 			       "<medium type> "          +
 			       "<data link layer type> " +
-			       "<transmission data file>");
+			       "<transmission data file> " +
+			       "[<bit trace file>]");
+	    System.err.println("  where a type is a name, optionally with " +
+			       "parameters, e.g. Parity:frameSize=64");
+	    System.err.println("  media:  " + registry.mediumNames());
+	    System.err.println("  layers: " + registry.layerNames());
+	    System.err.println("  a bit trace records what the receiver " +
+			       "is delivered, for TraceReplay");
 	    System.exit(1);
 
 	}
@@ -56,11 +64,32 @@ public class Simulator {
 	Host   sender   = new Host(medium, dataLinkLayerType);
 	Host   receiver = new Host(medium, dataLinkLayerType);
 
-	// Read the contents of the data to be transmitted into a buffer.
-	byte[] dataToTransmit = readFile(transmissionPath);
+	// Publish each part's counters, so that the run can be watched over
+	// JMX.
+	medium.getMetrics().register(mediumType);
+	sender.registerMetrics("sender");
+	receiver.registerMetrics("receiver");
+
+	// Record the bits that reach the receiver, if asked.
+	BitTrace trace = null;
+	if (args.length > 3) {
+	    trace = new BitTrace(args[3]);
+	    receiver.getPhysicalLayer().setTrace(trace);
+	}
+
+	// Map the data to be transmitted, rather than reading it all in.
+	MappedByteBuffer[] dataToTransmit = mapFile(transmissionPath);
 
 	// Perform the simulation!
-	simulate(sender, receiver, dataToTransmit);
+	simulate(medium, sender, receiver, dataToTransmit);
+	medium.close();
+
+	if (trace != null) {
+	    trace.close();
+	    System.out.printf("Bit trace:              %d bits to %s\n",
+			      trace.getBits(),
+			      trace.getPath());
+	}
 
     } // main
     // =========================================================================
@@ -69,12 +98,14 @@ public class Simulator {
 
     // =========================================================================
     /**
-     * Read the whole contents of a given file, returning it in a byte array.
+     * Map the whole contents of a given file into memory, read-only, as
+     * regions of at most <code>REGION_SIZE</code> bytes.  The file's pages
+     * are read only as they are touched, and are not on the heap.
      *
-     * @param path The pathname of the file whose data to read.
-     * @return a buffer contain the complete contents of the file.
+     * @param  path The pathname of the file to map.
+     * @return the regions that together hold the file's contents, in order.
      */
-    private static byte[] readFile (String path) {
+    private static MappedByteBuffer[] mapFile (String path) {
 
 	// Does the path name a readable file?
 	File file = new File(path);
@@ -82,24 +113,25 @@ public class Simulator {
 	    throw new RuntimeException(path + " is not a readable file");
 	}
 
-	// Read the entire file.
-	if (file.length() > Integer.MAX_VALUE) {
-	    throw new RuntimeException(path + " is too large a file");
-	}
-	int             length = (int)file.length();
-	byte[]          buffer = new byte[length];
-	try {
-	    FileInputStream input  = new FileInputStream(file);
-	    input.read(buffer);
-	} catch (FileNotFoundException e) {
-	    throw new RuntimeException("Unexpected file-not-found for " + path);
+	// Map the file a region at a time.  The mappings remain valid after
+	// the channel is closed.
+	try (FileChannel channel = FileChannel.open(file.toPath(),
+						    StandardOpenOption.READ)) {
+	    long               length  = channel.size();
+	    MappedByteBuffer[] regions =
+		new MappedByteBuffer[(int)((length + REGION_SIZE - 1) / REGION_SIZE)];
+	    for (int i = 0; i < regions.length; i += 1) {
+		long start = (long)i * REGION_SIZE;
+		regions[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+					 start,
+					 Math.min(REGION_SIZE, length - start));
+	    }
+	    return regions;
 	} catch (IOException e) {
-	    throw new RuntimeException("Unexpected failure in reading " + path);
+	    throw new RuntimeException("Unexpected failure in mapping " + path);
 	}
 
-	return buffer;
-	
-    } // readFile()
+    } // mapFile()
     // =========================================================================
 
 
@@ -108,25 +140,148 @@ public class Simulator {
     /**
      * Perform the simulation, having the sender transmit the given data to the
      * receiver.  Verify that the receiver fully receives the complete and
-     * correct data.
+     * correct data.  The sender runs on a thread of its own, while the
+     * receiver is drained and checked as the data arrives, so that neither
+     * end, nor the check, holds more than a chunk of it at once.
      *
+     * @param medium   The medium connecting the hosts.
      * @param sender   The sending host.
      * @param receiver The receiving host.
-     * @param data     The data to be sent.
+     * @param data     The regions of data to be sent, in order.
      */
-    private static void simulate (Host sender, Host receiver, byte[] data) {
+    private static void simulate (final Medium             medium,
+				  final Host               sender,
+				  Host                     receiver,
+				  final MappedByteBuffer[] data) {
+
+	final StreamVerifier verifier = new StreamVerifier(data);
+
+	// Send every region, a chunk at a time, digesting each as it goes,
+	// and then wait for the medium to deliver all of it.
+	final AtomicReference<RuntimeException> failure =
+	    new AtomicReference<RuntimeException>();
+	long   start       = System.nanoTime();
+	Thread transmitter = new Thread(new Runnable() {
+		public void run () {
+		    try {
+			for (MappedByteBuffer region : data) {
+			    for (int at = 0;
+				 at < region.capacity();
+				 at += CHUNK_SIZE) {
+				ByteBuffer chunk =
+				    region.slice(at,
+						 Math.min(CHUNK_SIZE,
+							  region.capacity() -
+							  at));
+				verifier.sent(chunk.duplicate());
+				sender.send(chunk);
+			    }
+			}
+			medium.drain();
+		    } catch (RuntimeException e) {
+			failure.set(e);
+		    }
+		}
+	    }, "transmitter");
+	transmitter.start();
+
+	// Drain the receiver until the sender is done and nothing is left,
+	// checking each chunk against the data at the same offset.
+	byte[] chunk = new byte[CHUNK_SIZE];
+	while (transmitter.isAlive() || receiver.available() > 0) {
+	    receiver.awaitAvailable(WAIT_MILLIS);
+	    int count;
+	    while ((count = receiver.retrieve(chunk, 0, chunk.length)) > 0) {
+		verifier.received(chunk, 0, count);
+	    }
+	}
+	long elapsed = System.nanoTime() - start;
+	try {
+	    transmitter.join();
+	} catch (InterruptedException e) {
+	    throw new RuntimeException("Interrupted awaiting the sender");
+	}
+	if (failure.get() != null) {
+	    throw failure.get();
+	}
+
+	verifier.report(System.out);
 
-	sender.send(data);
-	byte[] received = receiver.retrieve();
-	System.out.println("Transmission received:  " + new String(received));
-	System.out.println("Transmission succeeded: " +
-			   Arrays.equals(data, received));
+	// Report the rate at which data arrived intact, in simulated time too
+	// if the medium keeps it, and for a reliable link, how much it had to
+	// resend.
+	System.out.printf("Goodput:                %.1f KB/s\n",
+			  verifier.getReceived() / 1024.0 / (elapsed / 1e9));
+	if (medium instanceof TimedMedium) {
+	    TimedMedium timed = (TimedMedium)medium;
+	    System.out.printf("Simulated goodput:      %.3f Mb/s\n",
+			      verifier.getReceived() * 8 * 1e3 /
+			      Math.max(timed.now(), 1));
+	    timed.report(System.out);
+	}
+	DataLinkLayer link = sender.getDataLinkLayer();
+	if (link instanceof ArqDataLinkLayer) {
+	    ArqDataLinkLayer arq = (ArqDataLinkLayer)link;
+	    System.out.printf("Retransmissions:        %d of %d frames\n",
+			      arq.getRetransmissions(),
+			      arq.getFramesSent());
+	    System.out.printf("Timeout:                %.3f ms\n",
+			      arq.getTimeout() / 1e6);
+	}
+
+	summarize(medium, sender, receiver);
 
     } // simulate()
     // =========================================================================
 
 
 
+    // =========================================================================
+    /**
+     * Print what each part of the stack counted during the simulation, and
+     * the overhead that framing added to the data sent.
+     *
+     * @param medium   The medium connecting the hosts.
+     * @param sender   The sending host.
+     * @param receiver The receiving host.
+     */
+    private static void summarize (Medium medium, Host sender, Host receiver) {
+
+	Metrics link    = sender.getDataLinkLayer().getMetrics();
+	long    payload = link.get("PayloadBytesSent");
+	if (payload > 0) {
+	    System.out.printf("Framing overhead:       %.2f%% (escapes %.2f%%)\n",
+			      100.0 * (link.get("WireBytesSent") - payload) / payload,
+			      100.0 * link.get("EscapeBytesSent") / payload);
+	}
+
+	medium.getMetrics().print(System.out, "Medium");
+	sender.getMetrics().print(System.out, "Sending host");
+	link.print(System.out, "Sending data link layer");
+	receiver.getMetrics().print(System.out, "Receiving host");
+	receiver.getDataLinkLayer().getMetrics().print(System.out,
+							"Receiving data link layer");
+
+    } // summarize ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The most bytes of the file mapped as one region. */
+    private static final long REGION_SIZE        = 1L << 30;
+
+    /** The most bytes sent to, or retrieved from, a host at a time. */
+    private static final int  CHUNK_SIZE         = 64 * 1024;
+
+    /** The most milliseconds to wait for data before checking on the sender. */
+    private static final long WAIT_MILLIS        = 10;
+    // =========================================================================
+
+
+
 // =============================================================================
 } // class Simulator
 // =============================================================================
@@ -0,0 +1,146 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.concurrent.atomic.AtomicLong;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * A bounded, lock-free queue for exactly one producing thread and one
+ * consuming thread.  Each side advances only its own index, publishing it
+ * with a release store, and reads the other side's index only when its
+ * cached copy suggests that the queue is full (or empty).
+ *
+ * @file   SpscQueue.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class SpscQueue<E> {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create an empty queue.
+     *
+     * @param capacity The most elements the queue may hold.  Rounded up to a
+     *                 power of two.
+     */
+    public SpscQueue (int capacity) {
+
+	int size = Integer.highestOneBit(Math.max(capacity, 2));
+	if (size < capacity) {
+	    size <<= 1;
+	}
+	slots = new Object[size];
+	mask  = size - 1;
+
+    } // SpscQueue ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Add an element at the tail.  Expected to be called only by the
+     * producing thread.
+     *
+     * @param  element The element to add; must not be <code>null</code>.
+     * @return whether there was room to add it.
+     */
+    public boolean offer (E element) {
+
+	long t = tail.get();
+	if (t - headCache >= slots.length) {
+	    headCache = head.get();
+	    if (t - headCache >= slots.length) {
+		return false;
+	    }
+	}
+	slots[(int)t & mask] = element;
+	tail.lazySet(t + 1);
+	return true;
+
+    } // offer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Remove the element at the head.  Expected to be called only by the
+     * consuming thread.
+     *
+     * @return the removed element, or <code>null</code> if the queue is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E poll () {
+
+	long h = head.get();
+	if (h >= tailCache) {
+	    tailCache = tail.get();
+	    if (h >= tailCache) {
+		return null;
+	    }
+	}
+	int index   = (int)h & mask;
+	E   element = (E)slots[index];
+	slots[index] = null;
+	head.lazySet(h + 1);
+	return element;
+
+    } // poll ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return whether the queue holds no elements.  May be called from any
+     *         thread, though the answer may be stale by the time it returns.
+     */
+    public boolean isEmpty () {
+
+	return head.get() >= tail.get();
+
+    } // isEmpty ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The circular array of elements. */
+    private final Object[]   slots;
+
+    /** One less than the array's length, which is a power of two. */
+    private final int        mask;
+
+    /** The count of elements ever removed; written only by the consumer. */
+    private final AtomicLong head = new AtomicLong();
+
+    /** The count of elements ever added; written only by the producer. */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** The producer's most recent reading of <code>head</code>. */
+    private long             headCache;
+
+    /** The consumer's most recent reading of <code>tail</code>. */
+    private long             tailCache;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class SpscQueue
+// =============================================================================
@@ -0,0 +1,375 @@
+// =============================================================================
+// IMPORTS
+
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * A check, made as the data arrives, that a receiver got exactly what was
+ * sent.  Each chunk retrieved is compared with the sent data at the same
+ * offset, which is left where it is (typically mapped from a file) rather
+ * than copied, so that checking takes memory in proportion to a chunk and not
+ * to the data.
+ *
+ * Along the way it keeps a SHA-256 digest of what was sent and of what was
+ * received, the offset of the first byte that differs, how many bytes
+ * differ, and the first few bytes received and those at the first
+ * difference, which are all that is printed of the data.
+ *
+ * What was sent is digested on the sender's thread and the rest on the
+ * receiver's; the report may be made only after both are done.
+ *
+ * @file   StreamVerifier.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class StreamVerifier {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Begin checking data received against the data to be sent.
+     *
+     * @param expected The regions of data to be sent, in order.  They are
+     *                 read, but their positions are not moved.
+     */
+    public StreamVerifier (ByteBuffer[] expected) {
+
+	this.expected = expected;
+	this.starts   = new long[expected.length];
+	long length   = 0;
+	for (int i = 0; i < expected.length; i += 1) {
+	    starts[i] = length;
+	    length   += expected[i].capacity();
+	}
+	this.length           = length;
+	this.sentDigest       = sha256();
+	this.receivedDigest   = sha256();
+	this.head             = new byte[PREVIEW_SIZE];
+	this.expectedPreview  = new byte[PREVIEW_SIZE];
+	this.receivedPreview  = new byte[PREVIEW_SIZE];
+	this.firstDifference  = -1;
+
+    } // StreamVerifier ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Add data, just sent, to the digest of what was sent.
+     *
+     * @param data The data sent, from its position to its limit.  Its
+     *             position is moved to its limit.
+     */
+    public void sent (ByteBuffer data) {
+
+	sentDigest.update(data);
+
+    } // sent ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Check the next bytes received against those sent at the same offset.
+     *
+     * @param chunk  The array holding the received bytes.
+     * @param offset The index in the array of the first of them.
+     * @param count  The number of received bytes.
+     */
+    public void received (byte[] chunk, int offset, int count) {
+
+	receivedDigest.update(chunk, offset, count);
+
+	// Keep the first few bytes received, to show.
+	if (received < PREVIEW_SIZE) {
+	    int n = (int)Math.min(count, PREVIEW_SIZE - received);
+	    System.arraycopy(chunk, offset, head, (int)received, n);
+	}
+
+	// Compare the bytes that have counterparts in what was sent; any
+	// beyond its end are extra.
+	int comparable = (int)Math.max(0, Math.min(count, length - received));
+	compare(chunk, offset, comparable);
+	if (comparable < count && firstDifference < 0) {
+	    firstDifference = received + comparable;
+	}
+
+	// Keep the bytes at the first difference, to show.
+	if (firstDifference >= 0) {
+	    long from = firstDifference + previewLength;
+	    long to   = Math.min(firstDifference + PREVIEW_SIZE,
+				 received + count);
+	    for (long at = from; at < to; at += 1) {
+		receivedPreview[previewLength] =
+		    chunk[offset + (int)(at - received)];
+		expectedPreview[previewLength] =
+		    at < length ? expectedAt(at) : 0;
+		previewLength += 1;
+	    }
+	}
+
+	received += count;
+
+    } // received ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return whether exactly the data sent has been received, and no more.
+     */
+    public boolean succeeded () {
+
+	return firstDifference < 0 && received == length;
+
+    } // succeeded ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the number of bytes received so far.
+     */
+    public long getReceived () {
+
+	return received;
+
+    } // getReceived ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Print a preview of the data received, whether it matched what was sent,
+     * the digests of both, and, if they differ, where and by how much.
+     *
+     * @param out Where to print.
+     */
+    public void report (PrintStream out) {
+
+	out.printf("Transmission received:  %s%s (%d bytes)\n",
+		   hex(head, (int)Math.min(received, PREVIEW_SIZE)),
+		   received > PREVIEW_SIZE ? " ..." : "",
+		   received);
+	out.println("Transmission succeeded: " + succeeded());
+	out.println("Sent SHA-256:           " +
+		    HexFormat.of().formatHex(sentDigest.digest()));
+	out.println("Received SHA-256:       " +
+		    HexFormat.of().formatHex(receivedDigest.digest()));
+	if (succeeded()) {
+	    return;
+	}
+
+	// Say where the data first went wrong, and how badly.
+	long first = firstDifference >= 0 ? firstDifference : received;
+	out.println("First difference at:    byte " + first);
+	out.printf("Byte errors:            %d of %d compared",
+		   byteErrors,
+		   Math.min(received, length));
+	if (received < length) {
+	    out.printf(", %d missing", length - received);
+	} else if (received > length) {
+	    out.printf(", %d extra", received - length);
+	}
+	out.println();
+	if (previewLength > 0) {
+	    int expectedLength =
+		(int)Math.max(0, Math.min(previewLength, length - first));
+	    out.println("Expected from there:    " +
+			hex(expectedPreview, expectedLength));
+	    out.println("Received from there:    " +
+			hex(receivedPreview, previewLength));
+	}
+
+    } // report ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count the received bytes that differ from those sent at the same
+     * offset, noting the first.  Runs of matching bytes are skipped a region
+     * at a time, so matching data costs a comparison of buffers.
+     *
+     * @param chunk  The array holding the received bytes.
+     * @param offset The index in the array of the first of them.
+     * @param count  The number of received bytes, all with counterparts in
+     *               the data sent.
+     */
+    private void compare (byte[] chunk, int offset, int count) {
+
+	int i = 0;
+	while (i < count) {
+
+	    // Find the region holding the counterpart of the next byte, and
+	    // how many of the bytes it holds.
+	    long       at     = received + i;
+	    int        region = regionOf(at);
+	    int        within = (int)(at - starts[region]);
+	    int        n      = Math.min(count - i,
+					 expected[region].capacity() - within);
+	    ByteBuffer sent   = expected[region].duplicate();
+	    sent.position(within).limit(within + n);
+	    ByteBuffer got    = ByteBuffer.wrap(chunk, offset + i, n);
+
+	    // Skip from one differing byte to the next.
+	    int mismatch;
+	    while ((mismatch = got.mismatch(sent)) >= 0) {
+		if (firstDifference < 0) {
+		    firstDifference = at + (got.position() - (offset + i)) +
+			mismatch;
+		}
+		byteErrors += 1;
+		got.position(got.position() + mismatch + 1);
+		sent.position(sent.position() + mismatch + 1);
+	    }
+	    i += n;
+
+	}
+
+    } // compare ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  at An offset in the data sent.
+     * @return the byte sent at that offset.
+     */
+    private byte expectedAt (long at) {
+
+	int region = regionOf(at);
+	return expected[region].get((int)(at - starts[region]));
+
+    } // expectedAt ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  at An offset in the data sent.
+     * @return the index of the region holding it.
+     */
+    private int regionOf (long at) {
+
+	int region = expected.length - 1;
+	while (starts[region] > at) {
+	    region -= 1;
+	}
+	return region;
+
+    } // regionOf ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  bytes  Bytes to show.
+     * @param  length The number of them to show, from the first.
+     * @return the bytes in hexadecimal, separated by spaces.
+     */
+    private static String hex (byte[] bytes, int length) {
+
+	return HexFormat.ofDelimiter(" ").formatHex(bytes, 0, length);
+
+    } // hex ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return a new SHA-256 digest.
+     */
+    private static MessageDigest sha256 () {
+
+	try {
+	    return MessageDigest.getInstance("SHA-256");
+	} catch (NoSuchAlgorithmException e) {
+	    throw new RuntimeException("No SHA-256 digest available");
+	}
+
+    } // sha256 ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The regions of data sent, in order. */
+    private final ByteBuffer[]  expected;
+
+    /** The offset in the data sent of the first byte of each region. */
+    private final long[]        starts;
+
+    /** The number of bytes sent. */
+    private final long          length;
+
+    /** The digest of the data sent so far. */
+    private final MessageDigest sentDigest;
+
+    /** The digest of the data received so far. */
+    private final MessageDigest receivedDigest;
+
+    /** The first bytes received. */
+    private final byte[]        head;
+
+    /** The bytes sent starting at the first difference. */
+    private final byte[]        expectedPreview;
+
+    /** The bytes received starting at the first difference. */
+    private final byte[]        receivedPreview;
+
+    /** The number of bytes kept in each of the previews at the difference. */
+    private int                 previewLength;
+
+    /** The number of bytes received so far. */
+    private long                received;
+
+    /** The offset of the first byte received that differs, or -1. */
+    private long                firstDifference;
+
+    /** The number of bytes received that differ from those sent. */
+    private long                byteErrors;
+
+    /** The most bytes of the data shown at a time. */
+    private static final int    PREVIEW_SIZE = 16;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class StreamVerifier
+// =============================================================================
@@ -0,0 +1,268 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * A resumable decoder for frames delimited by start and stop tags, in which
+ * any tag appearing in the data is preceded by an escape tag.  Bytes are fed
+ * in one at a time as they arrive, and each is examined exactly once, so that
+ * decoding a frame takes time proportional to its length.  The decoder keeps
+ * the partially extracted data, along with a running count of its one bits,
+ * between calls.
+ *
+ * @file   StuffedFrameDecoder.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class StuffedFrameDecoder {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a decoder, initially hunting for a start tag.
+     *
+     * @param startTag  The tag that begins a frame.
+     * @param stopTag   The tag that ends a frame.
+     * @param escapeTag The tag that marks the following byte as literal data.
+     * @param maxLength The most data bytes a frame may hold; any longer frame
+     *                  is dropped.  Zero or less for no limit.
+     */
+    public StuffedFrameDecoder (byte startTag,
+				byte stopTag,
+				byte escapeTag,
+				int  maxLength) {
+
+	this.startTag  = startTag;
+	this.stopTag   = stopTag;
+	this.escapeTag = escapeTag;
+	this.maxLength = maxLength;
+	this.data      = new byte[maxLength > 0 ? maxLength : INITIAL_CAPACITY];
+	this.state     = HUNTING;
+
+    } // StuffedFrameDecoder ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Advance the decoder by one received byte.  If it is...
+     *   (a) While hunting:     Discarded unless it is a start tag.
+     *   (b) An escape tag:     Skipped, taking what follows as literal data.
+     *   (c) A stop tag:        The end of the frame, whose data is then
+     *                          available until the next call.
+     *   (d) A start tag:       The start of a new frame; all that precedes is
+     *                          damaged, and so is dropped.
+     *   (e) Otherwise:         Literal data.
+     *
+     * @param  current The received byte.
+     * @return <code>FRAME_COMPLETE</code> if the byte ends a frame;
+     *         <code>FRAME_RESTARTED</code> or <code>FRAME_OVERSIZED</code> if
+     *         it causes a partial frame to be dropped; <code>BYTE_DISCARDED</code>
+     *         if it was skipped while hunting; <code>IN_PROGRESS</code>
+     *         otherwise.
+     */
+    public int consume (byte current) {
+
+	switch (state) {
+
+	case HUNTING:
+	    if (current != startTag) {
+		return BYTE_DISCARDED;
+	    }
+	    startFrame();
+	    return IN_PROGRESS;
+
+	case AFTER_ESCAPE:
+	    state = IN_FRAME;
+	    return append(current);
+
+	default:
+	    if (current == escapeTag) {
+		state = AFTER_ESCAPE;
+		return IN_PROGRESS;
+	    } else if (current == stopTag) {
+		state = HUNTING;
+		return FRAME_COMPLETE;
+	    } else if (current == startTag) {
+		startFrame();
+		return FRAME_RESTARTED;
+	    }
+	    return append(current);
+
+	}
+
+    } // consume ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the array holding the data of the frame most recently completed
+     *         (or in progress), starting at index 0.  It is reused by later
+     *         frames.
+     */
+    public byte[] data () {
+
+	return data;
+
+    } // data ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the number of data bytes in the frame most recently completed
+     *         (or in progress).
+     */
+    public int length () {
+
+	return length;
+
+    } // length ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the number of one bits among the data bytes of the frame most
+     *         recently completed (or in progress).
+     */
+    public int onesCount () {
+
+	return onesCount;
+
+    } // onesCount ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return a copy of the first <code>count</code> data bytes of the frame
+     *         most recently completed.
+     */
+    public byte[] copyData (int count) {
+
+	return Arrays.copyOf(data, count);
+
+    } // copyData ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Begin extracting a new frame, forgetting any partial one. */
+    private void startFrame () {
+
+	state     = IN_FRAME;
+	length    = 0;
+	onesCount = 0;
+
+    } // startFrame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Add a literal byte to the frame in progress, dropping the frame if that
+     * makes it too long.
+     *
+     * @param  current The literal byte.
+     * @return <code>FRAME_OVERSIZED</code> if the frame is dropped;
+     *         <code>IN_PROGRESS</code> otherwise.
+     */
+    private int append (byte current) {
+
+	if (length == data.length) {
+	    if (maxLength > 0) {
+		state = HUNTING;
+		return FRAME_OVERSIZED;
+	    }
+	    data = Arrays.copyOf(data, 2 * data.length);
+	}
+	data[length] = current;
+	length      += 1;
+	onesCount   += Integer.bitCount(current & 0xff);
+	return IN_PROGRESS;
+
+    } // append ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The result of consuming a byte that leaves a frame still in progress. */
+    public static final int IN_PROGRESS     = 0;
+
+    /** The result of consuming a stop tag that completes a frame. */
+    public static final int FRAME_COMPLETE  = 1;
+
+    /** The result of skipping a byte that precedes any start tag. */
+    public static final int BYTE_DISCARDED  = 2;
+
+    /** The result of a start tag arriving within a frame, dropping it. */
+    public static final int FRAME_RESTARTED = 3;
+
+    /** The result of a frame growing too long, dropping it. */
+    public static final int FRAME_OVERSIZED = 4;
+
+    // The states of the decoder.
+    private static final int HUNTING      = 0;
+    private static final int IN_FRAME     = 1;
+    private static final int AFTER_ESCAPE = 2;
+
+    /** The starting size of the data array when frames are unbounded. */
+    private static final int INITIAL_CAPACITY = 64;
+
+    // The start tag, stop tag, and the escape tag.
+    private final byte startTag;
+    private final byte stopTag;
+    private final byte escapeTag;
+
+    /** The most data bytes a frame may hold, or zero or less for no limit. */
+    private final int  maxLength;
+
+    /** The current state of the decoder. */
+    private int        state;
+
+    /** The data extracted from the current frame. */
+    private byte[]     data;
+
+    /** The number of bytes in <code>data</code> that belong to the frame. */
+    private int        length;
+
+    /** The number of one bits among those bytes. */
+    private int        onesCount;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class StuffedFrameDecoder
+// =============================================================================
@@ -0,0 +1,715 @@
+// =============================================================================
+// IMPORTS
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * An ideal medium that takes time: each sender has a transmitter with a fixed
+ * bit rate, and bits arrive a fixed propagation delay after they are sent.
+ * Time is simulated, by an <code>EventScheduler</code>, rather than spent, so
+ * that a run answers how long a transfer would take on such a link, as fast
+ * as the stack can frame and de-frame it.
+ *
+ * A block handed over while the sender's transmitter is busy waits its turn,
+ * and is delivered to each receiver at once, when its last bit arrives.
+ * Events run on the sending thread: each block first lets the medium catch up
+ * to the time its transmitter frees, so only the blocks still in flight are
+ * held.  <code>drain()</code> runs the rest, and a sender that waits for a
+ * reply, such as an acknowledgement, asks for it with <code>advance()</code>,
+ * or, with nothing in flight, moves the clock on to its next timer with
+ * <code>advanceTo()</code>.
+ *
+ * Every frame's latency, from its data link layer building it to the
+ * receiver's delivering its data, is recorded, as is the time each
+ * transmitter spends busy.  Each frame is matched by the number its sender's
+ * data link layer gave it, so that frames delivered several at once, or
+ * repeated, or lost along the way, are each timed against their own
+ * building; on a medium shared by more than two hosts, frames are not
+ * timed.  A frame is delivered when the whole block holding
+ * it arrives, so the frames of a block, and any that wait their turn behind
+ * it, share in its transmission time.
+ *
+ * @file   TimedMedium.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class TimedMedium extends Medium {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a medium with the default bit rate and propagation delay.
+     */
+    public TimedMedium () {
+
+	this(DEFAULT_BIT_RATE, DEFAULT_DELAY_NANOS);
+
+    } // TimedMedium ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a medium.
+     *
+     * @param bitRate    The bits each transmitter sends per second.
+     * @param delayNanos The nanoseconds a bit takes to reach the receivers.
+     */
+    public TimedMedium (double bitRate, long delayNanos) {
+
+	if (!(bitRate > 0) || delayNanos < 0) {
+	    throw new RuntimeException("Invalid bit rate " + bitRate +
+				       " or delay " + delayNanos);
+	}
+	this.nanosPerBit = NANOS_PER_SECOND / bitRate;
+	this.delayNanos  = delayNanos;
+	this.scheduler   = new EventScheduler();
+	this.lock        = new ReentrantLock();
+	this.latencies   = new Histogram();
+	this.busyUntil   = new long[0];
+	this.busyNanos   = new long[0];
+	this.frameTimes  = new FrameTimes[0];
+
+    } // TimedMedium ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send a bit from one client to the other clients.
+     *
+     * @param sender The client physical layer sending the bit.
+     * @param bit    The value to be sent, where <code>false</code> sends a
+     *               <code>0</code> bit, and <code>true</code> sends a
+     *               <code>1</code> bit.
+     * @throws RuntimeException if the sender is not registered with this
+     *                          medium.
+     */
+    public void transmit (PhysicalLayer sender, boolean bit) {
+
+	transmitBlock(sender, bit ? ONE_BIT : ZERO_BIT, 0, 1);
+
+    } // transmit ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send a block of bits from one client to the other clients, once the
+     * sender's transmitter is free.  The block is copied, since it arrives
+     * after this returns.
+     *
+     * @param sender    The client physical layer sending the bits.
+     * @param data      The bytes holding the bits to be sent.
+     * @param bitOffset The index of the first bit to be sent.
+     * @param bitLength The number of bits to be sent.
+     * @throws RuntimeException if the sender is not registered with this
+     *                          medium.
+     */
+    public void transmitBlock (PhysicalLayer sender,
+			       byte[]        data,
+			       int           bitOffset,
+			       int           bitLength) {
+
+	int senderPort = portOf(sender);
+
+	lock.lock();
+	try {
+
+	    // Catch up to the time the transmitter frees, delivering what
+	    // arrives before then; that may include replies that this
+	    // sender sends ahead of the block.
+	    grow(senderPort);
+	    scheduler.runUntil(busyUntil[senderPort]);
+	    long start = Math.max(scheduler.now(), busyUntil[senderPort]);
+
+	    long duration = Math.round(bitLength * nanosPerBit);
+	    busyUntil[senderPort]  = start + duration;
+	    busyNanos[senderPort] += duration;
+	    transmissions.increment();
+
+	    int    firstByte = bitOffset >>> 3;
+	    int    lastByte  = (bitOffset + bitLength + 7) >>> 3;
+	    byte[] copy      = Arrays.copyOfRange(data, firstByte, lastByte);
+	    scheduler.schedule(start + duration + delayNanos,
+			       new Arrival(senderPort,
+					   copy,
+					   bitOffset & 7,
+					   bitLength));
+
+	} finally {
+	    lock.unlock();
+	}
+
+    } // transmitBlock ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Deliver every bit transmitted so far, running simulated time forward
+     * until nothing is in flight.
+     */
+    public void drain () {
+
+	lock.lock();
+	try {
+	    scheduler.runAll();
+	} finally {
+	    lock.unlock();
+	}
+
+    } // drain ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Run simulated time forward to the next arrival, delivering it.  Does
+     * nothing if another thread is delivering, since that one may be waiting
+     * on the caller.
+     *
+     * @return whether anything was delivered.
+     */
+    public boolean advance () {
+
+	if (!lock.tryLock()) {
+	    return false;
+	}
+	try {
+	    return scheduler.runNext();
+	} finally {
+	    lock.unlock();
+	}
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Run simulated time forward to a given time, delivering everything that
+     * arrives by then.  Does nothing if another thread is delivering, as
+     * with <code>advance()</code>.
+     *
+     * @param  time The simulated time to move to.
+     * @return whether the clock was moved.
+     */
+    public boolean advanceTo (long time) {
+
+	if (!lock.tryLock()) {
+	    return false;
+	}
+	try {
+	    scheduler.runUntil(time);
+	    return true;
+	} finally {
+	    lock.unlock();
+	}
+
+    } // advanceTo ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the simulated time, in nanoseconds, since the medium was
+     *         created.
+     */
+    public long now () {
+
+	return scheduler.now();
+
+    } // now ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return no floor at all, since simulated time has no scheduling pauses
+     *         and a round trip takes exactly as long as the link says.
+     */
+    public long minimumTimeout () {
+
+	return 0;
+
+    } // minimumTimeout ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Note the simulated time at which a frame was built, to be matched with
+     * its delivery.  Only the timings' own lock is taken, never the medium's,
+     * since a sender may hold locks that a delivery needs.
+     *
+     * @param sender The client physical layer that will send the frame.
+     * @param frame  The frame's number.
+     */
+    public void frameSent (PhysicalLayer sender, long frame) {
+
+	int  port = portOf(sender);
+	long now  = scheduler.now();
+	synchronized (latencies) {
+	    if (port >= frameTimes.length) {
+		frameTimes = Arrays.copyOf(frameTimes, port + 1);
+	    }
+	    if (frameTimes[port] == null) {
+		frameTimes[port] = new FrameTimes();
+	    }
+	    frameTimes[port].add(frame, now);
+	}
+
+    } // frameSent ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record the latency of a frame delivered, matching it with the frame of
+     * the same number sent from the other end of the link.  The times of any
+     * frames numbered before it are let go, since those frames were lost.
+     *
+     * @param receiver The client physical layer through which the frame
+     *                 arrived.
+     * @param frame    The frame's number.
+     */
+    public void frameDelivered (PhysicalLayer receiver, long frame) {
+
+	if (ports().length != 2) {
+	    return;
+	}
+	int  other = 1 - portOf(receiver);
+	long now   = scheduler.now();
+	synchronized (latencies) {
+	    if (other < frameTimes.length && frameTimes[other] != null &&
+		frameTimes[other].skipTo(frame)) {
+		latencies.record(now - frameTimes[other].remove());
+	    }
+	}
+
+    } // frameDelivered ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Print the simulated time taken, how busy each transmitter was, and the
+     * spread of latencies of the blocks delivered.
+     *
+     * @param out Where to print.
+     */
+    public void report (PrintStream out) {
+
+	lock.lock();
+	try {
+
+	    long elapsed = scheduler.now();
+	    out.printf("Simulated time:         %.3f ms (%d events)\n",
+		       elapsed / 1e6,
+		       scheduler.eventsRun());
+	    for (int port = 0; port < busyNanos.length; port += 1) {
+		if (busyNanos[port] > 0) {
+		    out.printf("Utilization, port %d:    %.1f%%\n",
+			       port,
+			       elapsed == 0 ? 0.0 : 100.0 * busyNanos[port] / elapsed);
+		}
+	    }
+	    synchronized (latencies) {
+		if (latencies.count() > 0) {
+		    out.printf("Frame latency:          p50 %s, p90 %s, " +
+			       "p99 %s, max %s\n",
+			       millis(latencies.percentile(0.50)),
+			       millis(latencies.percentile(0.90)),
+			       millis(latencies.percentile(0.99)),
+			       millis(latencies.max()));
+		}
+	    }
+
+	} finally {
+	    lock.unlock();
+	}
+
+    } // report ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Make room for the timings of a port.
+     *
+     * @param port The port id.
+     */
+    private void grow (int port) {
+
+	if (port >= busyUntil.length) {
+	    busyUntil = Arrays.copyOf(busyUntil, port + 1);
+	    busyNanos = Arrays.copyOf(busyNanos, port + 1);
+	}
+
+    } // grow ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return a time in nanoseconds, shown in milliseconds.
+     */
+    private static String millis (long nanos) {
+
+	return String.format("%.3f ms", nanos / 1e6);
+
+    } // millis ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INNER CLASSES
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The arrival of a block's last bit at every receiver.
+     */
+    private final class Arrival implements EventScheduler.Event {
+
+	// =====================================================================
+	Arrival (int senderPort, byte[] data, int bitOffset, int bitLength) {
+
+	    this.senderPort = senderPort;
+	    this.data       = data;
+	    this.bitOffset  = bitOffset;
+	    this.bitLength  = bitLength;
+
+	} // Arrival ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	/** Hand the block to each receiver. */
+	public void fire (long time) {
+
+	    PhysicalLayer[] receivers = ports();
+	    for (int port = 0; port < receivers.length; port += 1) {
+		if (port != senderPort) {
+		    receivers[port].receive(data, bitOffset, bitLength);
+		}
+	    }
+
+	} // fire ()
+	// =====================================================================
+
+
+
+	/** The port id of the sender. */
+	private final int    senderPort;
+
+	/** The bytes holding the bits. */
+	private final byte[] data;
+
+	/** The index of the first bit. */
+	private final int    bitOffset;
+
+	/** The number of bits. */
+	private final int    bitLength;
+
+    } // class Arrival
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The times at which a port's frames were built, by frame number, oldest
+     * first, held until each is delivered.
+     */
+    private static final class FrameTimes {
+
+	// =====================================================================
+	/**
+	 * Add the time of the newest frame, whose number follows those held.
+	 * A frame out of order, which no layer builds, is ignored.
+	 */
+	void add (long frame, long time) {
+
+	    if (size == 0) {
+		first = frame;
+	    } else if (frame != first + size) {
+		return;
+	    }
+	    if (size == times.length) {
+		long[] grown = new long[2 * times.length];
+		for (int i = 0; i < size; i += 1) {
+		    grown[i] = times[(head + i) % times.length];
+		}
+		times = grown;
+		head  = 0;
+	    }
+	    times[(head + size) % times.length] = time;
+	    size += 1;
+
+	} // add ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	/**
+	 * Let go of the times of frames numbered before a given one.
+	 *
+	 * @return whether the given frame's time is now the oldest held.
+	 */
+	boolean skipTo (long frame) {
+
+	    while (size > 0 && first < frame) {
+		remove();
+	    }
+	    return size > 0 && first == frame;
+
+	} // skipTo ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	/** @return the oldest time, removing it. */
+	long remove () {
+
+	    long time = times[head];
+	    head   = (head + 1) % times.length;
+	    first += 1;
+	    size  -= 1;
+	    return time;
+
+	} // remove ()
+	// =====================================================================
+
+
+
+	/** The times, in a ring. */
+	private long[] times = new long[INITIAL_CAPACITY];
+
+	/** The index in the ring of the oldest time. */
+	private int    head;
+
+	/** The number of the frame whose time is the oldest. */
+	private long   first;
+
+	/** The number of times held. */
+	private int    size;
+
+	/** The number of times held before the ring must grow. */
+	private static final int INITIAL_CAPACITY = 64;
+
+    } // class FrameTimes
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * A count of values, such as latencies, by approximate size, from which
+     * percentiles can be read in constant space.  Each power of two is split
+     * into <code>SUB_BUCKETS</code> buckets, so a value is known to within
+     * about one part in <code>SUB_BUCKETS</code>.
+     */
+    private static final class Histogram {
+
+	// =====================================================================
+	/** Count a value, which must not be negative. */
+	void record (long value) {
+
+	    counts[bucketOf(value)] += 1;
+	    count += 1;
+	    max    = Math.max(max, value);
+
+	} // record ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	/** @return the number of values counted. */
+	long count () {
+
+	    return count;
+
+	} // count ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	/** @return the largest value counted. */
+	long max () {
+
+	    return max;
+
+	} // max ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	/**
+	 * @param  fraction The fraction of values at or below the one
+	 *                  sought, from 0 to 1.
+	 * @return the upper bound of the bucket holding that value.
+	 */
+	long percentile (double fraction) {
+
+	    long rank = Math.max(1, (long)Math.ceil(fraction * count));
+	    long seen = 0;
+	    for (int bucket = 0; bucket < counts.length; bucket += 1) {
+		seen += counts[bucket];
+		if (seen >= rank) {
+		    return Math.min(upperBound(bucket), max);
+		}
+	    }
+	    return max;
+
+	} // percentile ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	/** @return the bucket holding a value. */
+	private static int bucketOf (long value) {
+
+	    if (value < SUB_BUCKETS) {
+		return (int)value;
+	    }
+	    int exponent = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+	    return (exponent + 1) * SUB_BUCKETS +
+		(int)(value >>> exponent) - SUB_BUCKETS;
+
+	} // bucketOf ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	/** @return the largest value a bucket holds. */
+	private static long upperBound (int bucket) {
+
+	    if (bucket < SUB_BUCKETS) {
+		return bucket;
+	    }
+	    int exponent = bucket / SUB_BUCKETS - 1;
+	    long mantissa = bucket % SUB_BUCKETS + SUB_BUCKETS;
+	    return ((mantissa + 1) << exponent) - 1;
+
+	} // upperBound ()
+	// =====================================================================
+
+
+
+	/** The number of bits that split each power of two. */
+	private static final int SUB_BITS    = 5;
+
+	/** The number of buckets into which each power of two is split. */
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+	/** The count of values in each bucket. */
+	private final long[] counts = new long[(64 - SUB_BITS + 1) * SUB_BUCKETS];
+
+	/** The number of values counted. */
+	private long         count;
+
+	/** The largest value counted. */
+	private long         max;
+
+    } // class Histogram
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The nanoseconds each bit takes to send. */
+    private final double         nanosPerBit;
+
+    /** The nanoseconds each bit takes to reach the receivers. */
+    private final long           delayNanos;
+
+    /** The clock and the arrivals in flight. */
+    private final EventScheduler scheduler;
+
+    /** Held while touching the scheduler or the timings. */
+    private final ReentrantLock  lock;
+
+    /** The latency of each frame delivered, and the lock on frame timings. */
+    private final Histogram      latencies;
+
+    /** The times of each port's frames not yet delivered, by port id. */
+    private FrameTimes[]         frameTimes;
+
+    /** The time at which each port's transmitter frees, by port id. */
+    private long[]               busyUntil;
+
+    /** The time each port's transmitter has spent busy, by port id. */
+    private long[]               busyNanos;
+
+    /** The blocks sent onto the medium. */
+    private final LongAdder transmissions =
+	metrics.counter("Transmissions", "Blocks sent onto the medium");
+
+    /** The number of nanoseconds in a second. */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /** The bit rate used when none is given: 10 Mb/s. */
+    static final double DEFAULT_BIT_RATE    = 10e6;
+
+    /** The propagation delay used when none is given: 1 ms. */
+    static final long   DEFAULT_DELAY_NANOS = 1_000_000;
+
+    // The single bits sent by transmit(), which receivers only read.
+    private static final byte[] ZERO_BIT = { 0 };
+    private static final byte[] ONE_BIT  = { (byte)0x80 };
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class TimedMedium
+// =============================================================================
@@ -0,0 +1,248 @@
+// =============================================================================
+// IMPORTS
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * An entry point that feeds a recorded bit trace into a receiving data link
+ * layer as fast as it will take it, with no sender or medium involved, so
+ * that a change to a receiver can be measured alone, on exactly the same
+ * bits, noise included, every time.  A trace is recorded by the simulator:
+ * <pre>
+ *   java Simulator LowNoise Crc data run.trace
+ *   java TraceReplay Crc run.trace
+ * </pre>
+ *
+ * The trace is first replayed once to show what the layer makes of it: the
+ * data delivered, its digest, and the layer's counters.  It is then replayed
+ * the given number of times more, each into a new layer, and each is timed
+ * and checked to deliver the same amount.  The trace is read from its
+ * mapping a block at a time, as a medium would deliver it, and that copy is
+ * all that the timing includes beyond the layer's own work.
+ *
+ * @file   TraceReplay.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class TraceReplay {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The entry point.  Interpret the command-line arguments, aborting if they
+     * are invalid, and then replay the trace.
+     *
+     * @param args The command-line arguments.
+     */
+    public static void main (String[] args) {
+
+	// Check the number of arguments passed.
+	if (args.length < 2 || args.length > 3) {
+
+	    System.err.println("Usage: java TraceReplay "  +
+			       "<data link layer type> "   +
+			       "<bit trace file> "         +
+			       "[<timed passes>]");
+	    System.err.println("  layers: " +
+			       ComponentRegistry.getDefault().layerNames());
+	    System.exit(1);
+
+	}
+
+	// Assign names to the arguments.
+	String dataLinkLayerType = args[0];
+	String tracePath         = args[1];
+	int    passes            = DEFAULT_PASSES;
+	if (args.length > 2) {
+	    passes = Integer.parseInt(args[2]);
+	}
+	if (passes <= 0) {
+	    throw new RuntimeException("Number of passes must be positive");
+	}
+
+	BitTrace.Reader trace = BitTrace.open(tracePath);
+	byte[]          block = new byte[DataLinkLayer.BLOCK_SIZE];
+
+	// Replay once, keeping a digest of what comes out, and show it.
+	Sink check    = new Sink(sha256());
+	Host receiver = replay(dataLinkLayerType, trace, check, block);
+	System.out.printf("Trace:                  %s (%d bits)\n",
+			  tracePath, trace.getBits());
+	System.out.printf("Delivered:              %d bytes in %d frames\n",
+			  check.bytes, check.frames);
+	System.out.println("Delivered SHA-256:      " +
+			   HexFormat.of().formatHex(check.digest.digest()));
+	Metrics link = receiver.getDataLinkLayer().getMetrics();
+	link.print(System.out, "Receiving data link layer");
+
+	// Then replay it again and again, timing each pass.
+	long[] elapsed = new long[passes];
+	for (int pass = 0; pass < passes; pass += 1) {
+	    Sink sink  = new Sink(null);
+	    long start = System.nanoTime();
+	    replay(dataLinkLayerType, trace, sink, block);
+	    elapsed[pass] = System.nanoTime() - start;
+	    if (sink.bytes != check.bytes || sink.frames != check.frames) {
+		throw new RuntimeException("Pass " + pass + " delivered " +
+					   sink.bytes + " bytes in " +
+					   sink.frames + " frames, not " +
+					   check.bytes + " in " + check.frames);
+	    }
+	}
+
+	// Report the best pass, and the median, which is less flattering but
+	// steadier.
+	Arrays.sort(elapsed);
+	long best   = Math.max(elapsed[0], 1);
+	long median = Math.max(elapsed[passes / 2], 1);
+	System.out.printf("Replay:                 %d passes, best %.3f ms, " +
+			  "median %.3f ms\n",
+			  passes, best / 1e6, median / 1e6);
+	System.out.printf("Decoding rate:          %.1f Mb/s of bits, " +
+			  "%.1f MB/s delivered (best)\n",
+			  trace.getBits() * 1e3 / best,
+			  check.bytes * 1e3 / best);
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Feed every bit of a trace, a block at a time, into a new receiving host
+     * of the given type.
+     *
+     * @param  type     The type of data link layer.
+     * @param  trace    The trace to replay.
+     * @param  listener The listener to which the host hands what it receives.
+     * @param  block    An array of a block's bytes, into which to copy each.
+     * @return the receiving host.
+     */
+    private static Host replay (String          type,
+				BitTrace.Reader trace,
+				FrameListener   listener,
+				byte[]          block) {
+
+	Host receiver = new Host(new PerfectMedium(),
+				 ComponentRegistry.getDefault().newLayer(type));
+	receiver.setFrameListener(listener);
+	PhysicalLayer wire      = receiver.getPhysicalLayer();
+	long          bits      = trace.getBits();
+	int           blockBits = block.length * DataLinkLayer.BITS_PER_BYTE;
+	for (long at = 0; at < bits; at += blockBits) {
+	    long from = at / DataLinkLayer.BITS_PER_BYTE;
+	    trace.read(from, block, 0, block.length);
+	    wire.receive(block, 0, (int)Math.min(blockBits, bits - at));
+	}
+	return receiver;
+
+    } // replay ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return a new SHA-256 digest.
+     */
+    private static MessageDigest sha256 () {
+
+	try {
+	    return MessageDigest.getInstance("SHA-256");
+	} catch (NoSuchAlgorithmException e) {
+	    throw new RuntimeException("No SHA-256 digest available");
+	}
+
+    } // sha256 ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INNER CLASSES
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * A listener that counts the frames and bytes delivered, and optionally
+     * digests them.
+     */
+    private static class Sink implements FrameListener {
+
+	// =====================================================================
+	/**
+	 * @param digest The digest to which to add the data delivered, or
+	 *               <code>null</code> for none.
+	 */
+	Sink (MessageDigest digest) {
+
+	    this.digest = digest;
+
+	} // Sink ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	public void frameReceived (ByteBuffer data) {
+
+	    frames += 1;
+	    bytes  += data.remaining();
+	    if (digest != null) {
+		digest.update(data);
+	    }
+
+	} // frameReceived ()
+	// =====================================================================
+
+
+
+	// =====================================================================
+	// DATA MEMBERS
+
+	/** The digest of the data delivered, or <code>null</code>. */
+	final MessageDigest digest;
+
+	/** The number of frames delivered. */
+	long                frames;
+
+	/** The number of bytes delivered. */
+	long                bytes;
+	// =====================================================================
+
+    } // class Sink
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The number of timed passes, unless another is given. */
+    private static final int DEFAULT_PASSES = 5;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class TraceReplay
+// =============================================================================
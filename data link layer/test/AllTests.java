@@ -0,0 +1,51 @@
+// =============================================================================
+/**
+ * Run every test, and report how many checks failed.
+ *
+ * @file   AllTests.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class AllTests {
+// =============================================================================
+
+
+
+    // =========================================================================
+    public static void main (String[] args) {
+
+	BlockTransportTest.run();
+	ByteRingBufferTest.run();
+	StuffedFrameDecoderTest.run();
+	FrameBuildingTest.run();
+	HostBufferTest.run();
+	MediumRegistrationTest.run();
+	PipelinedMediumTest.run();
+	CsmaMediumTest.run();
+	NoiseModelTest.run();
+	CrcTest.run();
+	ReedSolomonTest.run();
+	ArqTest.run();
+	ParityTest.run();
+	CobsTest.run();
+	HdlcTest.run();
+	BenchmarkTest.run();
+	MetricsTest.run();
+	LinkEventsTest.run();
+	StreamingSendTest.run();
+	StreamVerifierTest.run();
+	FrameDispatcherTest.run();
+	ComponentRegistryTest.run();
+	EventSchedulerTest.run();
+	BitTraceTest.run();
+	CoalescingTest.run();
+	Check.exit();
+
+    } // main ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class AllTests
+// =============================================================================
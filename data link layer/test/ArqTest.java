@@ -0,0 +1,163 @@
+// =============================================================================
+// IMPORTS
+
+import java.io.ByteArrayOutputStream;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Tests of the sliding-window ARQ layers: data must arrive whole and in
+ * order over a link that damages frames, by retransmission, and on a fast
+ * link the adaptive timeout must settle well below its maximum.
+ *
+ * @file   ArqTest.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class ArqTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    public static void main (String[] args) {
+
+	run();
+	Check.exit();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Run every check. */
+    static void run () {
+
+	for (String layer : new String[] { "GoBackN", "SelectiveRepeat" }) {
+
+	    Check.roundTrips("Perfect", layer);
+	    Check.roundTrips("Perfect", layer + ":windowSize=1,frameSize=3");
+
+	    // Damage frames at random, and then one bit in every 6000, which
+	    // hits data frames and acknowledgements alike.
+	    recovers("LowNoise:ber=2e-4", layer);
+	    recovers("LowNoise:model=fixedPattern,period=6000,positions=9",
+		     layer);
+
+	    // On the wall clock, the timeout bottoms out at the medium's
+	    // floor, well below the maximum; in simulated time, it falls
+	    // below even that floor.
+	    long maximum = (layer.equals("GoBackN")
+			    ? GoBackNDataLinkLayer.DEFAULT_TIMEOUT_MILLIS
+			    : SelectiveRepeatDataLinkLayer.DEFAULT_TIMEOUT_MILLIS);
+	    settlesBelowMaximum("Perfect", layer, maximum * 1_000_000);
+	    settlesBelowMaximum("Timed",
+				layer,
+				Medium.create("Perfect").minimumTimeout());
+
+	}
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send data over a damaging link, and check that it arrives whole, and
+     * that frames had to be sent again for it to.
+     *
+     * @param mediumType The specification of the medium.
+     * @param layerType  The specification of the data link layer.
+     */
+    private static void recovers (String mediumType, String layerType) {
+
+	Medium                medium   = Medium.create(mediumType);
+	ArqDataLinkLayer      layer    = arq(layerType);
+	Host                  sender   = new Host(medium, layer);
+	Host                  receiver = new Host(medium, layerType);
+	ByteArrayOutputStream received = collect(receiver);
+	byte[]                payload  = Check.randomBytes(30_000, 11);
+	sender.send(payload);
+	medium.close();
+
+	String what = layerType + " over " + mediumType;
+	Check.equal(payload, received.toByteArray(), what);
+	Check.that(layer.getRetransmissions() > 0, what + " retransmitted");
+
+    } // recovers ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send data over a fast, lossless link, and check that the timeout the
+     * sender settles on is below a bound, rather than its maximum.
+     *
+     * @param mediumType The specification of the medium.
+     * @param layerType  The specification of the data link layer.
+     * @param bound      The timeout's bound, in nanoseconds.
+     */
+    private static void settlesBelowMaximum (String mediumType,
+					     String layerType,
+					     long   bound) {
+
+	Medium           medium   = Medium.create(mediumType);
+	ArqDataLinkLayer layer    = arq(layerType);
+	Host             sender   = new Host(medium, layer);
+	Host             receiver = new Host(medium, layerType);
+	collect(receiver);
+	sender.send(Check.randomBytes(30_000, 12));
+	medium.close();
+
+	Check.that(layer.getTimeout() < bound,
+		   layerType + " over " + mediumType + " settles below " +
+		   bound + " ns: " + layer.getTimeout());
+
+    } // settlesBelowMaximum ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  layerType The specification of an ARQ layer.
+     * @return the layer.
+     */
+    private static ArqDataLinkLayer arq (String layerType) {
+
+	return (ArqDataLinkLayer)ComponentRegistry.getDefault()
+					.newLayer(layerType);
+
+    } // arq ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  host A host.
+     * @return a stream to which the host's received frames are appended.
+     */
+    private static ByteArrayOutputStream collect (Host host) {
+
+	ByteArrayOutputStream received = new ByteArrayOutputStream();
+	host.setFrameListener(data -> {
+		byte[] chunk = new byte[data.remaining()];
+		data.get(chunk);
+		received.write(chunk, 0, chunk.length);
+	    });
+	return received;
+
+    } // collect ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class ArqTest
+// =============================================================================
@@ -0,0 +1,89 @@
+// =============================================================================
+// IMPORTS
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Tests of the benchmark: a short run of some of its cases must report a row
+ * for each, with a positive throughput, which it does only after checking
+ * that each run delivered its whole payload.
+ *
+ * @file   BenchmarkTest.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class BenchmarkTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    public static void main (String[] args) {
+
+	run();
+	Check.exit();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Run every check. */
+    static void run () {
+
+	// Framing and de-framing of the smallest payloads, for every layer
+	// and kind of payload.
+	reports("    1024 ", 2 * 6 * 3);
+
+	// Whole transfers through one layer, over the perfect medium.
+	reports("Perfect    Parity ", 2);
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Run the benchmark for a millisecond a case, over the cases that match a
+     * filter, and check its report.
+     *
+     * @param filter The filter on the cases.
+     * @param rows   The number of cases that it should match.
+     */
+    private static void reports (String filter, int rows) {
+
+	ByteArrayOutputStream report   = new ByteArrayOutputStream();
+	PrintStream           original = System.out;
+	System.setOut(new PrintStream(report, true));
+	try {
+	    Benchmark.main(new String[] { "1", filter });
+	} finally {
+	    System.setOut(original);
+	}
+
+	String[] lines    = report.toString().split("\n");
+	int      measured = 0;
+	for (int i = 1; i < lines.length; i += 1) {
+	    String[] columns = lines[i].trim().split("\\s+");
+	    if (Double.parseDouble(columns[columns.length - 2]) > 0) {
+		measured += 1;
+	    }
+	}
+	Check.that(lines[0].startsWith("case"), "benchmark header");
+	Check.equal(rows, measured, "benchmark rows matching '" + filter + "'");
+
+    } // reports ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class BenchmarkTest
+// =============================================================================
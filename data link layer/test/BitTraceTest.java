@@ -0,0 +1,229 @@
+// =============================================================================
+// IMPORTS
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Random;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Tests of bit traces and their replay: bits recorded singly and in blocks
+ * at any offset must read back packed exactly, across the writing window's
+ * edge; and a trace of what a noisy medium delivered, replayed into a new
+ * receiver, must deliver exactly what the live receiver did.
+ *
+ * @file   BitTraceTest.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class BitTraceTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    public static void main (String[] args) {
+
+	run();
+	Check.exit();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Run every check. */
+    static void run () {
+
+	File file = null;
+	try {
+	    file = File.createTempFile("BitTraceTest", ".trace");
+	    String path = file.getPath();
+	    packsBits(path);
+	    crossesWindow(path);
+	    replays(path);
+	    Check.fails(() -> BitTrace.open(path + ".missing"), "a missing trace");
+	    Files.write(file.toPath(), new byte[100]);
+	    Check.fails(() -> BitTrace.open(path), "a file that is not a trace");
+	} catch (IOException e) {
+	    Check.that(false, "trace file: " + e);
+	} finally {
+	    if (file != null) {
+		file.delete();
+	    }
+	}
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record random bits, one at a time and in blocks of random offsets and
+     * lengths, and check that they read back packed, with the last byte
+     * padded with zeros.
+     *
+     * @param path The pathname of the trace.
+     */
+    private static void packsBits (String path) {
+
+	Random    random   = new Random(23);
+	boolean[] expected = new boolean[200_000];
+	int       count    = 0;
+	try (BitTrace trace = new BitTrace(path)) {
+	    while (count < expected.length - 2000) {
+		if (random.nextInt(4) == 0) {
+		    boolean bit = random.nextBoolean();
+		    trace.record(bit);
+		    expected[count++] = bit;
+		    continue;
+		}
+		byte[] block  = new byte[1 + random.nextInt(200)];
+		random.nextBytes(block);
+		int    offset = random.nextInt(8 * block.length);
+		int    length = random.nextInt(8 * block.length - offset + 1);
+		trace.record(block, offset, length);
+		for (int i = offset; i < offset + length; i += 1) {
+		    expected[count++] = ((block[i >>> 3] >>> (7 - (i & 7))) & 1) != 0;
+		}
+	    }
+	    Check.equal(count, trace.getBits(), "bits counted while recording");
+	}
+
+	BitTrace.Reader reader = BitTrace.open(path);
+	Check.equal(count, reader.getBits(), "bits in the finished trace");
+	byte[] packed = new byte[(count + 7) / 8 + 10];
+	Check.equal((count + 7) / 8, reader.read(0, packed, 0, packed.length),
+		    "bytes read back");
+	boolean matches = true;
+	for (int i = 0; i < 8 * ((count + 7) / 8); i += 1) {
+	    boolean bit = ((packed[i >>> 3] >>> (7 - (i & 7))) & 1) != 0;
+	    matches = matches && bit == (i < count && expected[i]);
+	}
+	Check.that(matches, "bits read back packed, padded with zeros");
+
+    } // packsBits ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record a bit and then more than a writing window's worth of whole
+     * bytes, so that each straddles two bytes of the file, and check the
+     * bytes on either side of the window's edge.
+     *
+     * @param path The pathname of the trace.
+     */
+    private static void crossesWindow (String path) {
+
+	int    blocks = 17;
+	byte[] block  = Check.randomBytes(1 << 20, 24);
+	try (BitTrace trace = new BitTrace(path)) {
+	    trace.record(true);
+	    for (int i = 0; i < blocks; i += 1) {
+		trace.record(block, 0, 8 * block.length);
+	    }
+	}
+
+	BitTrace.Reader reader = BitTrace.open(path);
+	Check.equal(1 + 8L * blocks * block.length, reader.getBits(),
+		    "bits of a trace past the window");
+	long   edge  = 16L << 20;
+	byte[] bytes = new byte[4];
+	reader.read(edge - 2, bytes, 0, bytes.length);
+	boolean matches = true;
+	for (int i = 0; i < bytes.length; i += 1) {
+	    long at       = edge - 2 + i;
+	    int  previous = block[(int)((at - 1) % block.length)] & 0xff;
+	    int  current  = block[(int)(at % block.length)] & 0xff;
+	    int  expected = ((previous << 7) | (current >>> 1)) & 0xff;
+	    matches = matches && (bytes[i] & 0xff) == expected;
+	}
+	Check.that(matches, "bytes across the window's edge");
+
+    } // crossesWindow ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record what a receiver is delivered over a noisy link, replay the
+     * trace, and check that replay delivers what the receiver did.
+     *
+     * @param path The pathname of the trace.
+     */
+    private static void replays (String path) {
+
+	Medium        medium   = Medium.create("LowNoise:ber=1e-4,seed=25");
+	Host          sender   = new Host(medium, "Crc");
+	Host          receiver = new Host(medium, "Crc");
+	MessageDigest digest   = sha256();
+	long[]        bytes    = new long[1];
+	receiver.setFrameListener(data -> {
+		bytes[0] += data.remaining();
+		digest.update(data);
+	    });
+	try (BitTrace trace = new BitTrace(path)) {
+	    receiver.getPhysicalLayer().setTrace(trace);
+	    sender.send(Check.randomBytes(100_000, 25));
+	    medium.close();
+	}
+	long flipped = receiver.getDataLinkLayer().getMetrics()
+	    .get("FramesDropped");
+	Check.that(flipped > 0 && bytes[0] < 100_000,
+		   "frames lost live to noise: " + flipped);
+
+	ByteArrayOutputStream out      = new ByteArrayOutputStream();
+	PrintStream           original = System.out;
+	System.setOut(new PrintStream(out, true));
+	try {
+	    TraceReplay.main(new String[] { "Crc", path, "2" });
+	} finally {
+	    System.setOut(original);
+	}
+	String report = out.toString();
+	Check.that(report.contains("Delivered:              " + bytes[0] +
+				   " bytes"),
+		   "bytes delivered by replay");
+	Check.that(report.contains("Delivered SHA-256:      " +
+				   HexFormat.of().formatHex(digest.digest())),
+		   "digest of the data delivered by replay");
+
+    } // replays ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return a new SHA-256 digest.
+     */
+    private static MessageDigest sha256 () {
+
+	try {
+	    return MessageDigest.getInstance("SHA-256");
+	} catch (NoSuchAlgorithmException e) {
+	    throw new RuntimeException("No SHA-256 digest available");
+	}
+
+    } // sha256 ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class BitTraceTest
+// =============================================================================
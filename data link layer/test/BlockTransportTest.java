@@ -0,0 +1,208 @@
+// =============================================================================
+// IMPORTS
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Tests of moving bits in blocks between the layers and the medium: a frame
+ * must arrive the same whether its bits come one at a time or in blocks of
+ * any size, at any bit offset.
+ *
+ * @file   BlockTransportTest.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class BlockTransportTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    public static void main (String[] args) {
+
+	run();
+	Check.exit();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Run every check. */
+    static void run () {
+
+	Check.roundTrips("Perfect", "Dumb");
+	Check.roundTrips("Perfect", "Parity");
+	for (String layer : new String[] { "Dumb", "Parity", "Crc" }) {
+	    splitBlocks(layer);
+	}
+	singleBitsReachBlockOverride();
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Capture the bits a layer sends for a payload, bit by bit through the
+     * medium's fallback, and feed them to a receiving layer one bit at a
+     * time, and then again in randomly sized blocks at random bit offsets.
+     * Each way must deliver the payload.
+     *
+     * @param layerType The specification of the data link layer.
+     */
+    private static void splitBlocks (String layerType) {
+
+	byte[]          payload = Check.randomBytes(300, 1);
+	RecordingMedium wire    = new RecordingMedium();
+	new Host(wire, layerType).send(payload);
+	byte[] bits     = wire.bits.toByteArray();
+	int    bitCount = wire.bitCount;
+
+	// One bit at a time.
+	Host single = receiver(layerType);
+	for (int i = 0; i < bitCount; i += 1) {
+	    single.getDataLinkLayer().receive(bit(bits, i));
+	}
+	Check.equal(payload, single.retrieve(), layerType + " bit by bit");
+
+	// In blocks, each copied to start at a random offset in its array.
+	Host   blocks = receiver(layerType);
+	Random random = new Random(2);
+	for (int i = 0; i < bitCount; ) {
+	    int    length = Math.min(bitCount - i, 1 + random.nextInt(40));
+	    int    offset = random.nextInt(8);
+	    byte[] block  = new byte[(offset + length + 7) / 8];
+	    for (int b = 0; b < length; b += 1) {
+		if (bit(bits, i + b)) {
+		    block[(offset + b) >>> 3] |= (byte)(0x80 >>> ((offset + b) & 7));
+		}
+	    }
+	    blocks.getDataLinkLayer().receive(block, offset, length);
+	    i += length;
+	}
+	Check.equal(payload, blocks.retrieve(), layerType + " in blocks");
+
+    } // splitBlocks ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Check that a layer extending the block method also sees the bits that
+     * arrive one at a time.
+     */
+    private static void singleBitsReachBlockOverride () {
+
+	CountingDataLinkLayer layer = new CountingDataLinkLayer();
+	new Host(new PerfectMedium(), layer);
+	for (int i = 0; i < 21; i += 1) {
+	    layer.receive(i % 3 == 0);
+	}
+	Check.equal(21, layer.bitsSeen, "single bits seen by a block override");
+
+    } // singleBitsReachBlockOverride ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  layerType The specification of the data link layer.
+     * @return a host on a medium of its own, whose data link layer is fed
+     *         bits directly.
+     */
+    private static Host receiver (String layerType) {
+
+	return new Host(new PerfectMedium(), layerType);
+
+    } // receiver ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  bits  Bits packed most significant first.
+     * @param  index The index of a bit.
+     * @return that bit.
+     */
+    private static boolean bit (byte[] bits, int index) {
+
+	return (bits[index >>> 3] & (0x80 >>> (index & 7))) != 0;
+
+    } // bit ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INNER CLASSES
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * A medium that delivers nothing, but records the bits sent to it.  It
+     * takes them one at a time, leaving blocks to the fallback in
+     * <code>Medium</code>.
+     */
+    private static final class RecordingMedium extends Medium {
+
+	public void transmit (PhysicalLayer sender, boolean bit) {
+
+	    portOf(sender);
+	    current = (current << 1) | (bit ? 1 : 0);
+	    bitCount += 1;
+	    if ((bitCount & 7) == 0) {
+		bits.write(current);
+		current = 0;
+	    }
+
+	}
+
+	/** The whole bytes recorded. */
+	final ByteArrayOutputStream bits = new ByteArrayOutputStream();
+
+	/** The bits of the partial byte. */
+	private int current;
+
+	/** The number of bits recorded. */
+	int bitCount;
+
+    } // class RecordingMedium
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** A layer that counts the bits passing through the block method. */
+    private static final class CountingDataLinkLayer extends DumbDataLinkLayer {
+
+	public void receive (byte[] data, int bitOffset, int bitLength) {
+
+	    bitsSeen += bitLength;
+	    super.receive(data, bitOffset, bitLength);
+
+	}
+
+	/** The number of bits received. */
+	long bitsSeen;
+
+    } // class CountingDataLinkLayer
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class BlockTransportTest
+// =============================================================================
@@ -0,0 +1,151 @@
+// =============================================================================
+// IMPORTS
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Tests of the byte ring buffer: it must behave as a queue of bytes however
+ * its contents wrap around the end of its array, and as it grows.
+ *
+ * @file   ByteRingBufferTest.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class ByteRingBufferTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    public static void main (String[] args) {
+
+	run();
+	Check.exit();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Run every check. */
+    static void run () {
+
+	empty();
+	matchesQueue();
+	bulkWrapsAround();
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Check an empty buffer, and the errors of reading past its end. */
+    private static void empty () {
+
+	ByteRingBuffer buffer = new ByteRingBuffer(3);
+	Check.that(buffer.isEmpty(), "a new buffer is empty");
+	Check.equal(0, buffer.remove(new byte[4], 0, 4), "bytes removed when empty");
+	Check.fails(() -> buffer.remove(), "removing from an empty buffer");
+	Check.fails(() -> buffer.get(0), "getting from an empty buffer");
+	Check.fails(() -> buffer.discard(1), "discarding from an empty buffer");
+
+	buffer.add((byte)7);
+	buffer.clear();
+	Check.that(buffer.isEmpty(), "a cleared buffer is empty");
+
+    } // empty ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Apply random adds, removes, gets and discards to a small buffer, which
+     * must wrap and grow, and to a queue, and check that they agree.
+     */
+    private static void matchesQueue () {
+
+	ByteRingBuffer   buffer   = new ByteRingBuffer(2);
+	ArrayDeque<Byte> expected = new ArrayDeque<Byte>();
+	Random           random   = new Random(3);
+	boolean          agree    = true;
+	for (int step = 0; step < 20_000 && agree; step += 1) {
+
+	    int choice = random.nextInt(10);
+	    if (choice < 5) {
+		byte value = (byte)random.nextInt();
+		buffer.add(value);
+		expected.add(value);
+	    } else if (choice < 8 && !expected.isEmpty()) {
+		agree = buffer.remove() == expected.remove();
+	    } else if (choice < 9 && !expected.isEmpty()) {
+		int index = random.nextInt(expected.size());
+		agree = buffer.get(index) ==
+			expected.stream().skip(index).findFirst().get();
+	    } else if (!expected.isEmpty()) {
+		int count = random.nextInt(expected.size() + 1);
+		buffer.discard(count);
+		for (int i = 0; i < count; i += 1) {
+		    expected.remove();
+		}
+	    }
+	    agree = agree && buffer.size() == expected.size();
+
+	}
+	Check.that(agree, "random operations agree with a queue");
+
+    } // matchesQueue ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Add and remove in bulk across the end of the array and through
+     * growth, into arrays and byte buffers.
+     */
+    private static void bulkWrapsAround () {
+
+	ByteRingBuffer buffer = new ByteRingBuffer(8);
+	byte[]         data   = Check.randomBytes(100, 4);
+
+	// Leave the head near the end, so that the next add wraps.
+	buffer.add(data, 0, 6);
+	buffer.discard(6);
+	buffer.add(data, 0, 5);
+	byte[] out = new byte[5];
+	Check.equal(5, buffer.remove(out, 0, 5), "bytes removed across the end");
+	Check.equal(Arrays.copyOf(data, 5), out, "bytes across the end");
+
+	// Grow while wrapped.
+	buffer.add(data, 0, 6);
+	buffer.add(data, 6, 94);
+	Check.equal(100, buffer.size(), "size after growing");
+	ByteBuffer into = ByteBuffer.allocate(60);
+	Check.equal(60, buffer.remove(into), "bytes removed into a byte buffer");
+	byte[] rest = new byte[50];
+	Check.equal(40, buffer.remove(rest, 10, 50), "bytes left to remove");
+	into.flip();
+	byte[] all = new byte[100];
+	into.get(all, 0, 60);
+	System.arraycopy(rest, 10, all, 60, 40);
+	Check.equal(data, all, "bytes through growth");
+	Check.that(buffer.isEmpty(), "buffer empty after removing all");
+
+    } // bulkWrapsAround ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class ByteRingBufferTest
+// =============================================================================
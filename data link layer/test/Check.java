@@ -0,0 +1,236 @@
+// =============================================================================
+// IMPORTS
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * The checks shared by the tests.  The tree has no test framework, so each
+ * test is a class with a <code>run()</code> method that makes its checks
+ * through here, and a <code>main()</code> that runs it alone;
+ * <code>AllTests</code> runs them all.  A failed check is reported and
+ * counted, and the run goes on, so that one run shows every failure.
+ *
+ * Compile and run the tests with the sources:
+ *
+ * <pre>
+ *   javac -d bin src/*.java test/*.java
+ *   java -cp bin AllTests
+ * </pre>
+ *
+ * @file   Check.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public final class Check {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Check that a condition holds.
+     *
+     * @param condition   The condition.
+     * @param description What the condition means, reported if it fails.
+     */
+    public static void that (boolean condition, String description) {
+
+	checks += 1;
+	if (!condition) {
+	    failures += 1;
+	    System.out.println("FAILED: " + description);
+	}
+
+    } // that ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Check that a number is as expected.
+     *
+     * @param expected    The expected value.
+     * @param actual      The value found.
+     * @param description What the value is, reported if it differs.
+     */
+    public static void equal (long expected, long actual, String description) {
+
+	that(expected == actual,
+	     description + ": expected " + expected + ", found " + actual);
+
+    } // equal ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Check that a sequence of bytes is as expected.
+     *
+     * @param expected    The expected bytes.
+     * @param actual      The bytes found.
+     * @param description What the bytes are, reported if they differ.
+     */
+    public static void equal (byte[] expected,
+			      byte[] actual,
+			      String description) {
+
+	if (actual == null || expected.length != actual.length) {
+	    that(false,
+		 description + ": expected " + expected.length + " bytes, found " +
+		 (actual == null ? "none" : actual.length));
+	    return;
+	}
+	int mismatch = Arrays.mismatch(expected, actual);
+	that(mismatch < 0,
+	     description + ": first differs at byte " + mismatch);
+
+    } // equal ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Check that a task throws a <code>RuntimeException</code>.
+     *
+     * @param task        The task.
+     * @param description What the task does, reported if it does not throw.
+     */
+    public static void fails (Runnable task, String description) {
+
+	try {
+	    task.run();
+	} catch (RuntimeException e) {
+	    that(true, description);
+	    return;
+	}
+	that(false, description + ": no exception thrown");
+
+    } // fails ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send a payload from one host to another over a new medium, and
+     * collect what the receiver delivers.
+     *
+     * @param  mediumType The specification of the medium.
+     * @param  layerType  The specification of both hosts' data link layers.
+     * @param  payload    The bytes to send.
+     * @return the bytes delivered, in order.
+     */
+    public static byte[] transfer (String mediumType,
+				   String layerType,
+				   byte[] payload) {
+
+	Medium                medium   = Medium.create(mediumType);
+	Host                  sender   = new Host(medium, layerType);
+	Host                  receiver = new Host(medium, layerType);
+	ByteArrayOutputStream received = new ByteArrayOutputStream();
+	receiver.setFrameListener(data -> {
+		byte[] chunk = new byte[data.remaining()];
+		data.get(chunk);
+		received.write(chunk, 0, chunk.length);
+	    });
+	try {
+	    sender.send(payload);
+	    medium.drain();
+	} finally {
+	    medium.close();
+	}
+	return received.toByteArray();
+
+    } // transfer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Check that payloads of the awkward sizes, from empty up to several
+     * frames, arrive intact over a medium.
+     *
+     * @param mediumType The specification of the medium.
+     * @param layerType  The specification of the data link layer.
+     */
+    public static void roundTrips (String mediumType, String layerType) {
+
+	for (int size : ROUND_TRIP_SIZES) {
+	    byte[] payload = randomBytes(size, size);
+	    equal(payload,
+		  transfer(mediumType, layerType, payload),
+		  layerType + " over " + mediumType + ", " + size + " bytes");
+	}
+
+    } // roundTrips ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  length The number of bytes.
+     * @param  seed   The seed from which to draw them.
+     * @return reproducible pseudo-random bytes.
+     */
+    public static byte[] randomBytes (int length, long seed) {
+
+	byte[] bytes = new byte[length];
+	new Random(seed).nextBytes(bytes);
+	return bytes;
+
+    } // randomBytes ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Report how many checks failed, and exit, with a failing status if any
+     * did.
+     */
+    public static void exit () {
+
+	System.out.println(checks + " checks, " + failures + " failed");
+	System.exit(failures == 0 ? 0 : 1);
+
+    } // exit ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /** The number of checks made. */
+    private static int checks;
+
+    /** The number of checks that failed. */
+    private static int failures;
+
+    /** The payload sizes sent by <code>roundTrips()</code>. */
+    private static final int[] ROUND_TRIP_SIZES = { 0, 1, 2, 7, 8, 9, 255,
+						    256, 1000, 5000 };
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class Check
+// =============================================================================
@@ -0,0 +1,184 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.Arrays;
+import java.util.Random;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Tests of coalescing: small messages, empty ones included, must share
+ * frames and still be told apart in order; a batch must wait until full,
+ * until its oldest message is old enough, or until flushed; and a message
+ * too large for a batch must go alone without losing its place.
+ *
+ * @file   CoalescingTest.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class CoalescingTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    public static void main (String[] args) {
+
+	run();
+	Check.exit();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Run every check. */
+    static void run () {
+
+	sharesFrames();
+	waitsForLimits();
+	largeMessages();
+
+	Medium medium = Medium.create("Perfect");
+	Host   host   = new Host(medium, "Dumb");
+	Check.fails(() -> host.setCoalescing(-1, 0), "a negative limit");
+	host.receive(new byte[] { (byte)0xff, (byte)0xff, (byte)0xff,
+				  (byte)0xff, (byte)0xff });
+	Check.fails(host::retrieveMessage, "a malformed message length");
+	medium.close();
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send many messages of up to ten bytes, coalesced, and check that each
+     * is retrieved whole and in order, in far fewer frames than messages.
+     */
+    private static void sharesFrames () {
+
+	Medium   medium   = Medium.create("Perfect");
+	Host     sender   = new Host(medium, "Parity:frameSize=64");
+	Host     receiver = new Host(medium, "Parity:frameSize=64");
+	Random   random   = new Random(26);
+	byte[][] messages = new byte[500][];
+	sender.setCoalescing(256, Long.MAX_VALUE);
+	for (int i = 0; i < messages.length; i += 1) {
+	    messages[i] = Check.randomBytes(random.nextInt(11), i);
+	    sender.send(messages[i]);
+	}
+	sender.flush();
+	medium.close();
+
+	boolean whole = true;
+	for (byte[] message : messages) {
+	    byte[] retrieved = receiver.retrieveMessage();
+	    whole = whole && Arrays.equals(message, retrieved);
+	}
+	Check.that(whole, "coalesced messages retrieved whole, in order");
+	Check.that(receiver.retrieveMessage() == null, "no message left over");
+
+	long frames  = sender.getDataLinkLayer().getMetrics().get("FramesSent");
+	long batches = sender.getMetrics().get("BatchesSent");
+	Check.equal(messages.length, sender.getMetrics().get("MessagesQueued"),
+		    "messages queued");
+	Check.equal(messages.length, receiver.getMetrics().get("MessagesRetrieved"),
+		    "messages retrieved");
+	Check.that(batches < messages.length / 20 && frames < messages.length / 5,
+		   batches + " batches in " + frames + " frames");
+
+    } // sharesFrames ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Check that queued messages are held until the batch fills, until the
+     * oldest has waited the limit on the medium's clock, or until flushed.
+     */
+    private static void waitsForLimits () {
+
+	TimedMedium medium   = new TimedMedium();
+	Host        sender   = new Host(medium, "Dumb");
+	Host        receiver = new Host(medium, "Dumb");
+	sender.setCoalescing(20, 1_000_000);
+
+	sender.send(new byte[5]);
+	sender.send(new byte[5]);
+	medium.drain();
+	Check.equal(0, receiver.available(), "bytes delivered from a part batch");
+
+	// A third message, with its length, fills the batch.
+	sender.send(new byte[7]);
+	medium.drain();
+	Check.equal(20, receiver.available(), "bytes delivered from a full batch");
+
+	// The first message is old enough by the time the second is sent.
+	sender.send(new byte[1]);
+	medium.advanceTo(medium.now() + 2_000_000);
+	sender.send(new byte[1]);
+	medium.drain();
+	Check.equal(24, receiver.available(), "bytes delivered once old enough");
+
+	// A flush, or turning coalescing off, sends what is queued.
+	sender.send(new byte[1]);
+	sender.flush();
+	sender.send(new byte[1]);
+	sender.setCoalescing(0, 0);
+	medium.drain();
+	Check.equal(28, receiver.available(), "bytes delivered once flushed");
+	int messages = 0;
+	while (receiver.retrieveMessage() != null) {
+	    messages += 1;
+	}
+	Check.equal(7, messages, "messages delivered");
+	medium.close();
+
+    } // waitsForLimits ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send messages too large for a batch between small ones, and check
+     * that every message comes out in the order sent.
+     */
+    private static void largeMessages () {
+
+	Medium   medium   = Medium.create("Perfect");
+	Host     sender   = new Host(medium, "Cobs");
+	Host     receiver = new Host(medium, "Cobs");
+	byte[][] messages = { Check.randomBytes(3, 27),
+			      Check.randomBytes(1000, 28),
+			      Check.randomBytes(0, 29),
+			      Check.randomBytes(200_000, 30),
+			      Check.randomBytes(7, 31) };
+	sender.setCoalescing(64, Long.MAX_VALUE);
+	for (byte[] message : messages) {
+	    sender.send(message);
+	}
+	sender.flush();
+	medium.close();
+
+	for (int i = 0; i < messages.length; i += 1) {
+	    byte[] retrieved = receiver.retrieveMessage();
+	    Check.equal(messages[i],
+			retrieved == null ? new byte[] { -1 } : retrieved,
+			"message " + i + " of " + messages[i].length + " bytes");
+	}
+
+    } // largeMessages ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class CoalescingTest
+// =============================================================================
@@ -0,0 +1,148 @@
+// =============================================================================
+// IMPORTS
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Tests of the COBS layer: frames must match the published encodings, keep
+ * the delimiter out of their bodies, stay within one byte per 254 of
+ * overhead whatever the data, and round-trip; and a frame cut short must be
+ * dropped without harming the next.
+ *
+ * @file   CobsTest.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class CobsTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    public static void main (String[] args) {
+
+	run();
+	Check.exit();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Run every check. */
+    static void run () {
+
+	encodes(new byte[] {},                 new byte[] { 1, 0 });
+	encodes(new byte[] { 0 },              new byte[] { 1, 1, 0 });
+	encodes(new byte[] { 0, 0 },           new byte[] { 1, 1, 1, 0 });
+	encodes(new byte[] { 0x11, 0x22, 0, 0x33 },
+		new byte[] { 3, 0x11, 0x22, 2, 0x33, 0 });
+	encodes(new byte[] { 0x11, 0, 0, 0 },
+		new byte[] { 2, 0x11, 1, 1, 1, 0 });
+
+	// Payloads of zeros, of tags, of no zeros at all, and of blocks just
+	// over and under the longest.
+	byte[] tags = new byte[1000];
+	Arrays.fill(tags, (byte)'{');
+	byte[] ones = new byte[1000];
+	Arrays.fill(ones, (byte)0xff);
+	byte[][] payloads = { new byte[1000], tags, ones,
+			      Arrays.copyOf(ones, 253), Arrays.copyOf(ones, 254),
+			      Arrays.copyOf(ones, 255), Check.randomBytes(5000, 14) };
+	for (byte[] payload : payloads) {
+	    boundedOverhead(payload);
+	    Check.equal(payload,
+			Check.transfer("Perfect", "Cobs", payload),
+			"Cobs round trip of " + payload.length + " bytes");
+	}
+	Check.roundTrips("Perfect", "Cobs");
+	dropsTruncatedFrame();
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Check the frame built for a payload.
+     *
+     * @param payload The payload.
+     * @param frame   Its expected frame.
+     */
+    private static void encodes (byte[] payload, byte[] frame) {
+
+	Check.equal(frame,
+		    new CobsDataLinkLayer().createFrame(payload),
+		    "Cobs frame of " + Arrays.toString(payload));
+
+    } // encodes ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Check that a payload's frame holds a zero only at its end, and that it
+     * adds no more than a code byte per 254 bytes of data, plus two.
+     *
+     * @param payload The payload.
+     */
+    private static void boundedOverhead (byte[] payload) {
+
+	byte[] frame = new CobsDataLinkLayer().createFrame(payload);
+	int    zeros = 0;
+	for (byte b : frame) {
+	    zeros += b == 0 ? 1 : 0;
+	}
+	String what = "Cobs frame of " + payload.length + " bytes";
+	Check.that(zeros == 1 && frame[frame.length - 1] == 0,
+		   what + " ends at its only zero");
+	Check.that(frame.length <= payload.length + payload.length / 254 + 2,
+		   what + " within its overhead: " + frame.length);
+
+    } // boundedOverhead ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Feed a receiver a frame whose delimiter arrives in the middle of a
+     * block, and then an intact frame, and check that only the latter is
+     * delivered.
+     */
+    private static void dropsTruncatedFrame () {
+
+	Medium                medium   = Medium.create("Perfect");
+	Host                  receiver = new Host(medium, "Cobs");
+	ByteArrayOutputStream received = new ByteArrayOutputStream();
+	receiver.setFrameListener(data -> {
+		byte[] chunk = new byte[data.remaining()];
+		data.get(chunk);
+		received.write(chunk, 0, chunk.length);
+	    });
+	CobsDataLinkLayer layer = (CobsDataLinkLayer)receiver.getDataLinkLayer();
+	byte[] stream = { 5, 0x11, 0x22, 0, 3, 0x11, 0x22, 2, 0x33, 0 };
+	layer.receive(stream, 0, 8 * stream.length);
+	medium.close();
+
+	Check.equal(new byte[] { 0x11, 0x22, 0, 0x33 },
+		    received.toByteArray(),
+		    "Cobs delivery after a truncated frame");
+	Check.equal(1, layer.truncatedFrames.sum(), "Cobs truncated frames");
+
+    } // dropsTruncatedFrame ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class CobsTest
+// =============================================================================
@@ -0,0 +1,170 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.concurrent.TimeUnit;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Tests of the component registry: specifications must reach factories as
+ * typed parameters, bad ones must be refused, replacing a component must
+ * take effect for specifications already seen, and a class that follows the
+ * naming convention must be found without being registered.
+ *
+ * @file   ComponentRegistryTest.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class ComponentRegistryTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    public static void main (String[] args) {
+
+	run();
+	Check.exit();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Run every check. */
+    static void run () {
+
+	ComponentRegistry registry = new ComponentRegistry();
+	Check.that(registry.layerNames().contains("Parity") &&
+		   registry.mediumNames().contains("LowNoise"),
+		   "built-in components registered");
+	Check.that(registry.newLayer("Parity") != registry.newLayer("Parity"),
+		   "a new layer for each request");
+
+	parameters(registry);
+	refusals(registry);
+	replacement(registry);
+
+	// Found by name, and kept.
+	DataLinkLayer probe = registry.newLayer("ComponentRegistryTest$Probe");
+	Check.that(probe instanceof ProbeDataLinkLayer,
+		   "a conventionally named layer found by reflection");
+	Check.that(registry.layerNames().contains("ComponentRegistryTest$Probe"),
+		   "a layer found by reflection kept");
+	Check.fails(() -> registry.newLayer("ComponentRegistryTest$Probe:a=1"),
+		    "a parameter for a layer found by reflection");
+	Check.fails(() -> registry.newLayer("ComponentRegistryTest$Not"),
+		    "a conventionally named class of the wrong kind");
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Check that each kind of parameter reaches a factory. */
+    private static void parameters (ComponentRegistry registry) {
+
+	ComponentRegistry.Parameters[] given = new ComponentRegistry.Parameters[1];
+	registry.addLayer("Probe",
+			  p -> {
+			      given[0] = p;
+			      p.getEnum("unit", TimeUnit.DAYS);
+			      return new ProbeDataLinkLayer();
+			  },
+			  "count", "size", "rate", "unit", "label");
+
+	registry.newLayer("Probe:count=7, size=12345678901,rate=2.5e-3," +
+			  "unit=SECONDS,label=x/y");
+	ComponentRegistry.Parameters p = given[0];
+	Check.equal(7, p.getInt("count", 0), "an integer parameter");
+	Check.equal(12345678901L, p.getLong("size", 0), "a long parameter");
+	Check.that(p.getDouble("rate", 0) == 2.5e-3, "a number parameter");
+	Check.that(p.getEnum("unit", TimeUnit.DAYS) == TimeUnit.SECONDS,
+		   "an enumerated parameter");
+	Check.that("x/y".equals(p.getString("label")), "a string parameter");
+
+	registry.newLayer("Probe");
+	p = given[0];
+	Check.that(!p.has("count") && p.getInt("count", 3) == 3 &&
+		   p.getEnum("unit", TimeUnit.DAYS) == TimeUnit.DAYS &&
+		   p.getString("label") == null,
+		   "defaults for parameters left out");
+
+    } // parameters ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Check that bad specifications are refused. */
+    private static void refusals (ComponentRegistry registry) {
+
+	Check.fails(() -> registry.newLayer("Nonexistent"), "an unknown layer");
+	Check.fails(() -> registry.newMedium("Nonexistent"), "an unknown medium");
+	Check.fails(() -> registry.newLayer("Parity:colour=red"),
+		    "an unknown parameter");
+	Check.fails(() -> registry.newLayer("Parity:frameSize"),
+		    "a parameter without a value");
+	Check.fails(() -> registry.newLayer("Parity:frameSize=big"),
+		    "a parameter of the wrong type");
+	Check.fails(() -> registry.newMedium("LowNoise:ber=often"),
+		    "a medium parameter of the wrong type");
+	Check.fails(() -> registry.newLayer("Probe:unit=FORTNIGHTS"),
+		    "an unknown constant");
+
+    } // refusals ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Check that replacing a component affects specifications seen before. */
+    private static void replacement (ComponentRegistry registry) {
+
+	registry.addLayer("Swapped", p -> new DumbDataLinkLayer());
+	Check.that(registry.newLayer("Swapped") instanceof DumbDataLinkLayer,
+		   "a layer as first registered");
+	registry.addLayer("Swapped", p -> new CobsDataLinkLayer());
+	Check.that(registry.newLayer("Swapped") instanceof CobsDataLinkLayer,
+		   "a layer as replaced");
+
+    } // replacement ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INNER CLASSES
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** A layer found only by its conventional name. */
+    public static class ProbeDataLinkLayer extends DumbDataLinkLayer {
+
+	public ProbeDataLinkLayer () {}
+
+    } // class ProbeDataLinkLayer
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** A class with a layer's conventional name that is not a layer. */
+    public static class NotDataLinkLayer {
+
+	public NotDataLinkLayer () {}
+
+    } // class NotDataLinkLayer
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class ComponentRegistryTest
+// =============================================================================
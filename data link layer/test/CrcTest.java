@@ -0,0 +1,116 @@
+// =============================================================================
+// IMPORTS
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Checksum;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Tests of the CRC layer and its checksums: each CRC must give its published
+ * check value, frames must round-trip under each, and no frame damaged by a
+ * single flipped bit may be delivered.
+ *
+ * @file   CrcTest.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class CrcTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    public static void main (String[] args) {
+
+	run();
+	Check.exit();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Run every check. */
+    static void run () {
+
+	// The check value of each CRC is its value over "123456789".
+	checkValue(CrcDataLinkLayer.Algorithm.CRC16,  0x29b1L);
+	checkValue(CrcDataLinkLayer.Algorithm.CRC32,  0xcbf43926L);
+	checkValue(CrcDataLinkLayer.Algorithm.CRC32C, 0xe3069283L);
+
+	for (CrcDataLinkLayer.Algorithm algorithm :
+		 CrcDataLinkLayer.Algorithm.values()) {
+	    String layer = "Crc:algorithm=" + algorithm + ",frameSize=100";
+	    Check.roundTrips("Perfect", layer);
+	    catchesSingleFlips(layer);
+	}
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Check a CRC's value over the standard check input, computed all at
+     * once, a byte at a time, and after a reset.
+     *
+     * @param algorithm The CRC.
+     * @param expected  Its published check value.
+     */
+    private static void checkValue (CrcDataLinkLayer.Algorithm algorithm,
+				    long                       expected) {
+
+	byte[]   input    = "123456789".getBytes(StandardCharsets.US_ASCII);
+	Checksum checksum = algorithm.newChecksum();
+	checksum.update(new byte[] { 42 }, 0, 1);
+	checksum.reset();
+	checksum.update(input, 0, input.length);
+	Check.equal(expected, checksum.getValue(), algorithm + " check value");
+
+	checksum.reset();
+	for (byte b : input) {
+	    checksum.update(b);
+	}
+	Check.equal(expected, checksum.getValue(),
+		    algorithm + " check value a byte at a time");
+
+    } // checkValue ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send a frame over a medium that flips one bit of it, for each bit in
+     * turn, and check that the receiver never delivers anything.
+     *
+     * @param layerType The specification of the data link layer.
+     */
+    private static void catchesSingleFlips (String layerType) {
+
+	byte[] payload = Check.randomBytes(40, 9);
+	int    bits    = 8 * (ComponentRegistry.getDefault().newLayer(layerType)
+			      .createFrame(payload.clone()).length);
+	int    caught  = 0;
+	for (int bit = 0; bit < bits; bit += 1) {
+	    byte[] received =
+		Check.transfer("LowNoise:model=fixedPattern,positions=" + bit,
+			       layerType,
+			       payload);
+	    caught += received.length == 0 ? 1 : 0;
+	}
+	Check.equal(bits, caught, layerType + " frames caught with a flipped bit");
+
+    } // catchesSingleFlips ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class CrcTest
+// =============================================================================
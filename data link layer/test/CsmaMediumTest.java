@@ -0,0 +1,137 @@
+// =============================================================================
+/**
+ * Tests of the CSMA/CD medium: a lone sender never collides, senders ready
+ * together always do, every block is either delivered or dropped, and a run
+ * with the same seed is repeated exactly.
+ *
+ * @file   CsmaMediumTest.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class CsmaMediumTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    public static void main (String[] args) {
+
+	run();
+	Check.exit();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Run every check. */
+    static void run () {
+
+	Check.roundTrips("Csma", "Crc");
+	Check.roundTrips("Csma", "GoBackN");
+
+	// A lone sender has the channel to itself.
+	CsmaMedium alone = contend(1, 20, "Csma");
+	Check.equal(0, alone.getCollisions(0), "collisions of a lone sender");
+	Check.equal(alone.getAttempts(0), alone.getSuccesses(0),
+		    "attempts of a lone sender");
+
+	// Two senders ready at once collide on their first attempts, and
+	// then share the channel.
+	CsmaMedium pair = contend(2, 20, "Csma");
+	Check.that(pair.getCollisions(0) > 0 && pair.getCollisions(1) > 0,
+		   "two senders ready together collide");
+	for (int port = 0; port < 2; port += 1) {
+	    Check.equal(20, pair.getSuccesses(port) + pair.getDrops(port),
+			"blocks of port " + port + " delivered or dropped");
+	}
+
+	// Many senders, twice with one seed and once with another.
+	CsmaMedium first  = contend(30, 10, "Csma:seed=3");
+	CsmaMedium second = contend(30, 10, "Csma:seed=3");
+	CsmaMedium other  = contend(30, 10, "Csma:seed=4");
+	long       total  = 0;
+	boolean    same   = true;
+	for (int port = 0; port < 30; port += 1) {
+	    total += first.getSuccesses(port) + first.getDrops(port);
+	    same   = same &&
+		     first.getAttempts(port)   == second.getAttempts(port) &&
+		     first.getCollisions(port) == second.getCollisions(port);
+	}
+	Check.equal(300, total, "blocks of 30 senders delivered or dropped");
+	Check.that(same, "a run repeated with the same seed");
+	Check.that(first.now() == second.now() && first.now() != other.now(),
+		   "simulated time depends only on the seed");
+
+	// A wider backoff range spreads many senders out, so fewer collide.
+	CsmaMedium narrow = contend(30, 10, "Csma:backoffLimit=1");
+	CsmaMedium wide   = contend(30, 10, "Csma:backoffLimit=10");
+	Check.that(collisions(wide, 30) < collisions(narrow, 30),
+		   "a wider backoff range leaves fewer collisions");
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Have several hosts each offer several one-block frames at simulated
+     * time zero, and run the medium until all are delivered or dropped.
+     *
+     * @param  hostCount  The number of sending hosts, each on a port of the
+     *                    same number.
+     * @param  frameCount The number of frames each sends.
+     * @param  mediumType The specification of the medium.
+     * @return the medium, for its tallies.
+     */
+    private static CsmaMedium contend (int    hostCount,
+				       int    frameCount,
+				       String mediumType) {
+
+	CsmaMedium medium = (CsmaMedium)Medium.create(mediumType);
+	Host[]     hosts  = new Host[hostCount + 1];
+	for (int i = 0; i < hosts.length; i += 1) {
+	    hosts[i] = new Host(medium, "Crc");
+	}
+	for (int i = 0; i < hostCount; i += 1) {
+	    Host   host    = hosts[i];
+	    byte[] payload = Check.randomBytes(100, i);
+	    medium.at(0, () -> {
+		    for (int f = 0; f < frameCount; f += 1) {
+			host.send(payload);
+		    }
+		});
+	}
+	medium.drain();
+	medium.close();
+	return medium;
+
+    } // contend ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  medium    A medium.
+     * @param  portCount The number of ports to count.
+     * @return the collisions on those ports.
+     */
+    private static long collisions (CsmaMedium medium, int portCount) {
+
+	long total = 0;
+	for (int port = 0; port < portCount; port += 1) {
+	    total += medium.getCollisions(port);
+	}
+	return total;
+
+    } // collisions ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class CsmaMediumTest
+// =============================================================================
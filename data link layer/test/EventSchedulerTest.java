@@ -0,0 +1,206 @@
+// =============================================================================
+// IMPORTS
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Tests of the discrete-event scheduler and the timed medium: events must
+ * run in order of time, and of scheduling at equal times, never nested; and
+ * the medium must deliver each block once its bits have been sent and have
+ * crossed the link, behind any block ahead of it.
+ *
+ * @file   EventSchedulerTest.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class EventSchedulerTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    public static void main (String[] args) {
+
+	run();
+	Check.exit();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Run every check. */
+    static void run () {
+
+	ordering();
+	runNextAndUntil();
+	noNesting();
+
+	Check.roundTrips("Timed", "Dumb");
+	Check.roundTrips("Timed", "Parity");
+	timing();
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Schedule many events at random times, with many ties, and check that
+     * they run in order of time, ties in the order scheduled, each at its
+     * own time.
+     */
+    private static void ordering () {
+
+	EventScheduler scheduler = new EventScheduler();
+	List<long[]>   fired     = new ArrayList<long[]>();
+	Random         random    = new Random(22);
+	int            count     = 1000;
+	long[]         times     = new long[count];
+	for (int i = 0; i < count; i += 1) {
+	    final int id = i;
+	    times[i] = random.nextInt(50);
+	    scheduler.schedule(times[i],
+			       time -> fired.add(new long[] { time, id,
+							      scheduler.now() }));
+	}
+	Check.equal(count, scheduler.pending(), "events pending");
+	scheduler.runAll();
+
+	boolean ordered = fired.size() == count;
+	for (int i = 0; ordered && i < count; i += 1) {
+	    long[] event = fired.get(i);
+	    ordered = event[0] == times[(int)event[1]] && event[2] == event[0];
+	    if (ordered && i > 0) {
+		long[] previous = fired.get(i - 1);
+		ordered = previous[0] < event[0] ||
+			  (previous[0] == event[0] && previous[1] < event[1]);
+	    }
+	}
+	Check.that(ordered, "events run by time, then by order scheduled");
+	Check.equal(count, scheduler.eventsRun(), "events run");
+	Check.equal(0, scheduler.pending(), "events pending after running all");
+	Check.fails(() -> scheduler.schedule(scheduler.now() - 1, time -> {}),
+		    "an event scheduled in the past");
+
+    } // ordering ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Check that running the next time runs every event due then, including
+     * those they schedule for it, and that running until a time runs those
+     * due by then and moves the clock to it.
+     */
+    private static void runNextAndUntil () {
+
+	EventScheduler scheduler = new EventScheduler();
+	StringBuilder  order     = new StringBuilder();
+	scheduler.schedule(10, time -> {
+		order.append('a');
+		scheduler.schedule(10, t -> order.append('c'));
+		scheduler.schedule(15, t -> order.append('d'));
+	    });
+	scheduler.schedule(10, time -> order.append('b'));
+	scheduler.schedule(30, time -> order.append('e'));
+
+	Check.that(scheduler.runNext() && order.toString().equals("abc"),
+		   "one time's events run: " + order);
+	Check.equal(10, scheduler.now(), "clock after running one time");
+
+	scheduler.runUntil(20);
+	Check.that(order.toString().equals("abcd"), "events due by a time run");
+	Check.equal(20, scheduler.now(), "clock moved to the time run until");
+	Check.equal(1, scheduler.pending(), "later events left pending");
+
+	scheduler.runUntil(5);
+	Check.equal(20, scheduler.now(), "clock never moved back");
+	scheduler.runAll();
+	Check.that(!scheduler.runNext(), "nothing to run once empty");
+	Check.equal(30, scheduler.now(), "clock at the last event");
+
+    } // runNextAndUntil ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Check that an event that asks to run events does not run them inside
+     * itself, so that they still run in order, after it.
+     */
+    private static void noNesting () {
+
+	EventScheduler scheduler = new EventScheduler();
+	StringBuilder  order     = new StringBuilder();
+	scheduler.schedule(1, time -> {
+		order.append('[');
+		scheduler.runAll();
+		scheduler.runUntil(100);
+		Check.that(!scheduler.runNext(), "nested run refused");
+		order.append(']');
+	    });
+	scheduler.schedule(2, time -> order.append('x'));
+	scheduler.runAll();
+	Check.that(order.toString().equals("[]x"),
+		   "events run after, not inside, the running one: " + order);
+
+    } // noNesting ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send two payloads at once over a slow timed link, and check that the
+     * second is delivered behind the first, each after its bits have been
+     * sent and have crossed the link, and that latency is reported.
+     */
+    private static void timing () {
+
+	TimedMedium medium   = new TimedMedium(1e6, 1_000_000);
+	Host        sender   = new Host(medium, "Dumb");
+	Host        receiver = new Host(medium, "Dumb");
+	byte[]      payload  = new byte[3000];
+	long        bits     = 8L * new DumbDataLinkLayer().createFrame(payload).length;
+
+	sender.send(payload);
+	sender.send(payload);
+	Check.equal(0, receiver.available(), "bytes delivered before time runs");
+	Check.that(medium.advance(), "the first arrival run");
+	Check.equal(bits * 1000 + 1_000_000, medium.now(),
+		    "first arrival after its bits and the delay");
+	Check.equal(3000, receiver.available(), "bytes of the first arrival");
+	medium.drain();
+	Check.equal(2 * bits * 1000 + 1_000_000, medium.now(),
+		    "second arrival behind the first");
+	Check.equal(6000, receiver.available(), "bytes of both arrivals");
+
+	ByteArrayOutputStream report = new ByteArrayOutputStream();
+	medium.report(new PrintStream(report, true));
+	Check.that(report.toString().contains("Frame latency:          p50 "),
+		   "latency reported");
+	medium.close();
+
+	Check.fails(() -> new TimedMedium(0, 0), "a bit rate of zero");
+
+    } // timing ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class EventSchedulerTest
+// =============================================================================
@@ -0,0 +1,118 @@
+// =============================================================================
+// IMPORTS
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Tests of building frames straight into a buffer: each layer's predicted
+ * length must hold the frame it then writes, exactly for the simple layers,
+ * and a frame built from part of an array must match one built from a copy
+ * of that part.
+ *
+ * @file   FrameBuildingTest.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class FrameBuildingTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    public static void main (String[] args) {
+
+	run();
+	Check.exit();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Run every check. */
+    static void run () {
+
+	// Payloads full of tags and escapes, and plain ones.
+	byte[][] payloads = { new byte[0],
+			      { '{' },
+			      "a{b}c\\d{{}}\\\\".getBytes(),
+			      Check.randomBytes(1000, 5) };
+	for (byte[] payload : payloads) {
+	    for (String layer : new String[] { "Dumb", "Parity" }) {
+		matchesCopy(layer, payload, true);
+	    }
+	    for (String layer : new String[] { "Crc", "Cobs", "Hdlc",
+					       "ReedSolomon" }) {
+		matchesCopy(layer, payload, false);
+	    }
+	}
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Frame a payload placed in the middle of a larger array, and check it
+     * against its predicted length, and against the frame built from a copy
+     * of the payload alone by a fresh layer.
+     *
+     * @param layerType The specification of the data link layer.
+     * @param payload   The payload.
+     * @param exact     Whether the predicted length must be exact.
+     */
+    private static void matchesCopy (String  layerType,
+				     byte[]  payload,
+				     boolean exact) {
+
+	String what   = layerType + " frame of " + payload.length + " bytes";
+	byte[] padded = new byte[payload.length + 10];
+	Arrays.fill(padded, (byte)'{');
+	System.arraycopy(payload, 0, padded, 3, payload.length);
+
+	DataLinkLayer layer     = newLayer(layerType);
+	int           predicted = layer.frameLength(padded, 3, payload.length);
+	ByteBuffer    framed    = ByteBuffer.allocate(Math.max(predicted, 0));
+	layer.createFrame(padded, 3, payload.length, framed);
+	if (exact) {
+	    Check.equal(predicted, framed.position(), what + ", length");
+	} else {
+	    Check.that(framed.position() <= predicted, what + " fits its bound");
+	}
+
+	byte[] fromCopy = newLayer(layerType).createFrame(payload.clone());
+	Check.equal(fromCopy,
+		    Arrays.copyOf(framed.array(), framed.position()),
+		    what + " from an offset");
+
+    } // matchesCopy ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  layerType The specification of the data link layer.
+     * @return a new layer, attached to a host so that it may count.
+     */
+    private static DataLinkLayer newLayer (String layerType) {
+
+	DataLinkLayer layer = ComponentRegistry.getDefault().newLayer(layerType);
+	new Host(new PerfectMedium(), layer);
+	return layer;
+
+    } // newLayer ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class FrameBuildingTest
+// =============================================================================
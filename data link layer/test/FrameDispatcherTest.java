@@ -0,0 +1,184 @@
+// =============================================================================
+// IMPORTS
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Tests of push delivery: a host's listener must be handed read-only views
+ * in place of buffering, and a dispatcher must hand frames over in order on
+ * its own thread, hold the delivering thread back when full, pass a
+ * listener's failure back, and stop its thread when closed.
+ *
+ * @file   FrameDispatcherTest.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class FrameDispatcherTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    public static void main (String[] args) {
+
+	run();
+	Check.exit();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Run every check. */
+    static void run () {
+
+	hostListener();
+	ordersAndHoldsBack();
+	passesFailureBack();
+	throughPipelinedMedium();
+	Check.fails(() -> new FrameDispatcher(data -> {}, 0), "a capacity of zero");
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Check that a host with a listener hands it read-only views, and
+     * buffers nothing.
+     */
+    private static void hostListener () {
+
+	Medium    medium   = Medium.create("Perfect");
+	Host      sender   = new Host(medium, "Dumb");
+	Host      receiver = new Host(medium, "Dumb");
+	boolean[] readOnly = { true };
+	int[]     bytes    = new int[1];
+	receiver.setFrameListener(data -> {
+		readOnly[0] = readOnly[0] && data.isReadOnly();
+		bytes[0]   += data.remaining();
+	    });
+	sender.send(Check.randomBytes(1000, 20));
+	medium.close();
+
+	Check.equal(1000, bytes[0], "bytes handed to the listener");
+	Check.that(readOnly[0], "views handed to the listener are read-only");
+	Check.equal(0, receiver.available(), "bytes buffered with a listener");
+
+    } // hostListener ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Deliver numbered frames to a slow listener through a small dispatcher,
+     * reusing one buffer for each, and check that they are handed over in
+     * order, intact, on another thread, with no more than the capacity
+     * waiting; and that closing stops the thread.
+     */
+    private static void ordersAndHoldsBack () {
+
+	int           frames   = 500;
+	int           capacity = 4;
+	AtomicInteger consumed = new AtomicInteger();
+	boolean[]     ordered  = { true };
+	Thread[]      consumer = new Thread[1];
+	FrameDispatcher dispatcher = new FrameDispatcher(data -> {
+		ordered[0]  = ordered[0] && data.getInt() == consumed.get();
+		consumer[0] = Thread.currentThread();
+		if (consumed.get() % 50 == 0) {
+		    Thread.yield();
+		}
+		consumed.incrementAndGet();
+	    }, capacity);
+
+	ByteBuffer reused = ByteBuffer.allocate(Integer.BYTES);
+	int        behind = 0;
+	for (int i = 0; i < frames; i += 1) {
+	    reused.clear();
+	    reused.putInt(i).flip();
+	    dispatcher.frameReceived(reused);
+	    reused.putInt(0, -1);
+	    behind = Math.max(behind, i + 1 - consumed.get());
+	}
+	dispatcher.awaitEmpty();
+
+	Check.equal(frames, consumed.get(), "frames handed over");
+	Check.that(ordered[0], "frames handed over in order, intact");
+	Check.that(consumer[0] != Thread.currentThread(),
+		   "frames handed over on the dispatcher's thread");
+	Check.that(behind <= capacity + 1,
+		   "frames waiting at most: " + behind);
+
+	dispatcher.close();
+	dispatcher.close();
+	Check.that(!consumer[0].isAlive(), "thread stopped on close");
+	Check.fails(() -> dispatcher.frameReceived(ByteBuffer.allocate(1)),
+		    "a frame after close");
+
+    } // ordersAndHoldsBack ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Check that a listener's failure reaches the delivering thread. */
+    private static void passesFailureBack () {
+
+	FrameDispatcher dispatcher = new FrameDispatcher(data -> {
+		throw new IllegalStateException("listener failed");
+	    }, 2);
+	dispatcher.frameReceived(ByteBuffer.allocate(1));
+	Check.fails(dispatcher::awaitEmpty, "waiting after the listener failed");
+	Check.fails(() -> dispatcher.frameReceived(ByteBuffer.allocate(1)),
+		    "a frame after the listener failed");
+	dispatcher.close();
+
+    } // passesFailureBack ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send a payload over a pipelined medium to a host whose listener is a
+     * dispatcher, and check that it arrives whole.
+     */
+    private static void throughPipelinedMedium () {
+
+	Medium                medium     = Medium.create("Pipelined");
+	Host                  sender     = new Host(medium, "Parity");
+	Host                  receiver   = new Host(medium, "Parity");
+	ByteArrayOutputStream received   = new ByteArrayOutputStream();
+	FrameDispatcher       dispatcher = new FrameDispatcher(data -> {
+		byte[] chunk = new byte[data.remaining()];
+		data.get(chunk);
+		received.write(chunk, 0, chunk.length);
+	    }, 8);
+	receiver.setFrameListener(dispatcher);
+	byte[] payload = Check.randomBytes(20_000, 21);
+	sender.send(payload);
+	medium.drain();
+	dispatcher.close();
+	medium.close();
+
+	Check.equal(payload, received.toByteArray(),
+		    "payload through a dispatcher over a pipelined medium");
+
+    } // throughPipelinedMedium ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class FrameDispatcherTest
+// =============================================================================
@@ -0,0 +1,139 @@
+// =============================================================================
+// IMPORTS
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Tests of the HDLC layer: frames must round-trip whatever their data, six
+ * 1s must appear on the wire only in flags, and the receiver must find the
+ * next frame at any bit position, after junk bits or a damaged frame.
+ *
+ * @file   HdlcTest.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class HdlcTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    public static void main (String[] args) {
+
+	run();
+	Check.exit();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Run every check. */
+    static void run () {
+
+	Check.roundTrips("Perfect", "Hdlc");
+	Check.roundTrips("Perfect", "Hdlc:frameSize=1");
+	Check.roundTrips("Perfect", "Hdlc:frameSize=7");
+
+	// Payloads of all 1s, of flags, and of runs just short of a flag.
+	byte[] ones = new byte[300];
+	Arrays.fill(ones, (byte)0xff);
+	byte[] flags = new byte[300];
+	Arrays.fill(flags, (byte)0x7e);
+	byte[] runs = new byte[300];
+	Arrays.fill(runs, (byte)0x3e);
+	for (byte[] payload : new byte[][] { ones, flags, runs }) {
+	    String what = "Hdlc frame of " + String.format("0x%02x", payload[0]) + "s";
+	    Check.equal(payload, Check.transfer("Perfect", "Hdlc", payload), what);
+	    Check.equal(3, sixOnes(new HdlcDataLinkLayer().createFrame(payload)),
+			what + ", runs of six 1s");
+	}
+
+	for (int junk = 0; junk < 8; junk += 1) {
+	    findsFrameAfter(junk);
+	}
+
+	// A flipped bit in the first of three frames loses that frame alone.
+	byte[] payload = Check.randomBytes(48, 15);
+	Check.equal(Arrays.copyOfRange(payload, 16, 48),
+		    Check.transfer("LowNoise:model=fixedPattern,positions=20",
+				   "Hdlc:frameSize=16",
+				   payload),
+		    "Hdlc frames after a damaged one");
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Feed a receiver some junk bits and then a frame, so that the frame
+     * starts part way through a byte, and check that it is delivered.
+     *
+     * @param junk The number of junk bits, each a 1.
+     */
+    private static void findsFrameAfter (int junk) {
+
+	byte[] payload = Check.randomBytes(100, 16 + junk);
+	byte[] frame   = new HdlcDataLinkLayer().createFrame(payload);
+	byte[] stream  = new byte[frame.length + 1];
+	for (int i = 0; i < junk; i += 1) {
+	    stream[0] |= (byte)(0x80 >>> i);
+	}
+	for (int i = 0; i < 8 * frame.length; i += 1) {
+	    if ((frame[i >>> 3] & (0x80 >>> (i & 7))) != 0) {
+		int bit = junk + i;
+		stream[bit >>> 3] |= (byte)(0x80 >>> (bit & 7));
+	    }
+	}
+
+	Medium                medium   = Medium.create("Perfect");
+	Host                  receiver = new Host(medium, "Hdlc");
+	ByteArrayOutputStream received = new ByteArrayOutputStream();
+	receiver.setFrameListener(data -> {
+		byte[] chunk = new byte[data.remaining()];
+		data.get(chunk);
+		received.write(chunk, 0, chunk.length);
+	    });
+	receiver.getDataLinkLayer().receive(stream, 0, junk + 8 * frame.length);
+	medium.close();
+
+	Check.equal(payload, received.toByteArray(),
+		    "Hdlc frame after " + junk + " junk bits");
+
+    } // findsFrameAfter ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  frame Framed bytes.
+     * @return the number of runs of six 1s in them, each of which should be
+     *         a flag.
+     */
+    private static int sixOnes (byte[] frame) {
+
+	int count = 0;
+	int run   = 0;
+	for (int i = 0; i < 8 * frame.length; i += 1) {
+	    run    = ((frame[i >>> 3] & (0x80 >>> (i & 7))) != 0) ? run + 1 : 0;
+	    count += run == 6 ? 1 : 0;
+	}
+	return count;
+
+    } // sixOnes ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class HdlcTest
+// =============================================================================
@@ -0,0 +1,127 @@
+// =============================================================================
+// IMPORTS
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Tests of a host's receive buffer: bytes must come out in the order they
+ * went in, through every way of retrieving them, and a waiting reader must
+ * be woken when they arrive.
+ *
+ * @file   HostBufferTest.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class HostBufferTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    public static void main (String[] args) {
+
+	run();
+	Check.exit();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Run every check. */
+    static void run () {
+
+	retrievesInOrder();
+	wakesWaiter();
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Receive bytes in uneven pieces, and retrieve them into an array, a
+     * byte buffer and a new array in turn.
+     */
+    private static void retrievesInOrder () {
+
+	Host   host = new Host(new PerfectMedium(), "Dumb");
+	byte[] data = Check.randomBytes(10_000, 6);
+	Check.equal(0, host.available(), "bytes available at first");
+	Check.equal(0, host.retrieve().length, "bytes retrieved at first");
+
+	for (int i = 0; i < data.length; ) {
+	    int length = Math.min(data.length - i, 1 + i % 997);
+	    host.receive(data, i, length);
+	    i += length;
+	}
+	Check.equal(data.length, host.available(), "bytes available");
+
+	byte[] first = new byte[3000];
+	Check.equal(2000, host.retrieve(first, 1000, 2000), "into an array");
+	ByteBuffer second = ByteBuffer.allocate(5000);
+	Check.equal(5000, host.retrieve(second), "into a byte buffer");
+	byte[] third = host.retrieve();
+	Check.equal(0, host.available(), "bytes available after retrieving");
+
+	Check.equal(Arrays.copyOfRange(data, 0, 2000),
+		    Arrays.copyOfRange(first, 1000, 3000),
+		    "bytes retrieved into an array");
+	Check.equal(Arrays.copyOfRange(data, 2000, 7000),
+		    second.array(),
+		    "bytes retrieved into a byte buffer");
+	Check.equal(Arrays.copyOfRange(data, 7000, data.length),
+		    third,
+		    "bytes retrieved into a new array");
+
+    } // retrievesInOrder ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Check that waiting for bytes times out with none, and returns once
+     * another thread delivers some.
+     */
+    private static void wakesWaiter () {
+
+	Host host = new Host(new PerfectMedium(), "Dumb");
+	Check.equal(0, host.awaitAvailable(1), "bytes after a timed-out wait");
+
+	Thread deliverer = new Thread(() -> {
+		try {
+		    Thread.sleep(50);
+		} catch (InterruptedException e) {
+		    return;
+		}
+		host.receive(new byte[] { 1, 2, 3 });
+	    });
+	deliverer.start();
+	long start     = System.nanoTime();
+	int  available = 0;
+	while (available == 0 && System.nanoTime() - start < 10_000_000_000L) {
+	    available = host.awaitAvailable(10_000);
+	}
+	Check.equal(3, available, "bytes after waiting for a delivery");
+	try {
+	    deliverer.join();
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	}
+
+    } // wakesWaiter ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class HostBufferTest
+// =============================================================================
@@ -0,0 +1,144 @@
+// =============================================================================
+// IMPORTS
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Tests of the flight recorder events: while a recording enables them, a
+ * frame sent, delivered and dropped, a resynchronization and a flipped bit
+ * must each be recorded once, with its details.
+ *
+ * @file   LinkEventsTest.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class LinkEventsTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    public static void main (String[] args) {
+
+	run();
+	Check.exit();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Run every check. */
+    static void run () {
+
+	Path file = null;
+	try (Recording recording = new Recording()) {
+
+	    recording.enable(LinkEvents.FrameSent.class);
+	    recording.enable(LinkEvents.FrameDelivered.class);
+	    recording.enable(LinkEvents.FrameDropped.class);
+	    recording.enable(LinkEvents.Resync.class);
+	    recording.enable(LinkEvents.BitFlipInjected.class);
+	    recording.start();
+	    Check.that(LinkEvents.recording(), "recorder started");
+
+	    // A parity frame with one data bit flipped, and so dropped.
+	    Medium noisy  = Medium.create("LowNoise:model=fixedPattern,positions=9");
+	    Host   sender = new Host(noisy, "Parity:frameSize=8");
+	    new Host(noisy, "Parity:frameSize=8");
+	    sender.send(new byte[] { 'A' });
+	    noisy.close();
+
+	    // Two bytes ahead of a frame, which is then delivered.
+	    Medium perfect  = Medium.create("Perfect");
+	    Host   receiver = new Host(perfect, "Dumb");
+	    byte[] bytes    = "xy{ab}".getBytes(StandardCharsets.US_ASCII);
+	    receiver.getDataLinkLayer().receive(bytes, 0, 8 * bytes.length);
+	    perfect.close();
+
+	    recording.stop();
+	    file = Files.createTempFile("LinkEventsTest", ".jfr");
+	    recording.dump(file);
+	    check(RecordingFile.readAllEvents(file));
+
+	} catch (IOException e) {
+	    Check.that(false, "recording read: " + e);
+	} finally {
+	    if (file != null) {
+		file.toFile().delete();
+	    }
+	}
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Check the events recorded.
+     *
+     * @param events The events.
+     */
+    private static void check (List<RecordedEvent> events) {
+
+	Map<String, RecordedEvent> last   = new HashMap<>();
+	Map<String, Integer>       counts = new HashMap<>();
+	for (RecordedEvent event : events) {
+	    String name = event.getEventType().getName();
+	    last.put(name, event);
+	    counts.merge(name, 1, Integer::sum);
+	}
+
+	Check.equal(1, counts.getOrDefault("datalinklayer.FrameSent", 0),
+		    "FrameSent events");
+	Check.equal(1, counts.getOrDefault("datalinklayer.FrameDropped", 0),
+		    "FrameDropped events");
+	Check.equal(1, counts.getOrDefault("datalinklayer.BitFlipInjected", 0),
+		    "BitFlipInjected events");
+	Check.equal(1, counts.getOrDefault("datalinklayer.Resync", 0),
+		    "Resync events");
+	Check.equal(1, counts.getOrDefault("datalinklayer.FrameDelivered", 0),
+		    "FrameDelivered events");
+	if (last.size() < 5) {
+	    return;
+	}
+
+	RecordedEvent sent = last.get("datalinklayer.FrameSent");
+	Check.that(sent.getString("layer").equals("ParityDataLinkLayer") &&
+		   sent.getInt("dataLength") == 1,
+		   "FrameSent details");
+	Check.that(last.get("datalinklayer.FrameDropped").getString("reason")
+		   .equals("ChecksumMismatches"),
+		   "FrameDropped reason");
+	Check.equal(1, last.get("datalinklayer.BitFlipInjected")
+		    .getInt("bitsFlipped"),
+		    "bits flipped in the block");
+	Check.equal(2, last.get("datalinklayer.Resync").getLong("bytesDiscarded"),
+		    "bytes discarded before the resync");
+	Check.equal(2, last.get("datalinklayer.FrameDelivered")
+		    .getInt("dataLength"),
+		    "FrameDelivered length");
+
+    } // check ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class LinkEventsTest
+// =============================================================================
@@ -0,0 +1,66 @@
+// =============================================================================
+/**
+ * Tests of registering clients with a medium: each gets its own port id
+ * once, only registered clients may send, and what one sends reaches every
+ * other client but not itself.
+ *
+ * @file   MediumRegistrationTest.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class MediumRegistrationTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    public static void main (String[] args) {
+
+	run();
+	Check.exit();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Run every check. */
+    static void run () {
+
+	Medium medium = new PerfectMedium();
+	Host[] hosts  = new Host[5];
+	for (int i = 0; i < hosts.length; i += 1) {
+	    hosts[i] = new Host(medium, "Dumb");
+	    Check.equal(i, hosts[i].getPhysicalLayer().getPort(), "port id");
+	}
+
+	// Registering again changes nothing.
+	medium.register(hosts[2].getPhysicalLayer());
+	Check.equal(hosts.length, medium.ports().length, "ports after a repeat");
+	Check.equal(2, hosts[2].getPhysicalLayer().getPort(),
+		    "port id after a repeat");
+
+	// A frame reaches every host but its sender.
+	byte[] payload = Check.randomBytes(100, 7);
+	hosts[3].send(payload);
+	for (int i = 0; i < hosts.length; i += 1) {
+	    Check.equal(i == 3 ? new byte[0] : payload,
+			hosts[i].retrieve(),
+			"bytes received by host " + i);
+	}
+
+	// A client of another medium may not send on this one, even though
+	// its port id is valid here.
+	Host stranger = new Host(new PerfectMedium(), "Dumb");
+	Check.fails(() -> medium.transmit(stranger.getPhysicalLayer(), true),
+		    "sending from an unregistered client");
+
+    } // run ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class MediumRegistrationTest
+// =============================================================================
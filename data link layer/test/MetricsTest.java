@@ -0,0 +1,161 @@
+// =============================================================================
+// IMPORTS
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Tests of the link metrics: a transfer must count its frames and bytes at
+ * every level, a damaged frame and bytes skipped while resynchronizing must
+ * each be counted, and the counters must be readable as MBeans while
+ * registered.
+ *
+ * @file   MetricsTest.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class MetricsTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    public static void main (String[] args) {
+
+	run();
+	Check.exit();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Run every check. */
+    static void run () {
+
+	countsTransfer();
+	countsDamage();
+	registers();
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Send a payload holding tags, and check the counts on each side. */
+    private static void countsTransfer () {
+
+	Medium medium   = Medium.create("Perfect");
+	Host   sender   = new Host(medium, "Parity:frameSize=8");
+	Host   receiver = new Host(medium, "Parity:frameSize=8");
+	byte[] payload  = "a{b}c\\".getBytes(StandardCharsets.US_ASCII);
+	sender.send(payload);
+	byte[] received = receiver.retrieve();
+	medium.close();
+
+	Metrics sent = sender.getDataLinkLayer().getMetrics();
+	Metrics got  = receiver.getDataLinkLayer().getMetrics();
+	Check.equal(payload, received, "payload with tags");
+	Check.equal(1, sent.get("FramesSent"), "frames sent");
+	Check.equal(6, sent.get("PayloadBytesSent"), "payload bytes sent");
+	Check.that(sent.get("EscapeBytesSent") >= 3, "escapes sent");
+	Check.equal(8 * sent.get("WireBytesSent"),
+		    medium.getMetrics().get("BitsTransmitted"),
+		    "bits transmitted");
+	Check.equal(medium.getMetrics().get("BitsTransmitted"),
+		    medium.getMetrics().get("BitsDelivered"),
+		    "bits delivered to the one receiver");
+	Check.equal(1, got.get("FramesDelivered"), "frames delivered");
+	Check.equal(6, got.get("BytesDelivered"), "bytes delivered");
+	Check.equal(0, got.get("FramesDropped"), "frames dropped");
+	Check.equal(6, sender.getMetrics().get("BytesSent"), "host bytes sent");
+	Check.equal(6, receiver.getMetrics().get("BytesReceived"),
+		    "host bytes received");
+	Check.equal(6, receiver.getMetrics().get("BytesRetrieved"),
+		    "host bytes retrieved");
+	Check.fails(() -> sent.get("NoSuchCounter"), "an unknown counter");
+
+    } // countsTransfer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Flip a bit of a parity frame's data, and feed a receiver bytes ahead
+     * of a frame's start tag, and check that each is counted.
+     */
+    private static void countsDamage () {
+
+	Medium medium   = Medium.create("LowNoise:model=fixedPattern,positions=9");
+	Host   sender   = new Host(medium, "Parity:frameSize=8");
+	Host   receiver = new Host(medium, "Parity:frameSize=8");
+	sender.send(new byte[] { 'A' });
+	medium.close();
+
+	Metrics got = receiver.getDataLinkLayer().getMetrics();
+	Check.equal(1, medium.getMetrics().get("BitsFlipped"), "bits flipped");
+	Check.equal(1, got.get("ChecksumMismatches"), "parity mismatches");
+	Check.equal(1, got.get("FramesDropped"), "frames dropped");
+	Check.equal(0, got.get("FramesDelivered"), "frames delivered");
+
+	Medium other = Medium.create("Perfect");
+	Host   host  = new Host(other, "Dumb");
+	byte[] bytes = "xy{ab}".getBytes(StandardCharsets.US_ASCII);
+	host.getDataLinkLayer().receive(bytes, 0, 8 * bytes.length);
+	other.close();
+	Check.equal(2, host.getDataLinkLayer().getMetrics().get("BytesDiscarded"),
+		    "bytes discarded ahead of a frame");
+	Check.equal(2, host.available(), "bytes of the frame that followed");
+
+    } // countsDamage ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Register a host's counters, read one through the MBean server, and
+     * check that they are gone once unregistered.
+     */
+    private static void registers () {
+
+	Medium      medium = Medium.create("Perfect");
+	Host        sender = new Host(medium, "Dumb");
+	Host        peer   = new Host(medium, "Dumb");
+	MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+	sender.registerMetrics("MetricsTest");
+	try {
+	    sender.send(new byte[10]);
+	    peer.retrieve();
+	    ObjectName name = new ObjectName(
+		"datalinklayer:type=DataLinkLayer,name=\"MetricsTest\"");
+	    Check.equal(1, (Long)server.getAttribute(name, "FramesSent"),
+			"frames sent, read as an attribute");
+	    sender.getDataLinkLayer().getMetrics().unregister();
+	    Check.that(!server.isRegistered(name), "unregistered");
+	} catch (JMException e) {
+	    Check.that(false, "attribute read: " + e);
+	} finally {
+	    sender.getMetrics().unregister();
+	    sender.getDataLinkLayer().getMetrics().unregister();
+	    medium.close();
+	}
+
+    } // registers ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class MetricsTest
+// =============================================================================
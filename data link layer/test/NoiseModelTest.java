@@ -0,0 +1,298 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.BitSet;
+import java.util.Random;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Tests of the noise models and the noisy medium: a model must flip the
+ * same bits however its stream is split into blocks, at about its error
+ * rate, and the medium must keep each receiver's model consistent when
+ * several threads send at once.
+ *
+ * @file   NoiseModelTest.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class NoiseModelTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    public static void main (String[] args) {
+
+	run();
+	Check.exit();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Run every check. */
+    static void run () {
+
+	fixedPattern();
+	skipAheadIsSplitFree();
+	errorRates();
+	mediumModels();
+	concurrentSenders();
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Check that a fixed pattern flips exactly its positions, repeatedly. */
+    private static void fixedPattern () {
+
+	BitSet once = flips(new FixedPatternNoiseModel(0, 70, 3, 71), 1000, 1);
+	Check.that(once.equals(bits(3, 70, 71)), "a one-time pattern's flips");
+
+	BitSet repeated = flips(new FixedPatternNoiseModel(100, 5), 350, 2);
+	Check.that(repeated.equals(bits(5, 105, 205, 305)),
+		   "a repeating pattern's flips");
+
+	Check.fails(() -> new FixedPatternNoiseModel(10, 10),
+		    "a position outside of the period");
+
+    } // fixedPattern ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Check that the random models choose the same bits whether their
+     * streams are split into small blocks or large ones, so that skipping
+     * clean blocks changes nothing.
+     */
+    private static void skipAheadIsSplitFree () {
+
+	NoiseModel[] models = {
+	    new IidNoiseModel(1e-3, 11),
+	    new GilbertElliottNoiseModel(1e-4, 0.05, 1e-5, 0.3, 12)
+	};
+	for (NoiseModel model : models) {
+	    String name = model.getClass().getSimpleName();
+	    BitSet small = flips(model.fork(0), 2_000_000, 3);
+	    BitSet large = flips(model.fork(0), 2_000_000, 4);
+	    Check.that(!small.isEmpty() && small.equals(large),
+		       name + " flips the same bits however split");
+	    Check.that(!small.equals(flips(model.fork(1), 2_000_000, 3)),
+		       name + " forks independent streams");
+	}
+
+    } // skipAheadIsSplitFree ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Check that the random models flip bits at about their rates. */
+    private static void errorRates () {
+
+	long bits = 4_000_000;
+	int  iid  = flips(new IidNoiseModel(1e-3, 13), bits, 5).cardinality();
+	Check.that(Math.abs(iid - 4000) < 400,
+		   "IID flips near the error rate: " + iid);
+
+	// A tenth of the time bad, flipping half of those bits.
+	int burst = flips(new GilbertElliottNoiseModel(1e-3, 9e-3, 0, 0.5, 14),
+			  bits,
+			  5).cardinality();
+	Check.that(Math.abs(burst - 200_000) < 40_000,
+		   "Gilbert-Elliott flips near its average rate: " + burst);
+
+    } // errorRates ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Check that the registry builds each model for the noisy medium. */
+    private static void mediumModels () {
+
+	String[] specs = { "LowNoise:model=iid,ber=0.01",
+			   "LowNoise:model=gilbertElliott,goodBer=0.01",
+			   "LowNoise:model=fixedPattern,period=80,positions=1/2" };
+	for (String spec : specs) {
+	    Medium medium   = Medium.create(spec);
+	    Host   sender   = new Host(medium, "Dumb");
+	    Host   receiver = new Host(medium, "Dumb");
+	    sender.send(Check.randomBytes(1000, 15));
+	    receiver.retrieve();
+	    Check.that(medium.bitsFlipped.sum() > 0, spec + " flips bits");
+	}
+	Check.fails(() -> Medium.create("LowNoise:model=none"),
+		    "an unknown noise model");
+
+    } // mediumModels ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send from several threads at once to a medium whose model flips every
+     * 64th bit, and check that each receiver suffered exactly the flips its
+     * count of bits calls for, which it would not if two senders' walks
+     * along its model interfered.
+     */
+    private static void concurrentSenders () {
+
+	int             senders  = 4;
+	int             blocks   = 2000;
+	int             bitCount = 777;
+	Medium          medium   = Medium.create(
+	    "LowNoise:model=fixedPattern,period=64,positions=0");
+	SinkLayer[]     sinks    = new SinkLayer[senders];
+	PhysicalLayer[] layers   = new PhysicalLayer[senders];
+	for (int i = 0; i < senders; i += 1) {
+	    sinks[i]  = new SinkLayer();
+	    layers[i] = new Host(medium, sinks[i]).getPhysicalLayer();
+	}
+
+	Thread[] threads = new Thread[senders];
+	byte[]   block   = new byte[(bitCount + 7) / 8];
+	for (int i = 0; i < senders; i += 1) {
+	    PhysicalLayer layer = layers[i];
+	    threads[i] = new Thread(() -> {
+		    for (int b = 0; b < blocks; b += 1) {
+			medium.transmitBlock(layer, block, 0, bitCount);
+		    }
+		});
+	    threads[i].start();
+	}
+	for (Thread thread : threads) {
+	    try {
+		thread.join();
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+	    }
+	}
+
+	long received = (long)(senders - 1) * blocks * bitCount;
+	for (int i = 0; i < senders; i += 1) {
+	    Check.equal(received, sinks[i].bits, "bits at port " + i);
+	    Check.equal((received + 63) / 64, sinks[i].ones,
+			"flips at port " + i);
+	}
+
+    } // concurrentSenders ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Walk a model along a stream of zero bits in randomly sized blocks, as
+     * the noisy medium does, passing over blocks it reports clean.
+     *
+     * @param  model     The model.
+     * @param  bitCount  The length of the stream.
+     * @param  splitSeed The seed of the block sizes.
+     * @return the positions of the bits flipped.
+     */
+    private static BitSet flips (NoiseModel model, long bitCount, long splitSeed) {
+
+	BitSet flipped  = new BitSet();
+	Random random   = new Random(splitSeed);
+	int    maxBlock = 1 + random.nextInt(5000);
+	for (long start = 0; start < bitCount; ) {
+	    int length = (int)Math.min(bitCount - start,
+				       1 + random.nextInt(maxBlock));
+	    if (model.cleanBitsAhead() >= length) {
+		model.advance(length);
+	    } else {
+		int    offset = random.nextInt(8);
+		byte[] block  = new byte[(offset + length + 7) / 8];
+		model.corrupt(block, offset, length);
+		for (int i = 0; i < length; i += 1) {
+		    int bit = offset + i;
+		    if ((block[bit >>> 3] & (0x80 >>> (bit & 7))) != 0) {
+			flipped.set((int)(start + i));
+		    }
+		}
+	    }
+	    start += length;
+	}
+	return flipped;
+
+    } // flips ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  positions Bit positions.
+     * @return a set of them.
+     */
+    private static BitSet bits (int... positions) {
+
+	BitSet set = new BitSet();
+	for (int position : positions) {
+	    set.set(position);
+	}
+	return set;
+
+    } // bits ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INNER CLASSES
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** A layer that only counts the bits it receives and the ones among them. */
+    private static final class SinkLayer extends DataLinkLayer {
+
+	protected byte[] createFrame (byte[] data) {
+
+	    return data;
+
+	}
+
+	protected byte[] processFrame () {
+
+	    return null;
+
+	}
+
+	public synchronized void receive (byte[] data,
+					  int    bitOffset,
+					  int    bitLength) {
+
+	    for (int i = bitOffset; i < bitOffset + bitLength; i += 1) {
+		ones += (data[i >>> 3] >>> (7 - (i & 7))) & 1;
+	    }
+	    bits += bitLength;
+
+	}
+
+	/** The bits received. */
+	long bits;
+
+	/** The one bits received. */
+	long ones;
+
+    } // class SinkLayer
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class NoiseModelTest
+// =============================================================================
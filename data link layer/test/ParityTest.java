@@ -0,0 +1,136 @@
+// =============================================================================
+/**
+ * Tests of the parity layer, fixed and adaptive: frames must round-trip at
+ * any size, a flipped data bit must be caught, and in adaptive mode the
+ * sender's frame size must follow the receiver's reports, growing on a clean
+ * link and shrinking on a noisy one.
+ *
+ * @file   ParityTest.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class ParityTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    public static void main (String[] args) {
+
+	run();
+	Check.exit();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Run every check. */
+    static void run () {
+
+	Check.roundTrips("Perfect", "Parity:frameSize=1");
+	Check.roundTrips("Perfect", "Parity:frameSize=100");
+	Check.roundTrips("Perfect", "Parity:minFrameSize=2,maxFrameSize=40");
+	Check.fails(() -> new ParityDataLinkLayer(0), "a frame size of zero");
+
+	controller();
+	catchesFlippedDataBits();
+	adapts("Perfect", true);
+	adapts("LowNoise:ber=0.01", false);
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Check how the controller grows and shrinks the frame size. */
+    private static void controller () {
+
+	FrameSizeController controller = new FrameSizeController(4, 20, 10, 3);
+	controller.frameDelivered();
+	Check.equal(13, controller.frameSize(), "size after a delivery");
+	controller.frameDropped();
+	Check.equal(6, controller.frameSize(), "size after a drop");
+	controller.frameDropped();
+	Check.equal(4, controller.frameSize(), "size held at the minimum");
+	controller.report(100, 0);
+	Check.equal(20, controller.frameSize(), "size held at the maximum");
+	controller.report(2, 1);
+	Check.equal(10, controller.frameSize(), "size after a mixed report");
+	Check.equal(103, controller.getDelivered(), "deliveries reported");
+	Check.equal(3, controller.getDropped(), "drops reported");
+
+	Check.fails(() -> new FrameSizeController(5, 4),
+		    "a minimum above the maximum");
+
+    } // controller ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Flip each bit of a one-byte frame's data in turn, none of which turns
+     * it into a tag, and check that the frame is dropped.
+     */
+    private static void catchesFlippedDataBits () {
+
+	int caught = 0;
+	for (int bit = 8; bit < 16; bit += 1) {
+	    byte[] received =
+		Check.transfer("LowNoise:model=fixedPattern,positions=" + bit,
+			       "Parity",
+			       new byte[] { 'A' });
+	    caught += received.length == 0 ? 1 : 0;
+	}
+	Check.equal(8, caught, "Parity frames caught with a flipped data bit");
+
+    } // catchesFlippedDataBits ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send many small messages in adaptive mode, and check where the
+     * sender's frame size ends up.
+     *
+     * @param mediumType The specification of the medium.
+     * @param clean      Whether the link is clean, so that the size should
+     *                   reach its maximum, rather than stay near its minimum.
+     */
+    private static void adapts (String mediumType, boolean clean) {
+
+	Medium              medium   = Medium.create(mediumType);
+	ParityDataLinkLayer layer    = new ParityDataLinkLayer(2, 64);
+	Host                sender   = new Host(medium, layer);
+	Host                receiver = new Host(medium, new ParityDataLinkLayer(2, 64));
+	byte[]              payload  = Check.randomBytes(5000, 13);
+	for (int i = 0; i < 10; i += 1) {
+	    sender.send(payload);
+	    receiver.retrieve();
+	}
+	medium.close();
+
+	FrameSizeController controller = layer.getController();
+	Check.that(controller.getDelivered() > 0,
+		   "reports received over " + mediumType);
+	if (clean) {
+	    Check.equal(64, controller.frameSize(),
+			"frame size over " + mediumType);
+	} else {
+	    Check.that(controller.frameSize() < 16 && controller.getDropped() > 0,
+		       "frame size over " + mediumType + ": " +
+		       controller.frameSize());
+	}
+
+    } // adapts ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class ParityTest
+// =============================================================================
@@ -0,0 +1,92 @@
+// =============================================================================
+/**
+ * Tests of the pipelined medium: frames must arrive intact and in order
+ * through the receivers' lanes, even from a small lane, and closing the
+ * medium must end every lane's thread.
+ *
+ * @file   PipelinedMediumTest.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class PipelinedMediumTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    public static void main (String[] args) {
+
+	run();
+	Check.exit();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Run every check. */
+    static void run () {
+
+	Check.roundTrips("Pipelined", "Crc");
+	Check.roundTrips("Pipelined:laneCapacity=2", "Dumb");
+	fansOutAndCloses();
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send from one host to many, each receiving on its own lane, and then
+     * close the medium.
+     */
+    private static void fansOutAndCloses () {
+
+	int             before = laneThreads();
+	PipelinedMedium medium = new PipelinedMedium(4);
+	Host[]          hosts  = new Host[8];
+	for (int i = 0; i < hosts.length; i += 1) {
+	    hosts[i] = new Host(medium, "Crc");
+	}
+	byte[] payload = Check.randomBytes(20_000, 8);
+	hosts[0].send(payload);
+	medium.drain();
+	for (int i = 1; i < hosts.length; i += 1) {
+	    Check.equal(payload, hosts[i].retrieve(), "bytes at host " + i);
+	}
+
+	medium.close();
+	Check.equal(before, laneThreads(), "lane threads after closing");
+	Check.fails(() -> hosts[0].send(payload), "sending after closing");
+
+    } // fansOutAndCloses ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @return the number of live threads running the lanes of pipelined
+     *         media.
+     */
+    private static int laneThreads () {
+
+	int count = 0;
+	for (Thread thread : Thread.getAllStackTraces().keySet()) {
+	    if (thread.isAlive() &&
+		thread.getName().startsWith("PipelinedMedium-")) {
+		count += 1;
+	    }
+	}
+	return count;
+
+    } // laneThreads ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class PipelinedMediumTest
+// =============================================================================
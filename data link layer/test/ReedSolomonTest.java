@@ -0,0 +1,148 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.Arrays;
+import java.util.Random;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Tests of the Reed-Solomon code and layer: a codeword must be repaired with
+ * up to t damaged bytes, full or shortened, and never pass as intact with
+ * more; and the layer must deliver intact data over a link that damages
+ * every frame.
+ *
+ * @file   ReedSolomonTest.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class ReedSolomonTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    public static void main (String[] args) {
+
+	run();
+	Check.exit();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Run every check. */
+    static void run () {
+
+	int[][] codes = { { 255, 223 }, { 255, 251 }, { 40, 20 }, { 7, 3 } };
+	for (int[] code : codes) {
+	    correctsUpToT(new ReedSolomon(code[0], code[1]), code[0]);
+	    correctsUpToT(new ReedSolomon(code[0], code[1]), code[1] / 2 + 1);
+	}
+	Check.fails(() -> new ReedSolomon(256, 200), "a codeword over 255 bytes");
+
+	Check.roundTrips("Perfect", "ReedSolomon");
+	Check.roundTrips("Perfect", "ReedSolomon:n=40,k=20");
+
+	// One flipped bit in every 200 damages about ten bytes of each full
+	// frame, all of which are repaired.
+	byte[] payload = Check.randomBytes(20_000, 10);
+	Check.equal(payload,
+		    Check.transfer(
+			"LowNoise:model=fixedPattern,period=200,positions=17",
+			"ReedSolomon",
+			payload),
+		    "ReedSolomon over a damaging link");
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Encode random data, damage from none to t bytes anywhere in the
+     * codeword, and check that decoding repairs it; then damage t + 1 bytes,
+     * and check that it is not taken for intact.
+     *
+     * @param code       The code.
+     * @param dataLength The data bytes in each codeword, at most k, so that
+     *                   fewer shorten it.
+     */
+    private static void correctsUpToT (ReedSolomon code, int dataLength) {
+
+	int     t        = code.paritySize() / 2;
+	int     length   = Math.min(dataLength, code.k()) + code.paritySize();
+	String  what     = "RS(" + code.n() + ", " + code.k() + ") of " +
+			   length + " bytes";
+	Random  random   = new Random(code.n() * 1000 + length);
+	boolean repaired = true;
+	boolean detected = true;
+	for (int trial = 0; trial < 50; trial += 1) {
+
+	    byte[] codeword = new byte[length + 2];
+	    byte[] data     = new byte[length - code.paritySize()];
+	    random.nextBytes(data);
+	    System.arraycopy(data, 0, codeword, 1, data.length);
+	    code.encode(data, 0, data.length, codeword, 1 + data.length);
+	    byte[] intact = codeword.clone();
+
+	    for (int errors = 0; errors <= t + 1; errors += 1) {
+		byte[] damaged = intact.clone();
+		damage(damaged, 1, length, errors, random);
+		int corrected = code.decode(damaged, 1, length);
+		if (errors <= t) {
+		    repaired = repaired && corrected == errors &&
+			       Arrays.equals(damaged, intact);
+		} else {
+		    detected = detected && corrected != 0;
+		}
+	    }
+
+	}
+	Check.that(repaired, what + " repaired with up to " + t + " errors");
+	Check.that(detected, what + " not intact with " + (t + 1) + " errors");
+
+    } // correctsUpToT ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Change some bytes of a codeword, each to a different value.
+     *
+     * @param codeword The array holding the codeword.
+     * @param offset   The index of its first byte.
+     * @param length   The number of bytes in it.
+     * @param errors   The number of distinct bytes to change.
+     * @param random   The source of positions and changes.
+     */
+    private static void damage (byte[] codeword,
+				int    offset,
+				int    length,
+				int    errors,
+				Random random) {
+
+	boolean[] chosen = new boolean[length];
+	for (int e = 0; e < errors; e += 1) {
+	    int position;
+	    do {
+		position = random.nextInt(length);
+	    } while (chosen[position]);
+	    chosen[position]            = true;
+	    codeword[offset + position] ^= (byte)(1 + random.nextInt(255));
+	}
+
+    } // damage ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class ReedSolomonTest
+// =============================================================================
@@ -0,0 +1,144 @@
+// =============================================================================
+// IMPORTS
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Tests of the streaming verifier: data received in pieces of any size
+ * must be matched against data sent in several regions, and a damaged,
+ * short or long transmission must be reported with its first difference and
+ * its count of errors.
+ *
+ * @file   StreamVerifierTest.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class StreamVerifierTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    public static void main (String[] args) {
+
+	run();
+	Check.exit();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Run every check. */
+    static void run () {
+
+	byte[] sent = Check.randomBytes(200_000, 19);
+
+	String intact = verify(sent, sent.clone());
+	Check.that(intact.contains("Transmission succeeded: true") &&
+		   !intact.contains("First difference"),
+		   "an intact transmission verified");
+	Check.that(digest(intact, "Sent").length() == 64 &&
+		   digest(intact, "Sent").equals(digest(intact, "Received")),
+		   "digests of an intact transmission match");
+
+	// Two damaged bytes, one on either side of a region boundary.
+	byte[] damaged = sent.clone();
+	damaged[69_999] ^= 1;
+	damaged[70_001] ^= 1;
+	String report = verify(sent, damaged);
+	Check.that(report.contains("Transmission succeeded: false"),
+		   "a damaged transmission failed");
+	Check.that(!digest(report, "Sent").equals(digest(report, "Received")),
+		   "digests of a damaged transmission differ");
+	Check.that(report.contains("First difference at:    byte 69999\n"),
+		   "first difference of a damaged transmission");
+	Check.that(report.contains("Byte errors:            2 of 200000 compared\n"),
+		   "byte errors of a damaged transmission");
+	String expected = String.format("%02x", sent[69_999] & 0xff);
+	Check.that(report.contains("Expected from there:    " + expected),
+		   "preview of the bytes expected at the difference");
+
+	String shortened = verify(sent, Arrays.copyOf(sent, 150_000));
+	Check.that(shortened.contains("First difference at:    byte 150000\n") &&
+		   shortened.contains("0 of 150000 compared, 50000 missing"),
+		   "a short transmission reported");
+
+	String lengthened = verify(sent, Arrays.copyOf(sent, 200_010));
+	Check.that(lengthened.contains("First difference at:    byte 200000\n") &&
+		   lengthened.contains("0 of 200000 compared, 10 extra"),
+		   "a long transmission reported");
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Verify received data against data sent in three regions, feeding the
+     * received data in pieces of varying size.
+     *
+     * @param  sent     The data sent.
+     * @param  received The data received.
+     * @return the verifier's report.
+     */
+    private static String verify (byte[] sent, byte[] received) {
+
+	ByteBuffer   whole   = ByteBuffer.wrap(sent);
+	ByteBuffer[] regions = { whole.slice(0, 70_000),
+				 whole.slice(70_000, 1),
+				 whole.slice(70_001, sent.length - 70_001) };
+	StreamVerifier verifier = new StreamVerifier(regions);
+	for (ByteBuffer region : regions) {
+	    verifier.sent(region.duplicate());
+	}
+	int piece = 1;
+	for (int at = 0; at < received.length; ) {
+	    int n = Math.min(piece, received.length - at);
+	    verifier.received(received, at, n);
+	    at    += n;
+	    piece  = piece * 3 % 10_007 + 1;
+	}
+	Check.equal(received.length, verifier.getReceived(), "bytes verified");
+
+	ByteArrayOutputStream out = new ByteArrayOutputStream();
+	verifier.report(new PrintStream(out, true));
+	return out.toString();
+
+    } // verify ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  report A verifier's report.
+     * @param  side   <code>Sent</code> or <code>Received</code>.
+     * @return the digest reported for that side.
+     */
+    private static String digest (String report, String side) {
+
+	for (String line : report.split("\n")) {
+	    if (line.startsWith(side + " SHA-256:")) {
+		return line.substring(line.indexOf(':') + 1).trim();
+	    }
+	}
+	return "";
+
+    } // digest ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class StreamVerifierTest
+// =============================================================================
@@ -0,0 +1,198 @@
+// =============================================================================
+// IMPORTS
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Tests of streaming sends: data read from a stream that returns a little at
+ * a time, from a buffer without an array, and from a memory-mapped file must
+ * all arrive whole, never framed more than a chunk at once, with the first
+ * frames delivered before the source is exhausted.
+ *
+ * @file   StreamingSendTest.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class StreamingSendTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    public static void main (String[] args) {
+
+	run();
+	Check.exit();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Run every check. */
+    static void run () {
+
+	trickle();
+	buffers();
+	Check.fails(() -> new Host(Medium.create("Perfect"), "Dumb")
+		    .send(new InputStream() {
+			    public int read () throws IOException {
+				throw new IOException("unreadable");
+			    }
+			}),
+		    "a stream that cannot be read");
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send from a stream that returns at most a thousand bytes a read, and
+     * check that it arrives whole, in bounded pieces, and that delivery
+     * began before the stream ran out.
+     */
+    private static void trickle () {
+
+	Medium                medium   = Medium.create("Perfect");
+	int[]                 largest  = new int[1];
+	Host                  sender   = new Host(medium, new DumbDataLinkLayer() {
+		public void send (byte[] data, int offset, int length) {
+		    largest[0] = Math.max(largest[0], length);
+		    super.send(data, offset, length);
+		}
+	    });
+	Host                  receiver = new Host(medium, "Dumb");
+	ByteArrayOutputStream received = collect(receiver);
+	byte[]                payload  = Check.randomBytes(300_000, 17);
+	long[]                early    = { -1 };
+	InputStream           source   = new InputStream() {
+		public int read () {
+		    return (position < payload.length ?
+			    payload[position++] & 0xff : -1);
+		}
+		public int read (byte[] b, int off, int len) {
+		    if (position == payload.length) {
+			return -1;
+		    }
+		    if (position >= payload.length / 2 && early[0] < 0) {
+			early[0] = received.size();
+		    }
+		    int n = Math.min(Math.min(len, 1000), payload.length - position);
+		    System.arraycopy(payload, position, b, off, n);
+		    position += n;
+		    return n;
+		}
+		private int position;
+	    };
+
+	Check.equal(payload.length, sender.send(source), "bytes read and sent");
+	medium.close();
+	Check.equal(payload, received.toByteArray(), "payload sent from a stream");
+	Check.that(largest[0] <= 64 * 1024,
+		   "largest piece framed at once: " + largest[0]);
+	Check.that(early[0] > 0, "bytes delivered halfway through the stream");
+
+	Medium empty = Medium.create("Perfect");
+	Check.equal(0,
+		    new Host(empty, "Dumb").send(InputStream.nullInputStream()),
+		    "bytes sent from an empty stream");
+	empty.close();
+
+    } // trickle ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send from a direct buffer and from a memory-mapped file, and check that
+     * each arrives whole and is consumed.
+     */
+    private static void buffers () {
+
+	byte[]     payload = Check.randomBytes(150_000, 18);
+	ByteBuffer direct  = ByteBuffer.allocateDirect(payload.length);
+	direct.put(payload).flip();
+	Check.equal(payload, sendBuffer(direct), "payload sent from a direct buffer");
+	Check.that(!direct.hasRemaining(), "direct buffer consumed");
+
+	Path file = null;
+	try {
+	    file = Files.createTempFile("StreamingSendTest", ".bin");
+	    Files.write(file, payload);
+	    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+		ByteBuffer mapped =
+		    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		Check.equal(payload, sendBuffer(mapped),
+			    "payload sent from a mapped file");
+	    }
+	} catch (IOException e) {
+	    Check.that(false, "mapped file: " + e);
+	} finally {
+	    if (file != null) {
+		file.toFile().delete();
+	    }
+	}
+
+    } // buffers ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  data The buffer to send.
+     * @return the bytes delivered.
+     */
+    private static byte[] sendBuffer (ByteBuffer data) {
+
+	Medium                medium   = Medium.create("Perfect");
+	Host                  sender   = new Host(medium, "Dumb");
+	ByteArrayOutputStream received = collect(new Host(medium, "Dumb"));
+	long                  sent     = sender.send(data);
+	medium.close();
+	Check.equal(received.size(), sent, "bytes sent from a buffer");
+	return received.toByteArray();
+
+    } // sendBuffer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  host A host.
+     * @return a stream to which the host's received frames are appended.
+     */
+    private static ByteArrayOutputStream collect (Host host) {
+
+	ByteArrayOutputStream received = new ByteArrayOutputStream();
+	host.setFrameListener(data -> {
+		byte[] chunk = new byte[data.remaining()];
+		data.get(chunk);
+		received.write(chunk, 0, chunk.length);
+	    });
+	return received;
+
+    } // collect ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class StreamingSendTest
+// =============================================================================
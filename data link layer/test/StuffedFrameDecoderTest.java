@@ -0,0 +1,160 @@
+// =============================================================================
+// IMPORTS
+
+import java.nio.charset.StandardCharsets;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Tests of the resumable frame decoder: each byte must move it the same way
+ * however the stream is split, with escapes, restarts and oversized frames
+ * reported as they happen.
+ *
+ * @file   StuffedFrameDecoderTest.java
+ * @author Ahmed Aly
+ * @date   October 2026
+ */
+public class StuffedFrameDecoderTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    public static void main (String[] args) {
+
+	run();
+	Check.exit();
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /** Run every check. */
+    static void run () {
+
+	StuffedFrameDecoder decoder = decoder(0);
+
+	// Bytes before a start tag are discarded; an escaped tag is data.
+	Check.equal(StuffedFrameDecoder.BYTE_DISCARDED,
+		    decoder.consume((byte)'x'),
+		    "a byte while hunting");
+	Check.equal(StuffedFrameDecoder.FRAME_COMPLETE,
+		    feed(decoder, "{a\\}b\\\\c}"),
+		    "an escaped frame");
+	Check.equal(bytes("a}b\\c"),
+		    decoder.copyData(decoder.length()),
+		    "the escaped frame's data");
+	Check.equal(Integer.bitCount('a') + Integer.bitCount('}') +
+		    Integer.bitCount('b') + Integer.bitCount('\\') +
+		    Integer.bitCount('c'),
+		    decoder.onesCount(),
+		    "the ones in the escaped frame");
+
+	// An empty frame.
+	Check.equal(StuffedFrameDecoder.FRAME_COMPLETE,
+		    feed(decoder, "{}"),
+		    "an empty frame");
+	Check.equal(0, decoder.length(), "the empty frame's length");
+
+	// A start tag inside a frame drops what came before it.
+	Check.equal(StuffedFrameDecoder.FRAME_RESTARTED,
+		    feed(decoder, "{lost{"),
+		    "a start tag within a frame");
+	Check.equal(StuffedFrameDecoder.FRAME_COMPLETE,
+		    feed(decoder, "kept}"),
+		    "the frame after a restart");
+	Check.equal(bytes("kept"),
+		    decoder.copyData(decoder.length()),
+		    "the frame after a restart's data");
+
+	// A frame longer than the limit is dropped, and the decoder hunts.
+	StuffedFrameDecoder bounded = decoder(3);
+	Check.equal(StuffedFrameDecoder.FRAME_COMPLETE,
+		    feed(bounded, "{abc}"),
+		    "a frame at the limit");
+	Check.equal(StuffedFrameDecoder.FRAME_OVERSIZED,
+		    feed(bounded, "{abcd"),
+		    "a frame over the limit");
+	Check.equal(StuffedFrameDecoder.BYTE_DISCARDED,
+		    feed(bounded, "}"),
+		    "the end of an oversized frame");
+
+	// Without a limit, a long frame grows the decoder's array.
+	StringBuilder longFrame = new StringBuilder("{");
+	for (int i = 0; i < 1000; i += 1) {
+	    longFrame.append((char)('a' + i % 26));
+	}
+	Check.equal(StuffedFrameDecoder.FRAME_COMPLETE,
+		    feed(decoder, longFrame.append('}').toString()),
+		    "a long frame");
+	Check.equal(1000, decoder.length(), "the long frame's length");
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  maxLength The most data bytes a frame may hold, or zero.
+     * @return a decoder with the tags of the simple layers.
+     */
+    private static StuffedFrameDecoder decoder (int maxLength) {
+
+	return new StuffedFrameDecoder((byte)'{',
+				       (byte)'}',
+				       (byte)'\\',
+				       maxLength);
+
+    } // decoder ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Feed a string's bytes to a decoder.
+     *
+     * @param  decoder The decoder.
+     * @param  text    The bytes, as text.
+     * @return the result of the last byte, after checking that every earlier
+     *         one left a frame in progress.
+     */
+    private static int feed (StuffedFrameDecoder decoder, String text) {
+
+	byte[]  input  = bytes(text);
+	int     result = StuffedFrameDecoder.IN_PROGRESS;
+	boolean steady = true;
+	for (int i = 0; i < input.length; i += 1) {
+	    steady = steady && result == StuffedFrameDecoder.IN_PROGRESS;
+	    result = decoder.consume(input[i]);
+	}
+	Check.that(steady, "frame in progress mid-way through " + text);
+	return result;
+
+    } // feed ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * @param  text Text.
+     * @return its bytes.
+     */
+    private static byte[] bytes (String text) {
+
+	return text.getBytes(StandardCharsets.ISO_8859_1);
+
+    } // bytes ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class StuffedFrameDecoderTest
+// =============================================================================